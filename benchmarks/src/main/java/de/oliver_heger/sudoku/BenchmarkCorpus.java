@@ -0,0 +1,201 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * An enumeration defining the puzzle collections used by the benchmarks.
+ * </p>
+ * <p>
+ * For the standard 9x9 size, the collections consist of well-known puzzles:
+ * An easy newspaper puzzle, puzzles which are known to be hard for
+ * backtracking solvers, and puzzles with the minimum number of 17 clues. For
+ * other sizes, puzzles are generated from random complete grids by keeping a
+ * fraction of the cells which corresponds to the clue density of the 9x9
+ * collection. The generation is based on a fixed seed, so all benchmark runs
+ * use the same puzzles.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum BenchmarkCorpus {
+    EASY(0.5,
+            "530070000600195000098000060"
+            + "800060003400803001700020006060000280000419005000080079"),
+
+    HARD(0.3,
+            "800000000003600000070090200"
+            + "050007000000045700000100030001000068008500010090000400",
+            "000000012000000003002300400"
+            + "001800005060070800000009000008500000900040500470006000"),
+
+    SEVENTEEN(17.0 / 81,
+            "000000010400000000020000000"
+            + "000050407008000300001090000300400200050100000000806000",
+            "000000012000035000000600070"
+            + "700000300000400800100000000000120000080000040050000600",
+            "000000012003600000000007000"
+            + "410020000000500300700000600280000040000300500000000000");
+
+    /** Constant for the standard square size. */
+    private static final int STANDARD_SIZE = 3;
+
+    /** Constant for the number of generated puzzles. */
+    private static final int GENERATED_COUNT = 8;
+
+    /** Constant for the seed of the random generator. */
+    private static final long SEED = 20131231L;
+
+    /** The fraction of cells kept for generated puzzles. */
+    private final double clueDensity;
+
+    /** The puzzles for the standard size. */
+    private final String[] standardPuzzles;
+
+    /**
+     * Creates a new instance of <code>BenchmarkCorpus</code>.
+     *
+     * @param density the fraction of cells kept for generated puzzles
+     * @param puzzles the puzzles for the standard size
+     */
+    private BenchmarkCorpus(double density, String... puzzles)
+    {
+        clueDensity = density;
+        standardPuzzles = puzzles;
+    }
+
+    /**
+     * Returns the puzzles of this collection for the given square size. Each
+     * puzzle is an array with the values of all cells row by row.
+     *
+     * @param squareSize the square size
+     * @return an array with the puzzles
+     */
+    public short[][] createPuzzles(short squareSize)
+    {
+        if (squareSize == STANDARD_SIZE)
+        {
+            short[][] puzzles = new short[standardPuzzles.length][];
+            for (int i = 0; i < puzzles.length; i++)
+            {
+                puzzles[i] = new short[standardPuzzles[i].length()];
+                for (int j = 0; j < puzzles[i].length; j++)
+                {
+                    puzzles[i][j] = (short) (standardPuzzles[i].charAt(j) - '0');
+                }
+            }
+            return puzzles;
+        }
+
+        Random random = new Random(SEED + squareSize);
+        short[][] puzzles = new short[GENERATED_COUNT][];
+        for (int i = 0; i < puzzles.length; i++)
+        {
+            short[] grid = randomGrid(squareSize, random);
+            for (int j = 0; j < grid.length; j++)
+            {
+                if (random.nextDouble() >= clueDensity)
+                {
+                    grid[j] = 0;
+                }
+            }
+            puzzles[i] = grid;
+        }
+        return puzzles;
+    }
+
+    /**
+     * Creates a random complete grid. A solution of the empty field is
+     * transformed by a random relabeling of the numbers and random
+     * permutations of the rows and columns which preserve the sudoku rules.
+     *
+     * @param squareSize the square size
+     * @param random the random generator
+     * @return the complete grid
+     */
+    private static short[] randomGrid(short squareSize, Random random)
+    {
+        DancingLinksSolver solver = new DancingLinksSolver(squareSize);
+        solver.solve();
+        int fieldSize = solver.getFieldSize();
+        int[] numbers = permutation(fieldSize, 1, random);
+        int[] rows = linePermutation(squareSize, random);
+        int[] cols = linePermutation(squareSize, random);
+
+        short[] grid = new short[fieldSize * fieldSize];
+        for (int row = 0; row < fieldSize; row++)
+        {
+            for (int col = 0; col < fieldSize; col++)
+            {
+                grid[row * fieldSize + col] = (short) numbers[solver.getCell(
+                        rows[row], cols[col]) - 1];
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Creates a random permutation of the rows or columns of a field which
+     * keeps the squares intact. Both the bands of squares and the lines
+     * within a band are shuffled.
+     *
+     * @param squareSize the square size
+     * @param random the random generator
+     * @return the permutation
+     */
+    private static int[] linePermutation(int squareSize, Random random)
+    {
+        int[] bands = permutation(squareSize, 0, random);
+        int[] lines = new int[squareSize * squareSize];
+        for (int band = 0; band < squareSize; band++)
+        {
+            int[] inner = permutation(squareSize, 0, random);
+            for (int i = 0; i < squareSize; i++)
+            {
+                lines[band * squareSize + i] = bands[band] * squareSize
+                        + inner[i];
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Creates a random permutation of consecutive numbers.
+     *
+     * @param size the number of elements
+     * @param start the first number
+     * @param random the random generator
+     * @return the permutation
+     */
+    private static int[] permutation(int size, int start, Random random)
+    {
+        int[] perm = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            perm[i] = start + i;
+        }
+        for (int i = size - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+        }
+        return perm;
+    }
+}
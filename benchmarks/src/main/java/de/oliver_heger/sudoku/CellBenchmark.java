@@ -0,0 +1,165 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Micro benchmarks for the operations of {@link SudokuSolver} which are
+ * executed in the inner loops of the search.
+ * </p>
+ * <p>
+ * The solver is filled with the first puzzle of the easy collection. The
+ * benchmarks then iterate over all cells of the field, so that the results
+ * are not distorted by a single cell. This class is in the package of the
+ * solver in order to access the package private methods.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellBenchmark
+{
+    /** The square size. */
+    @Param({ "2", "3", "4", "5" })
+    public short squareSize;
+
+    /** The solver. */
+    private SudokuSolver solver;
+
+    /** The current row index. */
+    private int row;
+
+    /** The current column index. */
+    private int col;
+
+    /** The current number. */
+    private short number;
+
+    /**
+     * Creates the solver and fills in a puzzle.
+     *
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    @Setup
+    public void setUp() throws SudokuSolverException
+    {
+        solver = new SudokuSolver(squareSize);
+        solver.load(BenchmarkCorpus.EASY.createPuzzles(squareSize)[0]);
+        number = 1;
+    }
+
+    /**
+     * Measures <code>checkAllowed()</code>.
+     *
+     * @return the result of the check
+     */
+    @Benchmark
+    public SudokuState checkAllowed()
+    {
+        next();
+        return solver.checkAllowed(number, row, col);
+    }
+
+    /**
+     * Measures <code>getSquareIndex()</code>.
+     *
+     * @return the square index
+     */
+    @Benchmark
+    public short getSquareIndex()
+    {
+        next();
+        return solver.getSquareIndex(row, col);
+    }
+
+    /**
+     * Measures <code>getCandidates()</code>.
+     *
+     * @return the candidates
+     */
+    @Benchmark
+    public long getCandidates()
+    {
+        next();
+        return solver.getCandidates(row, col);
+    }
+
+    /**
+     * Measures a <code>setCell()</code> operation on an empty cell followed
+     * by a <code>clearCell()</code> which restores the state. Cells for which
+     * the number is not allowed cause an exception which is caught.
+     *
+     * @return the value of the cell after the set operation
+     */
+    @Benchmark
+    public short setAndClearCell()
+    {
+        next();
+        if (solver.getCell(row, col) != 0)
+        {
+            return 0;
+        }
+        try
+        {
+            solver.setCell(row, col, number);
+        }
+        catch (SudokuSolverException ssex)
+        {
+            return -1;
+        }
+        short value = solver.getCell(row, col);
+        solver.clearCell(row, col);
+        return value;
+    }
+
+    /**
+     * Moves to the next cell and number.
+     */
+    private void next()
+    {
+        if (++col == solver.getFieldSize())
+        {
+            col = 0;
+            if (++row == solver.getFieldSize())
+            {
+                row = 0;
+                if (++number > solver.getFieldSize())
+                {
+                    number = 1;
+                }
+            }
+        }
+    }
+}
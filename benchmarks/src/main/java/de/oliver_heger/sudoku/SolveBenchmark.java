@@ -0,0 +1,112 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * A JMH benchmark measuring the throughput and latency of
+ * {@link SudokuSolver#solve()}.
+ * </p>
+ * <p>
+ * The benchmark is parameterized with the square size, the puzzle collection
+ * (see {@link BenchmarkCorpus}), the search strategy, and the propagation
+ * flag. Each invocation loads the next puzzle of the collection into a
+ * reused solver and solves it. Note that the <code>NUMBER_BY_COLUMN</code>
+ * strategy without propagation may not finish in acceptable time for the
+ * larger sizes; therefore the defaults use the
+ * <code>MINIMUM_REMAINING_VALUES</code> strategy with propagation. Other
+ * combinations can be selected using the <code>-p</code> option of JMH.
+ * The 25x25 field (<code>-p squareSize=5</code>) is not part of the defaults:
+ * single puzzles of the sparse generated collections can keep the
+ * backtracking search busy for minutes, which renders the measurement
+ * meaningless; the <code>EASY</code> collection of this size works fine.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark
+{
+    /** The square size. */
+    @Param({ "2", "3", "4" })
+    public short squareSize;
+
+    /** The puzzle collection. */
+    @Param({ "EASY", "HARD", "SEVENTEEN" })
+    public BenchmarkCorpus corpus;
+
+    /** The search strategy. */
+    @Param({ "MINIMUM_REMAINING_VALUES" })
+    public SearchStrategy strategy;
+
+    /** The propagation flag. */
+    @Param({ "true" })
+    public boolean propagation;
+
+    /** The solver. */
+    private SudokuSolver solver;
+
+    /** The puzzles to solve. */
+    private short[][] puzzles;
+
+    /** The index of the next puzzle. */
+    private int index;
+
+    /**
+     * Creates the solver and the puzzles.
+     */
+    @Setup
+    public void setUp()
+    {
+        solver = new SudokuSolver(squareSize);
+        solver.setSearchStrategy(strategy);
+        solver.setPropagation(propagation);
+        puzzles = corpus.createPuzzles(squareSize);
+    }
+
+    /**
+     * Solves the next puzzle of the collection.
+     *
+     * @return the solved flag
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    @Benchmark
+    public boolean solve() throws SudokuSolverException
+    {
+        solver.load(puzzles[index]);
+        index = (index + 1) % puzzles.length;
+        return solver.solve();
+    }
+}
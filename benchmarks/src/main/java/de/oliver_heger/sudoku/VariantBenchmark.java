@@ -0,0 +1,152 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * A JMH benchmark comparing the solving of classic sudokus with the solving
+ * of sudoku variants.
+ * </p>
+ * <p>
+ * The puzzles of a collection (see {@link BenchmarkCorpus}) are solved with the
+ * <code>MINIMUM_REMAINING_VALUES</code> strategy and propagation. If the
+ * <code>cages</code> parameter is set, each puzzle is turned into a killer
+ * sudoku: the cells of its solution are combined to cages of two adjacent cells
+ * in the same row. The presets remain the same; the cages make the puzzles
+ * easier, but they have to be checked at each node of the search. Without
+ * cages, the results must be the same as for {@link SolveBenchmark}: the checks
+ * for cages and diagonals must not slow down solvers without a variant. Each
+ * puzzle has its own solver, because setting a variant clears the field.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariantBenchmark
+{
+    /** The square size. */
+    @Param({ "3" })
+    public short squareSize;
+
+    /** The puzzle collection. */
+    @Param({ "EASY", "HARD", "SEVENTEEN" })
+    public BenchmarkCorpus corpus;
+
+    /** A flag whether the puzzles are solved as killer sudokus. */
+    @Param({ "false", "true" })
+    public boolean cages;
+
+    /** The solvers, one per puzzle. */
+    private SudokuSolver[] solvers;
+
+    /** The puzzles to solve. */
+    private short[][] puzzles;
+
+    /** The index of the next puzzle. */
+    private int index;
+
+    /**
+     * Creates the solvers and the puzzles.
+     *
+     * @throws SudokuSolverException if a puzzle is invalid
+     */
+    @Setup
+    public void setUp() throws SudokuSolverException
+    {
+        puzzles = corpus.createPuzzles(squareSize);
+        solvers = new SudokuSolver[puzzles.length];
+        for (int i = 0; i < puzzles.length; i++)
+        {
+            solvers[i] = new SudokuSolver(squareSize);
+            solvers[i].setSearchStrategy(
+                    SearchStrategy.MINIMUM_REMAINING_VALUES);
+            solvers[i].setPropagation(true);
+            if (cages)
+            {
+                solvers[i].setVariant(createKillerVariant(puzzles[i]));
+            }
+        }
+    }
+
+    /**
+     * Solves the next puzzle of the collection.
+     *
+     * @return the solved flag
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    @Benchmark
+    public boolean solve() throws SudokuSolverException
+    {
+        SudokuSolver solver = solvers[index];
+        solver.load(puzzles[index]);
+        index = (index + 1) % puzzles.length;
+        return solver.solve();
+    }
+
+    /**
+     * Creates a killer sudoku variant for a puzzle. The puzzle is solved, and
+     * the cells of the solution are combined to cages of two adjacent cells
+     * in the same row.
+     *
+     * @param puzzle the puzzle
+     * @return the variant
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    private SudokuVariant createKillerVariant(short[] puzzle)
+            throws SudokuSolverException
+    {
+        SudokuSolver solver = new SudokuSolver(squareSize);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(true);
+        solver.load(puzzle);
+        solver.solve();
+        short[] solution = new short[puzzle.length];
+        solver.getCells(solution);
+
+        SudokuVariant variant = new SudokuVariant(squareSize);
+        int fieldSize = solver.getFieldSize();
+        for (int start = 0; start < solution.length; start += fieldSize)
+        {
+            for (int col = 0; col < fieldSize; col += 2)
+            {
+                int cell = start + col;
+                variant = (col + 1 < fieldSize) ? variant.withCage(
+                        solution[cell] + solution[cell + 1], cell, cell + 1)
+                        : variant.withCage(solution[cell], cell);
+            }
+        }
+        return variant;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * A class representing the result of solving a single puzzle of a batch.
+ * </p>
+ * <p>
+ * Objects of this class are produced by {@link BatchSolver}. They contain the
+ * index of the puzzle in the input list, the solution (if one was found), and
+ * the time spent on this puzzle. If the presets of the puzzle violate the
+ * sudoku rules, the corresponding exception is available. Instances are
+ * immutable.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class BatchResult
+{
+    /** The index of the puzzle in the batch. */
+    private final int index;
+
+    /** The solution; null if there is none. */
+    private final short[] solution;
+
+    /** An exception caused by invalid presets. */
+    private final SudokuSolverException error;
+
+    /** The time needed for this puzzle in nanoseconds. */
+    private final long time;
+
+    /**
+     * Creates a new instance of <code>BatchResult</code> and initializes it.
+     *
+     * @param idx the index of the puzzle
+     * @param sol the solution (<b>null</b> if the puzzle could not be solved)
+     * @param ex an exception caused by invalid presets (can be <b>null</b>)
+     * @param t the time in nanoseconds
+     */
+    public BatchResult(int idx, short[] sol, SudokuSolverException ex, long t)
+    {
+        index = idx;
+        solution = sol;
+        error = ex;
+        time = t;
+    }
+
+    /**
+     * Returns the index of the puzzle in the batch.
+     *
+     * @return the index
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Returns a flag whether a solution was found.
+     *
+     * @return a flag whether the puzzle was solved
+     */
+    public boolean isSolved()
+    {
+        return solution != null;
+    }
+
+    /**
+     * Returns the solution of the puzzle. The array contains the values of
+     * all cells row by row. If no solution was found, result is <b>null</b>.
+     *
+     * @return the solution
+     */
+    public short[] getSolution()
+    {
+        return (solution != null) ? solution.clone() : null;
+    }
+
+    /**
+     * Returns the exception thrown when the presets of the puzzle were filled
+     * in. A value different from <b>null</b> means that the puzzle is invalid.
+     *
+     * @return the exception caused by the presets or <b>null</b>
+     */
+    public SudokuSolverException getError()
+    {
+        return error;
+    }
+
+    /**
+     * Returns the time needed for this puzzle in nanoseconds. This includes
+     * filling in the presets and the search.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTime()
+    {
+        return time;
+    }
+}
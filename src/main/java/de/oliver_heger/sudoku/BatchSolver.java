@@ -0,0 +1,288 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * A class for solving a batch of sudokus in parallel.
+ * </p>
+ * <p>
+ * An instance is created for a specific square size and a
+ * <code>ForkJoinPool</code>. The {@link #solveAll(List)} method accepts a list
+ * of puzzles, each of which is an array with the values of all cells row by
+ * row (0 for an empty cell). The list is split recursively into chunks which
+ * are processed by the worker threads of the pool. The results are returned
+ * in the order of the input list.
+ * </p>
+ * <p>
+ * Each worker thread uses its own {@link SudokuSolver} instance into which
+ * the puzzles are loaded one after the other. So the data structures of the
+ * solver are allocated only once per thread. The search strategy and the
+ * propagation flag of these solvers can be configured; per default, the
+ * <code>MINIMUM_REMAINING_VALUES</code> strategy with propagation is used.
+ * Instances of this class can be shared between threads, but the
+ * configuration should not be changed while a batch is processed.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class BatchSolver
+{
+    /** Constant for the maximum number of puzzles solved by a single task. */
+    private static final int CHUNK_SIZE = 16;
+
+    /** The pool executing the tasks. */
+    private final ForkJoinPool pool;
+
+    /** Stores the solvers of the single worker threads. */
+    private final ThreadLocal<SudokuSolver> solvers;
+
+    /** The square size of the sudokus to solve. */
+    private final short squareSize;
+
+    /** The search strategy to be used. */
+    private volatile SearchStrategy searchStrategy;
+
+    /** The propagation flag to be used. */
+    private volatile boolean propagation;
+
+    /**
+     * Creates a new instance of <code>BatchSolver</code> for the given square
+     * size which uses the specified pool.
+     *
+     * @param sqrSz the square size of the sudokus to solve
+     * @param p the pool for executing the tasks (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the pool is <b>null</b> or the
+     * square size is invalid
+     */
+    public BatchSolver(short sqrSz, ForkJoinPool p)
+    {
+        if (p == null)
+        {
+            throw new IllegalArgumentException("Pool must not be null!");
+        }
+        if (sqrSz < 2 || sqrSz > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Square size must be in the range from 2 to "
+                            + SudokuSolver.MAX_SQUARE_SIZE + "!");
+        }
+
+        squareSize = sqrSz;
+        pool = p;
+        searchStrategy = SearchStrategy.MINIMUM_REMAINING_VALUES;
+        propagation = true;
+        solvers = new ThreadLocal<SudokuSolver>()
+        {
+            @Override
+            protected SudokuSolver initialValue()
+            {
+                return new SudokuSolver(squareSize);
+            }
+        };
+    }
+
+    /**
+     * Creates a new instance of <code>BatchSolver</code> for the given square
+     * size which uses the common pool.
+     *
+     * @param sqrSz the square size of the sudokus to solve
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    public BatchSolver(short sqrSz)
+    {
+        this(sqrSz, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the square size of the sudokus processed by this object.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the search strategy used by the solvers.
+     *
+     * @return the search strategy
+     */
+    public SearchStrategy getSearchStrategy()
+    {
+        return searchStrategy;
+    }
+
+    /**
+     * Sets the search strategy used by the solvers.
+     *
+     * @param strategy the search strategy (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the strategy is <b>null</b>
+     */
+    public void setSearchStrategy(SearchStrategy strategy)
+    {
+        if (strategy == null)
+        {
+            throw new IllegalArgumentException(
+                    "Search strategy must not be null!");
+        }
+        searchStrategy = strategy;
+    }
+
+    /**
+     * Returns the propagation flag used by the solvers.
+     *
+     * @return the propagation flag
+     */
+    public boolean isPropagation()
+    {
+        return propagation;
+    }
+
+    /**
+     * Sets the propagation flag used by the solvers.
+     *
+     * @param f the propagation flag
+     */
+    public void setPropagation(boolean f)
+    {
+        propagation = f;
+    }
+
+    /**
+     * Solves all puzzles in the given list. This method blocks until all
+     * puzzles have been processed. The list returned contains one result
+     * object per puzzle in the order of the input list.
+     *
+     * @param puzzles the list with the puzzles to solve
+     * @return a list with the results
+     * @throws IllegalArgumentException if a puzzle has the wrong size
+     */
+    public List<BatchResult> solveAll(List<short[]> puzzles)
+    {
+        int cellCount = squareSize * squareSize * squareSize * squareSize;
+        for (short[] puzzle : puzzles)
+        {
+            if (puzzle.length != cellCount)
+            {
+                throw new IllegalArgumentException("Wrong puzzle size: "
+                        + puzzle.length);
+            }
+        }
+
+        BatchResult[] results = new BatchResult[puzzles.size()];
+        pool.invoke(new SolveTask(puzzles, results, 0, results.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Solves a single puzzle using the solver of the current thread.
+     *
+     * @param index the index of the puzzle
+     * @param puzzle the puzzle
+     * @return the result for this puzzle
+     */
+    BatchResult solvePuzzle(int index, short[] puzzle)
+    {
+        long start = System.nanoTime();
+        SudokuSolver solver = solvers.get();
+        solver.setSearchStrategy(searchStrategy);
+        solver.setPropagation(propagation);
+
+        try
+        {
+            solver.load(puzzle);
+        }
+        catch (SudokuSolverException ssex)
+        {
+            return new BatchResult(index, null, ssex, System.nanoTime()
+                    - start);
+        }
+
+        short[] solution = null;
+        if (solver.solve())
+        {
+            solution = new short[puzzle.length];
+            solver.getCells(solution);
+        }
+        return new BatchResult(index, solution, null, System.nanoTime()
+                - start);
+    }
+
+    /**
+     * The task class for solving a range of puzzles. If the range is small
+     * enough, the puzzles are solved directly. Otherwise, the range is split
+     * into two halves which are processed by sub tasks.
+     */
+    @SuppressWarnings("serial")
+    private class SolveTask extends RecursiveAction
+    {
+        /** The list with all puzzles. */
+        private final List<short[]> puzzles;
+
+        /** The array for storing the results. */
+        private final BatchResult[] results;
+
+        /** The start index of the range (inclusive). */
+        private final int from;
+
+        /** The end index of the range (exclusive). */
+        private final int to;
+
+        /**
+         * Creates a new instance of <code>SolveTask</code>.
+         *
+         * @param p the list with puzzles
+         * @param r the array for the results
+         * @param f the start index
+         * @param t the end index
+         */
+        public SolveTask(List<short[]> p, BatchResult[] r, int f, int t)
+        {
+            puzzles = p;
+            results = r;
+            from = f;
+            to = t;
+        }
+
+        /**
+         * Processes the range of this task.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from <= CHUNK_SIZE)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    results[i] = solvePuzzle(i, puzzles.get(i));
+                }
+            }
+            else
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveTask(puzzles, results, from, mid),
+                        new SolveTask(puzzles, results, mid, to));
+            }
+        }
+    }
+}
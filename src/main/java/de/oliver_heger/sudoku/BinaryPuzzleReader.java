@@ -0,0 +1,290 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * A class for reading puzzles from a file in a compact binary format.
+ * </p>
+ * <p>
+ * A binary puzzle file starts with a header of 16 bytes:
+ * <ul>
+ * <li>the magic number 'SDKB' (4 bytes)</li>
+ * <li>the format version (1 byte)</li>
+ * <li>the square size (1 byte)</li>
+ * <li>the number of bits per cell (1 byte)</li>
+ * <li>a reserved byte</li>
+ * <li>the number of puzzles (8 bytes, big endian)</li>
+ * </ul>
+ * The puzzles follow without any separators. Each puzzle stores its cells row
+ * by row with the number of bits required for the values 0 to the field size,
+ * e.g. 4 bits for a 9x9 sudoku; the most significant bits come first. Every
+ * puzzle is padded to a full byte, so a 9x9 puzzle requires 41 bytes, and the
+ * position of a puzzle can be computed from its index.
+ * </p>
+ * <p>
+ * The file is mapped into memory using <code>FileChannel.map()</code>, so no
+ * data is copied into buffers of the application; the operating system pages
+ * in the parts of the file that are accessed. Large files are mapped in
+ * multiple segments. Puzzles are decoded on demand by their index directly
+ * into an array which can be passed to {@link SudokuSolver#load(short[])}.
+ * As the mapped buffers are accessed only by absolute positions, a single
+ * instance can be used by multiple threads concurrently, provided that each
+ * thread uses its own array.
+ * </p>
+ * <p>
+ * Files in this format are created by {@link BinaryPuzzleWriter}.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class BinaryPuzzleReader implements Closeable
+{
+    /** Constant for the magic number at the beginning of a file. */
+    static final int MAGIC = 0x53444B42;
+
+    /** Constant for the version of the format. */
+    static final byte VERSION = 1;
+
+    /** Constant for the size of the header. */
+    static final int HEADER_SIZE = 16;
+
+    /** Constant for the offset of the puzzle count in the header. */
+    static final int COUNT_OFFSET = 8;
+
+    /** Constant for the maximum size of a mapped segment. */
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    /** The channel to read from. */
+    private final FileChannel channel;
+
+    /** The mapped segments of the file. */
+    private final MappedByteBuffer[] segments;
+
+    /** The square size of the puzzles. */
+    private final short squareSize;
+
+    /** The number of cells of a puzzle. */
+    private final int cellCount;
+
+    /** The number of bits per cell. */
+    private final int bitsPerCell;
+
+    /** The number of bytes of a single puzzle. */
+    private final int puzzleSize;
+
+    /** The number of puzzles per segment. */
+    private final long segmentPuzzles;
+
+    /** The number of puzzles in the file. */
+    private final long count;
+
+    /**
+     * Creates a new instance of <code>BinaryPuzzleReader</code> which reads
+     * from the given file channel. The header is read and the file is mapped
+     * into memory.
+     *
+     * @param ch the channel to read from
+     * @throws IOException if an I/O error occurs or the file does not have the
+     * expected format
+     */
+    public BinaryPuzzleReader(FileChannel ch) throws IOException
+    {
+        channel = ch;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readStart(ch, header) || header.getInt(0) != MAGIC)
+        {
+            throw new IOException("Not a binary puzzle file!");
+        }
+        if (header.get(4) != VERSION)
+        {
+            throw new IOException("Unsupported version: " + header.get(4));
+        }
+
+        squareSize = header.get(5);
+        if (squareSize < 2 || squareSize > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IOException("Unsupported square size: " + squareSize);
+        }
+        int fieldSize = squareSize * squareSize;
+        cellCount = fieldSize * fieldSize;
+        bitsPerCell = header.get(6);
+        if (bitsPerCell != bitsPerCell(fieldSize))
+        {
+            throw new IOException("Invalid number of bits per cell: "
+                    + bitsPerCell);
+        }
+        puzzleSize = puzzleSize(squareSize);
+        count = header.getLong(COUNT_OFFSET);
+        if (count < 0 || count > (ch.size() - HEADER_SIZE) / puzzleSize)
+        {
+            throw new IOException("File is truncated!");
+        }
+
+        segmentPuzzles = MAX_SEGMENT_SIZE / puzzleSize;
+        segments = new MappedByteBuffer[(int) ((count + segmentPuzzles - 1)
+                / segmentPuzzles)];
+        for (int i = 0; i < segments.length; i++)
+        {
+            long first = i * segmentPuzzles;
+            long size = Math.min(segmentPuzzles, count - first) * puzzleSize;
+            segments[i] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE
+                    + first * puzzleSize, size);
+        }
+    }
+
+    /**
+     * Checks whether the given channel contains a binary puzzle file. This
+     * method only tests the magic number; it does not change the position of
+     * the channel.
+     *
+     * @param ch the channel to check
+     * @return a flag whether this is a binary puzzle file
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isBinary(FileChannel ch) throws IOException
+    {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        return readStart(ch, magic) && magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Returns the square size of the puzzles in the file.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the number of puzzles in the file.
+     *
+     * @return the number of puzzles
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Decodes the puzzle with the given index into the specified array. The
+     * array must have one element per cell; the values are stored row by row.
+     * The values are not checked; invalid values are detected when the puzzle
+     * is loaded into a solver.
+     *
+     * @param index the index of the puzzle (0-based)
+     * @param cells the array for the cells
+     * @throws IndexOutOfBoundsException if the index is invalid
+     * @throws IllegalArgumentException if the array has a wrong length
+     */
+    public void read(long index, short[] cells)
+    {
+        if (index < 0 || index >= count)
+        {
+            throw new IndexOutOfBoundsException("Invalid puzzle index: "
+                    + index);
+        }
+        if (cells.length != cellCount)
+        {
+            throw new IllegalArgumentException("Puzzle must have "
+                    + cellCount + " cells!");
+        }
+
+        MappedByteBuffer segment = segments[(int) (index / segmentPuzzles)];
+        int pos = (int) (index % segmentPuzzles) * puzzleSize;
+        int mask = (1 << bitsPerCell) - 1;
+        int bits = 0;
+        int available = 0;
+        for (int i = 0; i < cellCount; i++)
+        {
+            if (available < bitsPerCell)
+            {
+                bits = (bits << 8) | (segment.get(pos++) & 0xFF);
+                available += 8;
+            }
+            available -= bitsPerCell;
+            cells[i] = (short) ((bits >>> available) & mask);
+        }
+    }
+
+    /**
+     * Closes the underlying channel. The mapped buffers remain valid until
+     * they are garbage collected, but this object must not be used any more.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Fills the given buffer with the data at the beginning of a channel. The
+     * position of the channel is not changed.
+     *
+     * @param ch the channel
+     * @param buf the buffer to fill
+     * @return <b>false</b> if the channel contains less data than the buffer
+     * can hold
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean readStart(FileChannel ch, ByteBuffer buf)
+            throws IOException
+    {
+        while (buf.hasRemaining())
+        {
+            if (ch.read(buf, buf.position()) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bits required for a cell of a field with the
+     * given size.
+     *
+     * @param fieldSize the field size
+     * @return the number of bits per cell
+     */
+    static int bitsPerCell(int fieldSize)
+    {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(fieldSize);
+    }
+
+    /**
+     * Returns the number of bytes required for a puzzle with the given square
+     * size.
+     *
+     * @param squareSize the square size
+     * @return the size of a puzzle in bytes
+     */
+    static int puzzleSize(int squareSize)
+    {
+        int fieldSize = squareSize * squareSize;
+        return (fieldSize * fieldSize * bitsPerCell(fieldSize) + 7) / 8;
+    }
+}
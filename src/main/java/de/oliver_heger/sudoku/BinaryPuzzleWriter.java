@@ -0,0 +1,305 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * A class for writing puzzles in the compact binary format read by
+ * {@link BinaryPuzzleReader}.
+ * </p>
+ * <p>
+ * The header is written when the object is created; the number of puzzles is
+ * updated when the writer is closed. Therefore, the channel must be
+ * positioned at the beginning and must support changing the position. The
+ * puzzles are packed into a fixed size buffer which is written to the channel
+ * when it is full or when <code>flush()</code> is called. Instances of this
+ * class are not thread-safe.
+ * </p>
+ * <p>
+ * The <code>main()</code> method converts a text file readable by
+ * {@link PuzzleReader} to the binary format. Usage:
+ * <code>BinaryPuzzleWriter &lt;squareSize&gt; &lt;input&gt;
+ * &lt;output&gt;</code>.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class BinaryPuzzleWriter implements Closeable, Flushable
+{
+    /** Constant for the size of the write buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The channel to write to. */
+    private final SeekableByteChannel channel;
+
+    /** The buffer for collecting data. */
+    private final ByteBuffer buffer;
+
+    /** The field size of the puzzles. */
+    private final int fieldSize;
+
+    /** The number of cells of a puzzle. */
+    private final int cellCount;
+
+    /** The number of bits per cell. */
+    private final int bitsPerCell;
+
+    /** The number of bytes of a single puzzle. */
+    private final int puzzleSize;
+
+    /** The number of puzzles written. */
+    private long count;
+
+    /**
+     * Creates a new instance of <code>BinaryPuzzleWriter</code> which writes
+     * puzzles of the given square size to the specified channel.
+     *
+     * @param ch the channel to write to
+     * @param squareSize the square size of the puzzles
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    public BinaryPuzzleWriter(SeekableByteChannel ch, short squareSize)
+    {
+        if (squareSize < 2 || squareSize > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException("Invalid square size: "
+                    + squareSize);
+        }
+        channel = ch;
+        fieldSize = squareSize * squareSize;
+        cellCount = fieldSize * fieldSize;
+        bitsPerCell = BinaryPuzzleReader.bitsPerCell(fieldSize);
+        puzzleSize = BinaryPuzzleReader.puzzleSize(squareSize);
+
+        buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, puzzleSize));
+        buffer.putInt(BinaryPuzzleReader.MAGIC)
+                .put(BinaryPuzzleReader.VERSION).put((byte) squareSize)
+                .put((byte) bitsPerCell).put((byte) 0).putLong(0);
+    }
+
+    /**
+     * Returns the number of puzzles written so far.
+     *
+     * @return the number of puzzles
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Writes a puzzle. The array contains the values of all cells row by row.
+     * The values are checked before anything is written, so a rejected puzzle
+     * does not leave a partial record in the output.
+     *
+     * @param cells the values of the cells
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the array has a wrong length or
+     * contains values out of range
+     */
+    public void write(short[] cells) throws IOException
+    {
+        if (cells.length != cellCount)
+        {
+            throw new IllegalArgumentException("Puzzle must have "
+                    + cellCount + " cells!");
+        }
+        for (short value : cells)
+        {
+            if (value < 0 || value > fieldSize)
+            {
+                throw new IllegalArgumentException("Invalid cell value: "
+                        + value);
+            }
+        }
+        if (buffer.remaining() < puzzleSize)
+        {
+            flush();
+        }
+
+        int bits = 0;
+        int available = 0;
+        for (short value : cells)
+        {
+            bits = (bits << bitsPerCell) | value;
+            available += bitsPerCell;
+            if (available >= 8)
+            {
+                available -= 8;
+                buffer.put((byte) (bits >>> available));
+            }
+        }
+        if (available > 0)
+        {
+            buffer.put((byte) (bits << (8 - available)));
+        }
+        count++;
+    }
+
+    /**
+     * Writes all puzzles obtained from the given reader. Lines that cannot be
+     * parsed or that contain invalid values are reported on
+     * <code>System.err</code> and skipped.
+     *
+     * @param reader the reader for the puzzles
+     * @return the number of puzzles written
+     * @throws IOException if an I/O error occurs
+     */
+    public long convert(PuzzleReader reader) throws IOException
+    {
+        long start = count;
+        short[] cells = new short[cellCount];
+        while (true)
+        {
+            try
+            {
+                if (!reader.read(cells))
+                {
+                    break;
+                }
+                write(cells);
+            }
+            catch (PuzzleFormatException pfex)
+            {
+                System.err.println(pfex.getLineNumber() + ": "
+                        + pfex.getMessage());
+            }
+            catch (IllegalArgumentException iex)
+            {
+                System.err.println(reader.getLineNumber() + ": "
+                        + iex.getMessage());
+            }
+        }
+        return count - start;
+    }
+
+    /**
+     * Writes all buffered data to the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer, writes the number of puzzles into the header, and
+     * closes the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+            buffer.putLong(count).flip();
+            channel.position(BinaryPuzzleReader.COUNT_OFFSET);
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * The main method. Converts a text file with puzzles to the binary format.
+     * Lines that cannot be parsed are skipped.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args)
+    {
+        if (args.length != 3)
+        {
+            usage("Wrong number of arguments!");
+        }
+        short squareSize = 0;
+        try
+        {
+            squareSize = Short.parseShort(args[0]);
+        }
+        catch (NumberFormatException nfex)
+        {
+            usage("No valid square size was passed in!");
+        }
+
+        try
+        {
+            BinaryPuzzleWriter writer = new BinaryPuzzleWriter(
+                    FileChannel.open(Paths.get(args[2]),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.WRITE), squareSize);
+            PuzzleReader reader = new PuzzleReader(FileChannel.open(
+                    Paths.get(args[1]), StandardOpenOption.READ));
+            try
+            {
+                writer.convert(reader);
+            }
+            finally
+            {
+                reader.close();
+                writer.close();
+            }
+            System.err.println("Converted " + writer.getCount()
+                    + " puzzles.");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            usage(iex.getMessage());
+        }
+        catch (IOException ioex)
+        {
+            System.err.println("I/O error: " + ioex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Prints a usage message and exits the application.
+     *
+     * @param msg an error message
+     */
+    private static void usage(String msg)
+    {
+        System.err.println("Usage: BinaryPuzzleWriter <squareSize> <input> "
+                + "<output>");
+        System.err.println(msg);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,588 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * A class representing the canonical form of a sudoku puzzle.
+ * </p>
+ * <p>
+ * Many transformations of a puzzle produce puzzles which are essentially the
+ * same: relabeling the numbers, permuting the bands (groups of rows sharing
+ * squares) or the rows within a band, permuting the stacks (groups of
+ * columns) or the columns within a stack, and transposing the field. The
+ * solution of a transformed puzzle is the transformed solution of the
+ * original. This class maps a puzzle to a representative of its class of
+ * equivalent puzzles, its <em>canonical form</em>, and records the
+ * transformation used. So the solution of the canonical puzzle can be mapped
+ * back to a solution of the original puzzle.
+ * </p>
+ * <p>
+ * To find the canonical form, the rows and columns are ordered by invariants
+ * which do not depend on the transformations above (e.g. the number of clues
+ * in a row and the frequencies of the numbers it contains). Rows and columns
+ * with equal invariants are tried in all possible orders if the number of
+ * combinations is not too large, and the smallest result - after relabeling
+ * the numbers in the order of their first occurrence - is selected. For
+ * puzzles with many equal rows or columns, the number of combinations is
+ * limited; then equivalent puzzles may have different canonical forms. This
+ * only reduces the chance of finding a puzzle in a cache; the mapping between
+ * a puzzle and its canonical form is always correct.
+ * </p>
+ * <p>
+ * Instances are immutable. They are created by the {@link #of(short[], short)}
+ * method.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public final class CanonicalForm
+{
+    /** Constant for the maximum number of line orders tried per orientation. */
+    private static final int MAX_COMBINATIONS = 1024;
+
+    /** Constant for the first multiplier used for mixing hash values. */
+    private static final long MIX_MULTIPLIER1 = 0xBF58476D1CE4E5B9L;
+
+    /** Constant for the second multiplier used for mixing hash values. */
+    private static final long MIX_MULTIPLIER2 = 0x94D049BB133111EBL;
+
+    /** The square size. */
+    private final short squareSize;
+
+    /** The cells of the canonical puzzle. */
+    private final short[] cells;
+
+    /** A flag whether the field is transposed. */
+    private final boolean transposed;
+
+    /** The original row for each row of the canonical form. */
+    private final int[] rowOrder;
+
+    /** The original column for each column of the canonical form. */
+    private final int[] columnOrder;
+
+    /** Maps the original numbers to the numbers of the canonical form. */
+    private final short[] labels;
+
+    /** Maps the numbers of the canonical form to the original numbers. */
+    private final short[] inverseLabels;
+
+    /**
+     * Creates a new instance of <code>CanonicalForm</code> with the given
+     * transformation. The cells of the canonical form are computed.
+     *
+     * @param puzzle the original puzzle
+     * @param sqrSz the square size
+     * @param trans the transposed flag
+     * @param rows the row order
+     * @param cols the column order
+     */
+    private CanonicalForm(short[] puzzle, short sqrSz, boolean trans,
+            int[] rows, int[] cols)
+    {
+        squareSize = sqrSz;
+        transposed = trans;
+        rowOrder = rows;
+        columnOrder = cols;
+        labels = new short[rows.length + 1];
+        inverseLabels = new short[rows.length + 1];
+        cells = relabel(arrange(puzzle, trans, rows, cols), labels);
+        for (short i = 1; i < labels.length; i++)
+        {
+            inverseLabels[labels[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the canonical form of the given puzzle. The puzzle is an array
+     * with the values of all cells row by row (0 for an empty cell).
+     *
+     * @param puzzle the puzzle
+     * @param squareSize the square size
+     * @return the canonical form of this puzzle
+     * @throws IllegalArgumentException if the puzzle has a wrong size or
+     * contains values out of range
+     */
+    public static CanonicalForm of(short[] puzzle, short squareSize)
+    {
+        int fieldSize = squareSize * squareSize;
+        if (squareSize < 2 || puzzle.length != fieldSize * fieldSize)
+        {
+            throw new IllegalArgumentException("Wrong puzzle size: "
+                    + puzzle.length);
+        }
+        for (short value : puzzle)
+        {
+            if (value < 0 || value > fieldSize)
+            {
+                throw new IllegalArgumentException("Invalid cell value: "
+                        + value);
+            }
+        }
+
+        CanonicalForm best = null;
+        for (int t = 0; t < 2; t++)
+        {
+            boolean trans = t > 0;
+            short[] grid = arrange(puzzle, trans, identity(fieldSize),
+                    identity(fieldSize));
+            long[][] keys = lineKeys(grid, squareSize);
+            List<int[]> rowOrders = lineOrders(keys[0], squareSize);
+            List<int[]> colOrders = lineOrders(keys[1], squareSize);
+            if (rowOrders.size() * colOrders.size() > MAX_COMBINATIONS)
+            {
+                if (rowOrders.size() > colOrders.size())
+                {
+                    rowOrders = rowOrders.subList(0, 1);
+                }
+                else
+                {
+                    colOrders = colOrders.subList(0, 1);
+                }
+            }
+
+            for (int[] rows : rowOrders)
+            {
+                for (int[] cols : colOrders)
+                {
+                    short[] candidate = relabel(
+                            arrange(puzzle, trans, rows, cols),
+                            new short[fieldSize + 1]);
+                    if (best == null || compare(candidate, best.cells) < 0)
+                    {
+                        best = new CanonicalForm(puzzle, squareSize, trans,
+                                rows, cols);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the square size.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the cells of the canonical puzzle.
+     *
+     * @return an array with the cells of the canonical form
+     */
+    public short[] getCells()
+    {
+        return cells.clone();
+    }
+
+    /**
+     * Applies the transformation of this object to another grid with the
+     * same layout as the original puzzle, e.g. its solution.
+     *
+     * @param grid the grid to transform
+     * @return the transformed grid
+     */
+    public short[] toCanonical(short[] grid)
+    {
+        short[] result = arrange(grid, transposed, rowOrder, columnOrder);
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = labels[result[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Applies the inverse transformation of this object to a grid with the
+     * layout of the canonical form. If the solution of the canonical puzzle is
+     * passed in, the solution of the original puzzle is returned.
+     *
+     * @param grid the grid to transform
+     * @return the transformed grid
+     */
+    public short[] fromCanonical(short[] grid)
+    {
+        int fieldSize = rowOrder.length;
+        short[] result = new short[grid.length];
+        for (int row = 0; row < fieldSize; row++)
+        {
+            for (int col = 0; col < fieldSize; col++)
+            {
+                int r = rowOrder[row];
+                int c = columnOrder[col];
+                int index = transposed ? c * fieldSize + r : r * fieldSize + c;
+                result[index] = inverseLabels[grid[row * fieldSize + col]];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rearranges the rows and columns of a grid. The grid is transposed first
+     * if requested. The row i of the result is then row <code>rows[i]</code>
+     * of the (transposed) grid, and analogously for the columns.
+     *
+     * @param grid the grid
+     * @param trans the transposed flag
+     * @param rows the row order
+     * @param cols the column order
+     * @return the rearranged grid
+     */
+    private static short[] arrange(short[] grid, boolean trans, int[] rows,
+            int[] cols)
+    {
+        int fieldSize = rows.length;
+        short[] result = new short[grid.length];
+        for (int row = 0; row < fieldSize; row++)
+        {
+            for (int col = 0; col < fieldSize; col++)
+            {
+                int r = rows[row];
+                int c = cols[col];
+                result[row * fieldSize + col] =
+                        grid[trans ? c * fieldSize + r : r * fieldSize + c];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Relabels the numbers of a grid in the order of their first occurrence.
+     * The mapping is stored in the passed in array; numbers which do not occur
+     * in the grid are assigned the remaining labels in ascending order.
+     *
+     * @param grid the grid (modified in place)
+     * @param mapping the array for the mapping of the numbers
+     * @return the grid
+     */
+    private static short[] relabel(short[] grid, short[] mapping)
+    {
+        short next = 1;
+        for (int i = 0; i < grid.length; i++)
+        {
+            short value = grid[i];
+            if (value != 0)
+            {
+                if (mapping[value] == 0)
+                {
+                    mapping[value] = next++;
+                }
+                grid[i] = mapping[value];
+            }
+        }
+        for (int i = 1; i < mapping.length; i++)
+        {
+            if (mapping[i] == 0)
+            {
+                mapping[i] = next++;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Computes invariant keys for the rows and columns of a grid. The key of a
+     * row is derived from its clues: for each clue, the frequency of its
+     * number, the number of clues in its column, and the number of clues in
+     * its square are combined. These values do not change under the
+     * transformations. Analogously for the columns.
+     *
+     * @param grid the grid
+     * @param squareSize the square size
+     * @return an array with the row keys and the column keys
+     */
+    private static long[][] lineKeys(short[] grid, int squareSize)
+    {
+        int fieldSize = squareSize * squareSize;
+        int[] numberCounts = new int[fieldSize + 1];
+        int[] rowCounts = new int[fieldSize];
+        int[] colCounts = new int[fieldSize];
+        int[] squareCounts = new int[fieldSize];
+        for (int i = 0; i < grid.length; i++)
+        {
+            if (grid[i] != 0)
+            {
+                int row = i / fieldSize;
+                int col = i % fieldSize;
+                numberCounts[grid[i]]++;
+                rowCounts[row]++;
+                colCounts[col]++;
+                squareCounts[(row / squareSize) * squareSize + col
+                        / squareSize]++;
+            }
+        }
+
+        long[][] keys = new long[2][fieldSize];
+        for (int i = 0; i < grid.length; i++)
+        {
+            if (grid[i] != 0)
+            {
+                int row = i / fieldSize;
+                int col = i % fieldSize;
+                int square = squareCounts[(row / squareSize) * squareSize
+                        + col / squareSize];
+                long number = numberCounts[grid[i]];
+                keys[0][row] += mix((number << 40) + (colCounts[col] << 20)
+                        + square);
+                keys[1][col] += mix((number << 40) + (rowCounts[row] << 20)
+                        + square);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Determines the possible orders of the rows (or columns) based on their
+     * keys. The lines of each block (band or stack) are sorted by their keys,
+     * and the blocks are sorted by the keys of their lines. Blocks or lines
+     * with equal keys can appear in any order; so all these orders are
+     * returned, unless their number is too large. In this case, only the first
+     * order is returned.
+     *
+     * @param keys the keys of the lines
+     * @param squareSize the square size
+     * @return a list with the possible orders of the lines
+     */
+    private static List<int[]> lineOrders(final long[] keys, int squareSize)
+    {
+        int[][] blocks = new int[squareSize][];
+        long[] blockKeys = new long[squareSize];
+        for (int b = 0; b < squareSize; b++)
+        {
+            blocks[b] = sortedRange(keys, b * squareSize, squareSize);
+            for (int line : blocks[b])
+            {
+                blockKeys[b] += mix(keys[line]);
+            }
+        }
+        int[] blockOrder = sortedRange(blockKeys, 0, squareSize);
+
+        List<int[]> groups = new ArrayList<int[]>();
+        long combinations = addTieGroups(groups, blockOrder, blockKeys);
+        for (int[] block : blocks)
+        {
+            combinations *= addTieGroups(groups, block, keys);
+        }
+
+        List<int[]> orders = new ArrayList<int[]>();
+        if (combinations > MAX_COMBINATIONS)
+        {
+            groups.clear();
+        }
+        permuteGroups(groups, 0, blockOrder, blocks, orders);
+        return orders;
+    }
+
+    /**
+     * Finds the groups of elements with equal keys in a sorted array. Each
+     * group is stored as a triple of the array, the start index, and the end
+     * index; these are added to the passed in list.
+     *
+     * @param groups the list of groups
+     * @param order the sorted array of elements
+     * @param keys the keys of the elements
+     * @return the number of possible orders of the groups found
+     */
+    private static long addTieGroups(List<int[]> groups, int[] order,
+            long[] keys)
+    {
+        long combinations = 1;
+        int start = 0;
+        for (int i = 1; i <= order.length; i++)
+        {
+            if (i == order.length || keys[order[i]] != keys[order[start]])
+            {
+                if (i - start > 1)
+                {
+                    groups.add(order);
+                    groups.add(new int[] {
+                            start, i
+                    });
+                    for (int k = 2; k <= i - start; k++)
+                    {
+                        combinations *= k;
+                    }
+                }
+                start = i;
+            }
+        }
+        return combinations;
+    }
+
+    /**
+     * Generates all orders of lines by permuting the groups with equal keys.
+     * The list of groups contains pairs of an array and a range in this array.
+     * For each permutation of the current group, the remaining groups are
+     * processed recursively; when all groups are processed, the resulting
+     * line order is added to the result list.
+     *
+     * @param groups the list of groups
+     * @param index the index of the current group in the list
+     * @param blockOrder the order of the blocks
+     * @param blocks the orders of the lines within the blocks
+     * @param orders the list for the results
+     */
+    private static void permuteGroups(List<int[]> groups, int index,
+            int[] blockOrder, int[][] blocks, List<int[]> orders)
+    {
+        if (index >= groups.size())
+        {
+            int size = blockOrder.length;
+            int[] order = new int[size * size];
+            for (int b = 0; b < size; b++)
+            {
+                System.arraycopy(blocks[blockOrder[b]], 0, order, b * size,
+                        size);
+            }
+            orders.add(order);
+            return;
+        }
+
+        int[] array = groups.get(index);
+        int[] range = groups.get(index + 1);
+        permuteRange(groups, index, array, range[0], range[1], blockOrder,
+                blocks, orders);
+    }
+
+    /**
+     * Generates all permutations of a range of an array and continues with
+     * the next group for each permutation. The array is restored afterwards.
+     *
+     * @param groups the list of groups
+     * @param index the index of the current group in the list
+     * @param array the array to permute
+     * @param pos the current position in the range
+     * @param end the end of the range
+     * @param blockOrder the order of the blocks
+     * @param blocks the orders of the lines within the blocks
+     * @param orders the list for the results
+     */
+    private static void permuteRange(List<int[]> groups, int index,
+            int[] array, int pos, int end, int[] blockOrder, int[][] blocks,
+            List<int[]> orders)
+    {
+        if (pos >= end - 1)
+        {
+            permuteGroups(groups, index + 2, blockOrder, blocks, orders);
+            return;
+        }
+        for (int i = pos; i < end; i++)
+        {
+            swap(array, pos, i);
+            permuteRange(groups, index, array, pos + 1, end, blockOrder,
+                    blocks, orders);
+            swap(array, pos, i);
+        }
+    }
+
+    /**
+     * Returns the indices of a range of elements sorted by their keys.
+     * Elements with equal keys keep their original order.
+     *
+     * @param keys the keys
+     * @param start the start index of the range
+     * @param length the length of the range
+     * @return the sorted indices
+     */
+    private static int[] sortedRange(long[] keys, int start, int length)
+    {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++)
+        {
+            int j = i;
+            while (j > 0 && keys[result[j - 1]] > keys[start + i])
+            {
+                result[j] = result[j - 1];
+                j--;
+            }
+            result[j] = start + i;
+        }
+        return result;
+    }
+
+    /**
+     * Returns an array with the numbers from 0 to size - 1.
+     *
+     * @param size the size
+     * @return the identity permutation
+     */
+    private static int[] identity(int size)
+    {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            result[i] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Swaps two elements of an array.
+     *
+     * @param array the array
+     * @param i the first index
+     * @param j the second index
+     */
+    private static void swap(int[] array, int i, int j)
+    {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * Compares two grids lexicographically.
+     *
+     * @param g1 the first grid
+     * @param g2 the second grid
+     * @return a value less than, equal to, or greater than 0 if the first
+     * grid is less than, equal to, or greater than the second one
+     */
+    private static int compare(short[] g1, short[] g2)
+    {
+        for (int i = 0; i < g1.length; i++)
+        {
+            if (g1[i] != g2[i])
+            {
+                return g1[i] - g2[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Scrambles the bits of a value. This is used to combine the invariants
+     * into keys such that different combinations are unlikely to collide.
+     *
+     * @param value the value
+     * @return the scrambled value
+     */
+    private static long mix(long value)
+    {
+        long z = (value ^ (value >>> 30)) * MIX_MULTIPLIER1;
+        z = (z ^ (z >>> 27)) * MIX_MULTIPLIER2;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,654 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A sudoku solver implementation based on Knuth's <em>Dancing Links</em>
+ * algorithm.
+ * </p>
+ * <p>
+ * This class models a sudoku as an exact cover problem: Each possible
+ * placement of a number in a cell is a row of a sparse matrix. The matrix has
+ * four groups of columns representing the constraints that each cell has to
+ * be filled, and that each number has to be placed once in each row, column,
+ * and square. A solution is a selection of matrix rows that covers each column
+ * exactly once. Algorithm X is then used to find such a selection; it always
+ * branches on the column with the fewest remaining rows.
+ * </p>
+ * <p>
+ * The sparse matrix is stored in a couple of <code>int</code> arrays which
+ * contain the links between the nodes. It is created once when the solver is
+ * constructed. The presets are applied to the matrix when
+ * <code>solve()</code> is called, and all changes are reverted afterwards, so
+ * the same instance can be used for multiple calls. The search is
+ * implemented iteratively; therefore large fields do not cause deep
+ * recursion.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class DancingLinksSolver implements SudokuEngine
+{
+    /** Constant for the index of the root node. */
+    private static final int ROOT = 0;
+
+    /** Constant for the number of nodes in a matrix row. */
+    private static final int ROW_NODES = 4;
+
+    /**
+     * Constant for a mask which determines how often the search checks
+     * whether it should be aborted. The check is done whenever the step count
+     * has no bits in common with this mask.
+     */
+    private static final long ABORT_CHECK_MASK = 1023;
+
+    /** An array for the field to be filled. */
+    private final short[][] field;
+
+    /** The links to the left neighbors of the nodes. */
+    private final int[] left;
+
+    /** The links to the right neighbors of the nodes. */
+    private final int[] right;
+
+    /** The links to the upper neighbors of the nodes. */
+    private final int[] up;
+
+    /** The links to the lower neighbors of the nodes. */
+    private final int[] down;
+
+    /** Stores the index of the column header each node belongs to. */
+    private final int[] columns;
+
+    /** Stores the number of nodes in each column (indexed by the header). */
+    private final int[] sizes;
+
+    /** Stores the size of the sub squares. */
+    private final short squareSize;
+
+    /** Stores the size of the field. */
+    private final short fieldSize;
+
+    /** The index of the first node which is not a column header. */
+    private final int firstNode;
+
+    /** The time (as returned by System.nanoTime()) when to stop a search. */
+    private long deadline;
+
+    /** A flag whether a deadline has been set. */
+    private boolean timeLimited;
+
+    /** The number of steps of the current search. */
+    private long steps;
+
+    /** The number of steps published for other threads. */
+    private volatile long progress;
+
+    /** A flag whether the last search was aborted. */
+    private boolean aborted;
+
+    /**
+     * Creates a new instance of <code>DancingLinksSolver</code> and initializes
+     * it with the square size. The same square sizes are supported as by
+     * {@link SudokuSolver}.
+     *
+     * @param sqrSz the square size
+     * @throws IllegalArgumentException if the size is invalid
+     */
+    public DancingLinksSolver(short sqrSz)
+    {
+        if (sqrSz < 2 || sqrSz > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Square size must be in the range from 2 to "
+                            + SudokuSolver.MAX_SQUARE_SIZE + "!");
+        }
+        squareSize = sqrSz;
+        fieldSize = (short) (sqrSz * sqrSz);
+        field = new short[fieldSize][fieldSize];
+
+        int columnCount = ROW_NODES * fieldSize * fieldSize;
+        firstNode = columnCount + 1;
+        int nodeCount = firstNode + ROW_NODES * fieldSize * fieldSize
+                * fieldSize;
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        columns = new int[nodeCount];
+        sizes = new int[firstNode];
+        initMatrix();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getFieldSize()
+    {
+        return fieldSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getCell(int row, int col)
+    {
+        return field[row][col];
+    }
+
+    /**
+     * {@inheritDoc} The rules are checked by scanning the affected row,
+     * column, and square.
+     */
+    @Override
+    public void setCell(int row, int col, short value)
+            throws SudokuSolverException
+    {
+        if (value < 1 || value > getFieldSize())
+        {
+            throw new SudokuSolverException(SudokuState.INVALID_NUMBER, value);
+        }
+        SudokuState state = checkAllowed(value, row, col);
+        if (state != SudokuState.OK)
+        {
+            throw new SudokuSolverException(state, value);
+        }
+        field[row][col] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearCell(int row, int col)
+    {
+        if (getCell(row, col) == 0)
+        {
+            throw new IllegalArgumentException("The cell has not been filled!");
+        }
+        field[row][col] = 0;
+    }
+
+    /**
+     * {@inheritDoc} This implementation selects the matrix rows for the
+     * presets and then runs Algorithm X on the remaining matrix.
+     */
+    @Override
+    public boolean solve()
+    {
+        return solve(0, TimeUnit.NANOSECONDS) == SolveResult.SOLVED;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SolveResult solve(long timeout, TimeUnit unit)
+    {
+        timeLimited = timeout > 0;
+        if (timeLimited)
+        {
+            deadline = System.nanoTime() + unit.toNanos(timeout);
+        }
+        int count = run(1, true);
+        timeLimited = false;
+        if (count > 0)
+        {
+            return SolveResult.SOLVED;
+        }
+        return aborted ? SolveResult.ABORTED : SolveResult.UNSOLVABLE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countSolutions(int limit)
+    {
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("Limit must be at least 1!");
+        }
+        return run(limit, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasUniqueSolution()
+    {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns the number of steps of
+     * Algorithm X, i.e. the rows selected and backtracked. While a search is
+     * running, the value is updated every 1024 steps.
+     */
+    @Override
+    public long getProgress()
+    {
+        return progress;
+    }
+
+    /**
+     * Checks whether it is allowed to place the given number into the specified
+     * cell.
+     *
+     * @param number the number to be placed
+     * @param row the row index
+     * @param col the column index
+     * @return a state flag; <code>OK</code> if the operation is allowed,
+     * otherwise the cause why it is not allowed
+     */
+    SudokuState checkAllowed(short number, int row, int col)
+    {
+        for (int i = 0; i < fieldSize; i++)
+        {
+            if (field[row][i] == number)
+            {
+                return SudokuState.ROW_OCCUPIED;
+            }
+        }
+        for (int i = 0; i < fieldSize; i++)
+        {
+            if (field[i][col] == number)
+            {
+                return SudokuState.COLUMN_OCCUPIED;
+            }
+        }
+        int startRow = (row / squareSize) * squareSize;
+        int startCol = (col / squareSize) * squareSize;
+        for (int r = startRow; r < startRow + squareSize; r++)
+        {
+            for (int c = startCol; c < startCol + squareSize; c++)
+            {
+                if (field[r][c] == number)
+                {
+                    return SudokuState.SQUARE_OCCUPIED;
+                }
+            }
+        }
+        return SudokuState.OK;
+    }
+
+    /**
+     * Applies the presets to the matrix, runs the search, and restores the
+     * matrix afterwards. If the limit of solutions is reached, the last
+     * solution found can optionally be written into the field.
+     *
+     * @param limit the maximum number of solutions to find
+     * @param write a flag whether the last solution is to be written
+     * @return the number of solutions found
+     */
+    private int run(int limit, boolean write)
+    {
+        aborted = false;
+        int[] presets = new int[fieldSize * fieldSize];
+        int presetCount = 0;
+        for (int row = 0; row < fieldSize; row++)
+        {
+            for (int col = 0; col < fieldSize; col++)
+            {
+                if (field[row][col] != 0)
+                {
+                    int node = rowNode(row, col, field[row][col]);
+                    selectRow(node);
+                    presets[presetCount++] = node;
+                }
+            }
+        }
+
+        int[] solution = new int[fieldSize * fieldSize - presetCount];
+        int count = search(solution, limit);
+        progress = steps;
+        if (count >= limit)
+        {
+            // the rows of the last solution are still selected
+            for (int i = solution.length - 1; i >= 0; i--)
+            {
+                if (write)
+                {
+                    writeSolution(solution[i]);
+                }
+                deselectRow(solution[i]);
+            }
+        }
+
+        for (int i = presetCount - 1; i >= 0; i--)
+        {
+            deselectRow(presets[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Runs Algorithm X on the current matrix. The search uses an explicit stack
+     * of the selected rows rather than recursion. Each solution found is
+     * counted. If the limit is reached, the search stops, and the rows of the
+     * last solution are left selected; their nodes are stored in the passed
+     * in array. Otherwise, the search continues until all alternatives have
+     * been explored, and the matrix is restored. The matrix is restored, too,
+     * if the search is aborted.
+     *
+     * @param solution an array for storing the selected rows
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found
+     */
+    private int search(int[] solution, int limit)
+    {
+        int solutions = 0;
+        int depth = 0;
+        steps = 0;
+        progress = 0;
+        levels: while (true)
+        {
+            if ((++steps & ABORT_CHECK_MASK) == 0 && checkpoint())
+            {
+                unwind(solution, depth);
+                aborted = true;
+                return solutions;
+            }
+
+            int col;
+            int node;
+            if (right[ROOT] == ROOT)
+            {
+                if (++solutions >= limit || depth == 0)
+                {
+                    return solutions;
+                }
+                // continue with the next alternative of the last row
+                node = solution[--depth];
+                for (int j = left[node]; j != node; j = left[j])
+                {
+                    uncover(columns[j]);
+                }
+                col = columns[node];
+                node = down[node];
+            }
+            else
+            {
+                col = chooseColumn();
+                cover(col);
+                node = down[col];
+            }
+
+            while (true)
+            {
+                if (node != col)
+                {
+                    solution[depth++] = node;
+                    for (int j = right[node]; j != node; j = right[j])
+                    {
+                        cover(columns[j]);
+                    }
+                    continue levels;
+                }
+
+                // all rows of this column have been tried => backtrack
+                uncover(col);
+                if (depth == 0)
+                {
+                    return solutions;
+                }
+                node = solution[--depth];
+                for (int j = left[node]; j != node; j = left[j])
+                {
+                    uncover(columns[j]);
+                }
+                col = columns[node];
+                node = down[node];
+            }
+        }
+    }
+
+    /**
+     * Performs the periodic tasks of a running search: the number of steps is
+     * published as progress, and it is checked whether the search should be
+     * aborted.
+     *
+     * @return a flag whether the search should be aborted
+     */
+    private boolean checkpoint()
+    {
+        progress = steps;
+        return shouldAbort();
+    }
+
+    /**
+     * Checks whether the current search should be aborted. This is the case
+     * if the current thread has been interrupted or the deadline has passed.
+     *
+     * @return a flag whether the search should be aborted
+     */
+    private boolean shouldAbort()
+    {
+        return Thread.currentThread().isInterrupted()
+                || (timeLimited && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * Deselects all rows selected by an aborted search, so that the matrix is
+     * restored.
+     *
+     * @param solution the array with the selected rows
+     * @param depth the number of selected rows
+     */
+    private void unwind(int[] solution, int depth)
+    {
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            int node = solution[i];
+            for (int j = left[node]; j != node; j = left[j])
+            {
+                uncover(columns[j]);
+            }
+            uncover(columns[node]);
+        }
+    }
+
+    /**
+     * Returns the column with the fewest nodes. The search stops early if a
+     * column with at most one node is found.
+     *
+     * @return the header of the selected column
+     */
+    private int chooseColumn()
+    {
+        int best = right[ROOT];
+        int bestSize = sizes[best];
+        for (int col = right[best]; col != ROOT && bestSize > 1; col = right[col])
+        {
+            if (sizes[col] < bestSize)
+            {
+                best = col;
+                bestSize = sizes[col];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Removes a column from the header list and all rows containing a node in
+     * this column from the other columns.
+     *
+     * @param col the header of the column
+     */
+    private void cover(int col)
+    {
+        right[left[col]] = right[col];
+        left[right[col]] = left[col];
+        for (int i = down[col]; i != col; i = down[i])
+        {
+            for (int j = right[i]; j != i; j = right[j])
+            {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                sizes[columns[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Reverts a <code>cover()</code> operation on the given column.
+     *
+     * @param col the header of the column
+     */
+    private void uncover(int col)
+    {
+        for (int i = up[col]; i != col; i = up[i])
+        {
+            for (int j = left[i]; j != i; j = left[j])
+            {
+                sizes[columns[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[col]] = col;
+        left[right[col]] = col;
+    }
+
+    /**
+     * Selects the matrix row the given node belongs to. All columns of this
+     * row are covered.
+     *
+     * @param node the first node of the row
+     */
+    private void selectRow(int node)
+    {
+        cover(columns[node]);
+        for (int j = right[node]; j != node; j = right[j])
+        {
+            cover(columns[j]);
+        }
+    }
+
+    /**
+     * Reverts a <code>selectRow()</code> operation.
+     *
+     * @param node the first node of the row
+     */
+    private void deselectRow(int node)
+    {
+        for (int j = left[node]; j != node; j = left[j])
+        {
+            uncover(columns[j]);
+        }
+        uncover(columns[node]);
+    }
+
+    /**
+     * Writes the placement represented by a matrix row into the field.
+     *
+     * @param node a node of the matrix row
+     */
+    private void writeSolution(int node)
+    {
+        int rowIdx = (node - firstNode) / ROW_NODES;
+        int cell = rowIdx / fieldSize;
+        field[cell / fieldSize][cell % fieldSize] = (short) (rowIdx
+                % fieldSize + 1);
+    }
+
+    /**
+     * Returns the first node of the matrix row which represents the placement
+     * of the given number in the given cell.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param number the number
+     * @return the first node of the corresponding matrix row
+     */
+    private int rowNode(int row, int col, int number)
+    {
+        return firstNode + ((row * fieldSize + col) * fieldSize + number - 1)
+                * ROW_NODES;
+    }
+
+    /**
+     * Creates the sparse matrix. The root node and the column headers are
+     * linked to a circular list. Then the nodes for all possible placements
+     * are created and appended to their columns.
+     */
+    private void initMatrix()
+    {
+        for (int col = 0; col < firstNode; col++)
+        {
+            left[col] = (col == 0) ? firstNode - 1 : col - 1;
+            right[col] = (col == firstNode - 1) ? 0 : col + 1;
+            up[col] = col;
+            down[col] = col;
+        }
+
+        int cells = fieldSize * fieldSize;
+        for (int row = 0; row < fieldSize; row++)
+        {
+            for (int col = 0; col < fieldSize; col++)
+            {
+                int square = (row / squareSize) * squareSize + col
+                        / squareSize;
+                for (int n = 0; n < fieldSize; n++)
+                {
+                    int node = rowNode(row, col, n + 1);
+                    appendNode(node, 1 + row * fieldSize + col);
+                    appendNode(node + 1, 1 + cells + row * fieldSize + n);
+                    appendNode(node + 2, 1 + 2 * cells + col * fieldSize + n);
+                    appendNode(node + 3, 1 + 3 * cells + square * fieldSize
+                            + n);
+                    for (int i = 0; i < ROW_NODES; i++)
+                    {
+                        left[node + i] = node + (i + ROW_NODES - 1)
+                                % ROW_NODES;
+                        right[node + i] = node + (i + 1) % ROW_NODES;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a node at the bottom of a column.
+     *
+     * @param node the node
+     * @param col the header of the column
+     */
+    private void appendNode(int node, int col)
+    {
+        columns[node] = col;
+        up[node] = up[col];
+        down[node] = col;
+        down[up[col]] = node;
+        up[col] = node;
+        sizes[col]++;
+    }
+}
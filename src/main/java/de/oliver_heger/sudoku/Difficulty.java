@@ -0,0 +1,62 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * An enumeration with the difficulty levels of sudoku puzzles.
+ * </p>
+ * <p>
+ * The difficulty of a puzzle is derived from the statistics of a
+ * {@link SudokuSolver} which uses the <code>MINIMUM_REMAINING_VALUES</code>
+ * strategy with constraint propagation:
+ * <ul>
+ * <li>{@code EASY} puzzles can be solved by filling in naked singles only.</li>
+ * <li>{@code MEDIUM} puzzles require hidden singles, but no search.</li>
+ * <li>{@code HARD} puzzles cannot be solved by singles alone; the solver
+ * has to search or to apply elimination techniques.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum Difficulty {
+    EASY, MEDIUM, HARD;
+
+    /**
+     * Determines the difficulty of a puzzle from the statistics of a search
+     * for its solution.
+     *
+     * @param stats the statistics of the search
+     * @return the difficulty of the puzzle
+     */
+    public static Difficulty of(SearchStatistics stats)
+    {
+        if (stats.getNodeCount() > 0)
+        {
+            return HARD;
+        }
+        for (Technique t : Technique.values())
+        {
+            if (t.isElimination() && stats.getTechniqueCount(t) > 0)
+            {
+                return HARD;
+            }
+        }
+        return (stats.getTechniqueCount(Technique.HIDDEN_SINGLE) > 0) ? MEDIUM
+                : EASY;
+    }
+}
@@ -0,0 +1,810 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A sudoku solver implementation for large fields.
+ * </p>
+ * <p>
+ * {@link SudokuSolver} stores the numbers placed in a unit as a single
+ * <code>long</code> bit mask and is therefore restricted to field sizes up to
+ * 64. This class stores each bit mask in multiple <code>long</code> words, so
+ * it supports square sizes up to <code>MAX_SQUARE_SIZE</code>. For fields up
+ * to 64 numbers, a mask consists of a single word; then this class behaves
+ * like <code>SudokuSolver</code>, but the additional loops over the words
+ * make it slower. {@link SolverBackend#forSquareSize(short)} selects the
+ * appropriate implementation for a square size.
+ * </p>
+ * <p>
+ * The search uses the minimum remaining values strategy, and naked and
+ * hidden singles are always propagated. All data structures are linear in
+ * the number of cells: the candidates of a cell are derived from the masks of
+ * its units when they are needed, the peers of a cell are obtained from its
+ * units rather than from a table, and a choice point of the search only
+ * stores the cell and the number tried last. The next alternative is found
+ * again in the candidates of the cell after backtracking, as the field is
+ * then in the same state as when the choice point was created.
+ * </p>
+ * <p>
+ * Implementation note: This class is not thread-safe.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class LargeSudokuSolver implements SudokuEngine
+{
+    /**
+     * Constant for the maximum square size supported. The resulting field
+     * size of 256 is limited by the <code>short</code> values of the cells
+     * and the number of cells a table can display.
+     */
+    public static final short MAX_SQUARE_SIZE = 16;
+
+    /**
+     * Constant for a mask which determines how often the search checks
+     * whether it should be aborted. The check is done whenever the node count
+     * has no bits in common with this mask.
+     */
+    private static final long ABORT_CHECK_MASK = 1023;
+
+    /** The geometry of the field. */
+    private final SudokuGeometry geometry;
+
+    /** The number of words of a bit mask. */
+    private final int words;
+
+    /** An array for the field to be filled. */
+    private final short[] field;
+
+    /**
+     * The masks with the numbers placed in the units. The mask of a unit
+     * starts at the index unit * words. If the number <em>n</em> has been
+     * placed in the unit, bit <em>(n - 1) % 64</em> of word
+     * <em>(n - 1) / 64</em> is set.
+     */
+    private final long[] unitMasks;
+
+    /** A mask with a bit set for each number allowed in this sudoku. */
+    private final long[] allNumbers;
+
+    /** A temporary mask with the candidates of a cell. */
+    private final long[] candidates;
+
+    /** A temporary mask for the numbers found once in a unit. */
+    private final long[] once;
+
+    /** A temporary mask for the numbers found multiple times in a unit. */
+    private final long[] twice;
+
+    /** The trail of cells filled by the search or by propagation. */
+    private final int[] trail;
+
+    /** The number of elements stored on the trail. */
+    private int trailSize;
+
+    /** Stores the cells of the choice points of the search. */
+    private final int[] choiceCells;
+
+    /** Stores the numbers tried last by the choice points. */
+    private final short[] choiceNumbers;
+
+    /** Stores the sizes of the trail when the choice points were created. */
+    private final int[] choiceMarks;
+
+    /** The number of nodes visited by the current search. */
+    private long nodeCount;
+
+    /** The node count published for other threads. */
+    private volatile long progress;
+
+    /** The time (as returned by System.nanoTime()) when to stop a search. */
+    private long deadline;
+
+    /** A flag whether a deadline has been set. */
+    private boolean timeLimited;
+
+    /** A flag whether the last search was aborted. */
+    private boolean aborted;
+
+    /**
+     * Creates a new instance of <code>LargeSudokuSolver</code> and initializes
+     * it with the square size. The square size must be in the range from 2 to
+     * <code>MAX_SQUARE_SIZE</code>.
+     *
+     * @param sqrSz the square size
+     * @throws IllegalArgumentException if the size is invalid
+     */
+    public LargeSudokuSolver(short sqrSz)
+    {
+        if (sqrSz < 2 || sqrSz > MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Square size must be in the range from 2 to "
+                            + MAX_SQUARE_SIZE + "!");
+        }
+        geometry = SudokuGeometry.getInstance(sqrSz);
+        int fieldSize = geometry.getFieldSize();
+        int cellCount = geometry.getCellCount();
+        words = (fieldSize + Long.SIZE - 1) / Long.SIZE;
+        field = new short[cellCount];
+        unitMasks = new long[geometry.getUnitCount() * words];
+        allNumbers = new long[words];
+        for (int number = 0; number < fieldSize; number++)
+        {
+            allNumbers[number / Long.SIZE] |= 1L << number;
+        }
+        candidates = new long[words];
+        once = new long[words];
+        twice = new long[words];
+        trail = new int[cellCount];
+        choiceCells = new int[cellCount];
+        choiceNumbers = new short[cellCount];
+        choiceMarks = new int[cellCount];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getSquareSize()
+    {
+        return geometry.getSquareSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getFieldSize()
+    {
+        return geometry.getFieldSize();
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search.
+     *
+     * @return the number of nodes visited by the last search
+     */
+    public long getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * Returns a flag whether the last search was aborted because the time
+     * limit was exceeded or the thread was interrupted.
+     *
+     * @return a flag whether the last search was aborted
+     */
+    public boolean isAborted()
+    {
+        return aborted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getCell(int row, int col)
+    {
+        return field[geometry.getCell(row, col)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCell(int row, int col, short value)
+            throws SudokuSolverException
+    {
+        if (value < 1 || value > getFieldSize())
+        {
+            throw new SudokuSolverException(SudokuState.INVALID_NUMBER, value);
+        }
+        int cell = geometry.getCell(row, col);
+        SudokuState state = checkAllowed(value, cell);
+        if (state != SudokuState.OK)
+        {
+            throw new SudokuSolverException(state, value);
+        }
+        writeCell(cell, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearCell(int row, int col)
+    {
+        int cell = geometry.getCell(row, col);
+        if (field[cell] == 0)
+        {
+            throw new IllegalArgumentException("The cell has not been filled!");
+        }
+        clear(cell);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean solve()
+    {
+        return solve(0, TimeUnit.NANOSECONDS) == SolveResult.SOLVED;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SolveResult solve(long timeout, TimeUnit unit)
+    {
+        timeLimited = timeout > 0;
+        if (timeLimited)
+        {
+            deadline = System.nanoTime() + unit.toNanos(timeout);
+        }
+        boolean solved = startSearch(1) > 0;
+        timeLimited = false;
+        if (solved)
+        {
+            return SolveResult.SOLVED;
+        }
+        undo(0);
+        return aborted ? SolveResult.ABORTED : SolveResult.UNSOLVABLE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countSolutions(int limit)
+    {
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("Limit must be at least 1!");
+        }
+        int count = startSearch(limit);
+        undo(0);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasUniqueSolution()
+    {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns the number of nodes visited.
+     * While a search is running, the value is updated every 1024 nodes.
+     */
+    @Override
+    public long getProgress()
+    {
+        return progress;
+    }
+
+    /**
+     * Checks whether it is allowed to place the given number into the cell
+     * with the given index.
+     *
+     * @param number the number to be placed
+     * @param cell the cell index
+     * @return a state flag; <code>OK</code> if the operation is allowed,
+     * otherwise the cause why it is not allowed
+     */
+    private SudokuState checkAllowed(short number, int cell)
+    {
+        if (isUsed(rowUnit(cell), number))
+        {
+            return SudokuState.ROW_OCCUPIED;
+        }
+        else if (isUsed(columnUnit(cell), number))
+        {
+            return SudokuState.COLUMN_OCCUPIED;
+        }
+        else if (isUsed(squareUnit(cell), number))
+        {
+            return SudokuState.SQUARE_OCCUPIED;
+        }
+        else
+        {
+            return SudokuState.OK;
+        }
+    }
+
+    /**
+     * Returns a flag whether a number has already been placed in a unit.
+     *
+     * @param unit the index of the unit
+     * @param number the number
+     * @return a flag whether the number is present in this unit
+     */
+    private boolean isUsed(int unit, short number)
+    {
+        return (unitMasks[unit * words + (number - 1) / Long.SIZE]
+                & (1L << (number - 1))) != 0;
+    }
+
+    /**
+     * Returns the index of the row unit of a cell.
+     *
+     * @param cell the cell index
+     * @return the index of the row unit
+     */
+    private int rowUnit(int cell)
+    {
+        return geometry.getRow(cell);
+    }
+
+    /**
+     * Returns the index of the column unit of a cell.
+     *
+     * @param cell the cell index
+     * @return the index of the column unit
+     */
+    private int columnUnit(int cell)
+    {
+        return getFieldSize() + geometry.getColumn(cell);
+    }
+
+    /**
+     * Returns the index of the square unit of a cell.
+     *
+     * @param cell the cell index
+     * @return the index of the square unit
+     */
+    private int squareUnit(int cell)
+    {
+        return 2 * getFieldSize() + geometry.getSquare(cell);
+    }
+
+    /**
+     * Writes a number into an empty cell and sets its bit in the masks of
+     * the units of the cell.
+     *
+     * @param cell the cell index
+     * @param value the value to write
+     */
+    private void writeCell(int cell, short value)
+    {
+        int word = (value - 1) / Long.SIZE;
+        long bit = 1L << (value - 1);
+        unitMasks[rowUnit(cell) * words + word] |= bit;
+        unitMasks[columnUnit(cell) * words + word] |= bit;
+        unitMasks[squareUnit(cell) * words + word] |= bit;
+        field[cell] = value;
+    }
+
+    /**
+     * Removes the number from a filled cell and clears its bit in the masks
+     * of the units of the cell.
+     *
+     * @param cell the cell index
+     */
+    private void clear(int cell)
+    {
+        int value = field[cell];
+        int word = (value - 1) / Long.SIZE;
+        long mask = ~(1L << (value - 1));
+        unitMasks[rowUnit(cell) * words + word] &= mask;
+        unitMasks[columnUnit(cell) * words + word] &= mask;
+        unitMasks[squareUnit(cell) * words + word] &= mask;
+        field[cell] = 0;
+    }
+
+    /**
+     * Computes the candidates of a cell and stores them in the temporary
+     * candidates mask. These are the numbers present neither in the row, nor
+     * in the column, nor in the square of the cell.
+     *
+     * @param cell the cell index
+     * @return the number of candidates
+     */
+    private int computeCandidates(int cell)
+    {
+        int row = rowUnit(cell) * words;
+        int col = columnUnit(cell) * words;
+        int square = squareUnit(cell) * words;
+        int count = 0;
+        for (int w = 0; w < words; w++)
+        {
+            long mask = ~(unitMasks[row + w] | unitMasks[col + w]
+                    | unitMasks[square + w])
+                    & allNumbers[w];
+            candidates[w] = mask;
+            count += Long.bitCount(mask);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the lowest number contained in the given mask which is greater
+     * than the given number.
+     *
+     * @param mask the mask
+     * @param number the number to start with (0 for the lowest number)
+     * @return the next number in the mask or 0 if there is none
+     */
+    private short nextNumber(long[] mask, int number)
+    {
+        for (int w = number / Long.SIZE; w < words; w++)
+        {
+            long bits = mask[w];
+            if (w == number / Long.SIZE)
+            {
+                bits &= -1L << (number % Long.SIZE);
+            }
+            if (bits != 0)
+            {
+                return (short) (w * Long.SIZE
+                        + Long.numberOfTrailingZeros(bits) + 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Resets the trail, performs the initial propagation, and then starts the
+     * search.
+     *
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found
+     */
+    private int startSearch(int limit)
+    {
+        nodeCount = 0;
+        progress = 0;
+        trailSize = 0;
+        aborted = false;
+        int solutions = propagateAll() ? search(limit) : 0;
+        progress = nodeCount;
+        return solutions;
+    }
+
+    /**
+     * Searches for solutions. The search is implemented as a loop operating on
+     * an explicit stack of choice points. Each choice point refers to the
+     * empty cell with the fewest candidates; its alternatives are tried in
+     * ascending order.
+     *
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found
+     */
+    private int search(int limit)
+    {
+        if (!pushChoice(0))
+        {
+            // all cells are filled
+            return 1;
+        }
+
+        int solutions = 0;
+        int depth = 0;
+        while (depth >= 0)
+        {
+            undo(choiceMarks[depth]);
+            int cell = choiceCells[depth];
+            computeCandidates(cell);
+            short number = nextNumber(candidates, choiceNumbers[depth]);
+            if (number == 0)
+            {
+                depth--;
+                continue;
+            }
+
+            choiceNumbers[depth] = number;
+            if ((++nodeCount & ABORT_CHECK_MASK) == 0 && checkpoint())
+            {
+                aborted = true;
+                return solutions;
+            }
+            int mark = trailSize;
+            writeTrail(cell, number);
+            if (!propagate(mark))
+            {
+                continue;
+            }
+            if (!pushChoice(depth + 1))
+            {
+                if (++solutions >= limit)
+                {
+                    return solutions;
+                }
+                continue;
+            }
+            depth++;
+        }
+        return solutions;
+    }
+
+    /**
+     * Performs the periodic tasks of a running search: the node count is
+     * published as progress, and it is checked whether the search should be
+     * aborted because the thread has been interrupted or the deadline has
+     * passed.
+     *
+     * @return a flag whether the search should be aborted
+     */
+    private boolean checkpoint()
+    {
+        progress = nodeCount;
+        return Thread.currentThread().isInterrupted()
+                || (timeLimited && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * Creates a new choice point on the given level of the stack for the
+     * empty cell with the fewest candidates. If there are no empty cells
+     * left, no choice point is created, and result is <b>false</b>.
+     *
+     * @param depth the level of the new choice point
+     * @return <b>true</b> if a choice point was created, <b>false</b> if the
+     * field is complete
+     */
+    private boolean pushChoice(int depth)
+    {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < field.length && bestCount > 2; cell++)
+        {
+            if (field[cell] == 0)
+            {
+                int count = computeCandidates(cell);
+                if (count < bestCount)
+                {
+                    best = cell;
+                    bestCount = count;
+                }
+            }
+        }
+        if (best < 0)
+        {
+            return false;
+        }
+
+        choiceCells[depth] = best;
+        choiceNumbers[depth] = 0;
+        choiceMarks[depth] = trailSize;
+        return true;
+    }
+
+    /**
+     * Performs constraint propagation on the whole field. All empty cells are
+     * checked for naked singles; then <code>propagate()</code> continues with
+     * the cells filled in.
+     *
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagateAll()
+    {
+        int mark = trailSize;
+        for (int cell = 0; cell < field.length; cell++)
+        {
+            if (!propagateNakedSingle(cell))
+            {
+                return false;
+            }
+        }
+        return propagate(mark);
+    }
+
+    /**
+     * Performs constraint propagation after cells have been written. Naked
+     * and hidden singles are filled in until no more progress is made. The
+     * trail is used as a queue: the cells of the units of cells written after
+     * the given trail position are checked for naked singles. Hidden singles
+     * are searched in all units when the queue is empty.
+     *
+     * @param mark the position of the first cell on the trail to process
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagate(int mark)
+    {
+        int next = mark;
+        boolean changed = true;
+        while (changed)
+        {
+            // naked singles
+            while (next < trailSize)
+            {
+                int cell = trail[next++];
+                if (!propagateUnit(rowUnit(cell))
+                        || !propagateUnit(columnUnit(cell))
+                        || !propagateUnit(squareUnit(cell)))
+                {
+                    return false;
+                }
+            }
+
+            // hidden singles
+            changed = false;
+            for (int unit = 0; unit < geometry.getUnitCount(); unit++)
+            {
+                int result = propagateHiddenSingles(unit);
+                if (result < 0)
+                {
+                    return false;
+                }
+                if (result > 0)
+                {
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks all cells of a unit for naked singles.
+     *
+     * @param unit the index of the unit
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagateUnit(int unit)
+    {
+        for (int cell : geometry.getUnit(unit))
+        {
+            if (!propagateNakedSingle(cell))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a cell for a naked single. If the cell is empty and has only a
+     * single candidate, this number is filled in. If it has no candidates at
+     * all, a contradiction has been found.
+     *
+     * @param cell the cell index
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagateNakedSingle(int cell)
+    {
+        if (field[cell] == 0)
+        {
+            int count = computeCandidates(cell);
+            if (count == 0)
+            {
+                return false;
+            }
+            if (count == 1)
+            {
+                writeTrail(cell, nextNumber(candidates, 0));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches for hidden singles in a unit and fills them in. The result is
+     * 1 if cells have been written, 0 if nothing changed, and -1 if a
+     * contradiction was found.
+     *
+     * @param unit the index of the unit
+     * @return a value indicating the result of the operation
+     */
+    private int propagateHiddenSingles(int unit)
+    {
+        int[] cells = geometry.getUnit(unit);
+        for (int w = 0; w < words; w++)
+        {
+            once[w] = 0;
+            twice[w] = 0;
+        }
+        for (int cell : cells)
+        {
+            if (field[cell] == 0)
+            {
+                computeCandidates(cell);
+                for (int w = 0; w < words; w++)
+                {
+                    twice[w] |= once[w] & candidates[w];
+                    once[w] |= candidates[w];
+                }
+            }
+        }
+
+        // once is turned into the mask of the singles
+        boolean singles = false;
+        for (int w = 0; w < words; w++)
+        {
+            long missing = allNumbers[w] & ~unitMasks[unit * words + w];
+            if ((missing & ~once[w]) != 0)
+            {
+                return -1;
+            }
+            once[w] &= ~twice[w];
+            singles |= once[w] != 0;
+        }
+        if (!singles)
+        {
+            return 0;
+        }
+
+        for (int cell : cells)
+        {
+            if (field[cell] == 0)
+            {
+                computeCandidates(cell);
+                short number = 0;
+                for (int w = 0; w < words; w++)
+                {
+                    long single = once[w] & candidates[w];
+                    if (single != 0)
+                    {
+                        if (number != 0 || Long.bitCount(single) > 1)
+                        {
+                            // multiple numbers need this cell
+                            return -1;
+                        }
+                        number = (short) (w * Long.SIZE
+                                + Long.numberOfTrailingZeros(single) + 1);
+                        once[w] ^= Long.lowestOneBit(single);
+                    }
+                }
+                if (number != 0)
+                {
+                    writeTrail(cell, number);
+                }
+            }
+        }
+
+        for (int w = 0; w < words; w++)
+        {
+            if (once[w] != 0)
+            {
+                return -1;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Writes a number into an empty cell and records the cell on the trail.
+     *
+     * @param cell the cell index
+     * @param value the value to write
+     */
+    private void writeTrail(int cell, short value)
+    {
+        writeCell(cell, value);
+        trail[trailSize++] = cell;
+    }
+
+    /**
+     * Removes all cells from the field which have been written after the
+     * trail had the given size.
+     *
+     * @param mark the size of the trail to restore
+     */
+    private void undo(int mark)
+    {
+        while (trailSize > mark)
+        {
+            clear(trail[--trailSize]);
+        }
+    }
+}
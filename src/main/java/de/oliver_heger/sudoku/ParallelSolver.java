@@ -0,0 +1,423 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A {@link SudokuEngine} implementation which searches a solution for a
+ * single sudoku using multiple threads.
+ * </p>
+ * <p>
+ * This class wraps a {@link SudokuSolver} which stores the presets. When
+ * {@link #solve()} is called, the search tree is split at its top levels: For
+ * each alternative of the first branch chosen by the search strategy, a copy
+ * of the solver is created, and the alternative is applied to it. This is
+ * repeated for the resulting copies until the configured split depth is
+ * reached. The copies are then solved by independent tasks of a
+ * <code>ForkJoinPool</code>, so idle worker threads can steal them. As soon as
+ * one task finds a solution, all other tasks are canceled, and the solution
+ * is copied into the wrapped solver.
+ * </p>
+ * <p>
+ * Counting solutions is not parallelized; these calls are delegated to the
+ * wrapped solver.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class ParallelSolver implements SudokuEngine
+{
+    /** Constant for the default split depth. */
+    public static final int DEFAULT_SPLIT_DEPTH = 2;
+
+    /** The solver storing the field. */
+    private final SudokuSolver solver;
+
+    /** The pool for executing the tasks. */
+    private final ForkJoinPool pool;
+
+    /** The number of levels of the search tree to split into tasks. */
+    private int splitDepth;
+
+    /** The total number of nodes visited by the last search. */
+    private volatile long nodeCount;
+
+    /** The node counter of the running search. */
+    private volatile AtomicLong searchNodes;
+
+    /**
+     * Creates a new instance of <code>ParallelSolver</code> and initializes it
+     * with the square size and the pool to be used. Per default, the wrapped
+     * solver uses the <code>MINIMUM_REMAINING_VALUES</code> strategy with
+     * propagation.
+     *
+     * @param sqrSz the square size
+     * @param p the pool for executing the tasks (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the size is invalid or the pool is
+     * <b>null</b>
+     */
+    public ParallelSolver(short sqrSz, ForkJoinPool p)
+    {
+        if (p == null)
+        {
+            throw new IllegalArgumentException("Pool must not be null!");
+        }
+        solver = new SudokuSolver(sqrSz);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(true);
+        pool = p;
+        splitDepth = DEFAULT_SPLIT_DEPTH;
+    }
+
+    /**
+     * Creates a new instance of <code>ParallelSolver</code> which uses the
+     * common pool.
+     *
+     * @param sqrSz the square size
+     * @throws IllegalArgumentException if the size is invalid
+     */
+    public ParallelSolver(short sqrSz)
+    {
+        this(sqrSz, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the wrapped solver. It can be used to configure the search
+     * strategy and the propagation flag.
+     *
+     * @return the wrapped solver
+     */
+    public SudokuSolver getSolver()
+    {
+        return solver;
+    }
+
+    /**
+     * Returns the number of levels of the search tree which are split into
+     * parallel tasks.
+     *
+     * @return the split depth
+     */
+    public int getSplitDepth()
+    {
+        return splitDepth;
+    }
+
+    /**
+     * Sets the number of levels of the search tree which are split into
+     * parallel tasks. A value of 0 means that the search is not split.
+     *
+     * @param depth the split depth
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public void setSplitDepth(int depth)
+    {
+        if (depth < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Split depth must not be negative!");
+        }
+        splitDepth = depth;
+    }
+
+    /**
+     * Returns the total number of nodes visited by all tasks of the last
+     * search. This includes the nodes of tasks that were canceled.
+     *
+     * @return the total number of nodes visited
+     */
+    public long getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns the number of nodes visited
+     * by all tasks. While a search is running, the tasks add their nodes
+     * periodically, so the value grows even if only a single task is busy.
+     */
+    @Override
+    public long getProgress()
+    {
+        AtomicLong nodes = searchNodes;
+        return (nodes != null) ? nodes.get() : nodeCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getSquareSize()
+    {
+        return solver.getSquareSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getFieldSize()
+    {
+        return solver.getFieldSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getCell(int row, int col)
+    {
+        return solver.getCell(row, col);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCell(int row, int col, short value)
+            throws SudokuSolverException
+    {
+        solver.setCell(row, col, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearCell(int row, int col)
+    {
+        solver.clearCell(row, col);
+    }
+
+    /**
+     * {@inheritDoc} This implementation splits the search into tasks which
+     * are executed by the pool.
+     */
+    @Override
+    public boolean solve()
+    {
+        return solve(0, TimeUnit.NANOSECONDS) == SolveResult.SOLVED;
+    }
+
+    /**
+     * {@inheritDoc} This implementation waits for the tasks of the pool. If
+     * the time limit is exceeded or the waiting thread is interrupted, all
+     * tasks are canceled.
+     */
+    @Override
+    public SolveResult solve(long timeout, TimeUnit unit)
+    {
+        AtomicBoolean found = new AtomicBoolean();
+        AtomicLong nodes = new AtomicLong();
+        SudokuSolver root = new SudokuSolver(solver);
+        root.setCancelFlag(found);
+        nodeCount = 0;
+        if (!root.propagateField())
+        {
+            return SolveResult.UNSOLVABLE;
+        }
+        searchNodes = nodes;
+
+        ForkJoinTask<SudokuSolver> task =
+                pool.submit(new SearchTask(root, 0, found, nodes));
+        boolean aborted = false;
+        SudokuSolver result;
+        try
+        {
+            result = (timeout > 0) ? task.get(timeout, unit) : task.get();
+        }
+        catch (InterruptedException iex)
+        {
+            Thread.currentThread().interrupt();
+            aborted = true;
+            result = cancel(task, found);
+        }
+        catch (TimeoutException tex)
+        {
+            aborted = true;
+            result = cancel(task, found);
+        }
+        catch (ExecutionException eex)
+        {
+            throw launderThrowable(eex.getCause());
+        }
+
+        nodeCount = nodes.get();
+        searchNodes = null;
+        if (result != null)
+        {
+            solver.copyFrom(result);
+            return SolveResult.SOLVED;
+        }
+        return aborted ? SolveResult.ABORTED : SolveResult.UNSOLVABLE;
+    }
+
+    /**
+     * {@inheritDoc} This implementation delegates to the wrapped solver.
+     */
+    @Override
+    public int countSolutions(int limit)
+    {
+        return solver.countSolutions(limit);
+    }
+
+    /**
+     * {@inheritDoc} This implementation delegates to the wrapped solver.
+     */
+    @Override
+    public boolean hasUniqueSolution()
+    {
+        return solver.hasUniqueSolution();
+    }
+
+    /**
+     * Cancels a running search. The flag checked by the tasks is set, and then
+     * the method waits until all tasks have stopped. If a solution was found
+     * in the meantime, it is returned.
+     *
+     * @param task the task of the search
+     * @param found the flag checked by the tasks
+     * @return the solver with the solution or <b>null</b>
+     */
+    private static SudokuSolver cancel(ForkJoinTask<SudokuSolver> task,
+            AtomicBoolean found)
+    {
+        found.set(true);
+        task.quietlyJoin();
+        return task.isCompletedNormally() ? task.getRawResult() : null;
+    }
+
+    /**
+     * Converts the cause of an exception thrown by a task into an unchecked
+     * exception that can be rethrown.
+     *
+     * @param cause the cause of the exception
+     * @return the exception to be thrown
+     */
+    private static RuntimeException launderThrowable(Throwable cause)
+    {
+        if (cause instanceof RuntimeException)
+        {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error)
+        {
+            throw (Error) cause;
+        }
+        return new IllegalStateException("Search failed", cause);
+    }
+
+    /**
+     * A task for searching a part of the search tree. A task either solves
+     * its copy of the solver directly, or it creates sub tasks for the
+     * alternatives of the next branch.
+     */
+    @SuppressWarnings("serial")
+    private class SearchTask extends RecursiveTask<SudokuSolver>
+    {
+        /** The solver with the state of this task. */
+        private final SudokuSolver state;
+
+        /** The level of this task in the search tree. */
+        private final int level;
+
+        /** The flag which is set when a solution has been found. */
+        private final AtomicBoolean found;
+
+        /** The counter for the visited nodes. */
+        private final AtomicLong nodes;
+
+        /**
+         * Creates a new instance of <code>SearchTask</code>.
+         *
+         * @param s the solver with the state of this task
+         * @param l the level in the search tree
+         * @param f the flag for a found solution
+         * @param n the node counter
+         */
+        public SearchTask(SudokuSolver s, int l, AtomicBoolean f, AtomicLong n)
+        {
+            state = s;
+            level = l;
+            found = f;
+            nodes = n;
+        }
+
+        /**
+         * Executes this task. Result is the solver containing the solution or
+         * <b>null</b> if no solution was found in this part of the tree.
+         *
+         * @return the solver with the solution or <b>null</b>
+         */
+        @Override
+        protected SudokuSolver compute()
+        {
+            if (found.get())
+            {
+                return null;
+            }
+            if (level >= getSplitDepth())
+            {
+                state.setProgressCounter(nodes);
+                boolean solved = state.solve();
+                return solved && found.compareAndSet(false, true) ? state
+                        : null;
+            }
+
+            int branch = state.selectBranch();
+            if (branch < 0)
+            {
+                return found.compareAndSet(false, true) ? state : null;
+            }
+            List<SearchTask> tasks = new ArrayList<SearchTask>();
+            long alternatives = state.getAlternatives(branch);
+            while (alternatives != 0)
+            {
+                long bit = Long.lowestOneBit(alternatives);
+                alternatives ^= bit;
+                SudokuSolver child = new SudokuSolver(state);
+                child.setCancelFlag(found);
+                nodes.incrementAndGet();
+                if (child.applyAlternative(branch, bit))
+                {
+                    tasks.add(new SearchTask(child, level + 1, found, nodes));
+                }
+            }
+
+            SudokuSolver result = null;
+            for (SearchTask task : invokeAll(tasks))
+            {
+                SudokuSolver taskResult = task.join();
+                if (taskResult != null)
+                {
+                    result = taskResult;
+                }
+            }
+            return result;
+        }
+    }
+}
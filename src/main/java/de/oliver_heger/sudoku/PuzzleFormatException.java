@@ -0,0 +1,57 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * An exception class for reporting a line of a puzzle file that cannot be
+ * parsed.
+ *
+ * @author Oliver Heger
+ */
+public class PuzzleFormatException extends Exception
+{
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = -4622154812497351162L;
+
+    /** Stores the number of the line that caused this exception. */
+    private final long lineNumber;
+
+    /**
+     * Creates a new instance of <code>PuzzleFormatException</code> and
+     * initializes it.
+     *
+     * @param msg an error message
+     * @param line the number of the line that could not be parsed
+     */
+    public PuzzleFormatException(String msg, long line)
+    {
+        super(msg);
+        lineNumber = line;
+    }
+
+    /**
+     * Returns the number of the line that caused this exception. Lines are
+     * counted starting with 1.
+     *
+     * @return the line number
+     */
+    public long getLineNumber()
+    {
+        return lineNumber;
+    }
+}
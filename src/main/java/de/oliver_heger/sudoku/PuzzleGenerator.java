@@ -0,0 +1,516 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * A class for generating sudoku puzzles with a unique solution.
+ * </p>
+ * <p>
+ * A puzzle is generated in two steps: First a random complete grid is
+ * created by filling the squares on the diagonal (which do not depend on each
+ * other) with random permutations of the numbers and letting a
+ * {@link SudokuSolver} complete the field. Then the cells are visited in
+ * random order, and each cell is removed if the puzzle still has a unique
+ * solution and its {@link Difficulty} does not exceed the target difficulty.
+ * If the resulting puzzle does not reach the target difficulty, the process
+ * is repeated with a new grid.
+ * </p>
+ * <p>
+ * The searches for checking uniqueness are bounded by a node limit. If a
+ * search exceeds the limit, the cell is kept; this prevents puzzles which are
+ * extremely hard to solve and keeps the costs for large fields acceptable.
+ * </p>
+ * <p>
+ * The {@link #generate(int, Difficulty)} method generates multiple puzzles in
+ * parallel using a <code>ForkJoinPool</code>; each worker thread uses its own
+ * solver. The random generator of each puzzle is initialized from the seed of
+ * the generator and the index of the puzzle. So the same seed always yields
+ * the same puzzles, independent on the number of threads.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class PuzzleGenerator
+{
+    /** Constant for the default node limit of the uniqueness checks. */
+    public static final long DEFAULT_NODE_LIMIT = 10000;
+
+    /** Constant for the maximum number of attempts to generate a puzzle. */
+    private static final int MAX_ATTEMPTS = 32;
+
+    /** Constant for the maximum number of puzzles generated by a task. */
+    private static final int CHUNK_SIZE = 4;
+
+    /** Constant for the factor for deriving the seeds of single puzzles. */
+    private static final long SEED_FACTOR = 0x9E3779B97F4A7C15L;
+
+    /** The pool executing the tasks. */
+    private final ForkJoinPool pool;
+
+    /** Stores the solvers of the single worker threads. */
+    private final ThreadLocal<SudokuSolver> solvers;
+
+    /** The square size of the generated puzzles. */
+    private final short squareSize;
+
+    /** The seed for the random generators. */
+    private volatile long seed;
+
+    /** The node limit for the uniqueness checks. */
+    private volatile long nodeLimit;
+
+    /**
+     * Creates a new instance of <code>PuzzleGenerator</code> for the given
+     * square size which uses the specified pool. The seed is initialized
+     * with the current time.
+     *
+     * @param sqrSz the square size of the puzzles to generate
+     * @param p the pool for executing the tasks (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the pool is <b>null</b> or the
+     * square size is invalid
+     */
+    public PuzzleGenerator(short sqrSz, ForkJoinPool p)
+    {
+        if (p == null)
+        {
+            throw new IllegalArgumentException("Pool must not be null!");
+        }
+        if (sqrSz < 2 || sqrSz > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Square size must be in the range from 2 to "
+                            + SudokuSolver.MAX_SQUARE_SIZE + "!");
+        }
+
+        squareSize = sqrSz;
+        pool = p;
+        seed = System.nanoTime();
+        nodeLimit = DEFAULT_NODE_LIMIT;
+        solvers = new ThreadLocal<SudokuSolver>()
+        {
+            @Override
+            protected SudokuSolver initialValue()
+            {
+                SudokuSolver solver = new SudokuSolver(squareSize);
+                solver.setSearchStrategy(
+                        SearchStrategy.MINIMUM_REMAINING_VALUES);
+                solver.setPropagation(true);
+                solver.setStatisticsEnabled(true);
+                return solver;
+            }
+        };
+    }
+
+    /**
+     * Creates a new instance of <code>PuzzleGenerator</code> for the given
+     * square size which uses the common pool.
+     *
+     * @param sqrSz the square size of the puzzles to generate
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    public PuzzleGenerator(short sqrSz)
+    {
+        this(sqrSz, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the square size of the puzzles generated by this object.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the seed for the random generators.
+     *
+     * @return the seed
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Sets the seed for the random generators. Generating puzzles with the
+     * same seed produces the same results.
+     *
+     * @param s the seed
+     */
+    public void setSeed(long s)
+    {
+        seed = s;
+    }
+
+    /**
+     * Returns the node limit for the searches checking uniqueness.
+     *
+     * @return the node limit
+     */
+    public long getNodeLimit()
+    {
+        return nodeLimit;
+    }
+
+    /**
+     * Sets the node limit for the searches checking uniqueness. A cell is only
+     * removed if the resulting puzzle can be checked within this limit.
+     *
+     * @param limit the node limit (must be greater than 0)
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public void setNodeLimit(long limit)
+    {
+        if (limit <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Node limit must be greater than 0!");
+        }
+        nodeLimit = limit;
+    }
+
+    /**
+     * Generates the given number of puzzles with the specified difficulty.
+     * This method blocks until all puzzles have been generated. Each puzzle
+     * is an array with the values of all cells row by row (0 for an empty
+     * cell). If a puzzle with the target difficulty could not be found after
+     * a number of attempts, the hardest puzzle found is returned instead;
+     * this can happen for instance for very small fields.
+     *
+     * @param count the number of puzzles to generate
+     * @param difficulty the target difficulty (must not be <b>null</b>)
+     * @return a list with the generated puzzles
+     * @throws IllegalArgumentException if the count is negative or the
+     * difficulty is <b>null</b>
+     */
+    public List<short[]> generate(int count, Difficulty difficulty)
+    {
+        if (count < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Count must not be negative!");
+        }
+        if (difficulty == null)
+        {
+            throw new IllegalArgumentException(
+                    "Difficulty must not be null!");
+        }
+
+        short[][] puzzles = new short[count][];
+        pool.invoke(new GenerateTask(puzzles, difficulty, 0, count));
+        return Arrays.asList(puzzles);
+    }
+
+    /**
+     * Generates a single puzzle using the solver of the current thread.
+     *
+     * @param index the index of the puzzle
+     * @param difficulty the target difficulty
+     * @return the puzzle
+     */
+    short[] generatePuzzle(int index, Difficulty difficulty)
+    {
+        SudokuSolver solver = solvers.get();
+        solver.setNodeLimit(nodeLimit);
+        Random random = new Random(seed + index * SEED_FACTOR);
+        short[] best = null;
+        Difficulty bestDifficulty = null;
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+        {
+            short[] puzzle = createGrid(solver, random);
+            Difficulty puzzleDifficulty =
+                    removeClues(solver, puzzle, difficulty, random);
+            if (puzzleDifficulty == difficulty)
+            {
+                return puzzle;
+            }
+            if (bestDifficulty == null
+                    || puzzleDifficulty.compareTo(bestDifficulty) > 0)
+            {
+                best = puzzle;
+                bestDifficulty = puzzleDifficulty;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Creates a random complete grid. The squares on the diagonal are filled
+     * with random permutations; then the solver completes the field. If this
+     * fails (which is possible in theory), another permutation is tried.
+     *
+     * @param solver the solver
+     * @param random the random generator
+     * @return an array with the cells of the grid
+     * @throws IllegalStateException if no grid could be created
+     */
+    private short[] createGrid(SudokuSolver solver, Random random)
+    {
+        short fieldSize = solver.getFieldSize();
+        short[] grid = new short[fieldSize * fieldSize];
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+        {
+            Arrays.fill(grid, (short) 0);
+            for (int sq = 0; sq < squareSize; sq++)
+            {
+                int[] numbers = permutation(fieldSize, random);
+                for (int i = 0; i < fieldSize; i++)
+                {
+                    int row = sq * squareSize + i / squareSize;
+                    int col = sq * squareSize + i % squareSize;
+                    grid[row * fieldSize + col] = (short) (numbers[i] + 1);
+                }
+            }
+
+            load(solver, grid);
+            if (solver.solve())
+            {
+                solver.getCells(grid);
+                return grid;
+            }
+        }
+        throw new IllegalStateException("Could not create a complete grid!");
+    }
+
+    /**
+     * Removes clues from a complete grid. The cells are visited in random
+     * order. A cell is cleared if the puzzle still has a unique solution which
+     * can be found within the node limit, and if the difficulty of the puzzle
+     * does not exceed the target difficulty. Because removing clues never
+     * makes a puzzle easier, the difficulty of the last accepted puzzle is
+     * the difficulty of the result.
+     *
+     * @param solver the solver
+     * @param puzzle the array with the cells (modified in place)
+     * @param target the target difficulty
+     * @param random the random generator
+     * @return the difficulty of the resulting puzzle
+     */
+    private Difficulty removeClues(SudokuSolver solver, short[] puzzle,
+            Difficulty target, Random random)
+    {
+        short fieldSize = solver.getFieldSize();
+        Difficulty difficulty = Difficulty.EASY;
+        load(solver, puzzle);
+
+        for (int cell : permutation(puzzle.length, random))
+        {
+            int row = cell / fieldSize;
+            int col = cell % fieldSize;
+            solver.clearCell(row, col);
+            if (solver.countSolutions(2) == 1 && !solver.isAborted())
+            {
+                Difficulty d = Difficulty.of(solver.getStatistics());
+                if (d.compareTo(target) <= 0)
+                {
+                    puzzle[cell] = 0;
+                    difficulty = d;
+                    continue;
+                }
+            }
+
+            try
+            {
+                solver.setCell(row, col, puzzle[cell]);
+            }
+            catch (SudokuSolverException ssex)
+            {
+                // cannot happen because the value was there before
+                throw new IllegalStateException(ssex);
+            }
+        }
+        return difficulty;
+    }
+
+    /**
+     * Loads a puzzle which is known to be valid into the solver.
+     *
+     * @param solver the solver
+     * @param puzzle the puzzle
+     */
+    private static void load(SudokuSolver solver, short[] puzzle)
+    {
+        try
+        {
+            solver.load(puzzle);
+        }
+        catch (SudokuSolverException ssex)
+        {
+            throw new IllegalStateException(ssex);
+        }
+    }
+
+    /**
+     * Returns a random permutation of the numbers from 0 to count - 1.
+     *
+     * @param count the number of elements
+     * @param random the random generator
+     * @return the permutation
+     */
+    private static int[] permutation(int count, Random random)
+    {
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            result[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    /**
+     * The main method. Generates puzzles and writes them to standard output.
+     * Expected arguments are the square size, the number of puzzles, and
+     * optionally the difficulty and the seed.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 2 || args.length > 4)
+        {
+            usage("Wrong number of arguments!");
+        }
+
+        try
+        {
+            PuzzleGenerator generator =
+                    new PuzzleGenerator(Short.parseShort(args[0]));
+            int count = Integer.parseInt(args[1]);
+            Difficulty difficulty = (args.length > 2) ? Difficulty
+                    .valueOf(args[2]) : Difficulty.MEDIUM;
+            if (args.length > 3)
+            {
+                generator.setSeed(Long.parseLong(args[3]));
+            }
+
+            long start = System.nanoTime();
+            List<short[]> puzzles = generator.generate(count, difficulty);
+            long time = System.nanoTime() - start;
+            PuzzleWriter writer = new PuzzleWriter(new FileOutputStream(
+                    FileDescriptor.out).getChannel(),
+                    generator.getSquareSize() * generator.getSquareSize());
+            writer.writeComment(count + " " + difficulty + " puzzles, seed "
+                    + generator.getSeed());
+            for (short[] puzzle : puzzles)
+            {
+                writer.write(puzzle);
+            }
+            writer.flush();
+            System.err.println("Generated " + count + " puzzles in " + time
+                    / 1000000 + " ms.");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            usage(iex.getMessage());
+        }
+        catch (IOException ioex)
+        {
+            System.err.println("I/O error: " + ioex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Prints a usage message and exits the application.
+     *
+     * @param msg an error message
+     */
+    private static void usage(String msg)
+    {
+        System.err.println("Usage: PuzzleGenerator <squareSize> <count> "
+                + "[<difficulty> [<seed>]]");
+        System.err.println(msg);
+        System.exit(1);
+    }
+
+    /**
+     * The task class for generating a range of puzzles. If the range is small
+     * enough, the puzzles are generated directly. Otherwise, the range is
+     * split into two halves which are processed by sub tasks.
+     */
+    @SuppressWarnings("serial")
+    private class GenerateTask extends RecursiveAction
+    {
+        /** The array for storing the puzzles. */
+        private final short[][] puzzles;
+
+        /** The target difficulty. */
+        private final Difficulty difficulty;
+
+        /** The start index of the range (inclusive). */
+        private final int from;
+
+        /** The end index of the range (exclusive). */
+        private final int to;
+
+        /**
+         * Creates a new instance of <code>GenerateTask</code>.
+         *
+         * @param p the array for the puzzles
+         * @param d the target difficulty
+         * @param f the start index
+         * @param t the end index
+         */
+        public GenerateTask(short[][] p, Difficulty d, int f, int t)
+        {
+            puzzles = p;
+            difficulty = d;
+            from = f;
+            to = t;
+        }
+
+        /**
+         * Processes the range of this task.
+         */
+        @Override
+        protected void compute()
+        {
+            if (to - from <= CHUNK_SIZE)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    puzzles[i] = generatePuzzle(i, difficulty);
+                }
+            }
+            else
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GenerateTask(puzzles, difficulty, from, mid),
+                        new GenerateTask(puzzles, difficulty, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A class for reading puzzles from a text stream with one puzzle per line.
+ * </p>
+ * <p>
+ * The puzzles are read from a <code>ReadableByteChannel</code> through a
+ * fixed size buffer. Only the current line is kept in memory, so arbitrarily
+ * large inputs can be processed in constant memory. Two formats are
+ * supported for a line:
+ * <ul>
+ * <li>One character per cell. Empty cells are represented by '.' or '0'.
+ * Numbers are written in base 36, i.e. the digits 1 to 9 are followed by the
+ * letters a (10) to z (35); letters are case insensitive. This is the common
+ * 81 character format for 9x9 sudokus.</li>
+ * <li>Numbers separated by commas, semicolons, spaces, or tabs. Empty cells
+ * are represented by '.' or 0. This format is required for field sizes
+ * greater than 35, but can be used for all sizes.</li>
+ * </ul>
+ * Empty lines and lines starting with '#' are ignored. Lines longer than
+ * {@link #MAX_LINE_SIZE} characters are rejected, so that the memory used
+ * does not depend on the input. Instances of this class are not thread-safe.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class PuzzleReader implements Closeable
+{
+    /** Constant for the size of the read buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Constant for the initial size of the line buffer. */
+    private static final int LINE_SIZE = 256;
+
+    /**
+     * Constant for the maximum length of a line. This is sufficient for a
+     * puzzle of the largest supported field size in the separated format
+     * (up to 3 digits and a separator per cell) with some slack.
+     */
+    static final int MAX_LINE_SIZE = 8 * LargeSudokuSolver.MAX_SQUARE_SIZE
+            * LargeSudokuSolver.MAX_SQUARE_SIZE
+            * LargeSudokuSolver.MAX_SQUARE_SIZE
+            * LargeSudokuSolver.MAX_SQUARE_SIZE;
+
+    /** Constant for the radix used for single character cells. */
+    private static final int RADIX = 36;
+
+    /** The channel to read from. */
+    private final ReadableByteChannel channel;
+
+    /** The buffer for reading data from the channel. */
+    private final ByteBuffer buffer;
+
+    /** The buffer for the current line. */
+    private byte[] line;
+
+    /** The length of the current line. */
+    private int lineLength;
+
+    /** The number of the current line. */
+    private long lineNumber;
+
+    /**
+     * Creates a new instance of <code>PuzzleReader</code> which reads from the
+     * specified channel.
+     *
+     * @param ch the channel to read from
+     */
+    public PuzzleReader(ReadableByteChannel ch)
+    {
+        channel = ch;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.flip();
+        line = new byte[LINE_SIZE];
+    }
+
+    /**
+     * Returns the number of the line read last. Lines are counted starting
+     * with 1.
+     *
+     * @return the current line number
+     */
+    public long getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    /**
+     * Reads the next puzzle into the given array. The array must have exactly
+     * one element per cell of the sudoku; the values are stored row by row.
+     * If the end of the input is reached, result is <b>false</b>. A line that
+     * cannot be parsed or that does not contain the expected number of cells
+     * causes an exception; reading can then continue with the next line.
+     *
+     * @param cells the array for storing the puzzle
+     * @return <b>true</b> if a puzzle was read, <b>false</b> at the end of the
+     * input
+     * @throws IOException if an I/O error occurs
+     * @throws PuzzleFormatException if the line has an invalid format or is
+     * too long
+     */
+    public boolean read(short[] cells) throws IOException,
+            PuzzleFormatException
+    {
+        while (readLine())
+        {
+            if (lineLength > 0 && line[0] != '#')
+            {
+                int count = isSeparated() ? parseSeparated(cells)
+                        : parseCharacters(cells);
+                if (count != cells.length)
+                {
+                    throw new PuzzleFormatException("Expected "
+                            + cells.length + " cells, but found " + count
+                            + "!", lineNumber);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Reads the next line into the line buffer. Trailing white space is
+     * removed. If the line is too long, the remaining characters are skipped
+     * up to the end of the line, and an exception is thrown; so reading can
+     * continue with the next line.
+     *
+     * @return <b>false</b> if the end of the input is reached
+     * @throws IOException if an I/O error occurs
+     * @throws PuzzleFormatException if the line is too long
+     */
+    private boolean readLine() throws IOException, PuzzleFormatException
+    {
+        lineLength = 0;
+        boolean data = false;
+        boolean tooLong = false;
+        while (true)
+        {
+            if (!buffer.hasRemaining())
+            {
+                buffer.clear();
+                int count = channel.read(buffer);
+                buffer.flip();
+                if (count < 0)
+                {
+                    if (data)
+                    {
+                        lineNumber++;
+                        endLine(tooLong);
+                    }
+                    return data;
+                }
+                continue;
+            }
+
+            byte b = buffer.get();
+            data = true;
+            if (b == '\n')
+            {
+                lineNumber++;
+                endLine(tooLong);
+                return true;
+            }
+            if (lineLength == line.length)
+            {
+                if (line.length >= MAX_LINE_SIZE)
+                {
+                    tooLong = true;
+                    continue;
+                }
+                line = Arrays.copyOf(line,
+                        Math.min(2 * line.length, MAX_LINE_SIZE));
+            }
+            line[lineLength++] = b;
+        }
+    }
+
+    /**
+     * Completes reading of the current line. Checks whether the line was too
+     * long and removes trailing white space.
+     *
+     * @param tooLong a flag whether the line exceeded the maximum length
+     * @throws PuzzleFormatException if the line was too long
+     */
+    private void endLine(boolean tooLong) throws PuzzleFormatException
+    {
+        if (tooLong)
+        {
+            throw new PuzzleFormatException("Line is longer than "
+                    + MAX_LINE_SIZE + " characters!", lineNumber);
+        }
+        trimLine();
+    }
+
+    /**
+     * Removes trailing white space from the current line.
+     */
+    private void trimLine()
+    {
+        while (lineLength > 0 && line[lineLength - 1] <= ' ')
+        {
+            lineLength--;
+        }
+    }
+
+    /**
+     * Checks whether the current line uses the separated format.
+     *
+     * @return a flag whether the line contains separators
+     */
+    private boolean isSeparated()
+    {
+        for (int i = 0; i < lineLength; i++)
+        {
+            if (isSeparator(line[i]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a line in the single character format.
+     *
+     * @param cells the array for the cell values
+     * @return the number of cells found
+     * @throws PuzzleFormatException if an invalid character is found
+     */
+    private int parseCharacters(short[] cells) throws PuzzleFormatException
+    {
+        int count = Math.min(lineLength, cells.length);
+        for (int i = 0; i < count; i++)
+        {
+            int value = (line[i] == '.') ? 0 : Character.digit(line[i], RADIX);
+            if (value < 0)
+            {
+                throw invalidCharacter(i);
+            }
+            cells[i] = (short) value;
+        }
+        return lineLength;
+    }
+
+    /**
+     * Parses a line in the separated format.
+     *
+     * @param cells the array for the cell values
+     * @return the number of cells found
+     * @throws PuzzleFormatException if an invalid character is found
+     */
+    private int parseSeparated(short[] cells) throws PuzzleFormatException
+    {
+        int count = 0;
+        int pos = 0;
+        while (pos < lineLength)
+        {
+            if (isSeparator(line[pos]))
+            {
+                pos++;
+                continue;
+            }
+
+            int value = 0;
+            if (line[pos] == '.')
+            {
+                pos++;
+                if (pos < lineLength && !isSeparator(line[pos]))
+                {
+                    throw invalidCharacter(pos);
+                }
+            }
+            else
+            {
+                while (pos < lineLength && !isSeparator(line[pos]))
+                {
+                    if (line[pos] < '0' || line[pos] > '9')
+                    {
+                        throw invalidCharacter(pos);
+                    }
+                    int digit = line[pos] - '0';
+                    if (value > (Short.MAX_VALUE - digit) / 10)
+                    {
+                        throw new PuzzleFormatException("Number too large at "
+                                + "position " + (pos + 1) + "!", lineNumber);
+                    }
+                    value = value * 10 + digit;
+                    pos++;
+                }
+            }
+            if (count < cells.length)
+            {
+                cells[count] = (short) value;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Creates an exception for an invalid character in the current line.
+     *
+     * @param pos the position of the character
+     * @return the exception
+     */
+    private PuzzleFormatException invalidCharacter(int pos)
+    {
+        return new PuzzleFormatException("Invalid character '"
+                + (char) line[pos] + "' at position " + (pos + 1) + "!",
+                lineNumber);
+    }
+
+    /**
+     * Checks whether the given character is a separator.
+     *
+     * @param b the character
+     * @return a flag whether this is a separator
+     */
+    private static boolean isSeparator(byte b)
+    {
+        return b == ',' || b == ';' || b == ' ' || b == '\t';
+    }
+}
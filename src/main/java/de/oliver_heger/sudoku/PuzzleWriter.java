@@ -0,0 +1,191 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * A class for writing puzzles to a text stream with one puzzle per line.
+ * </p>
+ * <p>
+ * This is the counterpart of {@link PuzzleReader}. Puzzles are written in the
+ * single character format if the field size is at most 35; otherwise, the
+ * numbers are separated by commas. Empty cells are written as '.'. Data is
+ * collected in a fixed size buffer and written to a
+ * <code>WritableByteChannel</code> when the buffer is full or when
+ * <code>flush()</code> is called. Instances of this class are not
+ * thread-safe.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class PuzzleWriter implements Closeable, Flushable
+{
+    /** Constant for the size of the write buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Constant for the maximum number of bytes needed for a single cell. */
+    private static final int MAX_CELL_SIZE = 8;
+
+    /** Constant for the maximum field size of the single character format. */
+    private static final int MAX_CHARACTER_SIZE = 35;
+
+    /** Constant for the radix used for single character cells. */
+    private static final int RADIX = 36;
+
+    /** The channel to write to. */
+    private final WritableByteChannel channel;
+
+    /** The buffer for collecting data. */
+    private final ByteBuffer buffer;
+
+    /** A flag whether the separated format is used. */
+    private final boolean separated;
+
+    /**
+     * Creates a new instance of <code>PuzzleWriter</code> which writes puzzles
+     * of the given field size to the specified channel.
+     *
+     * @param ch the channel to write to
+     * @param fieldSize the field size of the puzzles
+     */
+    public PuzzleWriter(WritableByteChannel ch, int fieldSize)
+    {
+        channel = ch;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        separated = fieldSize > MAX_CHARACTER_SIZE;
+    }
+
+    /**
+     * Writes a puzzle as a single line. The array contains the values of all
+     * cells row by row.
+     *
+     * @param cells the values of the cells
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(short[] cells) throws IOException
+    {
+        for (int i = 0; i < cells.length; i++)
+        {
+            ensureCapacity(MAX_CELL_SIZE);
+            if (separated && i > 0)
+            {
+                buffer.put((byte) ',');
+            }
+            if (cells[i] == 0)
+            {
+                buffer.put((byte) '.');
+            }
+            else if (separated)
+            {
+                putNumber(cells[i]);
+            }
+            else
+            {
+                buffer.put((byte) Character.forDigit(cells[i], RADIX));
+            }
+        }
+        ensureCapacity(1);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes a comment line. The text is prefixed by '#', so it is ignored by
+     * a {@link PuzzleReader}. It must consist of ASCII characters only.
+     *
+     * @param text the text of the comment
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeComment(String text) throws IOException
+    {
+        ensureCapacity(2);
+        buffer.put((byte) '#').put((byte) ' ');
+        for (int i = 0; i < text.length(); i++)
+        {
+            ensureCapacity(1);
+            buffer.put((byte) text.charAt(i));
+        }
+        ensureCapacity(1);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes all buffered data to the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer and closes the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Makes sure that the buffer has room for the given number of bytes. If
+     * necessary, the buffer is flushed.
+     *
+     * @param size the number of bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensureCapacity(int size) throws IOException
+    {
+        if (buffer.remaining() < size)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the decimal representation of a positive number into the
+     * buffer.
+     *
+     * @param value the number
+     */
+    private void putNumber(int value)
+    {
+        int divisor = 1;
+        while (divisor * 10 <= value)
+        {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10)
+        {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * A class collecting statistical data about a search performed by
+ * {@link SudokuSolver}.
+ * </p>
+ * <p>
+ * If statistics are enabled for a solver, an instance of this class is filled
+ * by each search. It records the number of nodes visited, the number of
+ * backtracks, the maximum depth of the search tree, the time spent, and how
+ * often each propagation technique was applied. This data shows why a puzzle
+ * is hard to solve and can be used to grade its difficulty.
+ * </p>
+ * <p>
+ * An instance belongs to a single solver; it is reused and overwritten by the
+ * next search. Implementation note: This class is not thread-safe.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class SearchStatistics
+{
+    /** The number of nodes visited. */
+    private long nodeCount;
+
+    /** The number of backtracks. */
+    private long backtrackCount;
+
+    /** The maximum depth of the search. */
+    private int maxDepth;
+
+    /** The time of the search in nanoseconds. */
+    private long time;
+
+    /** The number of times each technique was applied. */
+    private final long[] techniqueCounts;
+
+    /**
+     * Creates a new instance of <code>SearchStatistics</code>. All values are
+     * 0.
+     */
+    public SearchStatistics()
+    {
+        techniqueCounts = new long[Technique.values().length];
+    }
+
+    /**
+     * Returns the number of nodes visited by the search. Each number
+     * tentatively written into a cell by the search counts as a node.
+     *
+     * @return the number of nodes
+     */
+    public long getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of backtracks. This is the number of times the
+     * search had to remove cells from the field in order to try the next
+     * alternative of a choice point.
+     *
+     * @return the number of backtracks
+     */
+    public long getBacktrackCount()
+    {
+        return backtrackCount;
+    }
+
+    /**
+     * Returns the maximum depth of the search tree, i.e. the maximum number of
+     * choice points which were open at the same time. A value of 0 means that
+     * no search was necessary.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the time of the search in nanoseconds. This includes the
+     * initial propagation.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTime()
+    {
+        return time;
+    }
+
+    /**
+     * Returns the number of times the given propagation technique was
+     * applied. For the single techniques, this is the number of cells filled;
+     * for elimination techniques, it is the number of patterns found which
+     * removed candidates. Applications in branches that were discarded later
+     * are counted, too.
+     *
+     * @param technique the technique
+     * @return the number of applications of this technique
+     */
+    public long getTechniqueCount(Technique technique)
+    {
+        return techniqueCounts[technique.ordinal()];
+    }
+
+    /**
+     * Returns the total number of cells filled by propagation. Elimination
+     * techniques do not fill cells, so they are not taken into account.
+     *
+     * @return the number of cells filled by all techniques
+     */
+    public long getPropagatedCount()
+    {
+        long count = 0;
+        for (Technique t : Technique.values())
+        {
+            if (!t.isElimination())
+            {
+                count += getTechniqueCount(t);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a string representation of this object. The string contains all
+     * values in the form <em>name=value</em>.
+     *
+     * @return a string for this object
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder buf = new StringBuilder();
+        buf.append("nodes=").append(getNodeCount());
+        buf.append(" backtracks=").append(getBacktrackCount());
+        buf.append(" maxDepth=").append(getMaxDepth());
+        buf.append(" time=").append(getTime());
+        for (Technique t : Technique.values())
+        {
+            buf.append(' ').append(t.name()).append('=')
+                    .append(getTechniqueCount(t));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Resets all values to 0. This method is called at the beginning of a
+     * search.
+     */
+    void reset()
+    {
+        nodeCount = 0;
+        backtrackCount = 0;
+        maxDepth = 0;
+        time = 0;
+        for (int i = 0; i < techniqueCounts.length; i++)
+        {
+            techniqueCounts[i] = 0;
+        }
+    }
+
+    /**
+     * Records a backtrack.
+     */
+    void backtrack()
+    {
+        backtrackCount++;
+    }
+
+    /**
+     * Records the current depth of the search. The maximum depth is updated
+     * if necessary.
+     *
+     * @param depth the current depth
+     */
+    void depth(int depth)
+    {
+        if (depth > maxDepth)
+        {
+            maxDepth = depth;
+        }
+    }
+
+    /**
+     * Records an application of a propagation technique.
+     *
+     * @param technique the technique
+     */
+    void propagated(Technique technique)
+    {
+        techniqueCounts[technique.ordinal()]++;
+    }
+
+    /**
+     * Stores the final results of a search.
+     *
+     * @param nodes the number of nodes visited
+     * @param t the time in nanoseconds
+     */
+    void finish(long nodes, long t)
+    {
+        nodeCount = nodes;
+        time = t;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * An enumeration with the strategies supported by {@link SudokuSolver} for
+ * searching a solution.
+ * </p>
+ * <p>
+ * The strategy determines the order in which the search tries out the
+ * alternatives for the open cells of the sudoku:
+ * <ul>
+ * <li>{@code NUMBER_BY_COLUMN} places the number 1 in every column, then the
+ * number 2, and so on. This is the original algorithm; it does not take the
+ * current state of the field into account.</li>
+ * <li>{@code MINIMUM_REMAINING_VALUES} always branches on the empty cell with
+ * the fewest candidates. This prunes the search tree considerably for hard
+ * puzzles.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum SearchStrategy {
+    NUMBER_BY_COLUMN, MINIMUM_REMAINING_VALUES
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A cache for the solutions of sudoku puzzles.
+ * </p>
+ * <p>
+ * The cache maps the {@link CanonicalForm} of a puzzle to the solution of
+ * this canonical form. So a solution found for one puzzle can be reused for
+ * all puzzles which are transformations of it. When a solution is requested
+ * from the cache, it is mapped back to the layout of the puzzle using the
+ * inverse transformation.
+ * </p>
+ * <p>
+ * The number of entries in the cache is limited. If the limit is reached, the
+ * least recently used entry is removed. The cache keeps track of the number of
+ * hits and misses. It is thread-safe.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class SolutionCache
+{
+    /** The maximum number of entries. */
+    private final int maxSize;
+
+    /** The map with the entries of the cache in LRU order. */
+    private final Map<Key, short[]> entries;
+
+    /** The number of hits. */
+    private long hitCount;
+
+    /** The number of misses. */
+    private long missCount;
+
+    /**
+     * Creates a new instance of <code>SolutionCache</code> with the given
+     * maximum number of entries.
+     *
+     * @param size the maximum number of entries
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public SolutionCache(int size)
+    {
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException("Invalid cache size: " + size);
+        }
+        maxSize = size;
+        entries = new LinkedHashMap<Key, short[]>(16, 0.75f, true)
+        {
+            /**
+             * The serial version UID.
+             */
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * Removes the least recently used entry if the cache is full.
+             *
+             * @param eldest the least recently used entry
+             * @return a flag whether this entry is to be removed
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, short[]> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the maximum number of entries of this cache.
+     *
+     * @return the maximum size
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current number of entries in this cache.
+     *
+     * @return the size of this cache
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of successful lookups.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which did not find a solution.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Removes all entries from this cache. The counters are not affected.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Looks up the solution for the puzzle with the given canonical form. If
+     * a solution is found, it is transformed to the layout of the puzzle.
+     *
+     * @param form the canonical form of the puzzle
+     * @return the solution of the puzzle or <b>null</b> if it is not cached
+     */
+    public short[] get(CanonicalForm form)
+    {
+        short[] solution;
+        synchronized (this)
+        {
+            solution = entries.get(new Key(form.getCells()));
+            if (solution == null)
+            {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+        }
+        return form.fromCanonical(solution);
+    }
+
+    /**
+     * Stores the solution of a puzzle in this cache. The solution is passed in
+     * the layout of the puzzle; it is transformed to the canonical form.
+     *
+     * @param form the canonical form of the puzzle
+     * @param solution the solution of the puzzle
+     */
+    public void put(CanonicalForm form, short[] solution)
+    {
+        Key key = new Key(form.getCells());
+        short[] canonicalSolution = form.toCanonical(solution);
+        synchronized (this)
+        {
+            entries.put(key, canonicalSolution);
+        }
+    }
+
+    /**
+     * Solves a puzzle using this cache. The puzzle is always loaded into the
+     * solver first, so invalid puzzles are rejected. If the solution of an
+     * equivalent puzzle is contained in the cache, it is returned without
+     * searching. Otherwise the puzzle is solved; the solution is then added to
+     * the cache. Unsolvable puzzles are not cached.
+     *
+     * @param puzzle an array with the cells of the puzzle
+     * @param solver the solver to be used
+     * @return the solution of the puzzle or <b>null</b> if there is none
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    public short[] solve(short[] puzzle, SudokuSolver solver)
+            throws SudokuSolverException
+    {
+        solver.load(puzzle);
+        CanonicalForm form = CanonicalForm.of(puzzle, solver.getSquareSize());
+        short[] solution = get(form);
+        if (solution == null)
+        {
+            if (!solver.solve())
+            {
+                return null;
+            }
+            solution = new short[puzzle.length];
+            solver.getCells(solution);
+            put(form, solution);
+        }
+        return solution;
+    }
+
+    /**
+     * A class for the keys of the cache. It wraps the cells of a canonical
+     * form and implements <code>equals()</code> and <code>hashCode()</code>
+     * based on their content.
+     */
+    private static final class Key
+    {
+        /** The cells of the canonical form. */
+        private final short[] cells;
+
+        /** The hash code. */
+        private final int hash;
+
+        /**
+         * Creates a new instance of <code>Key</code>.
+         *
+         * @param c the cells
+         */
+        public Key(short[] c)
+        {
+            cells = c;
+            hash = Arrays.hashCode(c);
+        }
+
+        /**
+         * Returns a hash code for this object.
+         *
+         * @return a hash code
+         */
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        /**
+         * Tests whether this object equals another one. Two keys are equal if
+         * they contain the same cells.
+         *
+         * @param obj the object to compare to
+         * @return a flag whether the objects are equal
+         */
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof Key))
+            {
+                return false;
+            }
+            return Arrays.equals(cells, ((Key) obj).cells);
+        }
+    }
+}
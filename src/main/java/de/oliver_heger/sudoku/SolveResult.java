@@ -0,0 +1,39 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * An enumeration with the possible outcomes of a search for a solution.
+ * </p>
+ * <p>
+ * A search can end in the following ways:
+ * <ul>
+ * <li>{@code SOLVED} means that a solution has been found; it is stored in the
+ * field of the engine.</li>
+ * <li>{@code UNSOLVABLE} means that the whole search tree has been explored
+ * without finding a solution. So the sudoku has no solution.</li>
+ * <li>{@code ABORTED} means that the search gave up before it could reach a
+ * decision, because a time or node limit was exceeded or the thread was
+ * interrupted. Nothing is known about the sudoku in this case.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum SolveResult {
+    SOLVED, UNSOLVABLE, ABORTED
+}
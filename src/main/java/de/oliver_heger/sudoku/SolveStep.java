@@ -0,0 +1,259 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * A class describing a single step of a search performed by
+ * {@link SudokuSolver}.
+ * </p>
+ * <p>
+ * Objects of this class are passed to a {@link SolveStepListener}. A step
+ * refers to a cell (except for backtracking) and contains the number placed
+ * into this cell or the candidates removed from it. Steps found by logical
+ * deduction also contain the technique applied and the units involved, so that
+ * the reasoning can be explained to a user. Units are identified by their
+ * indices: with <em>n</em> being the field size, indices from 0 to n - 1 refer
+ * to rows, the next n indices refer to columns, and the next n indices to
+ * squares; for sudoku variants with diagonals, the indices 3 * n and 3 * n + 1
+ * refer to the diagonals. The depth of a step is the number of guesses the step
+ * depends on. Instances are immutable.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class SolveStep
+{
+    /** The type of this step. */
+    private final StepType type;
+
+    /** The row index of the cell. */
+    private final int row;
+
+    /** The column index of the cell. */
+    private final int column;
+
+    /** The value placed into the cell. */
+    private final short value;
+
+    /** The mask with the candidates removed from the cell. */
+    private final long eliminated;
+
+    /** The technique which found this step. */
+    private final Technique technique;
+
+    /** The indices of the units involved. */
+    private final int[] units;
+
+    /** The depth of the search. */
+    private final int depth;
+
+    /** The size of the field. */
+    private final short fieldSize;
+
+    /**
+     * Creates a new instance of <code>SolveStep</code> and initializes it.
+     *
+     * @param tp the type of the step
+     * @param r the row index (-1 for backtracking)
+     * @param c the column index (-1 for backtracking)
+     * @param v the value placed into the cell (0 if there is none)
+     * @param elim the mask with the candidates removed (0 if there are none)
+     * @param t the technique (<b>null</b> for steps of the search)
+     * @param u the indices of the units involved (<b>null</b> if there are
+     * none)
+     * @param d the depth of the search
+     * @param fs the size of the field
+     */
+    SolveStep(StepType tp, int r, int c, short v, long elim, Technique t,
+            int[] u, int d, short fs)
+    {
+        type = tp;
+        row = r;
+        column = c;
+        value = v;
+        eliminated = elim;
+        technique = t;
+        units = (u != null) ? u : new int[0];
+        depth = d;
+        fieldSize = fs;
+    }
+
+    /**
+     * Returns the type of this step.
+     *
+     * @return the step type
+     */
+    public StepType getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the row index of the cell affected by this step. Result is -1
+     * for backtracking.
+     *
+     * @return the row index
+     */
+    public int getRow()
+    {
+        return row;
+    }
+
+    /**
+     * Returns the column index of the cell affected by this step. Result is
+     * -1 for backtracking.
+     *
+     * @return the column index
+     */
+    public int getColumn()
+    {
+        return column;
+    }
+
+    /**
+     * Returns the value placed into the cell by this step. Result is 0 if no
+     * value was placed.
+     *
+     * @return the value
+     */
+    public short getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns a mask with the candidates removed from the cell by this step.
+     * If the number <em>n</em> was removed, bit <em>n - 1</em> is set. Result
+     * is 0 if no candidates were removed.
+     *
+     * @return the mask with the removed candidates
+     */
+    public long getEliminated()
+    {
+        return eliminated;
+    }
+
+    /**
+     * Returns the technique which found this step. Result is <b>null</b> for
+     * steps of the search.
+     *
+     * @return the technique
+     */
+    public Technique getTechnique()
+    {
+        return technique;
+    }
+
+    /**
+     * Returns the indices of the units involved in this step. These are the
+     * units examined by the technique which found the step. For a guess of
+     * the <code>NUMBER_BY_COLUMN</code> strategy, it is the column in which
+     * the number is placed.
+     *
+     * @return an array with the indices of the units
+     */
+    public int[] getUnits()
+    {
+        return units.clone();
+    }
+
+    /**
+     * Returns the depth of the search, i.e. the number of guesses this step
+     * depends on. For backtracking, this is the depth after the last guess
+     * was taken back.
+     *
+     * @return the depth of the search
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Returns a string representation of this object. The string describes
+     * the step in a form which can be presented to a user. Rows, columns,
+     * squares, and numbers are counted starting with 1.
+     *
+     * @return a string for this object
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder buf = new StringBuilder();
+        if (type == StepType.BACKTRACK)
+        {
+            return buf.append("backtrack to depth ").append(depth).toString();
+        }
+
+        buf.append('R').append(row + 1).append('C').append(column + 1);
+        if (type == StepType.ELIMINATE)
+        {
+            buf.append(" <> ");
+            String sep = "";
+            for (long bits = eliminated; bits != 0; bits &= bits - 1)
+            {
+                buf.append(sep).append(Long.numberOfTrailingZeros(bits) + 1);
+                sep = ",";
+            }
+        }
+        else
+        {
+            buf.append(" = ").append(value);
+        }
+        if (technique != null)
+        {
+            buf.append(' ').append(technique.name());
+        }
+        else
+        {
+            buf.append(" guessed at depth ").append(depth);
+        }
+        String sep = " in ";
+        for (int unit : units)
+        {
+            buf.append(sep).append(unitName(unit));
+            sep = ", ";
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns a name for the unit with the given index.
+     *
+     * @param unit the unit index
+     * @return the name of this unit
+     */
+    private String unitName(int unit)
+    {
+        if (unit < fieldSize)
+        {
+            return "row " + (unit + 1);
+        }
+        else if (unit < 2 * fieldSize)
+        {
+            return "column " + (unit - fieldSize + 1);
+        }
+        else if (unit < 3 * fieldSize)
+        {
+            return "square " + (unit - 2 * fieldSize + 1);
+        }
+        else
+        {
+            return "diagonal " + (unit - 3 * fieldSize + 1);
+        }
+    }
+}
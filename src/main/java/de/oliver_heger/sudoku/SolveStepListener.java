@@ -0,0 +1,42 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * Definition of an interface for objects that are notified about the steps
+ * of a search.
+ * </p>
+ * <p>
+ * An object implementing this interface can be registered at a
+ * {@link SudokuSolver} using <code>setStepListener()</code>. It then receives
+ * the steps performed by the solver in the order they happen. As the steps
+ * are not stored by the solver, the listener decides how much of the history
+ * is kept; for instance, it can print the steps or count them. The listener
+ * is called on the thread that performs the search.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public interface SolveStepListener
+{
+    /**
+     * Notifies this listener about a step of the search.
+     *
+     * @param step the step
+     */
+    void step(SolveStep step);
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * An enumeration with the available implementations of the
+ * {@link SudokuEngine} interface.
+ * </p>
+ * <p>
+ * Each constant can create a new engine for a given square size. This allows
+ * callers to select the solver implementation, e.g. based on a configuration
+ * setting:
+ * <ul>
+ * <li>{@code BACKTRACKING} creates a {@link SudokuSolver}.</li>
+ * <li>{@code DANCING_LINKS} creates a {@link DancingLinksSolver} which scales
+ * better for large fields.</li>
+ * <li>{@code PARALLEL} creates a {@link ParallelSolver} which searches a
+ * solution using the threads of the common fork/join pool.</li>
+ * <li>{@code LARGE} creates a {@link LargeSudokuSolver} which supports
+ * fields with more than 64 numbers.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum SolverBackend {
+    BACKTRACKING
+    {
+        @Override
+        public SudokuEngine createEngine(short squareSize)
+        {
+            return new SudokuSolver(squareSize);
+        }
+    },
+
+    DANCING_LINKS
+    {
+        @Override
+        public SudokuEngine createEngine(short squareSize)
+        {
+            return new DancingLinksSolver(squareSize);
+        }
+    },
+
+    PARALLEL
+    {
+        @Override
+        public SudokuEngine createEngine(short squareSize)
+        {
+            return new ParallelSolver(squareSize);
+        }
+    },
+
+    LARGE
+    {
+        @Override
+        public SudokuEngine createEngine(short squareSize)
+        {
+            return new LargeSudokuSolver(squareSize);
+        }
+    };
+
+    /**
+     * Returns the default backend for the given square size. This is
+     * <code>BACKTRACKING</code> for the square sizes supported by
+     * {@link SudokuSolver}, whose candidate sets are single <code>long</code>
+     * values, and <code>LARGE</code> for larger fields, which need candidate
+     * sets consisting of multiple words.
+     *
+     * @param squareSize the square size
+     * @return the default backend for this square size
+     */
+    public static SolverBackend forSquareSize(short squareSize)
+    {
+        return (squareSize <= SudokuSolver.MAX_SQUARE_SIZE) ? BACKTRACKING
+                : LARGE;
+    }
+
+    /**
+     * Creates a new engine of this backend for the given square size.
+     *
+     * @param squareSize the square size
+     * @return the new engine
+     * @throws IllegalArgumentException if the square size is not supported
+     */
+    public abstract SudokuEngine createEngine(short squareSize);
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * An enumeration with the types of the steps reported by a solving trace.
+ * </p>
+ * <p>
+ * If a {@link SolveStepListener} is registered at a {@link SudokuSolver}, it
+ * is notified about each step of a search (see {@link SolveStep}). The
+ * following types of steps exist:
+ * <ul>
+ * <li>{@code PLACE}: a number was filled into a cell by a propagation
+ * technique.</li>
+ * <li>{@code ELIMINATE}: candidates were removed from a cell by an
+ * elimination technique.</li>
+ * <li>{@code GUESS}: the search tentatively filled a number into a cell.</li>
+ * <li>{@code BACKTRACK}: the search found a contradiction or a solution and
+ * takes back its last guess together with all steps based on it.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum StepType {
+    PLACE, ELIMINATE, GUESS, BACKTRACK
+}
@@ -25,7 +25,8 @@ import javax.swing.table.TableCellRenderer;
 
 /**
  * A custom renderer for the cells of the sudoku table. This renderer will
- * display preset cells in a different color. The squares of the sudoku will
+ * display preset cells in a different color. Cells conflicting with other
+ * cells are displayed in an error color. The squares of the sudoku will
  * also be marked with different background colors.
  *
  * @author Oliver Heger
@@ -45,6 +46,9 @@ class SudokuCellRenderer extends JLabel implements TableCellRenderer
     /** Constant for the preset foreground color. */
     private static final Color FG_PRESET = Color.BLUE;
 
+    /** Constant for the foreground color of conflicting cells. */
+    private static final Color FG_CONFLICT = Color.RED;
+
     /** Constant for an empty string. */
     private static final String EMPTY = "";
 
@@ -78,7 +82,14 @@ class SudokuCellRenderer extends JLabel implements TableCellRenderer
         setHorizontalAlignment(CENTER);
         setBackground(getSquareColor(row, col));
         SudokuTableModel model = (SudokuTableModel) table.getModel();
-        setForeground(model.isPreset(row, col) ? FG_PRESET : FG_NORMAL);
+        if (model.getState(row, col) != SudokuState.OK)
+        {
+            setForeground(FG_CONFLICT);
+        }
+        else
+        {
+            setForeground(model.isPreset(row, col) ? FG_PRESET : FG_NORMAL);
+        }
         if (hasFocus)
         {
             setBorder(BorderFactory.createEtchedBorder());
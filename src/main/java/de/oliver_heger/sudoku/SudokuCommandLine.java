@@ -0,0 +1,299 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * A headless main class for solving sudokus read from a file or from standard
+ * input.
+ * </p>
+ * <p>
+ * The puzzles are read line by line using a {@link PuzzleReader}, solved
+ * one after the other by a single reused {@link SudokuSolver}, and the
+ * solutions are written to standard output using a {@link PuzzleWriter}. So
+ * inputs of arbitrary size can be processed in constant memory, and the
+ * application can be used in batch pipelines without a display. For each
+ * puzzle that cannot be solved - because its presets are invalid, it has no
+ * solution, or its line cannot be parsed - a comment line with the line
+ * number and the reason is written instead. A summary is printed to standard
+ * error at the end.
+ * </p>
+ * <p>
+ * Usage: <code>SudokuCommandLine &lt;squareSize&gt; [&lt;file&gt;]</code>. If
+ * no file or '-' is passed, the puzzles are read from standard input. A file
+ * in the binary format of {@link BinaryPuzzleReader} is detected
+ * automatically; it is mapped into memory, and its puzzles are processed by
+ * their index.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class SudokuCommandLine
+{
+    /** The solver used for all puzzles. */
+    private final SudokuSolver solver;
+
+    /** The number of puzzles processed. */
+    private long puzzleCount;
+
+    /** The number of puzzles solved. */
+    private long solvedCount;
+
+    /**
+     * Creates a new instance of <code>SudokuCommandLine</code> for the given
+     * square size.
+     *
+     * @param squareSize the square size of the puzzles
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    public SudokuCommandLine(short squareSize)
+    {
+        solver = new SudokuSolver(squareSize);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(true);
+    }
+
+    /**
+     * Returns the number of puzzles processed so far.
+     *
+     * @return the number of puzzles
+     */
+    public long getPuzzleCount()
+    {
+        return puzzleCount;
+    }
+
+    /**
+     * Returns the number of puzzles solved so far.
+     *
+     * @return the number of solved puzzles
+     */
+    public long getSolvedCount()
+    {
+        return solvedCount;
+    }
+
+    /**
+     * Reads all puzzles from the given input channel and writes the results to
+     * the given output channel. The output channel is flushed, but not closed.
+     *
+     * @param in the input channel
+     * @param out the output channel
+     * @throws IOException if an I/O error occurs
+     */
+    public void process(ReadableByteChannel in, WritableByteChannel out)
+            throws IOException
+    {
+        short fieldSize = solver.getFieldSize();
+        PuzzleReader reader = new PuzzleReader(in);
+        PuzzleWriter writer = new PuzzleWriter(out, fieldSize);
+        short[] cells = new short[fieldSize * fieldSize];
+
+        while (true)
+        {
+            try
+            {
+                if (!reader.read(cells))
+                {
+                    break;
+                }
+            }
+            catch (PuzzleFormatException pfex)
+            {
+                puzzleCount++;
+                writer.writeComment(pfex.getLineNumber() + ": "
+                        + pfex.getMessage());
+                continue;
+            }
+
+            puzzleCount++;
+            String error = solve(cells);
+            if (error == null)
+            {
+                solvedCount++;
+                writer.write(cells);
+            }
+            else
+            {
+                writer.writeComment(reader.getLineNumber() + ": " + error);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Processes all puzzles of the given binary puzzle file and writes the
+     * results to the given output channel. Works like the method for text
+     * input; error comments refer to the number of the puzzle (starting with
+     * 1). The output channel is flushed, but not closed.
+     *
+     * @param reader the reader for the binary file
+     * @param out the output channel
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the file contains puzzles of a
+     * different size
+     */
+    public void process(BinaryPuzzleReader reader, WritableByteChannel out)
+            throws IOException
+    {
+        if (reader.getSquareSize() != solver.getSquareSize())
+        {
+            throw new IllegalArgumentException("File contains puzzles of "
+                    + "square size " + reader.getSquareSize() + "!");
+        }
+        short fieldSize = solver.getFieldSize();
+        PuzzleWriter writer = new PuzzleWriter(out, fieldSize);
+        short[] cells = new short[fieldSize * fieldSize];
+
+        for (long index = 0; index < reader.getCount(); index++)
+        {
+            reader.read(index, cells);
+            puzzleCount++;
+            String error = solve(cells);
+            if (error == null)
+            {
+                solvedCount++;
+                writer.write(cells);
+            }
+            else
+            {
+                writer.writeComment((index + 1) + ": " + error);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Solves a single puzzle. If this is successful, the solution is written
+     * into the passed in array, and result is <b>null</b>. Otherwise, result
+     * is a text describing the problem.
+     *
+     * @param cells the array with the cells of the puzzle
+     * @return an error message or <b>null</b>
+     */
+    private String solve(short[] cells)
+    {
+        try
+        {
+            solver.load(cells);
+        }
+        catch (SudokuSolverException ssex)
+        {
+            return ssex.getState().name() + " " + ssex.getNumber();
+        }
+
+        if (!solver.solve())
+        {
+            return "NO_SOLUTION";
+        }
+        solver.getCells(cells);
+        return null;
+    }
+
+    /**
+     * The main method. Expects the square size and optionally the name of the
+     * input file as arguments.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 1 || args.length > 2)
+        {
+            usage("Wrong number of arguments!");
+        }
+        short squareSize = 0;
+        try
+        {
+            squareSize = Short.parseShort(args[0]);
+        }
+        catch (NumberFormatException nfex)
+        {
+            usage("No valid square size was passed in!");
+        }
+
+        try
+        {
+            SudokuCommandLine cmd = new SudokuCommandLine(squareSize);
+            ReadableByteChannel in;
+            BinaryPuzzleReader binaryReader = null;
+            if (args.length < 2 || "-".equals(args[1]))
+            {
+                in = new FileInputStream(FileDescriptor.in).getChannel();
+            }
+            else
+            {
+                FileChannel file = FileChannel.open(Paths.get(args[1]),
+                        StandardOpenOption.READ);
+                in = file;
+                if (BinaryPuzzleReader.isBinary(file))
+                {
+                    binaryReader = new BinaryPuzzleReader(file);
+                }
+            }
+            WritableByteChannel out = new FileOutputStream(FileDescriptor.out)
+                    .getChannel();
+            try
+            {
+                if (binaryReader != null)
+                {
+                    cmd.process(binaryReader, out);
+                }
+                else
+                {
+                    cmd.process(in, out);
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+            System.err.println("Solved " + cmd.getSolvedCount() + " of "
+                    + cmd.getPuzzleCount() + " puzzles.");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            usage(iex.getMessage());
+        }
+        catch (IOException ioex)
+        {
+            System.err.println("I/O error: " + ioex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Prints a usage message and exits the application.
+     *
+     * @param msg an error message
+     */
+    private static void usage(String msg)
+    {
+        System.err.println("Usage: SudokuCommandLine <squareSize> [<file>]");
+        System.err.println(msg);
+        System.exit(1);
+    }
+}
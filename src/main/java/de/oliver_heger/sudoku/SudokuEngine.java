@@ -0,0 +1,140 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * An interface for objects that can solve sudokus.
+ * </p>
+ * <p>
+ * This interface defines the common contract of the different solver
+ * implementations. A typical usage scenario is that an instance is created for
+ * a specific square size, then the presets are filled in using
+ * {@code setCell()}, and finally {@code solve()} is called. After a successful
+ * invocation of {@code solve()}, the solution can be queried using
+ * {@code getCell()}. The {@link SolverBackend} enumeration can be used to
+ * create instances of the available implementations.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public interface SudokuEngine
+{
+    /**
+     * Returns the square size. The size of the total field is the square of the
+     * size returned here.
+     *
+     * @return the size of a (sub) square
+     */
+    short getSquareSize();
+
+    /**
+     * Returns the size of the total field. The value returned by this method is
+     * the number of rows and columns of the total field. It also corresponds to
+     * the maximum number to be filled in the field.
+     *
+     * @return the (total) field size
+     */
+    short getFieldSize();
+
+    /**
+     * Returns the value of the cell at the specified position.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the value of this cell (0 means that no number has been filled
+     * into this cell yet)
+     */
+    short getCell(int row, int col);
+
+    /**
+     * Writes a preset value into the specified cell. It is checked immediately
+     * whether the sudoku rules are violated by this operation; in this case,
+     * an exception is thrown.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param value the value for the cell
+     * @throws SudokuSolverException if this set operation is not allowed
+     */
+    void setCell(int row, int col, short value) throws SudokuSolverException;
+
+    /**
+     * Removes the value from the specified cell. The cell must contain a
+     * value.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @throws IllegalArgumentException if the cell is empty
+     */
+    void clearCell(int row, int col);
+
+    /**
+     * Tries to solve the sudoku. Fills all the missing fields with valid
+     * values. The search stops if the current thread is interrupted; it then
+     * behaves as if no solution was found.
+     *
+     * @return a flag whether a solution could be found
+     */
+    boolean solve();
+
+    /**
+     * Tries to solve the sudoku within the given time. This method works like
+     * {@link #solve()}, but the search gives up when the time limit is
+     * exceeded or the current thread is interrupted (the interrupted flag of
+     * the thread is not cleared). The result shows whether a solution was
+     * found, whether there is no solution, or whether the search was aborted.
+     * If no solution is found, the field is the same as before.
+     *
+     * @param timeout the maximum time to search; a value less than or equal 0
+     * means that there is no time limit
+     * @param unit the unit of the timeout
+     * @return the result of the search
+     */
+    SolveResult solve(long timeout, TimeUnit unit);
+
+    /**
+     * Counts the solutions of this sudoku up to the given limit. The search
+     * stops as soon as the limit is reached. The field is not changed by this
+     * method.
+     *
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found (at most <code>limit</code>)
+     * @throws IllegalArgumentException if the limit is less than 1
+     */
+    int countSolutions(int limit);
+
+    /**
+     * Checks whether this sudoku has exactly one solution. This is a well-formed
+     * sudoku. The check stops after a second solution has been found.
+     *
+     * @return a flag whether this sudoku has a unique solution
+     */
+    boolean hasUniqueSolution();
+
+    /**
+     * Returns the progress of the current or the last search. This is the
+     * number of steps performed by the search, e.g. the nodes visited. The
+     * value is updated periodically while a search is running; it can be
+     * queried from other threads, e.g. to display the progress of a search
+     * running in the background.
+     *
+     * @return the number of steps performed by the current or last search
+     */
+    long getProgress();
+}
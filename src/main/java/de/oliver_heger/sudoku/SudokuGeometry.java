@@ -0,0 +1,648 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A class describing the layout of a sudoku field of a given square size.
+ * </p>
+ * <p>
+ * The cells of the field are addressed by a single index: the cell in row
+ * <em>r</em> and column <em>c</em> has the index <em>r * field size + c</em>.
+ * An instance holds tables which map a cell index to the row, the column, and
+ * the square of the cell. In addition, it stores the cells belonging to each
+ * unit (a row, a column, or a square), the units each cell belongs to, and
+ * the peers of each cell (the other cells sharing a unit with it). So a
+ * solver does not need to compute these values in its inner loops.
+ * </p>
+ * <p>
+ * The peer lists need memory proportional to the number of cells times the
+ * field size. They are only created for the square sizes supported by
+ * {@link SudokuSolver}; {@link LargeSudokuSolver}, which handles larger
+ * fields, works on the units only.
+ * </p>
+ * <p>
+ * The tables of a classic sudoku only depend on the square size. Therefore,
+ * there is only a single instance per square size which is created on first
+ * access and then shared by all solvers. The instances are stored in a
+ * concurrent map, so solvers created by multiple threads obtain them without
+ * locking. Instances are immutable; the arrays returned by the get methods
+ * must not be modified.
+ * </p>
+ * <p>
+ * A geometry can also be created for a {@link SudokuVariant}. Then the
+ * squares are replaced by the regions of the variant, the diagonals are
+ * added as units, and the peers include the cells of the same diagonals and
+ * cages. In addition, such a geometry provides the cages and a table with the
+ * numbers which can form a given sum. Geometries for variants are not
+ * shared.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+final class SudokuGeometry
+{
+    /** A map with the instances created so far, keyed by square size. */
+    private static final ConcurrentMap<Short, SudokuGeometry> INSTANCES =
+            new ConcurrentHashMap<Short, SudokuGeometry>();
+
+    /** The square size. */
+    private final short squareSize;
+
+    /** The field size. */
+    private final short fieldSize;
+
+    /** The number of cells. */
+    private final int cellCount;
+
+    /** An array with the row index of each cell. */
+    private final int[] rows;
+
+    /** An array with the column index of each cell. */
+    private final int[] columns;
+
+    /** An array with the square index of each cell. */
+    private final int[] squares;
+
+    /**
+     * An array with the cell indices of all units. The first field size
+     * elements are the rows, followed by the columns and the squares. If
+     * the diagonals are units, they are stored at the end.
+     */
+    private final int[][] units;
+
+    /**
+     * An array with the indices of the units each cell belongs to: its row,
+     * its column, its square, and its additional units.
+     */
+    private final int[][] cellUnits;
+
+    /**
+     * An array with the cell indices of the peers of each cell; <b>null</b>
+     * for large fields.
+     */
+    private final int[][] peers;
+
+    /** A flag whether the squares are replaced by irregular regions. */
+    private final boolean irregular;
+
+    /**
+     * An array with the indices of the units following the squares each cell
+     * belongs to; <b>null</b> if there are no such units.
+     */
+    private final int[][] extraUnits;
+
+    /** The index of the cage of each cell; <b>null</b> if there are none. */
+    private final int[] cages;
+
+    /** An array with the cells of the cages. */
+    private final int[][] cageCells;
+
+    /** An array with the sums of the cages. */
+    private final int[] cageSums;
+
+    /** The number of sums stored per cell count in the combinations table. */
+    private final int sumCount;
+
+    /**
+     * A table with the numbers which can form a sum. The element at index
+     * <em>count * sumCount + sum</em> is a mask with all numbers contained in
+     * a combination of <em>count</em> different numbers adding up to
+     * <em>sum</em>.
+     */
+    private final long[] combinations;
+
+    /**
+     * Creates a new instance of <code>SudokuGeometry</code> and computes all
+     * tables for the given square size and variant.
+     *
+     * @param sqrSz the square size
+     * @param variant the variant (<b>null</b> for a classic sudoku)
+     */
+    private SudokuGeometry(short sqrSz, SudokuVariant variant)
+    {
+        squareSize = sqrSz;
+        fieldSize = (short) (sqrSz * sqrSz);
+        cellCount = fieldSize * fieldSize;
+        rows = new int[cellCount];
+        columns = new int[cellCount];
+        squares = new int[cellCount];
+        irregular = variant != null && variant.isIrregular();
+        boolean diagonals = variant != null && variant.isDiagonals();
+        units = new int[3 * fieldSize + (diagonals ? 2 : 0)][fieldSize];
+        initUnits(variant);
+        extraUnits = diagonals ? createExtraUnits() : null;
+        cellUnits = createCellUnits();
+
+        int cageCount = (variant != null) ? variant.getCageCount() : 0;
+        cageCells = new int[cageCount][];
+        cageSums = new int[cageCount];
+        int maxCount = 0;
+        int maxSum = 0;
+        for (int cage = 0; cage < cageCount; cage++)
+        {
+            cageCells[cage] = variant.getCageCells(cage);
+            cageSums[cage] = variant.getCageSum(cage);
+            maxCount = Math.max(maxCount, cageCells[cage].length);
+            maxSum = Math.max(maxSum, cageSums[cage]);
+        }
+        cages = (cageCount > 0) ? createCages() : null;
+        sumCount = maxSum + 1;
+        combinations = createCombinations(maxCount);
+
+        if (sqrSz <= SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            peers = new int[cellCount][];
+            initPeers();
+        }
+        else
+        {
+            peers = null;
+        }
+    }
+
+    /**
+     * Returns the instance for the given square size. The instance is created
+     * on first access. If multiple threads request a new instance at the same
+     * time, each of them may create one, but all of them obtain the instance
+     * which was stored first.
+     *
+     * @param squareSize the square size
+     * @return the geometry for this square size
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    static SudokuGeometry getInstance(short squareSize)
+    {
+        if (squareSize < 2 || squareSize > LargeSudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException("Invalid square size: "
+                    + squareSize);
+        }
+
+        SudokuGeometry geometry = INSTANCES.get(squareSize);
+        if (geometry == null)
+        {
+            geometry = new SudokuGeometry(squareSize, null);
+            SudokuGeometry other = INSTANCES.putIfAbsent(squareSize, geometry);
+            if (other != null)
+            {
+                geometry = other;
+            }
+        }
+        return geometry;
+    }
+
+    /**
+     * Returns a geometry for the given variant. For a classic sudoku, this is
+     * the shared instance for the square size; otherwise, a new instance is
+     * created.
+     *
+     * @param variant the variant
+     * @return the geometry for this variant
+     */
+    static SudokuGeometry forVariant(SudokuVariant variant)
+    {
+        if (variant.isClassic())
+        {
+            return getInstance(variant.getSquareSize());
+        }
+        return new SudokuGeometry(variant.getSquareSize(), variant);
+    }
+
+    /**
+     * Returns the square size.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the field size, i.e. the number of rows and columns.
+     *
+     * @return the field size
+     */
+    public short getFieldSize()
+    {
+        return fieldSize;
+    }
+
+    /**
+     * Returns the total number of cells.
+     *
+     * @return the number of cells
+     */
+    public int getCellCount()
+    {
+        return cellCount;
+    }
+
+    /**
+     * Returns the index of the cell at the given position.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the index of this cell
+     */
+    public int getCell(int row, int col)
+    {
+        return row * fieldSize + col;
+    }
+
+    /**
+     * Returns the row index of the given cell.
+     *
+     * @param cell the cell index
+     * @return the row of this cell
+     */
+    public int getRow(int cell)
+    {
+        return rows[cell];
+    }
+
+    /**
+     * Returns the column index of the given cell.
+     *
+     * @param cell the cell index
+     * @return the column of this cell
+     */
+    public int getColumn(int cell)
+    {
+        return columns[cell];
+    }
+
+    /**
+     * Returns the index of the square the given cell belongs to.
+     *
+     * @param cell the cell index
+     * @return the square of this cell
+     */
+    public int getSquare(int cell)
+    {
+        return squares[cell];
+    }
+
+    /**
+     * Returns the number of units. There is a unit for each row, column, and
+     * square, and for the diagonals if they are units.
+     *
+     * @return the number of units
+     */
+    public int getUnitCount()
+    {
+        return units.length;
+    }
+
+    /**
+     * Returns the indices of the cells of the given unit. Units with an index
+     * less than the field size are rows; then the columns, the squares, and
+     * the diagonals follow. The cells of a square are ordered row by row.
+     *
+     * @param unit the unit index
+     * @return an array with the cells of this unit
+     */
+    public int[] getUnit(int unit)
+    {
+        return units[unit];
+    }
+
+    /**
+     * Returns the indices of the units the given cell belongs to. These are
+     * its row, its column, its square, and its diagonals if they are units.
+     *
+     * @param cell the cell index
+     * @return an array with the units of this cell
+     */
+    public int[] getUnits(int cell)
+    {
+        return cellUnits[cell];
+    }
+
+    /**
+     * Returns the indices of the peers of the given cell. These are all other
+     * cells in the same row, column, square, diagonal, or cage. Peers are only
+     * available if the square size does not exceed
+     * <code>SudokuSolver.MAX_SQUARE_SIZE</code>.
+     *
+     * @param cell the cell index
+     * @return an array with the peers of this cell
+     */
+    public int[] getPeers(int cell)
+    {
+        return peers[cell];
+    }
+
+    /**
+     * Returns a flag whether the squares are replaced by irregular regions.
+     * Then the cells of a square are not arranged in a square block.
+     *
+     * @return a flag whether there are irregular regions
+     */
+    public boolean isIrregular()
+    {
+        return irregular;
+    }
+
+    /**
+     * Returns a flag whether this geometry defines constraints in addition to
+     * the rows, columns, and squares, i.e. diagonals or cages.
+     *
+     * @return a flag whether there are additional constraints
+     */
+    public boolean hasConstraints()
+    {
+        return extraUnits != null || cages != null;
+    }
+
+    /**
+     * Returns the indices of the units following the squares which contain
+     * the given cell. This is only supported if the diagonals are units.
+     *
+     * @param cell the cell index
+     * @return an array with the additional units of this cell
+     */
+    public int[] getExtraUnits(int cell)
+    {
+        return extraUnits[cell];
+    }
+
+    /**
+     * Returns the number of cages.
+     *
+     * @return the number of cages
+     */
+    public int getCageCount()
+    {
+        return cageSums.length;
+    }
+
+    /**
+     * Returns the index of the cage the given cell belongs to.
+     *
+     * @param cell the cell index
+     * @return the index of the cage of this cell or -1 if there is none
+     */
+    public int getCage(int cell)
+    {
+        return (cages != null) ? cages[cell] : -1;
+    }
+
+    /**
+     * Returns the indices of the cells of the given cage.
+     *
+     * @param cage the index of the cage
+     * @return an array with the cells of this cage
+     */
+    public int[] getCageCells(int cage)
+    {
+        return cageCells[cage];
+    }
+
+    /**
+     * Returns the sum of the given cage.
+     *
+     * @param cage the index of the cage
+     * @return the sum of this cage
+     */
+    public int getCageSum(int cage)
+    {
+        return cageSums[cage];
+    }
+
+    /**
+     * Returns a mask with the numbers which are part of a combination of
+     * different numbers with the given count and sum. The count must not
+     * exceed the size of the largest cage, and the sum must not exceed the
+     * largest sum of a cage.
+     *
+     * @param count the number of numbers to combine
+     * @param sum the sum of the numbers
+     * @return a mask with the numbers which can be used to form this sum
+     */
+    public long getCombinations(int count, int sum)
+    {
+        return combinations[count * sumCount + sum];
+    }
+
+    /**
+     * Initializes the tables with the row, column, and square of each cell and
+     * the cells of the units. The squares are defined by the regions of the
+     * variant, if any.
+     *
+     * @param variant the variant (<b>null</b> for a classic sudoku)
+     */
+    private void initUnits(SudokuVariant variant)
+    {
+        int[] squareCounts = new int[fieldSize];
+        for (int cell = 0; cell < cellCount; cell++)
+        {
+            int row = cell / fieldSize;
+            int col = cell % fieldSize;
+            int square = (variant != null) ? variant.getRegion(cell)
+                    : (row / squareSize) * squareSize + col / squareSize;
+            rows[cell] = row;
+            columns[cell] = col;
+            squares[cell] = square;
+            units[row][col] = cell;
+            units[fieldSize + col][row] = cell;
+            units[2 * fieldSize + square][squareCounts[square]++] = cell;
+        }
+
+        if (units.length > 3 * fieldSize)
+        {
+            for (int i = 0; i < fieldSize; i++)
+            {
+                units[3 * fieldSize][i] = getCell(i, i);
+                units[3 * fieldSize + 1][i] = getCell(i, fieldSize - 1 - i);
+            }
+        }
+    }
+
+    /**
+     * Creates the table with the units following the squares for each cell.
+     *
+     * @return the table with the additional units
+     */
+    private int[][] createExtraUnits()
+    {
+        int[] counts = new int[cellCount];
+        for (int unit = 3 * fieldSize; unit < units.length; unit++)
+        {
+            for (int cell : units[unit])
+            {
+                counts[cell]++;
+            }
+        }
+
+        int[][] result = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++)
+        {
+            result[cell] = new int[counts[cell]];
+            counts[cell] = 0;
+        }
+        for (int unit = 3 * fieldSize; unit < units.length; unit++)
+        {
+            for (int cell : units[unit])
+            {
+                result[cell][counts[cell]++] = unit;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the table with the units of each cell.
+     *
+     * @return the table with the units of the cells
+     */
+    private int[][] createCellUnits()
+    {
+        int[][] result = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++)
+        {
+            int extraCount = (extraUnits != null) ? extraUnits[cell].length
+                    : 0;
+            result[cell] = new int[3 + extraCount];
+            result[cell][0] = rows[cell];
+            result[cell][1] = fieldSize + columns[cell];
+            result[cell][2] = 2 * fieldSize + squares[cell];
+            for (int i = 0; i < extraCount; i++)
+            {
+                result[cell][3 + i] = extraUnits[cell][i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the table with the cage of each cell.
+     *
+     * @return the table with the cages
+     */
+    private int[] createCages()
+    {
+        int[] result = new int[cellCount];
+        Arrays.fill(result, -1);
+        for (int cage = 0; cage < cageCells.length; cage++)
+        {
+            for (int cell : cageCells[cage])
+            {
+                result[cell] = cage;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the table with the numbers forming the sums of the cages. The
+     * table is filled by adding the numbers one by one: a combination of
+     * <em>count</em> numbers with a given sum which contains the new number
+     * exists if there is a combination of <em>count - 1</em> of the numbers
+     * added before whose sum is smaller by the new number.
+     *
+     * @param maxCount the maximum number of numbers to combine
+     * @return the table with the combinations
+     */
+    private long[] createCombinations(int maxCount)
+    {
+        long[] result = new long[(maxCount + 1) * sumCount];
+        boolean[] possible = new boolean[result.length];
+        possible[0] = true;
+        for (int number = 1; number <= fieldSize; number++)
+        {
+            long mask = SudokuSolver.numberMask((short) number);
+            for (int count = Math.min(number, maxCount); count > 0; count--)
+            {
+                for (int sum = sumCount - 1; sum >= number; sum--)
+                {
+                    int from = (count - 1) * sumCount + sum - number;
+                    if (possible[from])
+                    {
+                        possible[count * sumCount + sum] = true;
+                        result[count * sumCount + sum] |= result[from] | mask;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Initializes the peer lists. The peers of a cell are the cells of its
+     * row, its column, its square, and its additional units, and the cells of
+     * its cage. Each peer is listed only once.
+     */
+    private void initPeers()
+    {
+        int[] owners = new int[cellCount];
+        int[] buffer = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++)
+        {
+            owners[cell] = cell + 1;
+            int count = addPeers(cell, units[rows[cell]], owners, buffer, 0);
+            count = addPeers(cell, units[fieldSize + columns[cell]], owners,
+                    buffer, count);
+            count = addPeers(cell, units[2 * fieldSize + squares[cell]],
+                    owners, buffer, count);
+            if (extraUnits != null)
+            {
+                for (int unit : extraUnits[cell])
+                {
+                    count = addPeers(cell, units[unit], owners, buffer, count);
+                }
+            }
+            if (getCage(cell) >= 0)
+            {
+                count = addPeers(cell, cageCells[cages[cell]], owners, buffer,
+                        count);
+            }
+            peers[cell] = Arrays.copyOf(buffer, count);
+        }
+    }
+
+    /**
+     * Adds the cells of a group to the peers of a cell unless they have
+     * already been added. An array stores for each cell the index + 1 of the
+     * cell for which it has been added last.
+     *
+     * @param cell the cell index
+     * @param group the cells to add
+     * @param owners the array with the cells the peers were added for
+     * @param buffer the array with the peers
+     * @param count the number of peers added so far
+     * @return the new number of peers
+     */
+    private static int addPeers(int cell, int[] group, int[] owners,
+            int[] buffer, int count)
+    {
+        int result = count;
+        for (int other : group)
+        {
+            if (owners[other] != cell + 1)
+            {
+                owners[other] = cell + 1;
+                buffer[result++] = other;
+            }
+        }
+        return result;
+    }
+}
@@ -21,15 +21,20 @@ import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
-import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 @SuppressWarnings("serial")
 /**
@@ -47,6 +52,9 @@ public class SudokuMain extends JFrame
     /** Constant for the default square size. */
     private static final short DEF_SQUARE_SIZE = 3;
 
+    /** Constant for the interval of progress updates in milliseconds. */
+    private static final int PROGRESS_INTERVAL = 250;
+
     /** Stores the resource bundle. */
     private ResourceBundle bundle;
 
@@ -60,21 +68,46 @@ public class SudokuMain extends JFrame
 
     private JButton btnClear;
 
+    private JButton btnCancel;
+
+    /** The label for displaying the progress of a search. */
+    private JLabel lblStatus;
+
     /**
      * Stores the square size of the sudoku field
      */
     private int squareSize;
 
+    /** Stores the backend used for solving sudokus. */
+    private SolverBackend backend;
+
+    /** The worker which currently solves a sudoku. */
+    private SolveWorker worker;
+
     /**
      * Creates a new instance of <code>SudokuMain</code> and initializes it
-     * with the square size.
+     * with the square size. The default solver backend for this square size
+     * is used.
      *
      * @param squareSize the square size
      */
     public SudokuMain(int squareSize)
+    {
+        this(squareSize, SolverBackend.forSquareSize((short) squareSize));
+    }
+
+    /**
+     * Creates a new instance of <code>SudokuMain</code> and initializes it
+     * with the square size and the solver backend.
+     *
+     * @param squareSize the square size
+     * @param backend the backend for solving sudokus
+     */
+    public SudokuMain(int squareSize, SolverBackend backend)
     {
         bundle = ResourceBundle.getBundle(RESOURCE_BUNDLE);
         this.squareSize = squareSize;
+        this.backend = backend;
         initGui(squareSize);
     }
 
@@ -89,7 +122,7 @@ public class SudokuMain extends JFrame
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         getContentPane().setLayout(new BorderLayout());
         short fieldSize = (short) (squareSize * squareSize);
-        model = new SudokuTableModel(fieldSize);
+        model = new SudokuTableModel((short) squareSize);
         table = new JTable(model);
         table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         SudokuCellRenderer renderer = new SudokuCellRenderer(squareSize);
@@ -129,7 +162,23 @@ public class SudokuMain extends JFrame
             }
         });
         pnlButtons.add(btnClear);
-        getContentPane().add(pnlButtons, BorderLayout.SOUTH);
+        btnCancel = new JButton(getResource("BTN_CANCEL"));
+        btnCancel.setEnabled(false);
+        btnCancel.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                cancelSolve();
+            }
+        });
+        pnlButtons.add(btnCancel);
+        lblStatus = new JLabel(" ");
+        lblStatus.setHorizontalAlignment(JLabel.CENTER);
+        JPanel pnlSouth = new JPanel(new BorderLayout());
+        pnlSouth.add(lblStatus, BorderLayout.NORTH);
+        pnlSouth.add(pnlButtons, BorderLayout.SOUTH);
+        getContentPane().add(pnlSouth, BorderLayout.SOUTH);
         pack();
     }
 
@@ -145,41 +194,52 @@ public class SudokuMain extends JFrame
     }
 
     /**
-     * Solves the sudoku.
+     * Returns a formatted resource for the specified key.
+     *
+     * @param key the key
+     * @param args the arguments for the format
+     * @return the formatted resource
+     */
+    private String formatResource(String key, Object... args)
+    {
+        return new MessageFormat(getResource(key)).format(args);
+    }
+
+    /**
+     * Solves the sudoku. This is done by a background worker, which reports
+     * its progress and can be canceled. If the sudoku is cleared while the
+     * search is running, the worker is canceled, and the result is discarded.
      */
     private void solve()
     {
         table.clearSelection();
-        new Thread()
+        worker = new SolveWorker();
+        btnCancel.setEnabled(true);
+        worker.execute();
+    }
+
+    /**
+     * Cancels the running search. The sudoku remains unchanged.
+     */
+    private void cancelSolve()
+    {
+        if (worker != null)
         {
-            @Override
-            public void run()
-            {
-                try
-                {
-                    SudokuSolver solver = createSolver();
-                    solver.solve();
-                    showResult(solver);
-                }
-                catch (SudokuSolverException ssex)
-                {
-                    showSudokuError(ssex);
-                }
-            }
-        }.start();
+            worker.cancel(true);
+        }
     }
 
     /**
-     * Creates and initializes a sudoku solver object. The presets are already
-     * initialized. If this causes an error (because the presets are invalid) an
-     * exception is thrown.
+     * Creates and initializes a sudoku solver object using the selected
+     * backend. The presets are already initialized. If this causes an error
+     * (because the presets are invalid) an exception is thrown.
      *
      * @return the initialized solver object
      * @throws SudokuSolverException if the presets for the sudoku are invalid
      */
-    private SudokuSolver createSolver() throws SudokuSolverException
+    private SudokuEngine createSolver() throws SudokuSolverException
     {
-        SudokuSolver solver = new SudokuSolver((short) squareSize);
+        SudokuEngine solver = backend.createEngine((short) squareSize);
         for (int row = 0; row < model.getRowCount(); row++)
         {
             for (int col = 0; col < model.getColumnCount(); col++)
@@ -194,65 +254,51 @@ public class SudokuMain extends JFrame
         return solver;
     }
 
-    /**
-     * Displays the result of the sudoku in the main table. This method is
-     * called from a separate thread.
-     *
-     * @param solver the solver object containing the result
-     */
-    private void showResult(final SudokuSolver solver)
-    {
-        SwingUtilities.invokeLater(new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                model.initResult(solver);
-            }
-        });
-    }
-
     /**
      * Displays an error message if a sudoku error occurs. This method is called
-     * from a different thread than the event dispatch thread.
+     * on the event dispatch thread.
      *
      * @param ex the exception
      */
     private void showSudokuError(SudokuSolverException ex)
     {
-        MessageFormat fmt = new MessageFormat(getResource(ex.getState().name()));
-        final String msg = fmt.format(new Object[]
-        { ex.getNumber() });
-        SwingUtilities.invokeLater(new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                JOptionPane.showMessageDialog(SudokuMain.this, msg,
-                        getResource("ERR_TITLE"), JOptionPane.ERROR_MESSAGE);
-                btnSolve.setEnabled(true);
-            }
-        });
+        JOptionPane.showMessageDialog(this,
+                formatResource(ex.getState().name(), ex.getNumber()),
+                getResource("ERR_TITLE"), JOptionPane.ERROR_MESSAGE);
+        btnSolve.setEnabled(true);
     }
 
     /**
-     * Clears the sudoku field, so that a new sudoku can be entered.
+     * Clears the sudoku field, so that a new sudoku can be entered. A search
+     * which is still running is canceled.
      */
     private void clearSudoku()
     {
+        if (worker != null)
+        {
+            worker.cancel(true);
+            worker = null;
+        }
         model.clear();
+        lblStatus.setText(" ");
         btnSolve.setEnabled(true);
+        btnCancel.setEnabled(false);
     }
 
     /**
-     * The main method. As an optional argument the square size can be passed
-     * in. If no parameter is passed, a default square size is used.
+     * The main method. As optional arguments the square size and the name of
+     * the solver backend can be passed in. If no parameters are passed,
+     * default values are used. Square sizes up to
+     * <code>LargeSudokuSolver.MAX_SQUARE_SIZE</code> are accepted; if no
+     * backend is specified, the default backend for the square size is
+     * selected.
      *
      * @param args the arguments
      */
     public static void main(String[] args)
     {
         short squareSize = DEF_SQUARE_SIZE;
+        SolverBackend backend = null;
         if (args.length > 0)
         {
             try
@@ -261,13 +307,47 @@ public class SudokuMain extends JFrame
             }
             catch (NumberFormatException nfex)
             {
-                System.out.println("Usage: SudokuMain <squareSize>");
+                System.out.println("Usage: SudokuMain <squareSize> [<backend>]");
                 System.out.println("No valid square size was passed in!");
                 System.exit(1);
             }
         }
+        if (args.length > 1)
+        {
+            try
+            {
+                backend = SolverBackend.valueOf(args[1]);
+            }
+            catch (IllegalArgumentException iex)
+            {
+                System.out.println("Usage: SudokuMain <squareSize> [<backend>]");
+                System.out.println("Unknown backend! Supported backends are "
+                        + Arrays.toString(SolverBackend.values()));
+                System.exit(1);
+            }
+        }
+        if (squareSize < 2 || squareSize > LargeSudokuSolver.MAX_SQUARE_SIZE)
+        {
+            System.out.println("Usage: SudokuMain <squareSize> [<backend>]");
+            System.out.println("Square size must be in the range from 2 to "
+                    + LargeSudokuSolver.MAX_SQUARE_SIZE + "!");
+            System.exit(1);
+        }
+        if (backend == null)
+        {
+            backend = SolverBackend.forSquareSize(squareSize);
+        }
+        else if (squareSize > SudokuSolver.MAX_SQUARE_SIZE
+                && backend != SolverBackend.LARGE)
+        {
+            System.out.println("Usage: SudokuMain <squareSize> [<backend>]");
+            System.out.println("Square sizes greater than "
+                    + SudokuSolver.MAX_SQUARE_SIZE + " require the "
+                    + SolverBackend.LARGE + " backend!");
+            System.exit(1);
+        }
 
-        final SudokuMain frame = new SudokuMain(squareSize);
+        final SudokuMain frame = new SudokuMain(squareSize, backend);
         EventQueue.invokeLater(new Runnable()
         {
             @Override
@@ -277,4 +357,128 @@ public class SudokuMain extends JFrame
             }
         });
     }
+
+    /**
+     * The worker class for solving a sudoku in the background. While the
+     * search is running, a timer on the event dispatch thread periodically
+     * displays the progress reported by the solver. Canceling the worker
+     * interrupts the search. When the search is finished, the solution is
+     * displayed, or a message is shown if there is no solution.
+     */
+    private class SolveWorker extends SwingWorker<SolveResult, Void>
+    {
+        /** The timer for updating the progress. */
+        private final Timer timer;
+
+        /** The start time of the search. */
+        private final long startTime;
+
+        /** The solver used by this worker. */
+        private volatile SudokuEngine engine;
+
+        /**
+         * Creates a new instance of <code>SolveWorker</code> and starts the
+         * progress timer. This constructor is called on the event dispatch
+         * thread.
+         */
+        public SolveWorker()
+        {
+            startTime = System.nanoTime();
+            timer = new Timer(PROGRESS_INTERVAL, new ActionListener()
+            {
+                @Override
+                public void actionPerformed(ActionEvent e)
+                {
+                    showProgress("STATUS_PROGRESS");
+                }
+            });
+            timer.start();
+        }
+
+        /**
+         * Creates the solver and runs the search.
+         *
+         * @return the result of the search
+         * @throws SudokuSolverException if the presets are invalid
+         */
+        @Override
+        protected SolveResult doInBackground() throws SudokuSolverException
+        {
+            engine = createSolver();
+            return engine.solve(0, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Processes the result of the search on the event dispatch thread. If
+         * the sudoku was cleared in the meantime, the result is ignored.
+         */
+        @Override
+        protected void done()
+        {
+            timer.stop();
+            if (worker != this)
+            {
+                return;
+            }
+            worker = null;
+            btnCancel.setEnabled(false);
+
+            SolveResult result = SolveResult.ABORTED;
+            try
+            {
+                if (!isCancelled())
+                {
+                    result = get();
+                }
+            }
+            catch (InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException eex)
+            {
+                lblStatus.setText(" ");
+                if (eex.getCause() instanceof SudokuSolverException)
+                {
+                    showSudokuError((SudokuSolverException) eex.getCause());
+                    return;
+                }
+                throw new IllegalStateException("Search failed",
+                        eex.getCause());
+            }
+
+            switch (result)
+            {
+            case SOLVED:
+                showProgress("STATUS_FINISHED");
+                model.initResult(engine);
+                break;
+            case UNSOLVABLE:
+                showProgress("STATUS_FINISHED");
+                JOptionPane.showMessageDialog(SudokuMain.this,
+                        getResource("NO_SOLUTION"), getResource("title"),
+                        JOptionPane.INFORMATION_MESSAGE);
+                btnSolve.setEnabled(true);
+                break;
+            default:
+                lblStatus.setText(getResource("STATUS_CANCELED"));
+                btnSolve.setEnabled(true);
+                break;
+            }
+        }
+
+        /**
+         * Displays the number of nodes searched so far and the elapsed time
+         * in the status label.
+         *
+         * @param key the key of the message to display
+         */
+        private void showProgress(String key)
+        {
+            SudokuEngine e = engine;
+            long nodes = (e != null) ? e.getProgress() : 0;
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            lblStatus.setText(formatResource(key, nodes, seconds));
+        }
+    }
 }
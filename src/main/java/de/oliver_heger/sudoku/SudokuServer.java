@@ -0,0 +1,823 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>
+ * A headless HTTP service for solving sudokus.
+ * </p>
+ * <p>
+ * This class uses the HTTP server shipped with the JDK. It provides two
+ * endpoints:
+ * <ul>
+ * <li><code>POST /solve</code> expects one or more puzzles in the text format
+ * of {@link PuzzleReader} (one puzzle per line) in the request body. The
+ * response is a JSON array with one object per puzzle. It contains the
+ * status (<code>SOLVED</code>, <code>UNSOLVABLE</code>, <code>ABORTED</code>
+ * if the time limit was exceeded, or <code>INVALID</code>), the solution in
+ * the format of {@link PuzzleWriter}, or an error message.</li>
+ * <li><code>GET /metrics</code> returns a JSON object with counters for the
+ * requests and puzzles processed, the throughput, the latency, and the hits
+ * and misses of the solution cache.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Requests are solved by a fixed number of worker threads, each of which
+ * uses its own {@link SudokuSolver}. Requests waiting for a worker are kept
+ * in a bounded queue. If the queue is full, the request is rejected
+ * immediately with status 503 - before its body is read -, so the service
+ * stays responsive under overload. HTTP exchanges are handled by a fixed
+ * number of threads, too: enough to wait for all requests accepted by the
+ * workers plus a few more for rejecting requests and reporting metrics.
+ * Each request has a time limit which starts when it is received; puzzles
+ * which cannot be solved within this limit - including the time spent in
+ * the queue - are reported as <code>ABORTED</code>. Optionally, a
+ * {@link SolutionCache} can be set, so repeated puzzles are answered without
+ * a search.
+ * </p>
+ * <p>
+ * Usage: <code>SudokuServer &lt;squareSize&gt; [&lt;port&gt;
+ * [&lt;threads&gt; [&lt;queueSize&gt; [&lt;timeoutMillis&gt;]]]]</code>.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class SudokuServer
+{
+    /** Constant for the default port. */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** Constant for the default time limit of a request in milliseconds. */
+    public static final long DEFAULT_TIMEOUT = 10000;
+
+    /** Constant for the maximum number of puzzles in a single request. */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Constant for the number of HTTP threads in addition to those waiting
+     * for requests in the worker pool.
+     */
+    private static final int HTTP_RESERVE_THREADS = 2;
+
+    /** Constant for the default size of the solution cache. */
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+
+    /** Constant for the maximum field size of the single character format. */
+    private static final int MAX_CHARACTER_SIZE = 35;
+
+    /** Constant for the radix used for single character cells. */
+    private static final int RADIX = 36;
+
+    /** Constant for the content type of responses. */
+    private static final String CONTENT_TYPE = "application/json";
+
+    /** Constant for the HTTP status OK. */
+    private static final int STATUS_OK = 200;
+
+    /** Constant for the HTTP status for a request that is too large. */
+    private static final int STATUS_TOO_LARGE = 413;
+
+    /** Constant for the HTTP status for an unsupported method. */
+    private static final int STATUS_BAD_METHOD = 405;
+
+    /** Constant for the HTTP status for an internal error. */
+    private static final int STATUS_ERROR = 500;
+
+    /** Constant for the HTTP status if the server is overloaded. */
+    private static final int STATUS_UNAVAILABLE = 503;
+
+    /** The square size of the puzzles. */
+    private final short squareSize;
+
+    /** The executor for solving puzzles. */
+    private final ThreadPoolExecutor workers;
+
+    /** The number of threads for handling HTTP exchanges. */
+    private final int httpThreads;
+
+    /** Stores the solvers of the single worker threads. */
+    private final ThreadLocal<SudokuSolver> solvers;
+
+    /** The number of requests received. */
+    private final AtomicLong requestCount;
+
+    /** The number of requests rejected because of overload. */
+    private final AtomicLong rejectedCount;
+
+    /** The number of puzzles processed. */
+    private final AtomicLong puzzleCount;
+
+    /** The number of puzzles solved. */
+    private final AtomicLong solvedCount;
+
+    /** The number of puzzles aborted because of the time limit. */
+    private final AtomicLong abortedCount;
+
+    /** The total latency of all requests in nanoseconds. */
+    private final AtomicLong totalLatency;
+
+    /**
+     * The number of requests whose latency was recorded. These are the
+     * requests which were passed to the worker pool.
+     */
+    private final AtomicLong latencyCount;
+
+    /** The maximum latency of a request in nanoseconds. */
+    private final AtomicLong maxLatency;
+
+    /** The HTTP server. */
+    private HttpServer server;
+
+    /** The executor for handling HTTP exchanges. */
+    private ThreadPoolExecutor httpExecutor;
+
+    /** The optional solution cache. */
+    private volatile SolutionCache cache;
+
+    /** The time limit for a request in milliseconds. */
+    private volatile long timeout;
+
+    /** The time when the server was started. */
+    private long startTime;
+
+    /**
+     * Creates a new instance of <code>SudokuServer</code>.
+     *
+     * @param sqrSz the square size of the puzzles to solve
+     * @param threads the number of worker threads
+     * @param queueSize the maximum number of requests waiting for a worker
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public SudokuServer(short sqrSz, int threads, int queueSize)
+    {
+        if (sqrSz < 2 || sqrSz > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException("Invalid square size: "
+                    + sqrSz);
+        }
+        if (threads <= 0 || queueSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads and queue size must be positive!");
+        }
+
+        squareSize = sqrSz;
+        workers = new ThreadPoolExecutor(threads, threads, 0,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+                        queueSize));
+        httpThreads = threads + queueSize + HTTP_RESERVE_THREADS;
+        solvers = new ThreadLocal<SudokuSolver>()
+        {
+            /**
+             * Creates the solver for the current thread.
+             *
+             * @return the new solver
+             */
+            @Override
+            protected SudokuSolver initialValue()
+            {
+                SudokuSolver solver = new SudokuSolver(squareSize);
+                solver.setSearchStrategy(
+                        SearchStrategy.MINIMUM_REMAINING_VALUES);
+                solver.setPropagation(true);
+                return solver;
+            }
+        };
+        requestCount = new AtomicLong();
+        rejectedCount = new AtomicLong();
+        puzzleCount = new AtomicLong();
+        solvedCount = new AtomicLong();
+        abortedCount = new AtomicLong();
+        totalLatency = new AtomicLong();
+        latencyCount = new AtomicLong();
+        maxLatency = new AtomicLong();
+        timeout = DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Returns the square size of the puzzles solved by this server.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the time limit for a request in milliseconds.
+     *
+     * @return the time limit
+     */
+    public long getTimeout()
+    {
+        return timeout;
+    }
+
+    /**
+     * Sets the time limit for a request in milliseconds. The limit includes
+     * the time a request waits for a worker thread.
+     *
+     * @param t the time limit (must be positive)
+     * @throws IllegalArgumentException if the time limit is invalid
+     */
+    public void setTimeout(long t)
+    {
+        if (t <= 0)
+        {
+            throw new IllegalArgumentException("Invalid timeout: " + t);
+        }
+        timeout = t;
+    }
+
+    /**
+     * Returns the solution cache used by this server.
+     *
+     * @return the solution cache (can be <b>null</b>)
+     */
+    public SolutionCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * Sets the solution cache used by this server. Pass <b>null</b> to
+     * disable caching.
+     *
+     * @param c the solution cache
+     */
+    public void setCache(SolutionCache c)
+    {
+        cache = c;
+    }
+
+    /**
+     * Starts the server on the given address. The port 0 selects a free port.
+     *
+     * @param address the address to listen on
+     * @throws IOException if the server cannot be started
+     * @throws IllegalStateException if the server is already started
+     */
+    public synchronized void start(InetSocketAddress address)
+            throws IOException
+    {
+        if (server != null)
+        {
+            throw new IllegalStateException("Server is already started!");
+        }
+
+        server = HttpServer.create(address, 0);
+        httpExecutor = new ThreadPoolExecutor(httpThreads, httpThreads, 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+        server.setExecutor(httpExecutor);
+        server.createContext("/solve", new HttpHandler()
+        {
+            /**
+             * Handles a solve request.
+             *
+             * @param exchange the exchange
+             * @throws IOException if an I/O error occurs
+             */
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                handleSolve(exchange);
+            }
+        });
+        server.createContext("/metrics", new HttpHandler()
+        {
+            /**
+             * Handles a metrics request.
+             *
+             * @param exchange the exchange
+             * @throws IOException if an I/O error occurs
+             */
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                send(exchange, STATUS_OK, getMetrics());
+            }
+        });
+        startTime = System.nanoTime();
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return the port
+     * @throws IllegalStateException if the server is not started
+     */
+    public synchronized int getPort()
+    {
+        if (server == null)
+        {
+            throw new IllegalStateException("Server is not started!");
+        }
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server. Requests which are currently processed are
+     * interrupted. The worker threads are terminated, so this object cannot be
+     * started again.
+     */
+    public synchronized void stop()
+    {
+        if (server != null)
+        {
+            server.stop(0);
+            workers.shutdownNow();
+            httpExecutor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the executor of the worker threads.
+     *
+     * @return the worker executor
+     */
+    ThreadPoolExecutor getWorkers()
+    {
+        return workers;
+    }
+
+    /**
+     * Returns the executor for handling HTTP exchanges. This is
+     * <b>null</b> if the server has not been started.
+     *
+     * @return the HTTP executor
+     */
+    synchronized ThreadPoolExecutor getHttpExecutor()
+    {
+        return httpExecutor;
+    }
+
+    /**
+     * Returns a JSON object with the current metrics of this server. The
+     * latency values refer to the requests processed by the workers;
+     * rejected requests are not taken into account.
+     *
+     * @return the metrics
+     */
+    public String getMetrics()
+    {
+        long requests = requestCount.get();
+        long puzzles = puzzleCount.get();
+        long latencies = latencyCount.get();
+        double uptime = (System.nanoTime() - startTime) / 1e9;
+        StringBuilder buf = new StringBuilder();
+        buf.append("{\"requests\":").append(requests);
+        buf.append(",\"rejected\":").append(rejectedCount.get());
+        buf.append(",\"puzzles\":").append(puzzles);
+        buf.append(",\"solved\":").append(solvedCount.get());
+        buf.append(",\"aborted\":").append(abortedCount.get());
+        buf.append(",\"active\":").append(workers.getActiveCount());
+        buf.append(",\"queued\":").append(workers.getQueue().size());
+        buf.append(",\"puzzlesPerSecond\":").append(
+                (uptime > 0) ? Math.round(puzzles / uptime) : 0);
+        buf.append(",\"averageLatencyMs\":").append(
+                (latencies > 0) ? totalLatency.get() / latencies / 1000000
+                        : 0);
+        buf.append(",\"maxLatencyMs\":").append(maxLatency.get() / 1000000);
+        SolutionCache c = cache;
+        if (c != null)
+        {
+            buf.append(",\"cacheHits\":").append(c.getHitCount());
+            buf.append(",\"cacheMisses\":").append(c.getMissCount());
+        }
+        return buf.append('}').toString();
+    }
+
+    /**
+     * Handles a request to solve puzzles. The puzzles are read from the
+     * request body and passed to the worker pool. If the pool is overloaded,
+     * the request is rejected. This is checked before the body is read, so a
+     * rejected request causes hardly any work.
+     *
+     * @param exchange the exchange
+     * @throws IOException if an I/O error occurs
+     */
+    private void handleSolve(HttpExchange exchange) throws IOException
+    {
+        long start = System.nanoTime();
+        requestCount.incrementAndGet();
+        if (!"POST".equals(exchange.getRequestMethod()))
+        {
+            send(exchange, STATUS_BAD_METHOD, error("POST expected"));
+            return;
+        }
+        if (workers.getQueue().remainingCapacity() == 0)
+        {
+            reject(exchange);
+            return;
+        }
+
+        int fieldSize = squareSize * squareSize;
+        PuzzleReader reader = new PuzzleReader(Channels.newChannel(exchange
+                .getRequestBody()));
+        List<short[]> puzzles = new ArrayList<short[]>();
+        List<String> errors = new ArrayList<String>();
+        while (true)
+        {
+            short[] cells = new short[fieldSize * fieldSize];
+            try
+            {
+                if (!reader.read(cells))
+                {
+                    break;
+                }
+                puzzles.add(cells);
+                errors.add(null);
+            }
+            catch (PuzzleFormatException pfex)
+            {
+                puzzles.add(null);
+                errors.add(pfex.getMessage());
+            }
+            if (puzzles.size() > MAX_BATCH_SIZE)
+            {
+                send(exchange, STATUS_TOO_LARGE, error("At most "
+                        + MAX_BATCH_SIZE + " puzzles are allowed"));
+                return;
+            }
+        }
+
+        Future<String> result;
+        try
+        {
+            result = workers.submit(new SolveTask(puzzles, errors, start
+                    + TimeUnit.MILLISECONDS.toNanos(timeout)));
+        }
+        catch (RejectedExecutionException rex)
+        {
+            reject(exchange);
+            return;
+        }
+
+        try
+        {
+            send(exchange, STATUS_OK, result.get());
+        }
+        catch (InterruptedException iex)
+        {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            send(exchange, STATUS_UNAVAILABLE, error("Server is stopping"));
+        }
+        catch (ExecutionException eex)
+        {
+            send(exchange, STATUS_ERROR, error(String.valueOf(eex
+                    .getCause())));
+        }
+        finally
+        {
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Solves a single puzzle with the given time limit and appends the result
+     * as a JSON object to the given buffer. The puzzle is loaded into a solver
+     * first, so invalid puzzles are reported before the cache is consulted.
+     *
+     * @param buf the buffer for the result
+     * @param cells the cells of the puzzle
+     * @param deadline the deadline for the request (in nanoseconds)
+     */
+    private void solvePuzzle(StringBuilder buf, short[] cells, long deadline)
+    {
+        SudokuSolver solver = solvers.get();
+        try
+        {
+            solver.load(cells);
+        }
+        catch (SudokuSolverException ssex)
+        {
+            invalid(buf, ssex.getState().name() + " " + ssex.getNumber());
+            return;
+        }
+
+        SolutionCache c = cache;
+        CanonicalForm form = null;
+        if (c != null)
+        {
+            form = CanonicalForm.of(cells, squareSize);
+            short[] solution = c.get(form);
+            if (solution != null)
+            {
+                solved(buf, solution);
+                return;
+            }
+        }
+
+        long remaining = deadline - System.nanoTime();
+        SolveResult result = (remaining > 0) ? solver.solve(remaining,
+                TimeUnit.NANOSECONDS) : SolveResult.ABORTED;
+        if (result == SolveResult.SOLVED)
+        {
+            solver.getCells(cells);
+            if (form != null)
+            {
+                c.put(form, cells);
+            }
+            solved(buf, cells);
+        }
+        else
+        {
+            if (result == SolveResult.ABORTED)
+            {
+                abortedCount.incrementAndGet();
+            }
+            buf.append("{\"status\":\"").append(result.name()).append("\"}");
+        }
+    }
+
+    /**
+     * Appends the result for a solved puzzle to the given buffer.
+     *
+     * @param buf the buffer
+     * @param solution the solution
+     */
+    private void solved(StringBuilder buf, short[] solution)
+    {
+        solvedCount.incrementAndGet();
+        buf.append("{\"status\":\"SOLVED\",\"solution\":\"");
+        boolean separated = squareSize * squareSize > MAX_CHARACTER_SIZE;
+        for (int i = 0; i < solution.length; i++)
+        {
+            if (separated)
+            {
+                if (i > 0)
+                {
+                    buf.append(',');
+                }
+                buf.append(solution[i]);
+            }
+            else
+            {
+                buf.append(Character.forDigit(solution[i], RADIX));
+            }
+        }
+        buf.append("\"}");
+    }
+
+    /**
+     * Appends the result for an invalid puzzle to the given buffer.
+     *
+     * @param buf the buffer
+     * @param msg the error message
+     */
+    private static void invalid(StringBuilder buf, String msg)
+    {
+        buf.append("{\"status\":\"INVALID\",\"error\":");
+        appendString(buf, msg).append('}');
+    }
+
+    /**
+     * Rejects a request because the server is overloaded.
+     *
+     * @param exchange the exchange
+     * @throws IOException if an I/O error occurs
+     */
+    private void reject(HttpExchange exchange) throws IOException
+    {
+        rejectedCount.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        send(exchange, STATUS_UNAVAILABLE, error("Server is overloaded"));
+    }
+
+    /**
+     * Updates the latency counters.
+     *
+     * @param latency the latency of a request in nanoseconds
+     */
+    private void recordLatency(long latency)
+    {
+        totalLatency.addAndGet(latency);
+        latencyCount.incrementAndGet();
+        long max = maxLatency.get();
+        while (latency > max && !maxLatency.compareAndSet(max, latency))
+        {
+            max = maxLatency.get();
+        }
+    }
+
+    /**
+     * Returns a JSON object for an error message.
+     *
+     * @param msg the message
+     * @return the JSON object
+     */
+    private static String error(String msg)
+    {
+        StringBuilder buf = new StringBuilder("{\"error\":");
+        return appendString(buf, msg).append('}').toString();
+    }
+
+    /**
+     * Appends a string as a JSON string literal to a buffer. Quotes,
+     * backslashes, and control characters are escaped.
+     *
+     * @param buf the buffer
+     * @param s the string
+     * @return the buffer
+     */
+    private static StringBuilder appendString(StringBuilder buf, String s)
+    {
+        buf.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                buf.append('\\').append(c);
+            }
+            else if (c < ' ')
+            {
+                buf.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                buf.append(c);
+            }
+        }
+        return buf.append('"');
+    }
+
+    /**
+     * Sends a response.
+     *
+     * @param exchange the exchange
+     * @param status the HTTP status code
+     * @param body the body of the response
+     * @throws IOException if an I/O error occurs
+     */
+    private static void send(HttpExchange exchange, int status, String body)
+            throws IOException
+    {
+        byte[] data = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, data.length);
+        OutputStream out = exchange.getResponseBody();
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * The main method. Starts the server with the configuration passed as
+     * arguments. The server runs until the process is terminated.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 1 || args.length > 5)
+        {
+            usage("Wrong number of arguments!");
+        }
+
+        try
+        {
+            short squareSize = Short.parseShort(args[0]);
+            int port = (args.length > 1) ? Integer.parseInt(args[1])
+                    : DEFAULT_PORT;
+            int threads = (args.length > 2) ? Integer.parseInt(args[2])
+                    : Runtime.getRuntime().availableProcessors();
+            int queueSize = (args.length > 3) ? Integer.parseInt(args[3])
+                    : 4 * threads;
+            SudokuServer server = new SudokuServer(squareSize, threads,
+                    queueSize);
+            if (args.length > 4)
+            {
+                server.setTimeout(Long.parseLong(args[4]));
+            }
+            server.setCache(new SolutionCache(DEFAULT_CACHE_SIZE));
+            server.start(new InetSocketAddress(port));
+            System.err.println("Listening on port " + server.getPort()
+                    + ".");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            usage(iex.getMessage());
+        }
+        catch (IOException ioex)
+        {
+            System.err.println("I/O error: " + ioex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Prints a usage message and exits the application.
+     *
+     * @param msg an error message
+     */
+    private static void usage(String msg)
+    {
+        System.err.println("Usage: SudokuServer <squareSize> [<port> "
+                + "[<threads> [<queueSize> [<timeoutMillis>]]]]");
+        System.err.println(msg);
+        System.exit(1);
+    }
+
+    /**
+     * The task class for solving the puzzles of a single request. The result
+     * is the JSON array to be sent as response.
+     */
+    private class SolveTask implements Callable<String>
+    {
+        /** The puzzles of the request. */
+        private final List<short[]> puzzles;
+
+        /** The errors for puzzles which could not be parsed. */
+        private final List<String> errors;
+
+        /** The deadline of the request. */
+        private final long deadline;
+
+        /**
+         * Creates a new instance of <code>SolveTask</code>.
+         *
+         * @param p the list with puzzles (<b>null</b> for invalid ones)
+         * @param e the list with parse errors
+         * @param d the deadline (as returned by <code>nanoTime()</code>)
+         */
+        public SolveTask(List<short[]> p, List<String> e, long d)
+        {
+            puzzles = p;
+            errors = e;
+            deadline = d;
+        }
+
+        /**
+         * Solves all puzzles of this task.
+         *
+         * @return the JSON result
+         */
+        @Override
+        public String call()
+        {
+            StringBuilder buf = new StringBuilder();
+            buf.append('[');
+            for (int i = 0; i < puzzles.size(); i++)
+            {
+                if (i > 0)
+                {
+                    buf.append(',');
+                }
+                puzzleCount.incrementAndGet();
+                if (puzzles.get(i) == null)
+                {
+                    invalid(buf, errors.get(i));
+                }
+                else
+                {
+                    solvePuzzle(buf, puzzles.get(i), deadline);
+                }
+            }
+            return buf.append(']').toString();
+        }
+    }
+}
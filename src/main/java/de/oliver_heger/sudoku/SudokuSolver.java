@@ -15,41 +15,205 @@
  */
 package de.oliver_heger.sudoku;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * A class for solving sudokus.
+ * A class for solving sudokus. This is the default {@link SudokuEngine}
+ * implementation which is based on a backtracking search. In addition to
+ * classic sudokus, it supports the variants described by a
+ * {@link SudokuVariant}.
  *
  * @author Oliver Heger
  */
-public class SudokuSolver
+public class SudokuSolver implements SudokuEngine
 {
-    /** An array for the field to be filled. */
-    private short[][] field;
+    /**
+     * Constant for the maximum square size supported. The numbers placed in a
+     * row, column, or square are stored as bits in a <code>long</code> value,
+     * so the field size must not exceed 64.
+     */
+    public static final short MAX_SQUARE_SIZE = 8;
+
+    /**
+     * Constant for a mask which determines how often the search checks
+     * whether it should be aborted (because it was canceled, the thread was
+     * interrupted, or the time limit is exceeded). The check is done whenever
+     * the node count has no bits in common with this mask.
+     */
+    private static final long ABORT_CHECK_MASK = 1023;
+
+    /** The geometry of the field. */
+    private SudokuGeometry geometry;
+
+    /** The variant of the sudoku to be solved. */
+    private SudokuVariant variant;
+
+    /**
+     * A flag whether the variant defines constraints which have to be checked
+     * in addition to the rows, columns, and squares.
+     */
+    private boolean constrained;
+
+    /**
+     * An array for the field to be filled. The cells are stored row by row;
+     * the index of a cell is row * field size + column.
+     */
+    private short[] field;
+
+    /**
+     * An array with bit masks for the numbers already placed in the single
+     * rows. The index is the row index. If the number <em>n</em> has been
+     * placed in a row, bit <em>n - 1</em> of the mask of this row is set.
+     */
+    private long[] rowMasks;
+
+    /**
+     * An array with bit masks for the numbers already placed in the single
+     * columns. The index is the column index. The bits are organized in the
+     * same way as for the rows.
+     */
+    private long[] columnMasks;
 
     /**
-     * An array for storing information about the so far filled rows. The first
-     * index represents a number, the second index a row index. A value of true
-     * means that this number has already been placed in the row with the given
-     * index.
+     * An array with bit masks for the numbers already placed in the single
+     * (sub) squares. The index is the index of the square as returned by
+     * <code>getSquareIndex()</code>.
      */
-    private boolean[][] filledRows;
+    private long[] squareMasks;
+
+    /**
+     * An array with bit masks for the numbers already placed in the units
+     * following the squares (the diagonals). The index is the unit index minus
+     * 3 * field size.
+     */
+    private long[] extraMasks;
+
+    /** An array with bit masks for the numbers already placed in the cages. */
+    private long[] cageMasks;
+
+    /** An array with the sums still missing in the cages. */
+    private int[] cageSums;
+
+    /** An array with the numbers of empty cells in the cages. */
+    private int[] cageFree;
+
+    /** A mask with a bit set for each number allowed in this sudoku. */
+    private long allNumbers;
+
+    /** The strategy used for searching a solution. */
+    private SearchStrategy searchStrategy;
+
+    /** The number of nodes visited by the last search. */
+    private long nodeCount;
+
+    /** The node count published for other threads. */
+    private volatile long progress;
+
+    /** A flag whether constraint propagation is enabled. */
+    private boolean propagation;
+
+    /** The number of cells filled by propagation during the last search. */
+    private long propagatedCount;
+
+    /** The elimination techniques applied by propagation in their order. */
+    private Technique[] pipeline = new Technique[0];
+
+    /** The maximum costs of elimination techniques per node; 0 for none. */
+    private long techniqueBudget;
+
+    /** The costs elimination techniques may still spend at this node. */
+    private long budget;
 
     /**
-     * An array for storing information about the so far filled columns. The
-     * first index represents a number, the second index a column index. A value
-     * of true means that this number has already been placed in the column with
-     * the given index.
+     * An array with bit masks for the candidates removed from the single
+     * cells by elimination techniques. The bits are organized in the same way
+     * as for the rows.
      */
-    private boolean[][] filledColumns;
+    private long[] eliminated;
+
+    /** A flag whether the array with removed candidates contains bits. */
+    private boolean eliminations;
 
     /**
-     * An array for storing information about the so far filled (sub) squares.
-     * The first index represents a number, the second index a square. A value
-     * of true means that this number has already been placed into this square.
+     * The trail of cells filled by the search or by propagation. Each element
+     * is a cell index (row * field size + column). Candidates removed by
+     * elimination techniques are recorded, too; such an element is
+     * -(cell index + 1), and the mask with the removed candidates is stored
+     * at the same position in <code>trailMasks</code>. The trail is used to
+     * undo these steps when the search backtracks.
      */
-    private boolean[][] filledSquares;
+    private int[] trail;
+
+    /** The masks of the eliminations stored on the trail. */
+    private long[] trailMasks;
+
+    /** The number of elements stored on the trail. */
+    private int trailSize;
+
+    /** Stores the branches of the choice points of the search. */
+    private int[] choiceBranches;
+
+    /** Stores the alternatives not yet tried of the choice points. */
+    private long[] choiceAlternatives;
+
+    /** Stores the sizes of the trail when the choice points were created. */
+    private int[] choiceMarks;
+
+    /** An optional flag for canceling the search from another thread. */
+    private AtomicBoolean cancelFlag;
+
+    /** An optional counter shared by multiple solvers for their nodes. */
+    private AtomicLong progressCounter;
+
+    /** The number of nodes already added to the progress counter. */
+    private long publishedCount;
+
+    /** The maximum number of nodes to visit; 0 means no limit. */
+    private long nodeLimit;
+
+    /** The time (as returned by System.nanoTime()) when to stop a search. */
+    private long deadline;
+
+    /** A flag whether a deadline has been set. */
+    private boolean timeLimited;
+
+    /** A flag whether the last search was aborted. */
+    private boolean aborted;
 
-    /** Stores the size of the sub squares. */
-    private short squareSize;
+    /** The statistics of the last search; <b>null</b> if disabled. */
+    private SearchStatistics statistics;
+
+    /** Temporary masks used by the locked candidates techniques. */
+    private long[] segments;
+
+    /** Temporary masks of the items combined by subset techniques. */
+    private long[] subsetMasks;
+
+    /** Temporary identifiers of the items combined by subset techniques. */
+    private int[] subsetIds;
+
+    /** The number (bit mask) processed by the fish techniques. */
+    private long fishNumber;
+
+    /** A flag whether the fish techniques use columns as base lines. */
+    private boolean fishColumns;
+
+    /** The listener to be notified about the steps of a search. */
+    private SolveStepListener stepListener;
+
+    /** The technique reported for eliminations when tracing. */
+    private Technique stepTechnique;
+
+    /** The units reported for eliminations when tracing. */
+    private int[] stepUnits;
+
+    /** The current depth of the search when tracing. */
+    private int stepDepth;
 
     /**
      * Creates a new instance of <code>SudokuSolver</code> and initializes it
@@ -58,7 +222,8 @@ public class SudokuSolver
      * consists of n * n sub fields. The total field contains n * n sub squares.
      * So the numbers from 1 to (n * n) must be filled once in each row, column,
      * and sub square. A square size of 3 will result in a sudoku of the default
-     * size that must be filled with the numbers from 1 to 9.
+     * size that must be filled with the numbers from 1 to 9. The square size
+     * must be in the range from 2 to <code>MAX_SQUARE_SIZE</code>.
      *
      * @param sqrSz the square size
      * @throws IllegalArgumentException if the size is invalid
@@ -70,8 +235,37 @@ public class SudokuSolver
             throw new IllegalArgumentException(
                     "Square size must be greater or equal 2!");
         }
-        squareSize = sqrSz;
+        if (sqrSz > MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Square size must be less or equal " + MAX_SQUARE_SIZE
+                            + "!");
+        }
+        geometry = SudokuGeometry.getInstance(sqrSz);
+        variant = new SudokuVariant(sqrSz);
+        searchStrategy = SearchStrategy.NUMBER_BY_COLUMN;
+        initField();
+    }
+
+    /**
+     * Creates a new instance of <code>SudokuSolver</code> as a copy of the
+     * given instance. The new instance has the same field and the same
+     * settings, but independent data structures. All cells filled in the
+     * original are treated as presets by the copy. This is used to run
+     * independent parts of a search in parallel.
+     *
+     * @param other the solver to be copied
+     */
+    SudokuSolver(SudokuSolver other)
+    {
+        geometry = other.geometry;
+        variant = other.variant;
+        searchStrategy = other.searchStrategy;
+        propagation = other.propagation;
+        pipeline = other.pipeline;
+        techniqueBudget = other.techniqueBudget;
         initField();
+        copyFrom(other);
     }
 
     /**
@@ -80,9 +274,10 @@ public class SudokuSolver
      *
      * @return the size of a (sub) square
      */
+    @Override
     public short getSquareSize()
     {
-        return squareSize;
+        return geometry.getSquareSize();
     }
 
     /**
@@ -92,257 +287,2219 @@ public class SudokuSolver
      *
      * @return the (total) field size
      */
+    @Override
     public short getFieldSize()
     {
-        return (short) (getSquareSize() * getSquareSize());
+        return geometry.getFieldSize();
     }
 
     /**
-     * Returns the value of the cell at the specified position.
+     * Returns the variant of the sudoku to be solved.
      *
-     * @param row the row index
-     * @param col the column index
-     * @return the value of this cell (0 means that no number has been filled
-     * into this cell yet)
+     * @return the variant
      */
-    public short getCell(int row, int col)
+    public SudokuVariant getVariant()
     {
-        return field[row][col];
+        return variant;
     }
 
     /**
-     * Writes a value into the specified cell. This method is used for filling
-     * the presets. It immediately checks whether the sudoku rules are not
-     * violated by this operation and throws an exception if necessary.
+     * Sets the variant of the sudoku to be solved. The variant defines the
+     * constraints the numbers have to satisfy, e.g. additional units or
+     * cages. The square size of the variant must match the one of this
+     * solver. Because the presets may not be valid for the new constraints,
+     * the field is cleared. Per default, a classic sudoku is solved. Classic
+     * sudokus and variants which only replace the squares by irregular
+     * regions are solved without any overhead; the checks for diagonals and
+     * cages only take place if they are defined. Note that the locked
+     * candidates techniques (<code>POINTING</code> and <code>CLAIMING</code>)
+     * are skipped if there are irregular regions.
      *
-     * @param row the row index
-     * @param col the column index
-     * @param value the value for the cell
-     * @throws SudokuSolverException if this set operation is not allowed
+     * @param v the variant (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the variant is <b>null</b> or has
+     * a different square size
      */
-    public void setCell(int row, int col, short value)
-            throws SudokuSolverException
+    public void setVariant(SudokuVariant v)
     {
-        if (value < 1 || value > getFieldSize())
+        if (v == null)
         {
-            throw new SudokuSolverException(SudokuState.INVALID_NUMBER, value);
+            throw new IllegalArgumentException("Variant must not be null!");
         }
-        SudokuState state = checkAllowed(value, row, col);
-        if (state != SudokuState.OK)
+        if (v.getSquareSize() != getSquareSize())
         {
-            throw new SudokuSolverException(state, value);
+            throw new IllegalArgumentException(
+                    "Variant must have the square size " + getSquareSize()
+                            + "!");
         }
-        writeCell(row, col, value);
+        variant = v;
+        geometry = SudokuGeometry.forVariant(v);
+        initConstraints();
+        reset();
     }
 
     /**
-     * Removes the value from the specified cell. This method can be used to
-     * clear a preset that was written using <code>setCell()</code>. The
-     * specified cell must contain a valid value, otherwise an exception is
-     * thrown.
+     * Returns the strategy used for searching a solution.
      *
-     * @param row the row index
-     * @param col the column index
-     * @throws IllegalArgumentException if the cell is empty
+     * @return the search strategy
      */
-    public void clearCell(int row, int col)
+    public SearchStrategy getSearchStrategy()
     {
-        if (getCell(row, col) == 0)
+        return searchStrategy;
+    }
+
+    /**
+     * Sets the strategy used for searching a solution. The default strategy is
+     * <code>NUMBER_BY_COLUMN</code>.
+     *
+     * @param strategy the search strategy (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the strategy is <b>null</b>
+     */
+    public void setSearchStrategy(SearchStrategy strategy)
+    {
+        if (strategy == null)
         {
-            throw new IllegalArgumentException("The cell has not been filled!");
+            throw new IllegalArgumentException(
+                    "Search strategy must not be null!");
         }
-        writeCell(row, col, (short) 0);
+        searchStrategy = strategy;
     }
 
     /**
-     * Tries to solve the sudoku. Fills all the missing fields with valid
-     * values. Typically an instance of <code>SudokuSolver</code> is created,
-     * then <code>setCell()</code> is used for filling in the presets, and
-     * finally this method can be invoked to generate a solution.
+     * Returns the number of nodes visited by the last invocation of
+     * <code>solve()</code>. Each number that is tentatively written into a
+     * cell by the search counts as a node. This value can be used to compare
+     * the efficiency of the different search strategies.
      *
-     * @return a flag whether a solution could be found
+     * @return the number of nodes visited by the last search
      */
-    public boolean solve()
+    public long getNodeCount()
     {
-        return solveColumn((short) 1, (short) 0);
+        return nodeCount;
     }
 
     /**
-     * Returns the index of the square that belongs to the given coordinates.
+     * {@inheritDoc} This implementation returns the number of nodes visited.
+     * While a search is running, the value is updated every 1024 nodes.
+     */
+    @Override
+    public long getProgress()
+    {
+        return progress;
+    }
+
+    /**
+     * Returns the maximum number of nodes a search may visit.
      *
-     * @param row the row index
-     * @param col the column index
-     * @return the index of the corresponding square
+     * @return the node limit (0 if there is no limit)
      */
-    short getSquareIndex(int row, int col)
+    public long getNodeLimit()
     {
-        return (short) ((row / getSquareSize()) * getSquareSize() + col
-                / getSquareSize());
+        return nodeLimit;
     }
 
     /**
-     * Returns a flag whether the specified row is already used for the given
-     * number. Then this number must not be placed again in this row.
+     * Sets the maximum number of nodes a search may visit. If a search
+     * exceeds this limit, it is aborted. This gives a bound on the costs of a
+     * search which does not depend on the speed of the machine. Per default,
+     * there is no limit.
      *
-     * @param number the number
-     * @param row the row index
-     * @return a flag whether the number is already present in this row
+     * @param limit the node limit (0 for no limit)
+     * @throws IllegalArgumentException if the limit is negative
      */
-    boolean isRowUsed(short number, int row)
+    public void setNodeLimit(long limit)
+    {
+        if (limit < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Node limit must not be negative!");
+        }
+        nodeLimit = limit;
+    }
+
+    /**
+     * Returns a flag whether the last search was aborted. This is the case if
+     * the node limit or the time limit was exceeded, if the thread was
+     * interrupted, or if the search was canceled. The result of the search is
+     * then meaningless; for instance, <code>countSolutions()</code> returns
+     * the number of solutions found so far.
+     *
+     * @return a flag whether the last search was aborted
+     */
+    public boolean isAborted()
     {
-        return filledRows[number - 1][row];
+        return aborted;
     }
 
     /**
-     * Returns a flag whether the specified column is already used for the given
-     * number. Then this number must not be placed in this column again.
+     * Returns a flag whether constraint propagation is enabled.
      *
-     * @param number the number
-     * @param col the column index
-     * @return a flag whether the number is already present in this column
+     * @return the propagation flag
      */
-    boolean isColumnUsed(short number, int col)
+    public boolean isPropagation()
     {
-        return filledColumns[number - 1][col];
+        return propagation;
     }
 
     /**
-     * Returns a flag whether the specified number has already been placed into
-     * the given square. In this case the number must not be put again into this
-     * square.
+     * Enables or disables constraint propagation. If enabled, naked singles
+     * (cells with only a single candidate) and hidden singles (numbers which
+     * can only be placed at a single position in a row, column, or square)
+     * are filled in repeatedly before the search starts and after each number
+     * tentatively placed by the search. Many sudokus can then be solved
+     * without any branching. Propagation is disabled per default.
      *
-     * @param number the number to check
-     * @param index the index of the affected square
-     * @return a flag whether the number is already present in this square
+     * @param f the propagation flag
      */
-    boolean isSquareUsed(short number, int index)
+    public void setPropagation(boolean f)
     {
-        return filledSquares[number - 1][index];
+        propagation = f;
     }
 
     /**
-     * Checks whether it is allowed to place the given number into the specified
-     * cell.
+     * Returns the elimination techniques applied by constraint propagation.
      *
-     * @param number the number to be placed
-     * @param row the row index
-     * @param col the column index
-     * @return a state flag; <code>OK</code> if the operation is allowed,
-     * otherwise the cause why it is not allowed
+     * @return a set with the enabled elimination techniques
      */
-    SudokuState checkAllowed(short number, int row, int col)
+    public Set<Technique> getTechniques()
     {
-        if (isRowUsed(number, row))
-        {
-            return SudokuState.ROW_OCCUPIED;
-        }
-        else if (isColumnUsed(number, col))
+        EnumSet<Technique> result = EnumSet.noneOf(Technique.class);
+        result.addAll(Arrays.asList(pipeline));
+        return result;
+    }
+
+    /**
+     * Sets the elimination techniques to be applied by constraint
+     * propagation. If propagation is enabled, these techniques are tried in
+     * the order of the {@link Technique} constants whenever no more singles
+     * can be found: before the search starts and at each node of the search.
+     * As soon as a technique removes candidates, propagation continues with
+     * the singles again. Each technique can considerably reduce the number of
+     * nodes visited, but it also has its costs; so it depends on the puzzles
+     * to be solved which techniques pay off. The single techniques are always
+     * applied; they are ignored if they are contained in the set. Per
+     * default, no elimination techniques are enabled.
+     *
+     * @param techniques the set with the techniques to enable (must not be
+     * <b>null</b>)
+     * @throws IllegalArgumentException if the set is <b>null</b>
+     */
+    public void setTechniques(Set<Technique> techniques)
+    {
+        if (techniques == null)
         {
-            return SudokuState.COLUMN_OCCUPIED;
+            throw new IllegalArgumentException("Techniques must not be null!");
         }
-        else if (isSquareUsed(number, getSquareIndex(row, col)))
+        EnumSet<Technique> enabled = EnumSet.noneOf(Technique.class);
+        for (Technique t : techniques)
         {
-            return SudokuState.SQUARE_OCCUPIED;
+            if (t.isElimination())
+            {
+                enabled.add(t);
+            }
         }
-        else
+        pipeline = enabled.toArray(new Technique[enabled.size()]);
+        if (pipeline.length > 0 && trailMasks == null)
         {
-            return SudokuState.OK;
+            initTechniqueData();
         }
     }
 
     /**
-     * Initializes the internal data structures for storing the information
-     * about the sudoku field.
+     * Returns the maximum costs of the elimination techniques per node.
+     *
+     * @return the technique budget (0 if there is no limit)
      */
-    private void initField()
+    public long getTechniqueBudget()
     {
-        field = new short[getFieldSize()][getFieldSize()];
-        filledRows = new boolean[getFieldSize()][getFieldSize()];
-        filledColumns = new boolean[getFieldSize()][getFieldSize()];
-        filledSquares = new boolean[getFieldSize()][getFieldSize()];
+        return techniqueBudget;
     }
 
     /**
-     * Writes a value into a cell. This method does not perform any checks; it
-     * directly writes the value and updates the used flags.
+     * Sets the maximum costs the elimination techniques may spend at a single
+     * node of the search (or for the initial propagation). The costs are
+     * measured as the number of cells and combinations of cells examined.
+     * When the budget is exhausted, the remaining patterns are left to the
+     * search. As the number of combinations grows fast with the field size,
+     * this allows tuning the trade-off between the costs of the techniques
+     * and the reduction of branching for large fields. Per default, there is
+     * no limit.
      *
-     * @param row the row
-     * @param col the column
-     * @param value the value to write
+     * @param limit the technique budget (0 for no limit)
+     * @throws IllegalArgumentException if the budget is negative
      */
-    private void writeCell(int row, int col, short value)
+    public void setTechniqueBudget(long limit)
     {
-        if (value == 0)
-        {
-            markUsed(getCell(row, col), row, col, false);
-        }
-        else
+        if (limit < 0)
         {
-            markUsed(value, row, col, true);
+            throw new IllegalArgumentException(
+                    "Technique budget must not be negative!");
         }
-        field[row][col] = value;
+        techniqueBudget = limit;
     }
 
     /**
-     * Sets the used flag for a number and a position.
+     * Returns the number of cells filled by constraint propagation during the
+     * last invocation of <code>solve()</code>. Together with the node count,
+     * this shows how many cells were deduced logically and how many were
+     * found by search. Cells filled in branches that were discarded later are
+     * counted, too.
      *
-     * @param number the number
-     * @param row the row
-     * @param col the column
-     * @param used the used flag
+     * @return the number of cells filled by propagation
      */
-    private void markUsed(short number, int row, int col, boolean used)
+    public long getPropagatedCount()
     {
-        short nIdx = (short) (number - 1);
-        filledRows[nIdx][row] = used;
-        filledColumns[nIdx][col] = used;
-        filledSquares[nIdx][getSquareIndex(row, col)] = used;
+        return propagatedCount;
     }
 
     /**
-     * Tries to fill a column with the given number. This recursive method
-     * performs the main action when solving a sudoku. It creates all possible
-     * combinations of numbers in the single columns.
+     * Returns a flag whether statistics are collected during a search.
      *
-     * @param number the number to be placed in a column
-     * @param row the index of the current row
-     * @param col the index of the current column
-     * @return a flag whether the number could be placed
+     * @return the statistics flag
      */
-    private boolean solveColumn(short number, short col)
+    public boolean isStatisticsEnabled()
     {
-        if (number > getFieldSize())
+        return statistics != null;
+    }
+
+    /**
+     * Enables or disables the collection of statistics. If enabled, each
+     * search fills a {@link SearchStatistics} object which can be queried
+     * using <code>getStatistics()</code>. Collecting statistics causes a small
+     * overhead; therefore, it is disabled per default.
+     *
+     * @param f the statistics flag
+     */
+    public void setStatisticsEnabled(boolean f)
+    {
+        if (f != isStatisticsEnabled())
         {
-            // successful end of recursion?
-            return true;
+            statistics = f ? new SearchStatistics() : null;
         }
+    }
+
+    /**
+     * Returns the statistics of the last search. Result is <b>null</b> if
+     * statistics are disabled. The object returned is reused by this solver;
+     * it is overwritten by the next search.
+     *
+     * @return the statistics of the last search
+     */
+    public SearchStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * Returns the listener which is notified about the steps of a search.
+     *
+     * @return the step listener (can be <b>null</b>)
+     */
+    public SolveStepListener getStepListener()
+    {
+        return stepListener;
+    }
+
+    /**
+     * Sets a listener to be notified about the steps of a search. The
+     * listener receives the numbers placed by propagation and the candidates
+     * removed by elimination techniques together with the units involved, as
+     * well as the guesses and backtracks of the search, in the order they
+     * happen. This way a solution can be explained step by step. The steps
+     * are not stored by this solver. Each invocation of
+     * <code>solve()</code> or <code>countSolutions()</code> is traced. If no
+     * listener is set (which is the default), no step objects are created.
+     *
+     * @param listener the step listener (<b>null</b> to disable the trace)
+     */
+    public void setStepListener(SolveStepListener listener)
+    {
+        stepListener = listener;
+    }
+
+    /**
+     * Returns the value of the cell at the specified position.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the value of this cell (0 means that no number has been filled
+     * into this cell yet)
+     */
+    @Override
+    public short getCell(int row, int col)
+    {
+        return field[geometry.getCell(row, col)];
+    }
+
+    /**
+     * Writes a value into the specified cell. This method is used for filling
+     * the presets. It immediately checks whether the sudoku rules are not
+     * violated by this operation and throws an exception if necessary.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param value the value for the cell
+     * @throws SudokuSolverException if this set operation is not allowed
+     */
+    @Override
+    public void setCell(int row, int col, short value)
+            throws SudokuSolverException
+    {
+        presetCell(geometry.getCell(row, col), value);
+    }
 
-        if (col >= getFieldSize())
+    /**
+     * Removes the value from the specified cell. This method can be used to
+     * clear a preset that was written using <code>setCell()</code>. The
+     * specified cell must contain a valid value, otherwise an exception is
+     * thrown.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @throws IllegalArgumentException if the cell is empty
+     */
+    @Override
+    public void clearCell(int row, int col)
+    {
+        if (getCell(row, col) == 0)
         {
-            // All columns for this number have been processed => next number
-            return solveColumn((short) (number + 1), (short) 0);
+            throw new IllegalArgumentException("The cell has not been filled!");
         }
+        writeCell(geometry.getCell(row, col), (short) 0);
+        clearEliminations();
+    }
 
-        if (isColumnUsed(number, col))
+    /**
+     * Clears the whole field. After this method has been called, this object
+     * is in the same state as a newly created instance with the same square
+     * size, but the internal data structures are reused. So an instance can
+     * be used for solving multiple sudokus one after the other. The search
+     * strategy and the propagation flag are not changed.
+     */
+    public void reset()
+    {
+        Arrays.fill(field, (short) 0);
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(columnMasks, 0);
+        Arrays.fill(squareMasks, 0);
+        if (constrained)
         {
-            // This number is fixed placed in this column.
-            return solveColumn(number, (short) (col + 1));
+            resetConstraints();
         }
+        clearEliminations();
+        trailSize = 0;
+    }
 
-        // Try all combinations for this number in this column
-        for (short row = 0; row < getFieldSize(); row++)
-        {
-            if (getCell(row, col) == 0
-                    && checkAllowed(number, row, col) == SudokuState.OK)
+    /**
+     * Clears the field and fills in the presets of a new puzzle. The puzzle
+     * is passed as an array with one element per cell, stored row by row; 0
+     * stands for an empty cell. The values are checked in the same way as by
+     * <code>setCell()</code>. This method and <code>reset()</code> reuse the
+     * data structures of this object and do not allocate any memory, so a
+     * single instance can solve a large number of puzzles without producing
+     * garbage.
+     *
+     * @param puzzle the array with the cells of the puzzle
+     * @throws SudokuSolverException if a preset is invalid
+     * @throws IllegalArgumentException if the array has a wrong length
+     */
+    public void load(short[] puzzle) throws SudokuSolverException
+    {
+        if (puzzle.length != field.length)
+        {
+            throw new IllegalArgumentException("Puzzle must have "
+                    + field.length + " cells!");
+        }
+
+        reset();
+        for (int cell = 0; cell < puzzle.length; cell++)
+        {
+            if (puzzle[cell] != 0)
+            {
+                presetCell(cell, puzzle[cell]);
+            }
+        }
+    }
+
+    /**
+     * Copies the content of the field into the given array. The array has the
+     * same layout as the one passed to <code>load()</code>. This is an
+     * efficient way to obtain a solution.
+     *
+     * @param cells the target array
+     * @throws IllegalArgumentException if the array has a wrong length
+     */
+    public void getCells(short[] cells)
+    {
+        if (cells.length != field.length)
+        {
+            throw new IllegalArgumentException("Array must have "
+                    + field.length + " cells!");
+        }
+        System.arraycopy(field, 0, cells, 0, field.length);
+    }
+
+    /**
+     * Tries to solve the sudoku. Fills all the missing fields with valid
+     * values. Typically an instance of <code>SudokuSolver</code> is created,
+     * then <code>setCell()</code> is used for filling in the presets, and
+     * finally this method can be invoked to generate a solution. The order in
+     * which alternatives are tried is determined by the current search
+     * strategy. If constraint propagation is enabled, all cells that can be
+     * deduced logically are filled before the search starts. If the search is
+     * aborted (see <code>isAborted()</code>), result is <b>false</b>.
+     *
+     * @return a flag whether a solution could be found
+     */
+    @Override
+    public boolean solve()
+    {
+        return solve(0, TimeUnit.NANOSECONDS) == SolveResult.SOLVED;
+    }
+
+    /**
+     * {@inheritDoc} The node limit is taken into account, too.
+     */
+    @Override
+    public SolveResult solve(long timeout, TimeUnit unit)
+    {
+        timeLimited = timeout > 0;
+        if (timeLimited)
+        {
+            deadline = System.nanoTime() + unit.toNanos(timeout);
+        }
+        boolean solved = startSearch(1) > 0;
+        timeLimited = false;
+        if (solved)
+        {
+            return SolveResult.SOLVED;
+        }
+        undo(0);
+        return isAborted() ? SolveResult.ABORTED : SolveResult.UNSOLVABLE;
+    }
+
+    /**
+     * Counts the solutions of this sudoku up to the given limit. The search
+     * stops as soon as <code>limit</code> solutions have been found, so the
+     * costs of this method are bounded by the limit. After this method
+     * returns, the field is in the same state as before; the cells filled
+     * while searching are removed again. The current search strategy and
+     * propagation setting are used. If the search is aborted, the number of
+     * solutions found so far is returned.
+     *
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found (at most <code>limit</code>)
+     * @throws IllegalArgumentException if the limit is less than 1
+     */
+    @Override
+    public int countSolutions(int limit)
+    {
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("Limit must be at least 1!");
+        }
+        int count = startSearch(limit);
+        undo(0);
+        return count;
+    }
+
+    /**
+     * Checks whether this sudoku has exactly one solution. This is done by
+     * searching for at most two solutions. The field is not changed by this
+     * method.
+     *
+     * @return a flag whether this sudoku has a unique solution
+     */
+    @Override
+    public boolean hasUniqueSolution()
+    {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * Copies the content of the field from another solver with the same square
+     * size into this object. The trail of this object is cleared.
+     *
+     * @param other the solver to copy from
+     */
+    void copyFrom(SudokuSolver other)
+    {
+        System.arraycopy(other.field, 0, field, 0, field.length);
+        System.arraycopy(other.rowMasks, 0, rowMasks, 0, getFieldSize());
+        System.arraycopy(other.columnMasks, 0, columnMasks, 0,
+                getFieldSize());
+        System.arraycopy(other.squareMasks, 0, squareMasks, 0,
+                getFieldSize());
+        System.arraycopy(other.eliminated, 0, eliminated, 0, field.length);
+        eliminations = other.eliminations;
+        if (constrained)
+        {
+            System.arraycopy(other.extraMasks, 0, extraMasks, 0,
+                    extraMasks.length);
+            System.arraycopy(other.cageMasks, 0, cageMasks, 0,
+                    cageMasks.length);
+            System.arraycopy(other.cageSums, 0, cageSums, 0, cageSums.length);
+            System.arraycopy(other.cageFree, 0, cageFree, 0, cageFree.length);
+        }
+        trailSize = 0;
+    }
+
+    /**
+     * Sets a flag which can be used to cancel a running search. The search
+     * checks this flag periodically and stops if it is set. A canceled search
+     * is treated as aborted.
+     *
+     * @param flag the cancel flag (can be <b>null</b>)
+     */
+    void setCancelFlag(AtomicBoolean flag)
+    {
+        cancelFlag = flag;
+    }
+
+    /**
+     * Sets a counter to which the nodes visited by a search are added. The
+     * counter is updated together with the progress of this solver, i.e.
+     * every 1024 nodes and at the end of the search. So the progress of
+     * multiple solvers working on the same puzzle can be observed while they
+     * are running.
+     *
+     * @param counter the progress counter (can be <b>null</b>)
+     */
+    void setProgressCounter(AtomicLong counter)
+    {
+        progressCounter = counter;
+    }
+
+    /**
+     * Performs constraint propagation on the current field if it is enabled.
+     * The cells filled in and the candidates removed are treated as part of
+     * the field; they are not restored by a later search.
+     *
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    boolean propagateField()
+    {
+        clearEliminations();
+        boolean result = !isPropagation() || propagateAll();
+        trailSize = 0;
+        return result;
+    }
+
+    /**
+     * Returns the branch the search would explore next according to the
+     * current search strategy. The meaning of the result depends on the
+     * strategy; it can be passed to <code>getAlternatives()</code> and
+     * <code>applyAlternative()</code>.
+     *
+     * @return the next branch or -1 if the field is complete
+     */
+    int selectBranch()
+    {
+        return pushChoice(0, 0) ? choiceBranches[0] : -1;
+    }
+
+    /**
+     * Returns a mask with the alternatives of the given branch.
+     *
+     * @param branch the branch as returned by <code>selectBranch()</code>
+     * @return a mask with the alternatives of this branch
+     */
+    long getAlternatives(int branch)
+    {
+        if (getSearchStrategy() == SearchStrategy.MINIMUM_REMAINING_VALUES)
+        {
+            return candidates(branch);
+        }
+        return rowAlternatives((short) (branch / getFieldSize() + 1), branch
+                % getFieldSize());
+    }
+
+    /**
+     * Applies an alternative of a branch to the field. Afterwards, constraint
+     * propagation is performed if it is enabled.
+     *
+     * @param branch the branch as returned by <code>selectBranch()</code>
+     * @param bit the single bit of the alternative to apply
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    boolean applyAlternative(int branch, long bit)
+    {
+        int mark = trailSize;
+        applyChoice(branch, bit);
+        boolean result = !isPropagation() || propagate(mark);
+        trailSize = 0;
+        return result;
+    }
+
+    /**
+     * Returns the index of the square that belongs to the given coordinates.
+     * If the variant defines irregular regions, this is the index of the
+     * region.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the index of the corresponding square
+     */
+    short getSquareIndex(int row, int col)
+    {
+        return (short) geometry.getSquare(geometry.getCell(row, col));
+    }
+
+    /**
+     * Returns a flag whether the specified row is already used for the given
+     * number. Then this number must not be placed again in this row.
+     *
+     * @param number the number
+     * @param row the row index
+     * @return a flag whether the number is already present in this row
+     */
+    boolean isRowUsed(short number, int row)
+    {
+        return (rowMasks[row] & numberMask(number)) != 0;
+    }
+
+    /**
+     * Returns a flag whether the specified column is already used for the given
+     * number. Then this number must not be placed in this column again.
+     *
+     * @param number the number
+     * @param col the column index
+     * @return a flag whether the number is already present in this column
+     */
+    boolean isColumnUsed(short number, int col)
+    {
+        return (columnMasks[col] & numberMask(number)) != 0;
+    }
+
+    /**
+     * Returns a flag whether the specified number has already been placed into
+     * the given square. In this case the number must not be put again into this
+     * square.
+     *
+     * @param number the number to check
+     * @param index the index of the affected square
+     * @return a flag whether the number is already present in this square
+     */
+    boolean isSquareUsed(short number, int index)
+    {
+        return (squareMasks[index] & numberMask(number)) != 0;
+    }
+
+    /**
+     * Checks whether it is allowed to place the given number into the specified
+     * cell.
+     *
+     * @param number the number to be placed
+     * @param row the row index
+     * @param col the column index
+     * @return a state flag; <code>OK</code> if the operation is allowed,
+     * otherwise the cause why it is not allowed
+     */
+    SudokuState checkAllowed(short number, int row, int col)
+    {
+        return checkAllowed(number, geometry.getCell(row, col));
+    }
+
+    /**
+     * Checks whether it is allowed to place the given number into the cell
+     * with the given index.
+     *
+     * @param number the number to be placed
+     * @param cell the cell index
+     * @return a state flag; <code>OK</code> if the operation is allowed,
+     * otherwise the cause why it is not allowed
+     */
+    private SudokuState checkAllowed(short number, int cell)
+    {
+        if (isRowUsed(number, geometry.getRow(cell)))
+        {
+            return SudokuState.ROW_OCCUPIED;
+        }
+        else if (isColumnUsed(number, geometry.getColumn(cell)))
+        {
+            return SudokuState.COLUMN_OCCUPIED;
+        }
+        else if (isSquareUsed(number, geometry.getSquare(cell)))
+        {
+            return SudokuState.SQUARE_OCCUPIED;
+        }
+        else if (constrained)
+        {
+            return checkConstraints(number, cell);
+        }
+        else
+        {
+            return SudokuState.OK;
+        }
+    }
+
+    /**
+     * Checks whether the given number can be placed into the cell with the
+     * given index with regard to the diagonals and the cages.
+     *
+     * @param number the number to be placed
+     * @param cell the cell index
+     * @return a state flag; <code>OK</code> if the operation is allowed,
+     * otherwise the cause why it is not allowed
+     */
+    private SudokuState checkConstraints(short number, int cell)
+    {
+        long mask = numberMask(number);
+        if (extraMasks.length > 0)
+        {
+            for (int unit : geometry.getExtraUnits(cell))
+            {
+                if ((unitMask(unit) & mask) != 0)
+                {
+                    return SudokuState.DIAGONAL_OCCUPIED;
+                }
+            }
+        }
+        int cage = geometry.getCage(cell);
+        if (cage >= 0)
+        {
+            if ((cageMasks[cage] & mask) != 0)
+            {
+                return SudokuState.CAGE_OCCUPIED;
+            }
+            if ((geometry.getCombinations(cageFree[cage], cageSums[cage])
+                    & mask) == 0)
+            {
+                return SudokuState.CAGE_SUM_VIOLATED;
+            }
+        }
+        return SudokuState.OK;
+    }
+
+    /**
+     * Returns a bit mask with the numbers that can still be placed into the
+     * specified cell. Bit <em>n - 1</em> of the result is set if the number
+     * <em>n</em> is neither present in the cell's row, nor in its column, nor
+     * in its square, and if it has not been removed by an elimination
+     * technique. If the variant defines diagonals or cages, the number must
+     * not be present in the cell's diagonals and cage either, and it must be
+     * part of a combination forming the missing sum of the cage. The content
+     * of the cell itself is not taken into account.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return a bit mask with the candidates for this cell
+     */
+    long getCandidates(int row, int col)
+    {
+        return candidates(geometry.getCell(row, col));
+    }
+
+    /**
+     * Returns a bit mask with the numbers that can still be placed into the
+     * cell with the given index. This is the same as
+     * <code>getCandidates()</code>, but the cell is addressed by its index.
+     *
+     * @param cell the cell index
+     * @return a bit mask with the candidates for this cell
+     */
+    private long candidates(int cell)
+    {
+        long used = rowMasks[geometry.getRow(cell)]
+                | columnMasks[geometry.getColumn(cell)]
+                | squareMasks[geometry.getSquare(cell)] | eliminated[cell];
+        if (constrained)
+        {
+            used |= excludedByConstraints(cell);
+        }
+        return ~used & allNumbers;
+    }
+
+    /**
+     * Returns a bit mask with the numbers excluded from a cell by the
+     * diagonals and the cage of the cell.
+     *
+     * @param cell the cell index
+     * @return a bit mask with the excluded numbers
+     */
+    private long excludedByConstraints(int cell)
+    {
+        long used = 0;
+        if (extraMasks.length > 0)
+        {
+            for (int unit : geometry.getExtraUnits(cell))
+            {
+                used |= unitMask(unit);
+            }
+        }
+        int cage = geometry.getCage(cell);
+        if (cage >= 0)
+        {
+            used |= cageMasks[cage]
+                    | ~geometry.getCombinations(cageFree[cage],
+                            cageSums[cage]);
+        }
+        return used;
+    }
+
+    /**
+     * Returns the bit mask representing the given number.
+     *
+     * @param number the number
+     * @return the corresponding bit mask
+     */
+    static long numberMask(short number)
+    {
+        return 1L << (number - 1);
+    }
+
+    /**
+     * Initializes the internal data structures for storing the information
+     * about the sudoku field.
+     */
+    private void initField()
+    {
+        int cellCount = geometry.getCellCount();
+        field = new short[cellCount];
+        eliminated = new long[cellCount];
+        trail = new int[cellCount];
+        choiceBranches = new int[cellCount + 1];
+        choiceAlternatives = new long[cellCount + 1];
+        choiceMarks = new int[cellCount + 1];
+        rowMasks = new long[getFieldSize()];
+        columnMasks = new long[getFieldSize()];
+        squareMasks = new long[getFieldSize()];
+        allNumbers = (getFieldSize() < Long.SIZE) ? (1L << getFieldSize()) - 1
+                : -1L;
+        if (pipeline.length > 0)
+        {
+            initTechniqueData();
+        }
+        initConstraints();
+    }
+
+    /**
+     * Initializes the data structures storing the state of the diagonals and
+     * the cages according to the current geometry.
+     */
+    private void initConstraints()
+    {
+        constrained = geometry.hasConstraints();
+        extraMasks = new long[geometry.getUnitCount() - 3 * getFieldSize()];
+        cageMasks = new long[geometry.getCageCount()];
+        cageSums = new int[geometry.getCageCount()];
+        cageFree = new int[geometry.getCageCount()];
+        resetConstraints();
+    }
+
+    /**
+     * Resets the state of the diagonals and the cages for an empty field.
+     */
+    private void resetConstraints()
+    {
+        Arrays.fill(extraMasks, 0);
+        Arrays.fill(cageMasks, 0);
+        for (int cage = 0; cage < cageSums.length; cage++)
+        {
+            cageSums[cage] = geometry.getCageSum(cage);
+            cageFree[cage] = geometry.getCageCells(cage).length;
+        }
+    }
+
+    /**
+     * Initializes the data structures needed by elimination techniques. The
+     * trail is enlarged, so that it can store an elimination for each
+     * candidate of each cell in addition to the cells.
+     */
+    private void initTechniqueData()
+    {
+        int capacity = geometry.getCellCount() * (getFieldSize() + 1);
+        trail = Arrays.copyOf(trail, capacity);
+        trailMasks = new long[capacity];
+        segments = new long[getSquareSize()];
+        subsetMasks = new long[getFieldSize()];
+        subsetIds = new int[getFieldSize()];
+    }
+
+    /**
+     * Restores all candidates removed by elimination techniques. This is
+     * necessary if the field changes in a way which may invalidate the
+     * eliminations.
+     */
+    private void clearEliminations()
+    {
+        if (eliminations)
+        {
+            Arrays.fill(eliminated, 0);
+            eliminations = false;
+        }
+    }
+
+    /**
+     * Writes a preset into a cell after checking whether this is allowed.
+     *
+     * @param cell the cell index
+     * @param value the value for the cell
+     * @throws SudokuSolverException if this set operation is not allowed
+     */
+    private void presetCell(int cell, short value) throws SudokuSolverException
+    {
+        if (value < 1 || value > getFieldSize())
+        {
+            throw new SudokuSolverException(SudokuState.INVALID_NUMBER, value);
+        }
+        SudokuState state = checkAllowed(value, cell);
+        if (state != SudokuState.OK)
+        {
+            throw new SudokuSolverException(state, value);
+        }
+        writeCell(cell, value);
+    }
+
+    /**
+     * Writes a value into a cell. This method does not perform any checks; it
+     * directly writes the value and updates the used flags.
+     *
+     * @param cell the cell index
+     * @param value the value to write
+     */
+    private void writeCell(int cell, short value)
+    {
+        if (value == 0)
+        {
+            markUsed(field[cell], cell, false);
+        }
+        else
+        {
+            markUsed(value, cell, true);
+        }
+        field[cell] = value;
+    }
+
+    /**
+     * Sets the used flag for a number and a position. This toggles the bit of
+     * the number in the masks of the affected row, column, and square.
+     *
+     * @param number the number
+     * @param cell the cell index
+     * @param used the used flag
+     */
+    private void markUsed(short number, int cell, boolean used)
+    {
+        long mask = numberMask(number);
+        int row = geometry.getRow(cell);
+        int col = geometry.getColumn(cell);
+        int sqIdx = geometry.getSquare(cell);
+        if (used)
+        {
+            rowMasks[row] |= mask;
+            columnMasks[col] |= mask;
+            squareMasks[sqIdx] |= mask;
+        }
+        else
+        {
+            rowMasks[row] &= ~mask;
+            columnMasks[col] &= ~mask;
+            squareMasks[sqIdx] &= ~mask;
+        }
+        if (constrained)
+        {
+            markConstraints(number, cell, used);
+        }
+    }
+
+    /**
+     * Updates the state of the diagonals and the cage of a cell when a number
+     * is placed into it or removed from it.
+     *
+     * @param number the number
+     * @param cell the cell index
+     * @param used the used flag
+     */
+    private void markConstraints(short number, int cell, boolean used)
+    {
+        long mask = numberMask(number);
+        if (extraMasks.length > 0)
+        {
+            for (int unit : geometry.getExtraUnits(cell))
+            {
+                extraMasks[unit - 3 * getFieldSize()] ^= mask;
+            }
+        }
+        int cage = geometry.getCage(cell);
+        if (cage >= 0)
+        {
+            cageMasks[cage] ^= mask;
+            cageSums[cage] += used ? -number : number;
+            cageFree[cage] += used ? -1 : 1;
+        }
+    }
+
+    /**
+     * Resets the statistics and the trail, performs the initial propagation if
+     * enabled, and then starts the search.
+     *
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found
+     */
+    private int startSearch(int limit)
+    {
+        nodeCount = 0;
+        progress = 0;
+        publishedCount = 0;
+        propagatedCount = 0;
+        trailSize = 0;
+        aborted = false;
+        stepDepth = 0;
+        clearEliminations();
+        int solutions;
+        if (statistics == null)
+        {
+            solutions = (!isPropagation() || propagateAll()) ? search(limit)
+                    : 0;
+        }
+        else
+        {
+            statistics.reset();
+            long start = System.nanoTime();
+            solutions = (!isPropagation() || propagateAll()) ? search(limit)
+                    : 0;
+            statistics.finish(nodeCount, System.nanoTime() - start);
+        }
+        publishProgress();
+        return solutions;
+    }
+
+    /**
+     * Searches for solutions using the current search strategy. The search
+     * is implemented as a loop operating on an explicit stack of choice
+     * points rather than by recursion. Each choice point stores the branch it
+     * refers to, the alternatives not yet tried, and the size of the trail
+     * when it was created. Backtracking to a choice point simply pops all
+     * cells written after it from the trail. When a solution is found, it is
+     * counted, and the search continues with the next alternative until the
+     * limit is reached. The field then contains the last solution found. If
+     * the search has to be aborted, the solutions found so far are returned,
+     * and the aborted flag is set.
+     *
+     * @param limit the maximum number of solutions to find
+     * @return the number of solutions found
+     */
+    private int search(int limit)
+    {
+        if (!pushChoice(0, 0))
+        {
+            // all cells are filled
+            return 1;
+        }
+        if (statistics != null)
+        {
+            statistics.depth(1);
+        }
+
+        int solutions = 0;
+        int depth = 0;
+        while (depth >= 0)
+        {
+            if (trailSize > choiceMarks[depth])
+            {
+                if (statistics != null)
+                {
+                    statistics.backtrack();
+                }
+                if (stepListener != null)
+                {
+                    stepDepth = depth;
+                    fireStep(StepType.BACKTRACK, -1, 0, null, null);
+                }
+            }
+            undo(choiceMarks[depth]);
+            long alternatives = choiceAlternatives[depth];
+            if (alternatives == 0)
+            {
+                depth--;
+                continue;
+            }
+
+            long bit = Long.lowestOneBit(alternatives);
+            choiceAlternatives[depth] = alternatives ^ bit;
+            if ((++nodeCount > nodeLimit && nodeLimit > 0)
+                    || ((nodeCount & ABORT_CHECK_MASK) == 0 && checkpoint()))
+            {
+                aborted = true;
+                return solutions;
+            }
+            int mark = trailSize;
+            int cell = applyChoice(choiceBranches[depth], bit);
+            if (stepListener != null)
+            {
+                stepDepth = depth + 1;
+                fireStep(StepType.GUESS, cell, 0, null, guessUnits(
+                        choiceBranches[depth]));
+            }
+            if (isPropagation() && !propagate(mark))
+            {
+                continue;
+            }
+            if (!pushChoice(depth + 1, choiceBranches[depth]))
+            {
+                if (++solutions >= limit)
+                {
+                    return solutions;
+                }
+                continue;
+            }
+            depth++;
+            if (statistics != null)
+            {
+                statistics.depth(depth + 1);
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Performs the periodic tasks of a running search: the node count is
+     * published as progress, and it is checked whether the search should be
+     * aborted.
+     *
+     * @return a flag whether the search should be aborted
+     */
+    private boolean checkpoint()
+    {
+        publishProgress();
+        return shouldAbort();
+    }
+
+    /**
+     * Publishes the current node count as progress. If a progress counter is
+     * set, the nodes visited since the last call are added to it.
+     */
+    private void publishProgress()
+    {
+        progress = nodeCount;
+        if (progressCounter != null)
+        {
+            progressCounter.addAndGet(nodeCount - publishedCount);
+            publishedCount = nodeCount;
+        }
+    }
+
+    /**
+     * Checks whether the current search should be aborted. This is the case
+     * if the cancel flag is set, the current thread has been interrupted, or
+     * the deadline has passed.
+     *
+     * @return a flag whether the search should be aborted
+     */
+    private boolean shouldAbort()
+    {
+        return (cancelFlag != null && cancelFlag.get())
+                || Thread.currentThread().isInterrupted()
+                || (timeLimited && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * Creates a new choice point on the given level of the stack. The branch
+     * to be explored is determined by the search strategy. For the
+     * <code>NUMBER_BY_COLUMN</code> strategy, the branch is the next
+     * combination of a number and a column in which the number has not yet
+     * been placed; the alternatives are the rows that can take the number.
+     * Such a combination is encoded as (number - 1) * field size + column. For
+     * the <code>MINIMUM_REMAINING_VALUES</code> strategy, the branch is the
+     * index of the empty cell with the fewest candidates; the alternatives are
+     * the candidates of this cell. If there are no empty cells left, no choice
+     * point is created, and result is <b>false</b>.
+     *
+     * @param depth the level of the new choice point
+     * @param start the branch of the parent choice point
+     * @return <b>true</b> if a choice point was created, <b>false</b> if the
+     * field is complete
+     */
+    private boolean pushChoice(int depth, int start)
+    {
+        int branch;
+        if (getSearchStrategy() == SearchStrategy.MINIMUM_REMAINING_VALUES)
+        {
+            branch = selectMinimumRemainingCell();
+        }
+        else
+        {
+            branch = selectNumberColumn(start);
+        }
+        if (branch < 0)
+        {
+            return false;
+        }
+
+        choiceBranches[depth] = branch;
+        choiceAlternatives[depth] = getAlternatives(branch);
+        choiceMarks[depth] = trailSize;
+        return true;
+    }
+
+    /**
+     * Writes the number selected by an alternative of a choice point into the
+     * field. The meaning of the alternative depends on the search strategy.
+     *
+     * @param branch the branch of the choice point
+     * @param bit the single bit representing the alternative
+     * @return the index of the cell written
+     */
+    private int applyChoice(int branch, long bit)
+    {
+        int index = Long.numberOfTrailingZeros(bit);
+        if (getSearchStrategy() == SearchStrategy.MINIMUM_REMAINING_VALUES)
+        {
+            writeTrail(branch, (short) (index + 1));
+            return branch;
+        }
+        else
+        {
+            int cell = geometry.getCell(index, branch % getFieldSize());
+            writeTrail(cell, (short) (branch / getFieldSize() + 1));
+            return cell;
+        }
+    }
+
+    /**
+     * Returns the units to be reported for a guess. For the
+     * <code>NUMBER_BY_COLUMN</code> strategy, this is the column of the
+     * branch; the other strategy guesses on a single cell.
+     *
+     * @param branch the branch of the choice point
+     * @return the units involved in the guess
+     */
+    private int[] guessUnits(int branch)
+    {
+        if (getSearchStrategy() == SearchStrategy.MINIMUM_REMAINING_VALUES)
+        {
+            return null;
+        }
+        return new int[] {
+            getFieldSize() + branch % getFieldSize()
+        };
+    }
+
+    /**
+     * Returns the next combination of a number and a column for the
+     * <code>NUMBER_BY_COLUMN</code> strategy. Starting with the given
+     * combination, numbers are processed in ascending order, and for each
+     * number the columns from left to right. The first combination found for
+     * which the number has not yet been placed in the column is returned.
+     *
+     * @param start the encoded combination where to start the search
+     * @return the next combination or -1 if there is none
+     */
+    private int selectNumberColumn(int start)
+    {
+        int count = getFieldSize() * getFieldSize();
+        for (int branch = start; branch < count; branch++)
+        {
+            if (!isColumnUsed((short) (branch / getFieldSize() + 1), branch
+                    % getFieldSize()))
+            {
+                return branch;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a mask with the rows in which the given number can be placed in
+     * the given column.
+     *
+     * @param number the number
+     * @param col the column index
+     * @return a mask with a bit set for each possible row
+     */
+    private long rowAlternatives(short number, int col)
+    {
+        long mask = numberMask(number);
+        long rows = 0;
+        int[] cells = geometry.getUnit(getFieldSize() + col);
+        for (int row = 0; row < cells.length; row++)
+        {
+            if (field[cells[row]] == 0 && (candidates(cells[row]) & mask) != 0)
+            {
+                rows |= 1L << row;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the index of the empty cell with the fewest candidates for the
+     * <code>MINIMUM_REMAINING_VALUES</code> strategy. If a cell with at most
+     * one candidate is found, it is returned immediately.
+     *
+     * @return the index of the selected cell or -1 if all cells are filled
+     */
+    private int selectMinimumRemainingCell()
+    {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < field.length; cell++)
+        {
+            if (field[cell] == 0)
+            {
+                int count = Long.bitCount(candidates(cell));
+                if (count < bestCount)
+                {
+                    best = cell;
+                    bestCount = count;
+                    if (count <= 1)
+                    {
+                        return best;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Performs constraint propagation on the whole field. All empty cells are
+     * checked for naked singles; then <code>propagate()</code> continues with
+     * the cells filled in.
+     *
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagateAll()
+    {
+        int mark = trailSize;
+        for (int cell = 0; cell < field.length; cell++)
+        {
+            if (!propagateNakedSingle(cell))
+            {
+                return false;
+            }
+        }
+        return propagate(mark);
+    }
+
+    /**
+     * Performs constraint propagation after cells have been written. This
+     * method repeatedly fills in naked and hidden singles until no more
+     * progress is made. The trail is used as a queue: only the peers of cells
+     * written after the given trail position can have lost candidates, so only
+     * those are checked for naked singles. Hidden singles are searched in all
+     * units when the queue is empty. If this does not find anything either,
+     * the enabled elimination techniques are applied within the limits of
+     * the technique budget. Cells which lost candidates this way are added to
+     * the queue, too. All cells written and all candidates removed are
+     * recorded on the trail, so they can be restored by <code>undo()</code>.
+     * If a contradiction is detected (a cell without candidates or a number
+     * that cannot be placed anywhere in a unit), the method returns
+     * <b>false</b>; the changes made so far are then still on the trail.
+     *
+     * @param mark the position of the first cell on the trail to process
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagate(int mark)
+    {
+        int next = mark;
+        boolean changed = true;
+        budget = (techniqueBudget > 0) ? techniqueBudget : Long.MAX_VALUE;
+        while (changed)
+        {
+            // naked singles
+            while (next < trailSize)
+            {
+                int entry = trail[next++];
+                if (entry < 0)
+                {
+                    if (!propagateNakedSingle(-entry - 1))
+                    {
+                        return false;
+                    }
+                    continue;
+                }
+                for (int peer : geometry.getPeers(entry))
+                {
+                    if (!propagateNakedSingle(peer))
+                    {
+                        return false;
+                    }
+                }
+            }
+
+            // hidden singles
+            changed = false;
+            for (int unit = 0; unit < geometry.getUnitCount(); unit++)
+            {
+                int result = propagateHiddenSingles(unit);
+                if (result < 0)
+                {
+                    return false;
+                }
+                if (result > 0)
+                {
+                    changed = true;
+                }
+            }
+
+            if (!changed && pipeline.length > 0)
+            {
+                changed = applyTechniques();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a cell for a naked single. If the cell is empty and has only a
+     * single candidate, this number is filled in. If it has no candidates at
+     * all, a contradiction has been found.
+     *
+     * @param cell the cell index
+     * @return <b>false</b> if a contradiction was found, <b>true</b> otherwise
+     */
+    private boolean propagateNakedSingle(int cell)
+    {
+        if (field[cell] == 0)
+        {
+            long candidates = candidates(cell);
+            if (candidates == 0)
+            {
+                return false;
+            }
+            if (Long.bitCount(candidates) == 1)
+            {
+                propagateCell(cell, candidates, Technique.NAKED_SINGLE, -1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies the enabled elimination techniques in their order until one of
+     * them removes candidates or the budget is exhausted.
+     *
+     * @return a flag whether candidates have been removed
+     */
+    private boolean applyTechniques()
+    {
+        for (Technique t : pipeline)
+        {
+            if (budget <= 0)
+            {
+                return false;
+            }
+            if (applyTechnique(t))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies a single elimination technique to the whole field.
+     *
+     * @param technique the technique
+     * @return a flag whether candidates have been removed
+     */
+    private boolean applyTechnique(Technique technique)
+    {
+        switch (technique)
+        {
+        case POINTING:
+            return !geometry.isIrregular() && pointing();
+        case CLAIMING:
+            return !geometry.isIrregular() && claiming();
+        case NAKED_PAIR:
+        case NAKED_TRIPLE:
+        case HIDDEN_PAIR:
+        case HIDDEN_TRIPLE:
+            return subsets(technique);
+        default:
+            return fish(technique);
+        }
+    }
+
+    /**
+     * Searches for pointing locked candidates. Each square is split into its
+     * rows and into its columns. A number which is a candidate in only one
+     * of these lines cannot be placed in the other cells of the line outside
+     * the square.
+     *
+     * @return a flag whether candidates have been removed
+     */
+    private boolean pointing()
+    {
+        int fieldSize = getFieldSize();
+        int squareSize = getSquareSize();
+        boolean changed = false;
+        for (int square = 0; square < fieldSize && budget > 0; square++)
+        {
+            int unit = 2 * fieldSize + square;
+            int[] cells = geometry.getUnit(unit);
+            budget -= 2 * cells.length;
+            for (int dir = 0; dir < 2; dir++)
+            {
+                Arrays.fill(segments, 0);
+                for (int i = 0; i < cells.length; i++)
+                {
+                    if (field[cells[i]] == 0)
+                    {
+                        segments[(dir == 0) ? i / squareSize : i % squareSize]
+                                |= candidates(cells[i]);
+                    }
+                }
+
+                long confined = confinedCandidates();
+                for (int i = 0; i < squareSize && confined != 0; i++)
+                {
+                    long numbers = segments[i] & confined;
+                    if (numbers != 0)
+                    {
+                        int line = (dir == 0) ? geometry
+                                .getRow(cells[i * squareSize]) : fieldSize
+                                + geometry.getColumn(cells[i]);
+                        traceContext(Technique.POINTING, unit, line);
+                        if (eliminateOutside(line, unit, numbers))
+                        {
+                            hit(Technique.POINTING);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Searches for claiming locked candidates. Each row and column is split
+     * into the parts belonging to the different squares. A number which is a
+     * candidate in only one of these parts cannot be placed in the other
+     * cells of the square.
+     *
+     * @return a flag whether candidates have been removed
+     */
+    private boolean claiming()
+    {
+        int fieldSize = getFieldSize();
+        int squareSize = getSquareSize();
+        boolean changed = false;
+        for (int line = 0; line < 2 * fieldSize && budget > 0; line++)
+        {
+            int[] cells = geometry.getUnit(line);
+            budget -= cells.length;
+            Arrays.fill(segments, 0);
+            for (int i = 0; i < cells.length; i++)
+            {
+                if (field[cells[i]] == 0)
+                {
+                    segments[i / squareSize] |= candidates(cells[i]);
+                }
+            }
+
+            long confined = confinedCandidates();
+            for (int i = 0; i < squareSize && confined != 0; i++)
+            {
+                long numbers = segments[i] & confined;
+                if (numbers != 0)
+                {
+                    int unit = 2 * fieldSize
+                            + geometry.getSquare(cells[i * squareSize]);
+                    traceContext(Technique.CLAIMING, line, unit);
+                    if (eliminateOutside(unit, line, numbers))
+                    {
+                        hit(Technique.CLAIMING);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Stores the technique and the units to be reported for the following
+     * eliminations if the trace is enabled.
+     *
+     * @param technique the technique
+     * @param unit1 the first unit involved
+     * @param unit2 the second unit involved
+     */
+    private void traceContext(Technique technique, int unit1, int unit2)
+    {
+        if (stepListener != null)
+        {
+            stepTechnique = technique;
+            stepUnits = new int[] {
+                    unit1, unit2
+            };
+        }
+    }
+
+    /**
+     * Returns a mask with the numbers contained in exactly one of the
+     * segment masks computed by the locked candidates techniques.
+     *
+     * @return a mask with the numbers confined to a single segment
+     */
+    private long confinedCandidates()
+    {
+        long once = 0;
+        long twice = 0;
+        for (long segment : segments)
+        {
+            twice |= once & segment;
+            once |= segment;
+        }
+        return once & ~twice;
+    }
+
+    /**
+     * Removes the given numbers from the cells of a unit which do not belong
+     * to another unit.
+     *
+     * @param unit the unit whose cells are processed
+     * @param other the unit whose cells are skipped
+     * @param numbers the mask with the numbers to remove
+     * @return a flag whether candidates have been removed
+     */
+    private boolean eliminateOutside(int unit, int other, long numbers)
+    {
+        boolean changed = false;
+        for (int cell : geometry.getUnit(unit))
+        {
+            if (!isInUnit(cell, other) && eliminate(cell, numbers))
+            {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns a flag whether a cell belongs to the given unit.
+     *
+     * @param cell the cell index
+     * @param unit the index of the unit
+     * @return a flag whether the cell is part of this unit
+     */
+    private boolean isInUnit(int cell, int unit)
+    {
+        int fieldSize = getFieldSize();
+        if (unit < fieldSize)
+        {
+            return geometry.getRow(cell) == unit;
+        }
+        else if (unit < 2 * fieldSize)
+        {
+            return geometry.getColumn(cell) == unit - fieldSize;
+        }
+        else
+        {
+            return geometry.getSquare(cell) == unit - 2 * fieldSize;
+        }
+    }
+
+    /**
+     * Searches for naked or hidden subsets in all units. For naked subsets,
+     * the items to be combined are the empty cells with not more candidates
+     * than the size of the subset; their masks are the candidates. For
+     * hidden subsets, the items are the missing numbers with not more
+     * possible positions than the size of the subset; their masks are these
+     * positions. A subset is found if the masks of the combined items have
+     * not more bits than items were combined.
+     *
+     * @param technique the technique
+     * @return a flag whether candidates have been removed
+     */
+    private boolean subsets(Technique technique)
+    {
+        boolean naked = technique == Technique.NAKED_PAIR
+                || technique == Technique.NAKED_TRIPLE;
+        int size = (technique == Technique.NAKED_PAIR
+                || technique == Technique.HIDDEN_PAIR) ? 2 : 3;
+        for (int unit = 0; unit < geometry.getUnitCount() && budget > 0; unit++)
+        {
+            int[] cells = geometry.getUnit(unit);
+            budget -= cells.length;
+            int count = naked ? nakedItems(cells, size) : hiddenItems(cells,
+                    unitMask(unit), size);
+            if (count >= size
+                    && findSubset(technique, unit, count, size, 0, 0, 0))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the items for the search for naked subsets in a unit. If the
+     * unit does not contain more empty cells than the size of the subset,
+     * nothing can be removed, and no items are collected.
+     *
+     * @param cells the cells of the unit
+     * @param size the size of the subset
+     * @return the number of items
+     */
+    private int nakedItems(int[] cells, int size)
+    {
+        int count = 0;
+        int empty = 0;
+        for (int pos = 0; pos < cells.length; pos++)
+        {
+            if (field[cells[pos]] == 0)
+            {
+                empty++;
+                long candidates = candidates(cells[pos]);
+                if (Long.bitCount(candidates) <= size)
+                {
+                    subsetMasks[count] = candidates;
+                    subsetIds[count++] = pos;
+                }
+            }
+        }
+        return (empty > size) ? count : 0;
+    }
+
+    /**
+     * Collects the items for the search for hidden subsets in a unit. If the
+     * unit does not miss more numbers than the size of the subset, nothing
+     * can be removed, and no items are collected.
+     *
+     * @param cells the cells of the unit
+     * @param usedMask the mask with the numbers already placed in the unit
+     * @param size the size of the subset
+     * @return the number of items
+     */
+    private int hiddenItems(int[] cells, long usedMask, int size)
+    {
+        long missing = allNumbers & ~usedMask;
+        if (Long.bitCount(missing) <= size)
+        {
+            return 0;
+        }
+
+        budget -= Long.bitCount(missing) * cells.length;
+        int count = 0;
+        for (long numbers = missing; numbers != 0; numbers &= numbers - 1)
+        {
+            long number = Long.lowestOneBit(numbers);
+            long positions = 0;
+            for (int pos = 0; pos < cells.length; pos++)
+            {
+                if (field[cells[pos]] == 0
+                        && (candidates(cells[pos]) & number) != 0)
+                {
+                    positions |= 1L << pos;
+                }
+            }
+            if (Long.bitCount(positions) <= size)
+            {
+                subsetMasks[count] = positions;
+                subsetIds[count++] = Long.numberOfTrailingZeros(number);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches for a combination of the collected items whose masks have not
+     * more bits than the given size. The combinations are enumerated
+     * recursively; each combination examined is charged to the budget. If a
+     * combination is found which allows removing candidates, the search
+     * stops.
+     *
+     * @param technique the technique
+     * @param unit the index of the current unit (-1 for fish techniques)
+     * @param count the number of items
+     * @param size the number of items to combine
+     * @param start the index of the first item to add
+     * @param union the union of the masks of the items combined so far
+     * @param items a mask with the indices of the items combined so far
+     * @return a flag whether candidates have been removed
+     */
+    private boolean findSubset(Technique technique, int unit, int count,
+            int size, int start, long union, long items)
+    {
+        int depth = Long.bitCount(items);
+        for (int i = start; i <= count - size + depth && budget > 0; i++)
+        {
+            budget--;
+            long mask = union | subsetMasks[i];
+            if (Long.bitCount(mask) <= size)
             {
-                writeCell(row, col, number);
-                if (solveColumn(number, (short) (col + 1)))
+                long combined = items | (1L << i);
+                if ((depth + 1 < size) ? findSubset(technique, unit, count,
+                        size, i + 1, mask, combined) : eliminateSubset(
+                        technique, unit, mask, combined))
                 {
                     return true;
                 }
-                clearCell(row, col);
             }
         }
         return false;
     }
+
+    /**
+     * Removes the candidates excluded by a subset which has been found.
+     *
+     * @param technique the technique
+     * @param unit the index of the current unit (-1 for fish techniques)
+     * @param mask the union of the masks of the items of the subset
+     * @param items a mask with the indices of the items of the subset
+     * @return a flag whether candidates have been removed
+     */
+    private boolean eliminateSubset(Technique technique, int unit, long mask,
+            long items)
+    {
+        long ids = 0;
+        for (long bits = items; bits != 0; bits &= bits - 1)
+        {
+            ids |= 1L << subsetIds[Long.numberOfTrailingZeros(bits)];
+        }
+        if (stepListener != null)
+        {
+            traceSubset(technique, unit, mask, ids);
+        }
+        int[] cells = (unit >= 0) ? geometry.getUnit(unit) : null;
+
+        boolean changed = false;
+        if (technique == Technique.NAKED_PAIR
+                || technique == Technique.NAKED_TRIPLE)
+        {
+            // the numbers of the subset are removed from the other cells
+            for (int pos = 0; pos < cells.length; pos++)
+            {
+                if ((ids & (1L << pos)) == 0 && eliminate(cells[pos], mask))
+                {
+                    changed = true;
+                }
+            }
+        }
+        else if (technique == Technique.HIDDEN_PAIR
+                || technique == Technique.HIDDEN_TRIPLE)
+        {
+            // other numbers are removed from the cells of the subset
+            for (long bits = mask; bits != 0; bits &= bits - 1)
+            {
+                if (eliminate(cells[Long.numberOfTrailingZeros(bits)],
+                        allNumbers & ~ids))
+                {
+                    changed = true;
+                }
+            }
+        }
+        else
+        {
+            // the number is removed from the other cells of the cover lines
+            int fieldSize = getFieldSize();
+            for (long bits = mask; bits != 0; bits &= bits - 1)
+            {
+                int cover = Long.numberOfTrailingZeros(bits);
+                int[] coverCells = geometry.getUnit(fishColumns ? cover
+                        : fieldSize + cover);
+                for (int pos = 0; pos < coverCells.length; pos++)
+                {
+                    if ((ids & (1L << pos)) == 0
+                            && eliminate(coverCells[pos], fishNumber))
+                    {
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        if (changed)
+        {
+            hit(technique);
+        }
+        return changed;
+    }
+
+    /**
+     * Stores the technique and the units to be reported for the eliminations
+     * caused by a subset. For fish techniques, these are the base lines and
+     * the cover lines.
+     *
+     * @param technique the technique
+     * @param unit the index of the current unit (-1 for fish techniques)
+     * @param mask the union of the masks of the items of the subset
+     * @param ids a mask with the identifiers of the items of the subset
+     */
+    private void traceSubset(Technique technique, int unit, long mask,
+            long ids)
+    {
+        stepTechnique = technique;
+        if (unit >= 0)
+        {
+            stepUnits = new int[] {
+                unit
+            };
+            return;
+        }
+
+        int fieldSize = getFieldSize();
+        stepUnits = new int[Long.bitCount(ids) + Long.bitCount(mask)];
+        int count = 0;
+        for (long bits = ids; bits != 0; bits &= bits - 1)
+        {
+            int line = Long.numberOfTrailingZeros(bits);
+            stepUnits[count++] = fishColumns ? fieldSize + line : line;
+        }
+        for (long bits = mask; bits != 0; bits &= bits - 1)
+        {
+            int line = Long.numberOfTrailingZeros(bits);
+            stepUnits[count++] = fishColumns ? line : fieldSize + line;
+        }
+    }
+
+    /**
+     * Searches for X-Wings or Swordfish. For each number, the rows and then
+     * the columns are used as base lines. The items to be combined are the
+     * base lines in which the number is missing and has not more possible
+     * positions than the size of the fish; their masks are these positions.
+     *
+     * @param technique the technique
+     * @return a flag whether candidates have been removed
+     */
+    private boolean fish(Technique technique)
+    {
+        int fieldSize = getFieldSize();
+        int size = (technique == Technique.X_WING) ? 2 : 3;
+        for (int index = 0; index < 2 * fieldSize && budget > 0; index++)
+        {
+            fishNumber = 1L << (index % fieldSize);
+            fishColumns = index >= fieldSize;
+            int base = fishColumns ? fieldSize : 0;
+            int count = 0;
+            for (int line = 0; line < fieldSize; line++)
+            {
+                if ((unitMask(base + line) & fishNumber) != 0)
+                {
+                    continue;
+                }
+                int[] cells = geometry.getUnit(base + line);
+                long positions = 0;
+                for (int pos = 0; pos < cells.length; pos++)
+                {
+                    if (field[cells[pos]] == 0
+                            && (candidates(cells[pos]) & fishNumber) != 0)
+                    {
+                        positions |= 1L << pos;
+                    }
+                }
+                if (Long.bitCount(positions) <= size)
+                {
+                    subsetMasks[count] = positions;
+                    subsetIds[count++] = line;
+                }
+            }
+            budget -= geometry.getCellCount();
+
+            if (count >= size
+                    && findSubset(technique, -1, count, size, 0, 0, 0))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes candidates from a cell. The candidates actually removed are
+     * recorded on the trail. Filled cells are ignored.
+     *
+     * @param cell the cell index
+     * @param numbers the mask with the numbers to remove
+     * @return a flag whether candidates have been removed
+     */
+    private boolean eliminate(int cell, long numbers)
+    {
+        long removed = (field[cell] == 0) ? candidates(cell) & numbers : 0;
+        if (removed == 0)
+        {
+            return false;
+        }
+        eliminated[cell] |= removed;
+        eliminations = true;
+        trailMasks[trailSize] = removed;
+        trail[trailSize++] = -cell - 1;
+        if (stepListener != null)
+        {
+            fireStep(StepType.ELIMINATE, cell, removed, stepTechnique,
+                    stepUnits);
+        }
+        return true;
+    }
+
+    /**
+     * Records an application of an elimination technique in the statistics.
+     *
+     * @param technique the technique
+     */
+    private void hit(Technique technique)
+    {
+        if (statistics != null)
+        {
+            statistics.propagated(technique);
+        }
+    }
+
+    /**
+     * Returns the mask with the numbers already placed in the given unit.
+     *
+     * @param unit the index of the unit
+     * @return the mask with the used numbers of this unit
+     */
+    private long unitMask(int unit)
+    {
+        int fieldSize = getFieldSize();
+        if (unit < fieldSize)
+        {
+            return rowMasks[unit];
+        }
+        else if (unit < 2 * fieldSize)
+        {
+            return columnMasks[unit - fieldSize];
+        }
+        else if (unit < 3 * fieldSize)
+        {
+            return squareMasks[unit - 2 * fieldSize];
+        }
+        else
+        {
+            return extraMasks[unit - 3 * fieldSize];
+        }
+    }
+
+    /**
+     * Searches for hidden singles in a unit (a row, a column, or a square) and
+     * fills them in. A hidden single is a number missing in the unit which is
+     * a candidate of a single cell only. The result is 1 if cells have been
+     * written, 0 if nothing changed, and -1 if a contradiction was found.
+     *
+     * @param unit the index of the unit
+     * @return a value indicating the result of the operation
+     */
+    private int propagateHiddenSingles(int unit)
+    {
+        int[] cells = geometry.getUnit(unit);
+        long once = 0;
+        long twice = 0;
+        for (int cell : cells)
+        {
+            if (field[cell] == 0)
+            {
+                long candidates = candidates(cell);
+                twice |= once & candidates;
+                once |= candidates;
+            }
+        }
+
+        long missing = allNumbers & ~unitMask(unit);
+        if ((missing & ~once) != 0)
+        {
+            return -1;
+        }
+        long singles = once & ~twice;
+        if (singles == 0)
+        {
+            return 0;
+        }
+
+        for (int i = 0; i < cells.length && singles != 0; i++)
+        {
+            long single = singles & candidates(cells[i]);
+            if (field[cells[i]] == 0 && single != 0)
+            {
+                if (Long.bitCount(single) > 1)
+                {
+                    // multiple numbers need this cell
+                    return -1;
+                }
+                propagateCell(cells[i], single, Technique.HIDDEN_SINGLE, unit);
+                singles ^= single;
+            }
+        }
+        return (singles == 0) ? 1 : -1;
+    }
+
+    /**
+     * Writes a number found by propagation into a cell and records the cell
+     * on the trail.
+     *
+     * @param cell the cell index
+     * @param mask the mask with the single bit of the number to write
+     * @param technique the technique which found the number
+     * @param unit the unit in which the number was found; -1 if all units of
+     * the cell are involved
+     */
+    private void propagateCell(int cell, long mask, Technique technique,
+            int unit)
+    {
+        writeTrail(cell, (short) (Long.numberOfTrailingZeros(mask) + 1));
+        if (statistics != null)
+        {
+            statistics.propagated(technique);
+        }
+        propagatedCount++;
+        if (stepListener != null)
+        {
+            int[] units = (unit >= 0) ? new int[] {
+                unit
+            } : geometry.getUnits(cell);
+            fireStep(StepType.PLACE, cell, 0, technique, units);
+        }
+    }
+
+    /**
+     * Notifies the step listener about a step. The current depth of the
+     * search is used.
+     *
+     * @param type the type of the step
+     * @param cell the index of the affected cell (-1 for none)
+     * @param elim the mask with the candidates removed from the cell
+     * @param technique the technique (<b>null</b> for steps of the search)
+     * @param units the units involved (can be <b>null</b>)
+     */
+    private void fireStep(StepType type, int cell, long elim,
+            Technique technique, int[] units)
+    {
+        boolean noCell = cell < 0;
+        stepListener.step(new SolveStep(type, noCell ? -1 : geometry
+                .getRow(cell), noCell ? -1 : geometry.getColumn(cell),
+                noCell ? 0 : field[cell], elim, technique, units, stepDepth,
+                getFieldSize()));
+    }
+
+    /**
+     * Writes a number into an empty cell and records the cell on the trail.
+     *
+     * @param cell the cell index
+     * @param value the value to write
+     */
+    private void writeTrail(int cell, short value)
+    {
+        writeCell(cell, value);
+        trail[trailSize++] = cell;
+    }
+
+    /**
+     * Removes all cells from the field which have been written after the
+     * trail had the given size. Each cell is simply popped from the trail and
+     * cleared; as it is known to be filled, no further checks are necessary.
+     * Candidates removed by elimination techniques are restored.
+     *
+     * @param mark the size of the trail to restore
+     */
+    private void undo(int mark)
+    {
+        while (trailSize > mark)
+        {
+            int cell = trail[--trailSize];
+            if (cell < 0)
+            {
+                eliminated[-cell - 1] &= ~trailMasks[trailSize];
+            }
+            else
+            {
+                markUsed(field[cell], cell, false);
+                field[cell] = 0;
+            }
+        }
+    }
 }
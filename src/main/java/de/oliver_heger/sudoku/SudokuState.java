@@ -28,5 +28,6 @@ package de.oliver_heger.sudoku;
  * @author Oliver Heger
  */
 public enum SudokuState {
-    OK, INVALID_NUMBER, ROW_OCCUPIED, COLUMN_OCCUPIED, SQUARE_OCCUPIED
+    OK, INVALID_NUMBER, ROW_OCCUPIED, COLUMN_OCCUPIED, SQUARE_OCCUPIED,
+    DIAGONAL_OCCUPIED, CAGE_OCCUPIED, CAGE_SUM_VIOLATED
 }
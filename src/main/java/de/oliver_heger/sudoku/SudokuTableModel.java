@@ -18,7 +18,9 @@ package de.oliver_heger.sudoku;
 import javax.swing.table.AbstractTableModel;
 
 /**
- * A table model class for storing the content of a sudoku.
+ * A table model class for storing the content of a sudoku. All changes are
+ * passed to a {@link ValidationSession}, so conflicting cells can be detected
+ * while the sudoku is edited.
  *
  * @author Oliver Heger
  */
@@ -34,15 +36,19 @@ class SudokuTableModel extends AbstractTableModel
     /** Stores the field size of the sudoku. */
     private int fieldSize;
 
+    /** The session for validating the content of the sudoku. */
+    private final ValidationSession session;
+
     /**
      * Creates a new instance of {@code SudokuTableModel}.
      *
-     * @param size the size of the sudoku field
+     * @param squareSize the square size of the sudoku
      */
-    public SudokuTableModel(int size)
+    public SudokuTableModel(short squareSize)
     {
-        fieldSize = size;
-        data = new Short[size][size];
+        session = new ValidationSession(squareSize);
+        fieldSize = session.getFieldSize();
+        data = new Short[fieldSize][fieldSize];
     }
 
     /**
@@ -108,7 +114,9 @@ class SudokuTableModel extends AbstractTableModel
     }
 
     /**
-     * Sets the value of the specified cell.
+     * Sets the value of the specified cell. As this may change the state of
+     * other cells in the same row, column, or square, an update event for the
+     * whole table is fired.
      *
      * @param value the new value
      * @param row the row index
@@ -117,7 +125,8 @@ class SudokuTableModel extends AbstractTableModel
     @Override
     public void setValueAt(Object value, int row, int col)
     {
-        data[row][col] = (Short) value;
+        storeValue((Short) value, row, col);
+        fireTableRowsUpdated(0, getRowCount() - 1);
     }
 
     /**
@@ -126,7 +135,7 @@ class SudokuTableModel extends AbstractTableModel
      *
      * @param solver the solver object
      */
-    public void initResult(SudokuSolver solver)
+    public void initResult(SudokuEngine solver)
     {
         assert solver.getFieldSize() == getColumnCount() : "Sudoku field does not match table size";
         initPresets();
@@ -134,7 +143,7 @@ class SudokuTableModel extends AbstractTableModel
         {
             for (int col = 0; col < getColumnCount(); col++)
             {
-                setValueAt(solver.getCell(row, col), row, col);
+                storeValue(solver.getCell(row, col), row, col);
             }
         }
         fireTableDataChanged();
@@ -147,6 +156,7 @@ class SudokuTableModel extends AbstractTableModel
     public void clear()
     {
         data = new Short[getRowCount()][getColumnCount()];
+        session.clear();
         preset = null;
         fireTableDataChanged();
     }
@@ -163,6 +173,44 @@ class SudokuTableModel extends AbstractTableModel
         return (preset == null) ? false : preset[row][col];
     }
 
+    /**
+     * Returns the state of the specified cell. This is <code>OK</code> unless
+     * the cell contains an invalid number or a number which occurs multiple
+     * times in its row, column, or square.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the state of this cell
+     */
+    public SudokuState getState(int row, int col)
+    {
+        Short value = data[row][col];
+        if (value != null && value.shortValue() != session.getCell(row, col))
+        {
+            return SudokuState.INVALID_NUMBER;
+        }
+        return session.getState(row, col);
+    }
+
+    /**
+     * Stores a value in the data array and passes it to the validation
+     * session. Invalid numbers are not accepted by the session; so the
+     * session keeps the cell empty in this case.
+     *
+     * @param value the value (can be <b>null</b>)
+     * @param row the row index
+     * @param col the column index
+     */
+    private void storeValue(Short value, int row, int col)
+    {
+        data[row][col] = value;
+        if (session.setCell(row, col, (value != null) ? value.shortValue()
+                : 0) == SudokuState.INVALID_NUMBER)
+        {
+            session.clearCell(row, col);
+        }
+    }
+
     /**
      * Initializes the data field for the cells that have already been set as
      * presets.
@@ -0,0 +1,366 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A class describing the constraints of a sudoku variant.
+ * </p>
+ * <p>
+ * A classic sudoku requires that each number appears once in each row,
+ * column, and square. A variant can modify or extend these rules in the
+ * following ways:
+ * <ul>
+ * <li>The diagonals can be added as further units (a so-called X-sudoku).
+ * Then each number must appear once on each of the two main diagonals,
+ * too.</li>
+ * <li>The squares can be replaced by irregular regions (a so-called jigsaw
+ * sudoku). Each region consists of as many cells as the field size, and each
+ * number must appear once in each region.</li>
+ * <li>Cages can be defined (a so-called killer sudoku). A cage is a group of
+ * cells whose numbers must be different and add up to the sum of the
+ * cage.</li>
+ * </ul>
+ * These options can be combined. A variant is passed to the
+ * <code>setVariant()</code> method of {@link SudokuSolver}.
+ * </p>
+ * <p>
+ * Cells are addressed by their index: the cell in row <em>r</em> and column
+ * <em>c</em> has the index <em>r * field size + c</em>; this is the same
+ * layout as used by <code>SudokuSolver.load()</code>. Instances are
+ * immutable. The <code>with</code> methods return a new object with the
+ * additional constraint.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public final class SudokuVariant
+{
+    /** An empty array for the cages of a variant without cages. */
+    private static final int[][] NO_CAGES = new int[0][];
+
+    /** The square size. */
+    private final short squareSize;
+
+    /** A flag whether the diagonals are units. */
+    private final boolean diagonals;
+
+    /** The region of each cell; <b>null</b> for the standard squares. */
+    private final int[] regions;
+
+    /** The cells of the cages. */
+    private final int[][] cageCells;
+
+    /** The sums of the cages. */
+    private final int[] cageSums;
+
+    /**
+     * Creates a new instance of <code>SudokuVariant</code> for a classic
+     * sudoku of the given square size. Constraints can then be added using
+     * the <code>with</code> methods. The square size must be in the range
+     * supported by {@link SudokuSolver}.
+     *
+     * @param sqrSz the square size
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    public SudokuVariant(short sqrSz)
+    {
+        this(sqrSz, false, null, NO_CAGES, new int[0]);
+        if (sqrSz < 2 || sqrSz > SudokuSolver.MAX_SQUARE_SIZE)
+        {
+            throw new IllegalArgumentException(
+                    "Square size must be in the range from 2 to "
+                            + SudokuSolver.MAX_SQUARE_SIZE + "!");
+        }
+    }
+
+    /**
+     * Creates a new instance of <code>SudokuVariant</code> and initializes
+     * all fields. The arguments are not copied.
+     *
+     * @param sqrSz the square size
+     * @param diag the diagonals flag
+     * @param regs the regions (can be <b>null</b>)
+     * @param cells the cells of the cages
+     * @param sums the sums of the cages
+     */
+    private SudokuVariant(short sqrSz, boolean diag, int[] regs,
+            int[][] cells, int[] sums)
+    {
+        squareSize = sqrSz;
+        diagonals = diag;
+        regions = regs;
+        cageCells = cells;
+        cageSums = sums;
+    }
+
+    /**
+     * Returns the square size.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return squareSize;
+    }
+
+    /**
+     * Returns the field size, i.e. the number of rows and columns.
+     *
+     * @return the field size
+     */
+    public short getFieldSize()
+    {
+        return (short) (squareSize * squareSize);
+    }
+
+    /**
+     * Returns a flag whether this variant describes a classic sudoku, i.e.
+     * whether it does not define any additional constraints.
+     *
+     * @return a flag whether this is a classic sudoku
+     */
+    public boolean isClassic()
+    {
+        return !diagonals && regions == null && cageSums.length == 0;
+    }
+
+    /**
+     * Returns a flag whether the diagonals are units of this variant.
+     *
+     * @return the diagonals flag
+     */
+    public boolean isDiagonals()
+    {
+        return diagonals;
+    }
+
+    /**
+     * Returns a variant which has the same constraints as this object and in
+     * addition requires each number to appear once on each of the two main
+     * diagonals.
+     *
+     * @return the variant with diagonals
+     */
+    public SudokuVariant withDiagonals()
+    {
+        return new SudokuVariant(squareSize, true, regions, cageCells,
+                cageSums);
+    }
+
+    /**
+     * Returns a flag whether this variant uses irregular regions instead of
+     * the standard squares.
+     *
+     * @return a flag whether there are irregular regions
+     */
+    public boolean isIrregular()
+    {
+        return regions != null;
+    }
+
+    /**
+     * Returns the index of the region the given cell belongs to. If no
+     * irregular regions have been defined, this is the index of the standard
+     * square.
+     *
+     * @param cell the cell index
+     * @return the index of the region of this cell
+     */
+    public int getRegion(int cell)
+    {
+        return (regions != null) ? regions[cell] : square(cell);
+    }
+
+    /**
+     * Returns a variant which has the same constraints as this object, but
+     * uses the given regions instead of the squares. The array contains the
+     * index of the region of each cell. Region indices must be in the range
+     * from 0 to field size - 1, and each region must consist of field size
+     * cells. If the regions are the standard squares, the variant is treated
+     * as if no regions had been set.
+     *
+     * @param regs the array with the region of each cell
+     * @return the variant with these regions
+     * @throws IllegalArgumentException if the regions are invalid
+     */
+    public SudokuVariant withRegions(int[] regs)
+    {
+        int fieldSize = getFieldSize();
+        if (regs == null || regs.length != fieldSize * fieldSize)
+        {
+            throw new IllegalArgumentException("Regions must have "
+                    + fieldSize * fieldSize + " cells!");
+        }
+
+        int[] sizes = new int[fieldSize];
+        boolean standard = true;
+        for (int cell = 0; cell < regs.length; cell++)
+        {
+            if (regs[cell] < 0 || regs[cell] >= fieldSize)
+            {
+                throw new IllegalArgumentException("Invalid region: "
+                        + regs[cell]);
+            }
+            sizes[regs[cell]]++;
+            standard &= regs[cell] == square(cell);
+        }
+        for (int region = 0; region < fieldSize; region++)
+        {
+            if (sizes[region] != fieldSize)
+            {
+                throw new IllegalArgumentException("Region " + region
+                        + " must have " + fieldSize + " cells!");
+            }
+        }
+        return new SudokuVariant(squareSize, diagonals, standard ? null
+                : regs.clone(), cageCells, cageSums);
+    }
+
+    /**
+     * Returns the number of cages.
+     *
+     * @return the number of cages
+     */
+    public int getCageCount()
+    {
+        return cageSums.length;
+    }
+
+    /**
+     * Returns the sum of the cage with the given index.
+     *
+     * @param cage the index of the cage
+     * @return the sum of this cage
+     */
+    public int getCageSum(int cage)
+    {
+        return cageSums[cage];
+    }
+
+    /**
+     * Returns the indices of the cells of the cage with the given index.
+     *
+     * @param cage the index of the cage
+     * @return an array with the cells of this cage
+     */
+    public int[] getCageCells(int cage)
+    {
+        return cageCells[cage].clone();
+    }
+
+    /**
+     * Returns a variant which has the same constraints as this object and an
+     * additional cage. The numbers in the cells of the cage must be different
+     * and add up to the given sum. A cage must consist of at least one and
+     * at most field size cells, and a cell can belong to a single cage only.
+     * The sum must be possible for the number of cells.
+     *
+     * @param sum the sum of the cage
+     * @param cells the indices of the cells of the cage
+     * @return the variant with this cage
+     * @throws IllegalArgumentException if the cage is invalid
+     */
+    public SudokuVariant withCage(int sum, int... cells)
+    {
+        int fieldSize = getFieldSize();
+        if (cells == null || cells.length < 1 || cells.length > fieldSize)
+        {
+            throw new IllegalArgumentException(
+                    "A cage must have between 1 and " + fieldSize
+                            + " cells!");
+        }
+        for (int i = 0; i < cells.length; i++)
+        {
+            if (cells[i] < 0 || cells[i] >= fieldSize * fieldSize)
+            {
+                throw new IllegalArgumentException("Invalid cell: "
+                        + cells[i]);
+            }
+            if (isCaged(cells[i]) || indexOf(cells, cells[i]) < i)
+            {
+                throw new IllegalArgumentException("Cell " + cells[i]
+                        + " already belongs to a cage!");
+            }
+        }
+        int count = cells.length;
+        if (sum < count * (count + 1) / 2
+                || sum > count * (2 * fieldSize - count + 1) / 2)
+        {
+            throw new IllegalArgumentException("Invalid sum for a cage of "
+                    + count + " cells: " + sum);
+        }
+
+        int[][] newCells = Arrays.copyOf(cageCells, cageCells.length + 1);
+        newCells[cageCells.length] = cells.clone();
+        int[] newSums = Arrays.copyOf(cageSums, cageSums.length + 1);
+        newSums[cageSums.length] = sum;
+        return new SudokuVariant(squareSize, diagonals, regions, newCells,
+                newSums);
+    }
+
+    /**
+     * Returns the index of the standard square the given cell belongs to.
+     *
+     * @param cell the cell index
+     * @return the index of the square of this cell
+     */
+    private int square(int cell)
+    {
+        int row = cell / getFieldSize();
+        int col = cell % getFieldSize();
+        return (row / squareSize) * squareSize + col / squareSize;
+    }
+
+    /**
+     * Returns a flag whether the given cell belongs to a cage.
+     *
+     * @param cell the cell index
+     * @return a flag whether the cell is part of a cage
+     */
+    private boolean isCaged(int cell)
+    {
+        for (int[] cage : cageCells)
+        {
+            if (indexOf(cage, cell) >= 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first occurrence of a value in an array.
+     *
+     * @param values the array
+     * @param value the value to search for
+     * @return the index of the value or -1 if it is not found
+     */
+    private static int indexOf(int[] values, int value)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] == value)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+/**
+ * <p>
+ * An enumeration with the logical techniques used by constraint propagation.
+ * </p>
+ * <p>
+ * If constraint propagation is enabled, {@link SudokuSolver} fills in cells
+ * which can be deduced logically. The constants of this enumeration describe
+ * the rules applied:
+ * <ul>
+ * <li>{@code NAKED_SINGLE}: a cell has only a single candidate left.</li>
+ * <li>{@code HIDDEN_SINGLE}: a number can only be placed in a single cell of
+ * a row, a column, or a square.</li>
+ * </ul>
+ * These two techniques are always applied. The other techniques do not fill
+ * in cells, but remove candidates; they have to be enabled explicitly (see
+ * <code>SudokuSolver.setTechniques()</code>):
+ * <ul>
+ * <li>{@code POINTING}: the candidates for a number in a square are all
+ * located in the same row or column. The number can be removed from the other
+ * cells of this row or column.</li>
+ * <li>{@code CLAIMING}: the candidates for a number in a row or column are
+ * all located in the same square. The number can be removed from the other
+ * cells of this square.</li>
+ * <li>{@code NAKED_PAIR}, {@code NAKED_TRIPLE}: two (three) cells of a unit
+ * have only two (three) candidates in total. These numbers can be removed
+ * from the other cells of the unit.</li>
+ * <li>{@code HIDDEN_PAIR}, {@code HIDDEN_TRIPLE}: two (three) numbers of a
+ * unit can only be placed in the same two (three) cells. All other candidates
+ * can be removed from these cells.</li>
+ * <li>{@code X_WING}, {@code SWORDFISH}: the candidates for a number in two
+ * (three) rows are all located in the same two (three) columns, or vice
+ * versa. The number can be removed from the other cells of these columns
+ * (rows).</li>
+ * </ul>
+ * The constants are ordered by their costs; propagation tries them in this
+ * order. The statistics of a search (see {@link SearchStatistics}) record how
+ * often each technique was applied.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public enum Technique {
+    NAKED_SINGLE(false), HIDDEN_SINGLE(false), POINTING(true), CLAIMING(true),
+    NAKED_PAIR(true), HIDDEN_PAIR(true), NAKED_TRIPLE(true),
+    HIDDEN_TRIPLE(true), X_WING(true), SWORDFISH(true);
+
+    /** A flag whether this technique removes candidates. */
+    private final boolean elimination;
+
+    /**
+     * Creates a new instance of <code>Technique</code>.
+     *
+     * @param elim the elimination flag
+     */
+    private Technique(boolean elim)
+    {
+        elimination = elim;
+    }
+
+    /**
+     * Returns a flag whether this technique removes candidates rather than
+     * filling in cells. Such techniques are optional.
+     *
+     * @return a flag whether this is an elimination technique
+     */
+    public boolean isElimination()
+    {
+        return elimination;
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A class for validating a sudoku incrementally while it is edited.
+ * </p>
+ * <p>
+ * In contrast to a {@link SudokuEngine}, a session accepts numbers which
+ * conflict with other cells; this is what happens during interactive editing.
+ * It keeps track of how often each number occurs in each row, column, and
+ * square. These counters are updated when a single cell is set or cleared, so
+ * every edit is processed in constant time, independent of the number of
+ * cells filled. Based on the counters, the state of a cell - whether its
+ * number occurs multiple times in its row, column, or square - and the
+ * candidates for a cell are available in constant time, too. A front end can
+ * therefore validate the sudoku after each edit without rechecking all
+ * cells. All square sizes supported by {@link LargeSudokuSolver} can be
+ * used. Like in <code>LargeSudokuSolver</code>, the bit masks for fields with
+ * more than 64 numbers consist of multiple <code>long</code> words.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe.
+ * </p>
+ *
+ * @author Oliver Heger
+ */
+public class ValidationSession
+{
+    /** The geometry of the field. */
+    private final SudokuGeometry geometry;
+
+    /** The values of the cells. */
+    private final short[] field;
+
+    /** The number of occurrences of each number in each unit. */
+    private final short[] counts;
+
+    /** The number of words of a bit mask. */
+    private final int words;
+
+    /**
+     * The numbers occurring in each unit as bit masks. The mask of a unit
+     * starts at the index unit * words.
+     */
+    private final long[] unitMasks;
+
+    /** A bit mask with all numbers of the field. */
+    private final long[] allNumbers;
+
+    /** The number of cells which are filled. */
+    private int filledCount;
+
+    /** The number of surplus occurrences of numbers in units. */
+    private int conflictCount;
+
+    /**
+     * Creates a new instance of <code>ValidationSession</code> for an empty
+     * sudoku with the given square size.
+     *
+     * @param squareSize the square size
+     * @throws IllegalArgumentException if the square size is invalid
+     */
+    public ValidationSession(short squareSize)
+    {
+        geometry = SudokuGeometry.getInstance(squareSize);
+        int fieldSize = geometry.getFieldSize();
+        field = new short[geometry.getCellCount()];
+        counts = new short[geometry.getUnitCount() * (fieldSize + 1)];
+        words = (fieldSize + Long.SIZE - 1) / Long.SIZE;
+        unitMasks = new long[geometry.getUnitCount() * words];
+        allNumbers = new long[words];
+        for (int number = 0; number < fieldSize; number++)
+        {
+            allNumbers[number / Long.SIZE] |= 1L << number;
+        }
+    }
+
+    /**
+     * Returns the square size.
+     *
+     * @return the square size
+     */
+    public short getSquareSize()
+    {
+        return geometry.getSquareSize();
+    }
+
+    /**
+     * Returns the field size.
+     *
+     * @return the field size
+     */
+    public short getFieldSize()
+    {
+        return geometry.getFieldSize();
+    }
+
+    /**
+     * Returns the value of the specified cell.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the value of this cell (0 if it is empty)
+     */
+    public short getCell(int row, int col)
+    {
+        return field[geometry.getCell(row, col)];
+    }
+
+    /**
+     * Sets the value of the specified cell. Passing 0 clears the cell. The
+     * value is stored even if it conflicts with other cells; the state of the
+     * cell after the update is returned. Only invalid numbers are rejected;
+     * in this case, the cell is not changed.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param value the new value
+     * @return the state of the cell after the update
+     */
+    public SudokuState setCell(int row, int col, short value)
+    {
+        if (value < 0 || value > getFieldSize())
+        {
+            return SudokuState.INVALID_NUMBER;
+        }
+
+        int cell = geometry.getCell(row, col);
+        short old = field[cell];
+        if (old != value)
+        {
+            if (old != 0)
+            {
+                update(cell, old, -1);
+                filledCount--;
+            }
+            field[cell] = value;
+            if (value != 0)
+            {
+                update(cell, value, 1);
+                filledCount++;
+            }
+        }
+        return state(cell);
+    }
+
+    /**
+     * Clears the specified cell.
+     *
+     * @param row the row index
+     * @param col the column index
+     */
+    public void clearCell(int row, int col)
+    {
+        setCell(row, col, (short) 0);
+    }
+
+    /**
+     * Clears all cells.
+     */
+    public void clear()
+    {
+        Arrays.fill(field, (short) 0);
+        Arrays.fill(counts, (short) 0);
+        Arrays.fill(unitMasks, 0);
+        filledCount = 0;
+        conflictCount = 0;
+    }
+
+    /**
+     * Returns the state of the specified cell. If the number of the cell
+     * occurs multiple times in its row, column, or square, the corresponding
+     * state is returned (in this order). For empty cells and cells without
+     * conflicts, result is <code>OK</code>.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the state of this cell
+     */
+    public SudokuState getState(int row, int col)
+    {
+        return state(geometry.getCell(row, col));
+    }
+
+    /**
+     * Returns a bit mask with the numbers that can be placed into the
+     * specified cell without a conflict. Bit <em>n - 1</em> of the result is
+     * set if the number <em>n</em> occurs neither in the cell's row, nor in
+     * its column, nor in its square. The content of the cell itself is not
+     * taken into account. The mask consists of one <code>long</code> word
+     * per 64 numbers; bit <em>n - 1</em> is contained in the word with the
+     * index <em>(n - 1) / 64</em>. A new array is created for the result;
+     * callers querying candidates frequently should use the overloaded
+     * method which accepts an array.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return a bit mask with the candidates for this cell
+     */
+    public long[] getCandidates(int row, int col)
+    {
+        return getCandidates(row, col, null);
+    }
+
+    /**
+     * Stores a bit mask with the numbers that can be placed into the
+     * specified cell without a conflict in the given array. This method works
+     * like {@link #getCandidates(int, int)}, but it does not allocate memory
+     * if an array with at least one element per 64 numbers is passed in; so
+     * it can be called on every edit. Otherwise a new array is created.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param result the array for the result (can be <b>null</b>)
+     * @return the array containing the bit mask with the candidates
+     */
+    public long[] getCandidates(int row, int col, long[] result)
+    {
+        if (result == null || result.length < words)
+        {
+            result = new long[words];
+        }
+        int cell = geometry.getCell(row, col);
+        int rowUnit = geometry.getRow(cell);
+        int colUnit = columnUnit(cell);
+        int sqUnit = squareUnit(cell);
+        for (int w = 0; w < words; w++)
+        {
+            long used = unitMasks[rowUnit * words + w]
+                    | unitMasks[colUnit * words + w]
+                    | unitMasks[sqUnit * words + w];
+            result[w] = ~used & allNumbers[w];
+        }
+
+        short number = field[cell];
+        if (number != 0 && counts[countIndex(rowUnit, number)] == 1
+                && counts[countIndex(colUnit, number)] == 1
+                && counts[countIndex(sqUnit, number)] == 1)
+        {
+            result[(number - 1) / Long.SIZE] |= bit(number);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a flag whether the sudoku contains no conflicts.
+     *
+     * @return <b>true</b> if no number occurs multiple times in a unit
+     */
+    public boolean isValid()
+    {
+        return conflictCount == 0;
+    }
+
+    /**
+     * Returns a flag whether all cells are filled without conflicts, i.e.
+     * whether the sudoku is solved.
+     *
+     * @return a flag whether the sudoku is complete
+     */
+    public boolean isComplete()
+    {
+        return isValid() && filledCount == field.length;
+    }
+
+    /**
+     * Returns the number of conflicts. This is the number of surplus
+     * occurrences of numbers summed over all rows, columns, and squares; e.g.
+     * a number occurring twice in a row counts as one conflict.
+     *
+     * @return the number of conflicts
+     */
+    public int getConflictCount()
+    {
+        return conflictCount;
+    }
+
+    /**
+     * Returns the number of filled cells.
+     *
+     * @return the number of filled cells
+     */
+    public int getFilledCount()
+    {
+        return filledCount;
+    }
+
+    /**
+     * Updates the counters of the units of a cell.
+     *
+     * @param cell the cell index
+     * @param number the number to add or remove
+     * @param delta 1 for adding, -1 for removing the number
+     */
+    private void update(int cell, short number, int delta)
+    {
+        updateUnit(geometry.getRow(cell), number, delta);
+        updateUnit(columnUnit(cell), number, delta);
+        updateUnit(squareUnit(cell), number, delta);
+    }
+
+    /**
+     * Updates the counter of a number in a unit. The bit mask of the unit and
+     * the number of conflicts are adapted accordingly.
+     *
+     * @param unit the unit index
+     * @param number the number
+     * @param delta 1 for adding, -1 for removing the number
+     */
+    private void updateUnit(int unit, short number, int delta)
+    {
+        int index = countIndex(unit, number);
+        int oldCount = counts[index];
+        int newCount = oldCount + delta;
+        counts[index] = (short) newCount;
+        int word = unit * words + (number - 1) / Long.SIZE;
+        if (newCount == 0)
+        {
+            unitMasks[word] &= ~bit(number);
+        }
+        else if (oldCount == 0)
+        {
+            unitMasks[word] |= bit(number);
+        }
+        conflictCount += Math.max(newCount - 1, 0) - Math.max(oldCount - 1, 0);
+    }
+
+    /**
+     * Determines the state of the cell with the given index.
+     *
+     * @param cell the cell index
+     * @return the state of this cell
+     */
+    private SudokuState state(int cell)
+    {
+        short number = field[cell];
+        if (number == 0)
+        {
+            return SudokuState.OK;
+        }
+        if (counts[countIndex(geometry.getRow(cell), number)] > 1)
+        {
+            return SudokuState.ROW_OCCUPIED;
+        }
+        if (counts[countIndex(columnUnit(cell), number)] > 1)
+        {
+            return SudokuState.COLUMN_OCCUPIED;
+        }
+        if (counts[countIndex(squareUnit(cell), number)] > 1)
+        {
+            return SudokuState.SQUARE_OCCUPIED;
+        }
+        return SudokuState.OK;
+    }
+
+    /**
+     * Returns the index of the counter for a number in a unit.
+     *
+     * @param unit the unit index
+     * @param number the number
+     * @return the index into the counts array
+     */
+    private int countIndex(int unit, short number)
+    {
+        return unit * (getFieldSize() + 1) + number;
+    }
+
+    /**
+     * Returns the index of the unit for the column of a cell. The row units
+     * come first, followed by the column units and the square units.
+     *
+     * @param cell the cell index
+     * @return the index of the column unit
+     */
+    private int columnUnit(int cell)
+    {
+        return getFieldSize() + geometry.getColumn(cell);
+    }
+
+    /**
+     * Returns the index of the unit for the square of a cell.
+     *
+     * @param cell the cell index
+     * @return the index of the square unit
+     */
+    private int squareUnit(int cell)
+    {
+        return 2 * getFieldSize() + geometry.getSquare(cell);
+    }
+
+    /**
+     * Returns the bit representing the given number in its word of a bit
+     * mask.
+     *
+     * @param number the number
+     * @return the bit for this number
+     */
+    private static long bit(short number)
+    {
+        return 1L << (number - 1);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for BatchSolver.
+ *
+ * @author Oliver Heger
+ */
+public class TestBatchSolver {
+    /** Constant for the number of puzzles in a batch. */
+    private static final int BATCH_SIZE = 100;
+
+    /** The pool used by the tests. */
+    private ForkJoinPool pool;
+
+    /** Stores the object to be tested. */
+    private BatchSolver batchSolver;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+        batchSolver = new BatchSolver((short) 3, pool);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a null pool is rejected.
+     */
+    public void testInitNullPool() {
+        new BatchSolver((short) 3, null);
+    }
+
+    @Test
+    /**
+     * Tests the default configuration.
+     */
+    public void testDefaults() {
+        assertEquals("Wrong square size", 3, batchSolver.getSquareSize());
+        assertEquals("Wrong strategy",
+                SearchStrategy.MINIMUM_REMAINING_VALUES,
+                batchSolver.getSearchStrategy());
+        assertTrue("No propagation", batchSolver.isPropagation());
+    }
+
+    @Test
+    /**
+     * Tests solving a batch with valid and invalid puzzles.
+     */
+    public void testSolveAll() {
+        short[] invalid = new short[81];
+        invalid[0] = 1;
+        invalid[1] = 1;
+        List<short[]> puzzles = new ArrayList<short[]>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            switch (i % 3) {
+            case 0:
+                puzzles.add(TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE));
+                break;
+            case 1:
+                puzzles.add(TestSudokuSolver
+                        .toCells(TestSudokuSolver.HARD_PUZZLE));
+                break;
+            default:
+                puzzles.add(invalid);
+            }
+        }
+
+        List<BatchResult> results = batchSolver.solveAll(puzzles);
+        assertEquals("Wrong number of results", BATCH_SIZE, results.size());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            BatchResult result = results.get(i);
+            assertEquals("Wrong index", i, result.getIndex());
+            assertTrue("No time", result.getTime() > 0);
+            if (i % 3 == 2) {
+                assertFalse("Solved", result.isSolved());
+                assertNull("Got a solution", result.getSolution());
+                assertEquals("Wrong error", SudokuState.ROW_OCCUPIED, result
+                        .getError().getState());
+            } else {
+                assertNull("Got an error", result.getError());
+                checkSolution(puzzles.get(i), result.getSolution());
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Tests solving an empty batch.
+     */
+    public void testSolveAllEmpty() {
+        assertTrue("Got results",
+                batchSolver.solveAll(Collections.<short[]> emptyList())
+                        .isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether puzzles of the wrong size are rejected.
+     */
+    public void testSolveAllWrongSize() {
+        batchSolver.solveAll(Collections.singletonList(new short[16]));
+    }
+
+    /**
+     * Checks whether a solution is valid for the given puzzle.
+     *
+     * @param puzzle the puzzle
+     * @param solution the solution
+     */
+    private static void checkSolution(short[] puzzle, short[] solution) {
+        assertNotNull("No solution", solution);
+        try {
+            SudokuSolver solver = new SudokuSolver((short) 3);
+            for (int i = 0; i < solution.length; i++) {
+                if (puzzle[i] != 0) {
+                    assertEquals("Preset changed", puzzle[i], solution[i]);
+                }
+                solver.setCell(i / 9, i % 9, solution[i]);
+            }
+            TestSudokuSolver.checkSolution(solver);
+        } catch (SudokuSolverException ssex) {
+            throw new AssertionError("Invalid solution: " + ssex);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for BinaryPuzzleReader and BinaryPuzzleWriter.
+ *
+ * @author Oliver Heger
+ */
+public class TestBinaryPuzzleReader {
+    /** The temporary file used by the tests. */
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("puzzles", ".sdkb");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.delete(file);
+    }
+
+    /**
+     * Creates a writer for the test file.
+     *
+     * @param squareSize the square size
+     * @return the writer
+     */
+    private BinaryPuzzleWriter createWriter(short squareSize)
+            throws IOException {
+        return new BinaryPuzzleWriter(FileChannel.open(file,
+                StandardOpenOption.WRITE), squareSize);
+    }
+
+    /**
+     * Creates a reader for the test file.
+     *
+     * @return the reader
+     */
+    private BinaryPuzzleReader createReader() throws IOException {
+        return new BinaryPuzzleReader(FileChannel.open(file,
+                StandardOpenOption.READ));
+    }
+
+    /**
+     * Creates an array with random cell values.
+     *
+     * @param random the random object
+     * @param squareSize the square size
+     * @return the array with random values
+     */
+    private static short[] randomCells(Random random, int squareSize) {
+        int fieldSize = squareSize * squareSize;
+        short[] cells = new short[fieldSize * fieldSize];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (short) random.nextInt(fieldSize + 1);
+        }
+        return cells;
+    }
+
+    /**
+     * Helper method for testing whether puzzles of the given square size can
+     * be written and read again.
+     *
+     * @param squareSize the square size
+     */
+    private void checkRoundTrip(short squareSize) throws IOException {
+        Random random = new Random(squareSize);
+        short[][] puzzles = new short[10][];
+        BinaryPuzzleWriter writer = createWriter(squareSize);
+        for (int i = 0; i < puzzles.length; i++) {
+            puzzles[i] = randomCells(random, squareSize);
+            writer.write(puzzles[i]);
+        }
+        writer.close();
+        assertEquals("Wrong file size", BinaryPuzzleReader.HEADER_SIZE
+                + puzzles.length * BinaryPuzzleReader.puzzleSize(squareSize),
+                Files.size(file));
+
+        BinaryPuzzleReader reader = createReader();
+        try {
+            assertEquals("Wrong square size", squareSize,
+                    reader.getSquareSize());
+            assertEquals("Wrong count", puzzles.length, reader.getCount());
+            short[] cells = new short[puzzles[0].length];
+            for (int i = puzzles.length - 1; i >= 0; i--) {
+                reader.read(i, cells);
+                assertArrayEquals("Wrong puzzle " + i, puzzles[i], cells);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    /**
+     * Tests a round trip with 9x9 puzzles.
+     */
+    public void testRoundTrip3() throws IOException {
+        checkRoundTrip((short) 3);
+    }
+
+    @Test
+    /**
+     * Tests round trips with other square sizes.
+     */
+    public void testRoundTripOtherSizes() throws IOException {
+        for (short size = 2; size <= SudokuSolver.MAX_SQUARE_SIZE; size++) {
+            if (size != 3) {
+                checkRoundTrip(size);
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Tests the size of a 9x9 puzzle.
+     */
+    public void testPuzzleSize() {
+        assertEquals("Wrong size", 41, BinaryPuzzleReader.puzzleSize(3));
+    }
+
+    @Test
+    /**
+     * Tests whether a puzzle can be loaded into a solver and solved.
+     */
+    public void testSolve() throws Exception {
+        BinaryPuzzleWriter writer = createWriter((short) 3);
+        writer.write(TestSudokuSolver.toCells(TestSudokuSolver.HARD_PUZZLE));
+        writer.close();
+        BinaryPuzzleReader reader = createReader();
+        short[] cells = new short[81];
+        reader.read(0, cells);
+        reader.close();
+        SudokuSolver solver = new SudokuSolver((short) 3);
+        solver.load(cells);
+        assertTrue("Not solved", solver.solve());
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.HARD_PUZZLE);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    /**
+     * Tests reading a puzzle with an invalid index.
+     */
+    public void testReadInvalidIndex() throws IOException {
+        BinaryPuzzleWriter writer = createWriter((short) 2);
+        writer.write(new short[16]);
+        writer.close();
+        BinaryPuzzleReader reader = createReader();
+        try {
+            reader.read(1, new short[16]);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether the writer rejects invalid values.
+     */
+    public void testWriteInvalidValue() throws IOException {
+        BinaryPuzzleWriter writer = createWriter((short) 2);
+        try {
+            short[] cells = new short[16];
+            cells[3] = 5;
+            writer.write(cells);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a rejected puzzle does not leave data in the output.
+     */
+    public void testWriteInvalidValueNoPartialRecord() throws IOException {
+        BinaryPuzzleWriter writer = createWriter((short) 2);
+        short[] cells = new short[16];
+        cells[3] = 1;
+        writer.write(cells);
+        short[] invalid = new short[16];
+        invalid[15] = 5;
+        try {
+            writer.write(invalid);
+            fail("Invalid value not detected!");
+        } catch (IllegalArgumentException iex) {
+            // expected
+        }
+        writer.write(cells);
+        writer.close();
+        assertEquals("Wrong file size", BinaryPuzzleReader.HEADER_SIZE + 2
+                * BinaryPuzzleReader.puzzleSize(2), Files.size(file));
+    }
+
+    @Test
+    /**
+     * Tests converting a text file with valid and invalid lines.
+     */
+    public void testConvert() throws IOException {
+        String invalid = TestSudokuSolver.HARD_PUZZLE.substring(0, 61) + "a"
+                + TestSudokuSolver.HARD_PUZZLE.substring(62);
+        Path text = Files.createTempFile("puzzles", ".txt");
+        try {
+            Files.write(text, (TestSudokuSolver.HARD_PUZZLE + "\n" + invalid
+                    + "\n" + TestSudokuSolver.PUZZLE + "\n")
+                    .getBytes("US-ASCII"));
+            BinaryPuzzleWriter writer = createWriter((short) 3);
+            PuzzleReader textReader = new PuzzleReader(FileChannel.open(text,
+                    StandardOpenOption.READ));
+            try {
+                assertEquals("Wrong number of converted puzzles", 2,
+                        writer.convert(textReader));
+            } finally {
+                textReader.close();
+                writer.close();
+            }
+        } finally {
+            Files.delete(text);
+        }
+        assertEquals("Wrong file size", BinaryPuzzleReader.HEADER_SIZE + 2
+                * BinaryPuzzleReader.puzzleSize(3), Files.size(file));
+
+        BinaryPuzzleReader reader = createReader();
+        try {
+            assertEquals("Wrong count", 2, reader.getCount());
+            short[] cells = new short[81];
+            reader.read(0, cells);
+            assertArrayEquals("Wrong puzzle 0",
+                    TestSudokuSolver.toCells(TestSudokuSolver.HARD_PUZZLE),
+                    cells);
+            reader.read(1, cells);
+            assertArrayEquals("Wrong puzzle 1",
+                    TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE), cells);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a header with a huge number of puzzles is detected. The
+     * size computed from this number overflows.
+     */
+    public void testCorruptCount() throws IOException {
+        BinaryPuzzleWriter writer = createWriter((short) 3);
+        writer.write(new short[81]);
+        writer.close();
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE);
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        buf.putLong(0, 449920587163647600L);
+        ch.write(buf, BinaryPuzzleReader.COUNT_OFFSET);
+        ch.close();
+        ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            new BinaryPuzzleReader(ch);
+            fail("Corrupt count not detected!");
+        } catch (IOException ioex) {
+            assertEquals("Wrong message", "File is truncated!",
+                    ioex.getMessage());
+        } finally {
+            ch.close();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a file in a different format is detected.
+     */
+    public void testNoBinaryFile() throws IOException {
+        Files.write(file, TestSudokuSolver.PUZZLE.getBytes("US-ASCII"));
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            assertFalse("Binary file", BinaryPuzzleReader.isBinary(ch));
+            new BinaryPuzzleReader(ch);
+            fail("Invalid file not detected!");
+        } catch (IOException ioex) {
+            // expected
+        } finally {
+            ch.close();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a truncated file is detected.
+     */
+    public void testTruncatedFile() throws IOException {
+        BinaryPuzzleWriter writer = createWriter((short) 3);
+        writer.write(new short[81]);
+        writer.close();
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE);
+        ch.truncate(Files.size(file) - 1);
+        ch.close();
+        ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            assertTrue("No binary file", BinaryPuzzleReader.isBinary(ch));
+            new BinaryPuzzleReader(ch);
+            fail("Truncated file not detected!");
+        } catch (IOException ioex) {
+            // expected
+        } finally {
+            ch.close();
+        }
+    }
+}
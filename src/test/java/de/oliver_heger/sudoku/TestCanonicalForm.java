@@ -0,0 +1,222 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test class for CanonicalForm.
+ *
+ * @author Oliver Heger
+ */
+public class TestCanonicalForm {
+    /** Constant for the square size. */
+    private static final short SQUARE_SIZE = 3;
+
+    /** Constant for the field size. */
+    private static final int FIELD_SIZE = SQUARE_SIZE * SQUARE_SIZE;
+
+    /**
+     * Applies a random transformation to a grid. The grid is optionally
+     * transposed, bands, rows, stacks, and columns are permuted, and the
+     * numbers are relabeled.
+     *
+     * @param grid the grid
+     * @param seed the seed for the random transformation
+     * @return the transformed grid
+     */
+    static short[] transform(short[] grid, long seed) {
+        Random random = new Random(seed);
+        boolean trans = random.nextBoolean();
+        int[] rows = linePermutation(random);
+        int[] cols = linePermutation(random);
+        int[] labels = permutation(random, FIELD_SIZE + 1, 1);
+        short[] result = new short[grid.length];
+        for (int row = 0; row < FIELD_SIZE; row++) {
+            for (int col = 0; col < FIELD_SIZE; col++) {
+                int index = trans ? cols[col] * FIELD_SIZE + rows[row]
+                        : rows[row] * FIELD_SIZE + cols[col];
+                result[row * FIELD_SIZE + col] = (short) labels[grid[index]];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a random permutation of lines which keeps the blocks together.
+     *
+     * @param random the random object
+     * @return the permutation
+     */
+    private static int[] linePermutation(Random random) {
+        int[] blocks = permutation(random, SQUARE_SIZE, 0);
+        int[] result = new int[FIELD_SIZE];
+        for (int b = 0; b < SQUARE_SIZE; b++) {
+            int[] lines = permutation(random, SQUARE_SIZE, 0);
+            for (int l = 0; l < SQUARE_SIZE; l++) {
+                result[b * SQUARE_SIZE + l] = blocks[b] * SQUARE_SIZE
+                        + lines[l];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a random permutation. The elements before the start index are
+     * not moved.
+     *
+     * @param random the random object
+     * @param size the size of the permutation
+     * @param start the start index
+     * @return the permutation
+     */
+    private static int[] permutation(Random random, int size, int start) {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = i;
+        }
+        for (int i = size - 1; i > start; i--) {
+            int j = start + random.nextInt(i - start + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cells of a test puzzle.
+     *
+     * @param puzzle the puzzle definition
+     * @return the cells
+     */
+    private static short[] cells(String puzzle) {
+        return TestSudokuSolver.toCells(puzzle);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a puzzle with a wrong size is rejected.
+     */
+    public void testOfWrongSize() {
+        CanonicalForm.of(new short[80], SQUARE_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a puzzle with a value out of range is rejected.
+     */
+    public void testOfInvalidValue() {
+        short[] puzzle = cells(TestSudokuSolver.PUZZLE);
+        puzzle[2] = 10;
+        CanonicalForm.of(puzzle, SQUARE_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a puzzle with a negative value is rejected.
+     */
+    public void testOfNegativeValue() {
+        short[] puzzle = cells(TestSudokuSolver.PUZZLE);
+        puzzle[2] = -1;
+        CanonicalForm.of(puzzle, SQUARE_SIZE);
+    }
+
+    @Test
+    /**
+     * Tests whether transformed puzzles have the same canonical form.
+     */
+    public void testTransformedPuzzles() {
+        for (String puzzle : new String[] {
+                TestSudokuSolver.PUZZLE, TestSudokuSolver.HARD_PUZZLE
+        }) {
+            short[] expected = CanonicalForm.of(cells(puzzle), SQUARE_SIZE)
+                    .getCells();
+            for (long seed = 0; seed < 20; seed++) {
+                short[] transformed = transform(cells(puzzle), seed);
+                assertArrayEquals("Different form for seed " + seed,
+                        expected, CanonicalForm.of(transformed, SQUARE_SIZE)
+                                .getCells());
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a grid can be transformed to the canonical form and back.
+     */
+    public void testToAndFromCanonical() {
+        short[] puzzle = transform(cells(TestSudokuSolver.PUZZLE), 42);
+        CanonicalForm form = CanonicalForm.of(puzzle, SQUARE_SIZE);
+        assertArrayEquals("Wrong canonical puzzle", form.getCells(),
+                form.toCanonical(puzzle));
+        assertArrayEquals("Wrong original puzzle", puzzle,
+                form.fromCanonical(form.getCells()));
+    }
+
+    @Test
+    /**
+     * Tests whether the solution of the canonical form can be mapped to the
+     * solution of the original puzzle.
+     */
+    public void testMapSolution() throws SudokuSolverException {
+        short[] puzzle = transform(cells(TestSudokuSolver.HARD_PUZZLE), 7);
+        CanonicalForm form = CanonicalForm.of(puzzle, SQUARE_SIZE);
+        SudokuSolver solver = new SudokuSolver(SQUARE_SIZE);
+        solver.load(form.getCells());
+        solver.solve();
+        short[] solution = new short[puzzle.length];
+        solver.getCells(solution);
+        short[] mapped = form.fromCanonical(solution);
+
+        solver.load(puzzle);
+        solver.solve();
+        solver.getCells(solution);
+        assertArrayEquals("Wrong solution", solution, mapped);
+    }
+
+    @Test
+    /**
+     * Tests whether the numbers are relabeled in the order of their first
+     * occurrence.
+     */
+    public void testRelabeling() {
+        short[] cells = CanonicalForm.of(cells(TestSudokuSolver.PUZZLE),
+                SQUARE_SIZE).getCells();
+        short max = 0;
+        for (short c : cells) {
+            if (c > max) {
+                assertEquals("Wrong label", max + 1, c);
+                max = c;
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Tests the canonical form of an empty puzzle.
+     */
+    public void testEmptyPuzzle() {
+        short[] puzzle = new short[FIELD_SIZE * FIELD_SIZE];
+        CanonicalForm form = CanonicalForm.of(puzzle, SQUARE_SIZE);
+        assertArrayEquals("Wrong cells", puzzle, form.getCells());
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for DancingLinksSolver.
+ *
+ * @author Oliver Heger
+ */
+public class TestDancingLinksSolver {
+    /** Constant for the square size. */
+    private static final short SQUARE_SIZE = 3;
+
+    /** Stores the object to be tested. */
+    private DancingLinksSolver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new DancingLinksSolver(SQUARE_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid square size is rejected.
+     */
+    public void testInitSquareSizeTooSmall() {
+        new DancingLinksSolver((short) 1);
+    }
+
+    @Test
+    /**
+     * Tests setting and clearing cells.
+     */
+    public void testSetAndClearCell() throws SudokuSolverException {
+        solver.setCell(2, 3, (short) 5);
+        assertEquals("Wrong value", (short) 5, solver.getCell(2, 3));
+        solver.clearCell(2, 3);
+        assertEquals("Not cleared", (short) 0, solver.getCell(2, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests clearing an empty cell.
+     */
+    public void testClearCellEmpty() {
+        solver.clearCell(0, 0);
+    }
+
+    @Test
+    /**
+     * Tests whether the presets are validated.
+     */
+    public void testSetCellInvalid() throws SudokuSolverException {
+        solver.setCell(0, 0, (short) 1);
+        checkInvalidSet(0, 5, (short) 1, SudokuState.ROW_OCCUPIED);
+        checkInvalidSet(5, 0, (short) 1, SudokuState.COLUMN_OCCUPIED);
+        checkInvalidSet(2, 2, (short) 1, SudokuState.SQUARE_OCCUPIED);
+        checkInvalidSet(2, 2, (short) 10, SudokuState.INVALID_NUMBER);
+    }
+
+    @Test
+    /**
+     * Tests solving an easy sudoku.
+     */
+    public void testSolve() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        TestSudokuSolver.checkSolution(solver);
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests solving a hard sudoku.
+     */
+    public void testSolveHard() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        TestSudokuSolver.checkSolution(solver);
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertTrue("No progress", solver.getProgress() > 0);
+    }
+
+    @Test
+    /**
+     * Tests whether an instance can be used for multiple solve operations.
+     */
+    public void testSolveMultipleTimes() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.PUZZLE);
+        assertTrue("Not solved (1)", solver.solve());
+        for (int row = 0; row < solver.getFieldSize(); row++) {
+            for (int col = 0; col < solver.getFieldSize(); col++) {
+                solver.clearCell(row, col);
+            }
+        }
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertTrue("Not solved (2)", solver.solve());
+        TestSudokuSolver.checkSolution(solver);
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.HARD_PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests solving empty fields of different sizes.
+     */
+    public void testSolveEmptyFields() {
+        for (short size = 2; size <= 5; size++) {
+            DancingLinksSolver dlx = new DancingLinksSolver(size);
+            assertTrue("Not solved: " + size, dlx.solve());
+            TestSudokuSolver.checkSolution(dlx);
+        }
+    }
+
+    @Test
+    /**
+     * Tests an unsolvable sudoku.
+     */
+    public void testSolveUnsolvable() throws SudokuSolverException {
+        for (short i = 1; i < 8; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, (short) 9);
+        solver.setCell(4, 8, (short) 9);
+        assertFalse("Solved", solver.solve());
+        assertEquals("Cell changed", (short) 0, solver.getCell(0, 0));
+    }
+
+    @Test
+    /**
+     * Tests the results of a search with a time limit.
+     */
+    public void testSolveWithTimeout() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.PUZZLE);
+        assertEquals("Wrong result (1)", SolveResult.SOLVED,
+                solver.solve(10, TimeUnit.SECONDS));
+        TestSudokuSolver.checkSolution(solver);
+
+        solver = new DancingLinksSolver(SQUARE_SIZE);
+        for (short i = 1; i < 8; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, (short) 9);
+        solver.setCell(4, 8, (short) 9);
+        assertEquals("Wrong result (2)", SolveResult.UNSOLVABLE,
+                solver.solve(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    /**
+     * Tests whether a search is aborted if the thread is interrupted and
+     * whether the matrix is restored afterwards.
+     */
+    public void testCountSolutionsInterrupted() throws SudokuSolverException {
+        Thread.currentThread().interrupt();
+        try {
+            int limit = Integer.MAX_VALUE;
+            assertTrue("Not aborted", solver.countSolutions(limit) < limit);
+        } finally {
+            Thread.interrupted();
+        }
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        TestSudokuSolver.checkSolution(solver);
+    }
+
+    @Test
+    /**
+     * Tests whether the backend enumeration creates the expected engines.
+     */
+    public void testSolverBackend() {
+        assertTrue("Wrong backtracking engine",
+                SolverBackend.BACKTRACKING.createEngine(SQUARE_SIZE)
+                instanceof SudokuSolver);
+        SudokuEngine engine = SolverBackend.DANCING_LINKS
+                .createEngine(SQUARE_SIZE);
+        assertTrue("Wrong DLX engine", engine instanceof DancingLinksSolver);
+        assertEquals("Wrong square size", SQUARE_SIZE, engine.getSquareSize());
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of a well-formed sudoku.
+     */
+    public void testCountSolutionsUnique() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertEquals("Wrong number of solutions", 1,
+                solver.countSolutions(10));
+        assertTrue("Not unique", solver.hasUniqueSolution());
+        assertEquals("Field changed", (short) 0, solver.getCell(0, 1));
+        assertTrue("Not solved", solver.solve());
+        TestSudokuSolver.checkSolution(solver);
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of a sudoku with multiple solutions.
+     */
+    public void testCountSolutionsMultiple() {
+        DancingLinksSolver dlx = new DancingLinksSolver((short) 2);
+        assertEquals("Wrong number of solutions", 288,
+                dlx.countSolutions(1000));
+        assertEquals("Wrong limited count", 7, dlx.countSolutions(7));
+        assertFalse("Unique", dlx.hasUniqueSolution());
+        assertTrue("Not solved", dlx.solve());
+        TestSudokuSolver.checkSolution(dlx);
+    }
+
+    /**
+     * Tries to set an invalid value and checks the exception.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param value the value
+     * @param expState the expected state
+     */
+    private void checkInvalidSet(int row, int col, short value,
+            SudokuState expState) {
+        try {
+            solver.setCell(row, col, value);
+            fail("Could set invalid value!");
+        } catch (SudokuSolverException ssex) {
+            assertEquals("Wrong state", expState, ssex.getState());
+        }
+    }
+}
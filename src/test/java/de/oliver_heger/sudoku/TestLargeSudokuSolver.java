@@ -0,0 +1,255 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for LargeSudokuSolver.
+ *
+ * @author Oliver Heger
+ */
+public class TestLargeSudokuSolver {
+    /** Constant for the square size. */
+    private static final short SQUARE_SIZE = 3;
+
+    /** Stores the object to be tested. */
+    private LargeSudokuSolver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new LargeSudokuSolver(SQUARE_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a too small square size is rejected.
+     */
+    public void testInitSquareSizeTooSmall() {
+        new LargeSudokuSolver((short) 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a too big square size is rejected.
+     */
+    public void testInitSquareSizeTooBig() {
+        new LargeSudokuSolver((short) (LargeSudokuSolver.MAX_SQUARE_SIZE + 1));
+    }
+
+    @Test
+    /**
+     * Tests setting and clearing cells.
+     */
+    public void testSetAndClearCell() throws SudokuSolverException {
+        solver.setCell(2, 3, (short) 5);
+        assertEquals("Wrong value", (short) 5, solver.getCell(2, 3));
+        solver.clearCell(2, 3);
+        assertEquals("Not cleared", (short) 0, solver.getCell(2, 3));
+        solver.setCell(2, 4, (short) 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests clearing an empty cell.
+     */
+    public void testClearCellEmpty() {
+        solver.clearCell(0, 0);
+    }
+
+    @Test
+    /**
+     * Tests whether violations of the sudoku rules are detected for numbers
+     * stored in different words of the masks.
+     */
+    public void testSetCellInvalid() throws SudokuSolverException {
+        LargeSudokuSolver large = new LargeSudokuSolver((short) 9);
+        large.setCell(0, 0, (short) 70);
+        large.setCell(0, 1, (short) 6);
+        checkSetCell(large, 0, 80, (short) 70, SudokuState.ROW_OCCUPIED);
+        checkSetCell(large, 80, 0, (short) 70, SudokuState.COLUMN_OCCUPIED);
+        checkSetCell(large, 8, 8, (short) 70, SudokuState.SQUARE_OCCUPIED);
+        checkSetCell(large, 8, 8, (short) 82, SudokuState.INVALID_NUMBER);
+        large.setCell(80, 80, (short) 70);
+    }
+
+    @Test
+    /**
+     * Tests solving a simple sudoku.
+     */
+    public void testSolve() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        TestSudokuSolver.checkSolution(solver);
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests solving a hard sudoku.
+     */
+    public void testSolveHard() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertEquals("Wrong result", SolveResult.SOLVED,
+                solver.solve(1, TimeUnit.MINUTES));
+        TestSudokuSolver.checkSolution(solver);
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertTrue("No nodes", solver.getNodeCount() > 0);
+        assertEquals("Wrong progress", solver.getNodeCount(),
+                solver.getProgress());
+    }
+
+    @Test
+    /**
+     * Tests solving empty fields of different sizes.
+     */
+    public void testSolveEmptyFields() {
+        for (short size = 2; size <= 5; size++) {
+            LargeSudokuSolver s = new LargeSudokuSolver(size);
+            assertTrue("Not solved: " + size, s.solve());
+            TestSudokuSolver.checkSolution(s);
+        }
+    }
+
+    @Test
+    /**
+     * Tests solving fields with more than 64 numbers.
+     */
+    public void testSolveLargeFields() throws SudokuSolverException {
+        checkSolveLargeField((short) 9);
+        checkSolveLargeField((short) 11);
+        checkSolveLargeField(LargeSudokuSolver.MAX_SQUARE_SIZE);
+    }
+
+    @Test
+    /**
+     * Tests whether an unsolvable sudoku is detected and the field is
+     * restored.
+     */
+    public void testSolveUnsolvable() throws SudokuSolverException {
+        short fieldSize = solver.getFieldSize();
+        for (short i = 1; i < fieldSize - 1; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, fieldSize);
+        solver.setCell(4, fieldSize - 1, fieldSize);
+        assertEquals("Wrong result", SolveResult.UNSOLVABLE,
+                solver.solve(1, TimeUnit.MINUTES));
+        assertFalse("Aborted", solver.isAborted());
+        for (int col = 0; col < fieldSize; col++) {
+            assertEquals("Wrong cell value", (col == 0 || col == fieldSize - 1)
+                    ? 0 : col, solver.getCell(0, col));
+        }
+        assertEquals("Wrong number of solutions", 0, solver.countSolutions(2));
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of a well-formed sudoku.
+     */
+    public void testCountSolutionsUnique() throws SudokuSolverException {
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.HARD_PUZZLE);
+        assertEquals("Wrong number of solutions", 1,
+                solver.countSolutions(10));
+        assertTrue("Not unique", solver.hasUniqueSolution());
+        assertEquals("Field changed", (short) 0, solver.getCell(0, 1));
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of a sudoku with multiple solutions.
+     */
+    public void testCountSolutionsMultiple() {
+        LargeSudokuSolver s = new LargeSudokuSolver((short) 2);
+        assertEquals("Wrong number of solutions", 288, s.countSolutions(1000));
+        assertFalse("Unique", s.hasUniqueSolution());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests countSolutions() with an invalid limit.
+     */
+    public void testCountSolutionsInvalidLimit() {
+        solver.countSolutions(0);
+    }
+
+    @Test
+    /**
+     * Tests whether the backend enumeration selects the engine by square
+     * size.
+     */
+    public void testSolverBackend() {
+        assertEquals("Wrong backend for small fields",
+                SolverBackend.BACKTRACKING,
+                SolverBackend.forSquareSize(SudokuSolver.MAX_SQUARE_SIZE));
+        assertEquals("Wrong backend for large fields", SolverBackend.LARGE,
+                SolverBackend.forSquareSize((short) (SudokuSolver
+                        .MAX_SQUARE_SIZE + 1)));
+        SudokuEngine engine = SolverBackend.LARGE.createEngine((short) 10);
+        assertTrue("Wrong engine", engine instanceof LargeSudokuSolver);
+        assertEquals("Wrong field size", 100, engine.getFieldSize());
+    }
+
+    /**
+     * Tests whether a cell cannot be set because of the given state.
+     *
+     * @param s the solver
+     * @param row the row index
+     * @param col the column index
+     * @param value the value
+     * @param state the expected state
+     */
+    private static void checkSetCell(LargeSudokuSolver s, int row, int col,
+            short value, SudokuState state) {
+        try {
+            s.setCell(row, col, value);
+            fail("Invalid value not detected!");
+        } catch (SudokuSolverException sex) {
+            assertEquals("Wrong state", state, sex.getState());
+        }
+    }
+
+    /**
+     * Solves a large sudoku. A valid solution is generated from a pattern,
+     * and every third cell is cleared.
+     *
+     * @param squareSize the square size
+     */
+    private static void checkSolveLargeField(short squareSize)
+            throws SudokuSolverException {
+        LargeSudokuSolver s = new LargeSudokuSolver(squareSize);
+        int fieldSize = s.getFieldSize();
+        for (int row = 0; row < fieldSize; row++) {
+            for (int col = 0; col < fieldSize; col++) {
+                if ((row * fieldSize + col) % 3 != 0) {
+                    s.setCell(row, col, (short) (((row % squareSize)
+                            * squareSize + row / squareSize + col)
+                            % fieldSize + 1));
+                }
+            }
+        }
+        assertTrue("Not solved: " + squareSize, s.solve());
+        TestSudokuSolver.checkSolution(s);
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ParallelSolver.
+ *
+ * @author Oliver Heger
+ */
+public class TestParallelSolver {
+    /** The pool used by the tests. */
+    private ForkJoinPool pool;
+
+    /** Stores the object to be tested. */
+    private ParallelSolver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+        solver = new ParallelSolver((short) 3, pool);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test
+    /**
+     * Tests the default settings.
+     */
+    public void testDefaults() {
+        assertEquals("Wrong split depth", ParallelSolver.DEFAULT_SPLIT_DEPTH,
+                solver.getSplitDepth());
+        assertEquals("Wrong strategy",
+                SearchStrategy.MINIMUM_REMAINING_VALUES, solver.getSolver()
+                        .getSearchStrategy());
+        assertEquals("Wrong field size", 9, solver.getFieldSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tries to set a negative split depth.
+     */
+    public void testSetSplitDepthNegative() {
+        solver.setSplitDepth(-1);
+    }
+
+    @Test
+    /**
+     * Tests solving a hard sudoku with different split depths.
+     */
+    public void testSolveHard() throws SudokuSolverException {
+        for (int depth = 0; depth <= 3; depth++) {
+            ParallelSolver s = new ParallelSolver((short) 3, pool);
+            s.setSplitDepth(depth);
+            TestSudokuSolver.initPuzzle(s, TestSudokuSolver.HARD_PUZZLE);
+            assertTrue("Not solved: " + depth, s.solve());
+            TestSudokuSolver.checkSolution(s);
+            TestSudokuSolver.checkPresets(s, TestSudokuSolver.HARD_PUZZLE);
+            assertTrue("No nodes", s.getNodeCount() > 0);
+            assertEquals("Wrong progress", s.getNodeCount(), s.getProgress());
+        }
+    }
+
+    @Test
+    /**
+     * Tests solving a large empty field.
+     */
+    public void testSolveLargeField() {
+        ParallelSolver s = new ParallelSolver((short) 4, pool);
+        s.getSolver().setSearchStrategy(SearchStrategy.NUMBER_BY_COLUMN);
+        assertTrue("Not solved", s.solve());
+        TestSudokuSolver.checkSolution(s);
+    }
+
+    @Test
+    /**
+     * Tests an unsolvable sudoku.
+     */
+    public void testSolveUnsolvable() throws SudokuSolverException {
+        for (short i = 1; i < 8; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, (short) 9);
+        solver.setCell(5, 8, (short) 9);
+        solver.getSolver().setPropagation(false);
+        assertFalse("Solved", solver.solve());
+        assertEquals("Cell changed", (short) 0, solver.getCell(0, 0));
+        assertEquals("Preset changed", (short) 9, solver.getCell(1, 0));
+    }
+
+    @Test
+    /**
+     * Tests whether a search is aborted when the time limit is exceeded.
+     */
+    public void testSolveWithTimeoutAborted() throws SudokuSolverException {
+        initSlowUnsolvable();
+        assertEquals("Wrong result", SolveResult.ABORTED,
+                solver.solve(100, TimeUnit.MILLISECONDS));
+        assertEquals("Cell changed", (short) 0, solver.getCell(0, 0));
+    }
+
+    @Test
+    /**
+     * Tests whether a search is aborted if the calling thread is interrupted.
+     */
+    public void testSolveInterrupted() throws SudokuSolverException {
+        initSlowUnsolvable();
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals("Wrong result", SolveResult.ABORTED,
+                    solver.solve(0, TimeUnit.MILLISECONDS));
+            assertTrue("Interrupted flag cleared", Thread.currentThread()
+                    .isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether the progress grows while a single task is searching.
+     */
+    public void testProgressWhileSearching() throws Exception {
+        initSlowUnsolvable();
+        solver.setSplitDepth(0);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                solver.solve(0, TimeUnit.MILLISECONDS);
+            }
+        };
+        t.start();
+        try {
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (solver.getProgress() == 0 && System.nanoTime() < end) {
+                Thread.sleep(10);
+            }
+            assertTrue("No progress", solver.getProgress() > 0);
+            assertTrue("Search already finished", t.isAlive());
+        } finally {
+            t.interrupt();
+            t.join();
+        }
+    }
+
+    /**
+     * Fills in presets for an unsolvable sudoku and configures a brute force
+     * search which takes very long to detect this.
+     *
+     * @throws SudokuSolverException if an error occurs
+     */
+    private void initSlowUnsolvable() throws SudokuSolverException {
+        for (short i = 1; i < 8; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, (short) 9);
+        solver.setCell(5, 8, (short) 9);
+        solver.getSolver().setPropagation(false);
+        solver.getSolver().setSearchStrategy(SearchStrategy.NUMBER_BY_COLUMN);
+    }
+}
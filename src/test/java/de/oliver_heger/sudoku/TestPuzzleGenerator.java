@@ -0,0 +1,205 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for PuzzleGenerator.
+ *
+ * @author Oliver Heger
+ */
+public class TestPuzzleGenerator {
+    /** Constant for the seed used by the tests. */
+    private static final long SEED = 20131231L;
+
+    /** Constant for the number of puzzles to generate. */
+    private static final int COUNT = 20;
+
+    /** The pool used by the tests. */
+    private ForkJoinPool pool;
+
+    /** Stores the object to be tested. */
+    private PuzzleGenerator generator;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+        generator = new PuzzleGenerator((short) 3, pool);
+        generator.setSeed(SEED);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a null pool is rejected.
+     */
+    public void testInitNullPool() {
+        new PuzzleGenerator((short) 3, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid square size is rejected.
+     */
+    public void testInitInvalidSquareSize() {
+        new PuzzleGenerator((short) 1, pool);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid node limit is rejected.
+     */
+    public void testSetNodeLimitInvalid() {
+        generator.setNodeLimit(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a null difficulty is rejected.
+     */
+    public void testGenerateNullDifficulty() {
+        generator.generate(1, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a negative count is rejected.
+     */
+    public void testGenerateNegativeCount() {
+        generator.generate(-1, Difficulty.EASY);
+    }
+
+    @Test
+    /**
+     * Tests generating easy puzzles.
+     */
+    public void testGenerateEasy() throws SudokuSolverException {
+        checkPuzzles(generator.generate(COUNT, Difficulty.EASY),
+                Difficulty.EASY);
+    }
+
+    @Test
+    /**
+     * Tests generating medium puzzles.
+     */
+    public void testGenerateMedium() throws SudokuSolverException {
+        checkPuzzles(generator.generate(COUNT, Difficulty.MEDIUM),
+                Difficulty.MEDIUM);
+    }
+
+    @Test
+    /**
+     * Tests generating hard puzzles.
+     */
+    public void testGenerateHard() throws SudokuSolverException {
+        checkPuzzles(generator.generate(COUNT, Difficulty.HARD),
+                Difficulty.HARD);
+    }
+
+    @Test
+    /**
+     * Tests whether the same seed produces the same puzzles independent on
+     * the number of threads.
+     */
+    public void testGenerateReproducible() {
+        List<short[]> puzzles = generator.generate(COUNT, Difficulty.MEDIUM);
+        ForkJoinPool pool2 = new ForkJoinPool(1);
+        try {
+            PuzzleGenerator gen2 = new PuzzleGenerator((short) 3, pool2);
+            gen2.setSeed(SEED);
+            List<short[]> puzzles2 = gen2.generate(COUNT, Difficulty.MEDIUM);
+            for (int i = 0; i < COUNT; i++) {
+                assertArrayEquals("Different puzzle " + i, puzzles.get(i),
+                        puzzles2.get(i));
+            }
+        } finally {
+            pool2.shutdown();
+        }
+    }
+
+    @Test
+    /**
+     * Tests a target difficulty which cannot be reached for a small field.
+     * Then valid puzzles of a lower difficulty are returned.
+     */
+    public void testGenerateSmallField() throws SudokuSolverException {
+        generator = new PuzzleGenerator((short) 2, pool);
+        List<short[]> puzzles = generator.generate(2, Difficulty.HARD);
+        for (short[] puzzle : puzzles) {
+            assertNotNull("No puzzle", puzzle);
+            assertEquals("Wrong length", 16, puzzle.length);
+            rate(puzzle, 2);
+        }
+    }
+
+    /**
+     * Checks whether the passed in puzzles are valid and have the expected
+     * difficulty.
+     *
+     * @param puzzles the puzzles
+     * @param difficulty the expected difficulty
+     * @throws SudokuSolverException if a puzzle is invalid
+     */
+    private static void checkPuzzles(List<short[]> puzzles,
+            Difficulty difficulty) throws SudokuSolverException {
+        assertEquals("Wrong number of puzzles", COUNT, puzzles.size());
+        for (short[] puzzle : puzzles) {
+            assertEquals("Wrong difficulty", difficulty, rate(puzzle, 3));
+            int clues = 0;
+            for (short value : puzzle) {
+                if (value != 0) {
+                    clues++;
+                }
+            }
+            assertTrue("Too many clues: " + clues, clues < 40);
+        }
+    }
+
+    /**
+     * Determines the difficulty of a puzzle and checks that it has a unique
+     * solution.
+     *
+     * @param puzzle the puzzle
+     * @param squareSize the square size
+     * @return the difficulty
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    private static Difficulty rate(short[] puzzle, int squareSize)
+            throws SudokuSolverException {
+        SudokuSolver solver = new SudokuSolver((short) squareSize);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(true);
+        solver.setStatisticsEnabled(true);
+        solver.load(puzzle);
+        assertTrue("Not unique", solver.hasUniqueSolution());
+        return Difficulty.of(solver.getStatistics());
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Test class for PuzzleReader and PuzzleWriter.
+ *
+ * @author Oliver Heger
+ */
+public class TestPuzzleReader {
+    /**
+     * Creates a reader for the given text.
+     *
+     * @param text the text to be read
+     * @return the reader
+     */
+    private static PuzzleReader reader(String text) {
+        return new PuzzleReader(Channels.newChannel(new ByteArrayInputStream(
+                text.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    /**
+     * Tests reading puzzles in the single character format.
+     */
+    public void testReadCharacters() throws Exception {
+        PuzzleReader reader = reader("# comment\n1.3.\n\n0g0A\r\n.2..");
+        short[] cells = new short[4];
+        assertTrue("No puzzle 1", reader.read(cells));
+        assertArrayEquals("Wrong puzzle 1", new short[] { 1, 0, 3, 0 }, cells);
+        assertEquals("Wrong line number", 2, reader.getLineNumber());
+        assertTrue("No puzzle 2", reader.read(cells));
+        assertArrayEquals("Wrong puzzle 2", new short[] { 0, 16, 0, 10 },
+                cells);
+        assertTrue("No puzzle 3", reader.read(cells));
+        assertArrayEquals("Wrong puzzle 3", new short[] { 0, 2, 0, 0 }, cells);
+        assertFalse("Too many puzzles", reader.read(cells));
+        assertEquals("Wrong final line number", 5, reader.getLineNumber());
+    }
+
+    @Test
+    /**
+     * Tests reading puzzles in the separated format.
+     */
+    public void testReadSeparated() throws Exception {
+        PuzzleReader reader = reader("36, 0;.\t 12\n");
+        short[] cells = new short[4];
+        assertTrue("No puzzle", reader.read(cells));
+        assertArrayEquals("Wrong puzzle", new short[] { 36, 0, 0, 12 }, cells);
+        assertFalse("Too many puzzles", reader.read(cells));
+    }
+
+    @Test
+    /**
+     * Tests whether lines with a wrong number of cells are detected and
+     * reading can continue.
+     */
+    public void testReadWrongCellCount() throws Exception {
+        PuzzleReader reader = reader("12345\n1234\n");
+        short[] cells = new short[4];
+        try {
+            reader.read(cells);
+            fail("Wrong line not detected!");
+        } catch (PuzzleFormatException pfex) {
+            assertEquals("Wrong line number", 1, pfex.getLineNumber());
+        }
+        assertTrue("No puzzle", reader.read(cells));
+        assertArrayEquals("Wrong puzzle", new short[] { 1, 2, 3, 4 }, cells);
+    }
+
+    @Test(expected = PuzzleFormatException.class)
+    /**
+     * Tests whether invalid characters are detected.
+     */
+    public void testReadInvalidCharacter() throws Exception {
+        reader("12?4").read(new short[4]);
+    }
+
+    /**
+     * Helper method for testing whether an empty cell followed by another
+     * character in the separated format is detected.
+     *
+     * @param text the line to be read
+     * @param pos the expected position of the invalid character
+     */
+    private static void checkEmptyCellNotSeparated(String text, int pos)
+            throws Exception {
+        try {
+            reader(text).read(new short[3]);
+            fail("Invalid line not detected: " + text);
+        } catch (PuzzleFormatException pfex) {
+            assertTrue("Wrong message: " + pfex.getMessage(), pfex
+                    .getMessage().endsWith("at position " + pos + "!"));
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether an empty cell must be followed by a separator.
+     */
+    public void testReadEmptyCellNotSeparated() throws Exception {
+        checkEmptyCellNotSeparated(".5,3", 2);
+        checkEmptyCellNotSeparated("1,..", 4);
+    }
+
+    @Test
+    /**
+     * Tests reading empty cells in the separated format.
+     */
+    public void testReadEmptyCellsSeparated() throws Exception {
+        short[] cells = new short[3];
+        assertTrue("No puzzle", reader(". 5,.").read(cells));
+        assertArrayEquals("Wrong puzzle", new short[] { 0, 5, 0 }, cells);
+    }
+
+    @Test(expected = PuzzleFormatException.class)
+    /**
+     * Tests whether numbers which do not fit into a short are detected.
+     */
+    public void testReadNumberTooLarge() throws Exception {
+        reader("1,2,3,32768").read(new short[4]);
+    }
+
+    @Test
+    /**
+     * Tests reading the largest number which fits into a short.
+     */
+    public void testReadMaximumNumber() throws Exception {
+        short[] cells = new short[4];
+        assertTrue("No puzzle", reader("1,2,3,32767").read(cells));
+        assertEquals("Wrong number", Short.MAX_VALUE, cells[3]);
+    }
+
+    /**
+     * Helper method for testing whether a line exceeding the maximum length
+     * is rejected.
+     *
+     * @param terminator the text following the long line
+     */
+    private static void checkLineTooLong(String terminator) throws Exception {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i <= PuzzleReader.MAX_LINE_SIZE; i++) {
+            buf.append('1');
+        }
+        PuzzleReader reader = reader(buf.append(terminator).toString());
+        short[] cells = new short[4];
+        try {
+            reader.read(cells);
+            fail("Long line not detected!");
+        } catch (PuzzleFormatException pfex) {
+            assertEquals("Wrong line number", 1, pfex.getLineNumber());
+        }
+        if (terminator.length() > 0) {
+            assertTrue("No puzzle", reader.read(cells));
+            assertArrayEquals("Wrong puzzle", new short[] { 1, 2, 3, 4 },
+                    cells);
+        }
+        assertFalse("Too many puzzles", reader.read(cells));
+    }
+
+    @Test
+    /**
+     * Tests whether a line which is too long is rejected and reading can
+     * continue with the next line.
+     */
+    public void testReadLineTooLong() throws Exception {
+        checkLineTooLong("\n1234\n");
+    }
+
+    @Test
+    /**
+     * Tests whether an input without line breaks which is too long is
+     * rejected.
+     */
+    public void testReadLineTooLongNoNewline() throws Exception {
+        checkLineTooLong("");
+    }
+
+    @Test
+    /**
+     * Tests reading a long input which does not fit into the buffer.
+     */
+    public void testReadLongInput() throws Exception {
+        StringBuilder buf = new StringBuilder();
+        final int count = 20000;
+        for (int i = 0; i < count; i++) {
+            buf.append(TestSudokuSolver.PUZZLE).append('\n');
+        }
+        PuzzleReader reader = reader(buf.toString());
+        short[] cells = new short[81];
+        short[] expected = TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE);
+        for (int i = 0; i < count; i++) {
+            assertTrue("No puzzle at " + i, reader.read(cells));
+            assertArrayEquals("Wrong puzzle at " + i, expected, cells);
+        }
+        assertFalse("Too many puzzles", reader.read(cells));
+    }
+
+    @Test
+    /**
+     * Tests writing puzzles in both formats and reading them again.
+     */
+    public void testWriteAndRead() throws Exception {
+        short[] small = { 0, 1, 35, 10 };
+        short[] large = { 0, 36, 100, 7 };
+        assertEquals("Wrong small output", ".1za\n", write(small, 35));
+        assertEquals("Wrong large output", ".,36,100,7\n", write(large, 36));
+        short[] cells = new short[4];
+        assertTrue("Cannot read", reader(write(large, 36)).read(cells));
+        assertArrayEquals("Wrong data", new short[] { 0, 36, 100, 7 }, cells);
+    }
+
+    @Test
+    /**
+     * Tests writing a comment.
+     */
+    public void testWriteComment() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PuzzleWriter writer = new PuzzleWriter(Channels.newChannel(bos), 9);
+        writer.writeComment("Test");
+        writer.close();
+        assertEquals("Wrong output", "# Test\n",
+                new String(bos.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Writes a puzzle and returns the output.
+     *
+     * @param cells the cells of the puzzle
+     * @param fieldSize the field size
+     * @return the output
+     */
+    private static String write(short[] cells, int fieldSize)
+            throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PuzzleWriter writer = new PuzzleWriter(Channels.newChannel(bos),
+                fieldSize);
+        writer.write(cells);
+        writer.flush();
+        return new String(bos.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for SolutionCache.
+ *
+ * @author Oliver Heger
+ */
+public class TestSolutionCache {
+    /** Constant for the square size. */
+    private static final short SQUARE_SIZE = 3;
+
+    /** The solver used by the tests. */
+    private SudokuSolver solver;
+
+    /** Stores the object to be tested. */
+    private SolutionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new SudokuSolver(SQUARE_SIZE);
+        cache = new SolutionCache(2);
+    }
+
+    /**
+     * Solves the given puzzle directly with the solver.
+     *
+     * @param puzzle the puzzle
+     * @return the solution
+     */
+    private short[] solveDirectly(short[] puzzle) throws SudokuSolverException {
+        SudokuSolver s = new SudokuSolver(SQUARE_SIZE);
+        s.load(puzzle);
+        s.solve();
+        short[] solution = new short[puzzle.length];
+        s.getCells(solution);
+        return solution;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid size is rejected.
+     */
+    public void testInitInvalidSize() {
+        new SolutionCache(0);
+    }
+
+    @Test
+    /**
+     * Tests a newly created instance.
+     */
+    public void testInit() {
+        assertEquals("Wrong max size", 2, cache.getMaxSize());
+        assertEquals("Wrong size", 0, cache.size());
+        assertEquals("Wrong hits", 0, cache.getHitCount());
+        assertEquals("Wrong misses", 0, cache.getMissCount());
+    }
+
+    @Test
+    /**
+     * Tests whether a transformed puzzle is solved from the cache.
+     */
+    public void testSolveHit() throws SudokuSolverException {
+        short[] puzzle = TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE);
+        assertArrayEquals("Wrong first solution", solveDirectly(puzzle),
+                cache.solve(puzzle, solver));
+        long nodes = solver.getNodeCount();
+        short[] transformed = TestCanonicalForm.transform(puzzle, 1);
+        assertArrayEquals("Wrong cached solution", solveDirectly(transformed),
+                cache.solve(transformed, solver));
+        assertEquals("Solver was invoked", nodes, solver.getNodeCount());
+        assertEquals("Wrong hits", 1, cache.getHitCount());
+        assertEquals("Wrong misses", 1, cache.getMissCount());
+        assertEquals("Wrong size", 1, cache.size());
+    }
+
+    @Test
+    /**
+     * Tests that unsolvable puzzles are not cached.
+     */
+    public void testSolveUnsolvable() throws SudokuSolverException {
+        short[] puzzle = new short[81];
+        for (short i = 1; i < 9; i++) {
+            puzzle[i] = i;
+        }
+        puzzle[9 * 3] = 9;
+        solver.setPropagation(true);
+        assertNull("Got a solution", cache.solve(puzzle, solver));
+        assertEquals("Wrong size", 0, cache.size());
+    }
+
+    @Test
+    /**
+     * Tests whether the least recently used entry is removed.
+     */
+    public void testEviction() throws SudokuSolverException {
+        short[] p1 = TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE);
+        short[] p2 = TestSudokuSolver.toCells(TestSudokuSolver.HARD_PUZZLE);
+        short[] p3 = p1.clone();
+        p3[0] = 0;
+        CanonicalForm f1 = CanonicalForm.of(p1, SQUARE_SIZE);
+        CanonicalForm f2 = CanonicalForm.of(p2, SQUARE_SIZE);
+        CanonicalForm f3 = CanonicalForm.of(p3, SQUARE_SIZE);
+        cache.put(f1, solveDirectly(p1));
+        cache.put(f2, solveDirectly(p2));
+        assertNotNull("Entry 1 not found", cache.get(f1));
+        cache.put(f3, solveDirectly(p3));
+        assertEquals("Wrong size", 2, cache.size());
+        assertNull("Entry 2 not removed", cache.get(f2));
+        assertNotNull("Entry 1 removed", cache.get(f1));
+        assertNotNull("Entry 3 not found", cache.get(f3));
+    }
+
+    @Test
+    /**
+     * Tests whether a puzzle with a value out of range is reported as invalid.
+     */
+    public void testSolveInvalidNumber() {
+        short[] puzzle = TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE);
+        puzzle[2] = 10;
+        try {
+            cache.solve(puzzle, solver);
+            fail("Invalid number not detected!");
+        } catch (SudokuSolverException ssex) {
+            assertEquals("Wrong state", SudokuState.INVALID_NUMBER,
+                    ssex.getState());
+        }
+        assertEquals("Wrong size", 0, cache.size());
+    }
+
+    @Test
+    /**
+     * Tests whether the cache can be cleared.
+     */
+    public void testClear() throws SudokuSolverException {
+        short[] puzzle = TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE);
+        cache.solve(puzzle, solver);
+        cache.clear();
+        assertEquals("Wrong size", 0, cache.size());
+        assertNull("Entry found", cache.get(CanonicalForm.of(puzzle,
+                SQUARE_SIZE)));
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+/**
+ * Test class for SudokuCommandLine.
+ *
+ * @author Oliver Heger
+ */
+public class TestSudokuCommandLine {
+    @Test
+    /**
+     * Tests processing an input with valid and invalid puzzles.
+     */
+    public void testProcess() throws Exception {
+        String input = TestSudokuSolver.PUZZLE + "\n"
+                + TestSudokuSolver.HARD_PUZZLE.replace('0', '.') + "\n"
+                + "11" + TestSudokuSolver.PUZZLE.substring(2) + "\n" + "123\n";
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        SudokuCommandLine cmd = new SudokuCommandLine((short) 3);
+        cmd.process(Channels.newChannel(new ByteArrayInputStream(input
+                .getBytes(StandardCharsets.US_ASCII))), Channels
+                .newChannel(bos));
+
+        assertEquals("Wrong number of puzzles", 4, cmd.getPuzzleCount());
+        assertEquals("Wrong number of solved puzzles", 2,
+                cmd.getSolvedCount());
+        String[] lines = new String(bos.toByteArray(),
+                StandardCharsets.US_ASCII).split("\n");
+        assertEquals("Wrong number of lines", 4, lines.length);
+        checkSolutionLine(lines[0], TestSudokuSolver.PUZZLE);
+        checkSolutionLine(lines[1], TestSudokuSolver.HARD_PUZZLE);
+        assertEquals("Wrong error line 3", "# 3: ROW_OCCUPIED 1", lines[2]);
+        assertTrue("Wrong error line 4: " + lines[3],
+                lines[3].startsWith("# 4: "));
+    }
+
+    @Test
+    /**
+     * Tests processing a binary puzzle file.
+     */
+    public void testProcessBinary() throws Exception {
+        Path file = Files.createTempFile("puzzles", ".sdkb");
+        try {
+            BinaryPuzzleWriter writer = new BinaryPuzzleWriter(
+                    FileChannel.open(file, StandardOpenOption.WRITE),
+                    (short) 3);
+            writer.write(TestSudokuSolver.toCells(TestSudokuSolver.PUZZLE));
+            writer.write(TestSudokuSolver.toCells("11"
+                    + TestSudokuSolver.PUZZLE.substring(2)));
+            writer.write(TestSudokuSolver
+                    .toCells(TestSudokuSolver.HARD_PUZZLE));
+            writer.close();
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            SudokuCommandLine cmd = new SudokuCommandLine((short) 3);
+            BinaryPuzzleReader reader = new BinaryPuzzleReader(
+                    FileChannel.open(file, StandardOpenOption.READ));
+            try {
+                cmd.process(reader, Channels.newChannel(bos));
+            } finally {
+                reader.close();
+            }
+
+            assertEquals("Wrong number of puzzles", 3, cmd.getPuzzleCount());
+            assertEquals("Wrong number of solved puzzles", 2,
+                    cmd.getSolvedCount());
+            String[] lines = new String(bos.toByteArray(),
+                    StandardCharsets.US_ASCII).split("\n");
+            assertEquals("Wrong number of lines", 3, lines.length);
+            checkSolutionLine(lines[0], TestSudokuSolver.PUZZLE);
+            assertEquals("Wrong error line", "# 2: ROW_OCCUPIED 1", lines[1]);
+            checkSolutionLine(lines[2], TestSudokuSolver.HARD_PUZZLE);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Checks whether an output line contains a solution of the given puzzle.
+     *
+     * @param line the output line
+     * @param puzzle the puzzle
+     */
+    private static void checkSolutionLine(String line, String puzzle)
+            throws SudokuSolverException {
+        SudokuSolver solver = new SudokuSolver((short) 3);
+        TestSudokuSolver.initPuzzle(solver, line);
+        TestSudokuSolver.checkSolution(solver);
+        TestSudokuSolver.checkPresets(solver, puzzle);
+    }
+}
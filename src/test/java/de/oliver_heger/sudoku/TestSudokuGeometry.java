@@ -0,0 +1,294 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Test class for SudokuGeometry.
+ *
+ * @author Oliver Heger
+ */
+public class TestSudokuGeometry {
+    @Test
+    /**
+     * Tests whether instances are shared.
+     */
+    public void testGetInstanceShared() {
+        assertSame("Different instances",
+                SudokuGeometry.getInstance((short) 3),
+                SudokuGeometry.getInstance((short) 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid square size is rejected.
+     */
+    public void testGetInstanceInvalidSize() {
+        SudokuGeometry.getInstance((short) (LargeSudokuSolver.MAX_SQUARE_SIZE
+                + 1));
+    }
+
+    @Test
+    /**
+     * Tests the sizes of a geometry.
+     */
+    public void testSizes() {
+        SudokuGeometry geometry = SudokuGeometry.getInstance((short) 3);
+        assertEquals("Wrong square size", 3, geometry.getSquareSize());
+        assertEquals("Wrong field size", 9, geometry.getFieldSize());
+        assertEquals("Wrong cell count", 81, geometry.getCellCount());
+        assertEquals("Wrong unit count", 27, geometry.getUnitCount());
+    }
+
+    @Test
+    /**
+     * Tests the mapping of a cell to its row, column, and square.
+     */
+    public void testCellMapping() {
+        SudokuGeometry geometry = SudokuGeometry.getInstance((short) 3);
+        int cell = geometry.getCell(4, 7);
+        assertEquals("Wrong cell index", 43, cell);
+        assertEquals("Wrong row", 4, geometry.getRow(cell));
+        assertEquals("Wrong column", 7, geometry.getColumn(cell));
+        assertEquals("Wrong square", 5, geometry.getSquare(cell));
+    }
+
+    @Test
+    /**
+     * Tests whether the units contain the expected cells.
+     */
+    public void testUnits() {
+        SudokuGeometry geometry = SudokuGeometry.getInstance((short) 2);
+        int[] row = geometry.getUnit(1);
+        int[] column = geometry.getUnit(4 + 2);
+        int[] square = geometry.getUnit(8 + 3);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Wrong row cell", 4 + i, row[i]);
+            assertEquals("Wrong column cell", 4 * i + 2, column[i]);
+            assertEquals("Wrong square", 3, geometry.getSquare(square[i]));
+        }
+    }
+
+    @Test
+    /**
+     * Tests the peers of a cell.
+     */
+    public void testPeers() {
+        SudokuGeometry geometry = SudokuGeometry.getInstance((short) 3);
+        int cell = geometry.getCell(4, 7);
+        int[] peers = geometry.getPeers(cell);
+        assertEquals("Wrong number of peers", 20, peers.length);
+        Set<Integer> set = new HashSet<Integer>();
+        for (int peer : peers) {
+            assertTrue("Not a peer: " + peer, geometry.getRow(peer) == 4
+                    || geometry.getColumn(peer) == 7
+                    || geometry.getSquare(peer) == 5);
+            set.add(peer);
+        }
+        assertEquals("Duplicate peers", peers.length, set.size());
+        assertFalse("Cell is its own peer", set.contains(cell));
+    }
+
+    @Test
+    /**
+     * Tests whether the geometry of a classic variant is shared.
+     */
+    public void testForVariantClassic() {
+        assertSame("Different instances",
+                SudokuGeometry.getInstance((short) 3),
+                SudokuGeometry.forVariant(new SudokuVariant((short) 3)));
+        assertFalse("Constraints", SudokuGeometry.getInstance((short) 3)
+                .hasConstraints());
+    }
+
+    @Test
+    /**
+     * Tests the units of a geometry with diagonals.
+     */
+    public void testVariantDiagonals() {
+        SudokuGeometry geometry = SudokuGeometry.forVariant(new SudokuVariant(
+                (short) 2).withDiagonals());
+        assertEquals("Wrong unit count", 14, geometry.getUnitCount());
+        assertTrue("No constraints", geometry.hasConstraints());
+        int[] diagonal = geometry.getUnit(12);
+        int[] anti = geometry.getUnit(13);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Wrong diagonal cell", 5 * i, diagonal[i]);
+            assertEquals("Wrong anti diagonal cell", 3 * i + 3, anti[i]);
+        }
+        assertTrue("Wrong extra units (1)", Arrays.equals(new int[] {
+            12
+        }, geometry.getExtraUnits(5)));
+        assertTrue("Wrong extra units (2)", Arrays.equals(new int[] {
+            13
+        }, geometry.getExtraUnits(6)));
+        assertEquals("Wrong extra units (3)", 0,
+                geometry.getExtraUnits(4).length);
+    }
+
+    @Test
+    /**
+     * Tests the peers of a cell in a geometry with diagonals.
+     */
+    public void testVariantDiagonalPeers() {
+        SudokuGeometry geometry = SudokuGeometry.forVariant(new SudokuVariant(
+                (short) 3).withDiagonals());
+        int cell = geometry.getCell(4, 4);
+        int[] peers = geometry.getPeers(cell);
+        assertEquals("Wrong number of peers", 32, peers.length);
+        Set<Integer> set = new HashSet<Integer>();
+        for (int peer : peers) {
+            set.add(peer);
+        }
+        assertEquals("Duplicate peers", peers.length, set.size());
+        assertTrue("Diagonal peer missing", set.contains(0));
+        assertTrue("Anti diagonal peer missing", set.contains(8));
+        assertFalse("Cell is its own peer", set.contains(cell));
+    }
+
+    @Test
+    /**
+     * Tests a geometry with irregular regions.
+     */
+    public void testVariantRegions() {
+        int[] regions = {
+                0, 0, 1, 1, 0, 2, 1, 1, 0, 2, 3, 3, 2, 2, 3, 3
+        };
+        SudokuGeometry geometry = SudokuGeometry.forVariant(new SudokuVariant(
+                (short) 2).withRegions(regions));
+        assertTrue("Not irregular", geometry.isIrregular());
+        assertFalse("Constraints", geometry.hasConstraints());
+        assertEquals("Wrong square", 2, geometry.getSquare(5));
+        assertTrue("Wrong region cells", Arrays.equals(new int[] {
+                5, 9, 12, 13
+        }, geometry.getUnit(8 + 2)));
+        assertEquals("Wrong number of peers", 7, geometry.getPeers(5).length);
+    }
+
+    @Test
+    /**
+     * Tests the cages of a geometry.
+     */
+    public void testVariantCages() {
+        SudokuGeometry geometry = SudokuGeometry.forVariant(new SudokuVariant(
+                (short) 3).withCage(17, 0, 40).withCage(6, 1, 2, 3));
+        assertEquals("Wrong cage count", 2, geometry.getCageCount());
+        assertEquals("Wrong cage (1)", 0, geometry.getCage(40));
+        assertEquals("Wrong cage (2)", 1, geometry.getCage(2));
+        assertEquals("Wrong cage (3)", -1, geometry.getCage(4));
+        assertEquals("Wrong sum", 6, geometry.getCageSum(1));
+        assertEquals("Wrong cells", 3, geometry.getCageCells(1).length);
+        assertEquals("Wrong number of peers", 21,
+                geometry.getPeers(40).length);
+    }
+
+    @Test
+    /**
+     * Tests the table with the numbers forming the sums of cages.
+     */
+    public void testCombinations() {
+        SudokuGeometry geometry = SudokuGeometry.forVariant(new SudokuVariant(
+                (short) 3).withCage(17, 0, 40).withCage(6, 1, 2, 3));
+        assertEquals("Wrong combinations (1)", 0x180,
+                geometry.getCombinations(2, 17));
+        assertEquals("Wrong combinations (2)", 0x7,
+                geometry.getCombinations(3, 6));
+        assertEquals("Wrong combinations (3)", 0x1EF,
+                geometry.getCombinations(2, 10));
+        assertEquals("Wrong combinations (4)", 0x10,
+                geometry.getCombinations(1, 5));
+        assertEquals("Wrong combinations (5)", 0,
+                geometry.getCombinations(1, 10));
+        assertEquals("Wrong combinations (6)", 0,
+                geometry.getCombinations(3, 5));
+    }
+
+    @Test
+    /**
+     * Tests whether instances requested by multiple threads are shared.
+     */
+    public void testGetInstanceConcurrent() throws InterruptedException {
+        final int threadCount = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final SudokuGeometry[] results = new SudokuGeometry[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results[index] = SudokuGeometry.getInstance((short) 7);
+                    } catch (InterruptedException iex) {
+                        interrupt();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        for (SudokuGeometry geometry : results) {
+            assertSame("Different instances",
+                    SudokuGeometry.getInstance((short) 7), geometry);
+        }
+    }
+
+    @Test
+    /**
+     * Tests the units of a cell.
+     */
+    public void testGetUnits() {
+        SudokuGeometry geometry = SudokuGeometry.getInstance((short) 3);
+        assertTrue("Wrong units (1)", Arrays.equals(new int[] {
+                4, 9 + 5, 18 + 4
+        }, geometry.getUnits(41)));
+        assertTrue("Wrong units (2)", Arrays.equals(new int[] {
+                0, 9, 18
+        }, geometry.getUnits(0)));
+    }
+
+    @Test
+    /**
+     * Tests the units of a cell if the diagonals are units.
+     */
+    public void testGetUnitsDiagonals() {
+        SudokuGeometry geometry = SudokuGeometry.forVariant(new SudokuVariant(
+                (short) 3).withDiagonals());
+        assertTrue("Wrong units (1)", Arrays.equals(new int[] {
+                4, 13, 22, 27, 28
+        }, geometry.getUnits(40)));
+        assertTrue("Wrong units (2)", Arrays.equals(new int[] {
+                0, 17, 20, 28
+        }, geometry.getUnits(8)));
+        assertEquals("Wrong number of units", 3,
+                geometry.getUnits(1).length);
+    }
+}
@@ -0,0 +1,348 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for SudokuServer.
+ *
+ * @author Oliver Heger
+ */
+public class TestSudokuServer {
+    /** A pattern for extracting solutions from a response. */
+    private static final Pattern SOLUTION = Pattern
+            .compile("\"solution\":\"(\\d+)\"");
+
+    /** A pattern for extracting the average latency from the metrics. */
+    private static final Pattern AVERAGE_LATENCY = Pattern
+            .compile("\"averageLatencyMs\":(\\d+)");
+
+    /** A latch for blocking the worker thread. */
+    private CountDownLatch latch;
+
+    /** Stores the object to be tested. */
+    private SudokuServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        latch = new CountDownLatch(1);
+        server = new SudokuServer((short) 3, 1, 1);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                0));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        latch.countDown();
+        server.stop();
+    }
+
+    /**
+     * Sends a request to the server.
+     *
+     * @param path the path
+     * @param body the body of a POST request or <b>null</b> for GET
+     * @param response a buffer for the response body
+     * @return the HTTP status code
+     */
+    private int request(String path, String body, StringBuilder response)
+            throws IOException {
+        URL url = new URL("http", "localhost", server.getPort(), path);
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        if (body != null) {
+            con.setDoOutput(true);
+            con.setRequestMethod("POST");
+            OutputStream out = con.getOutputStream();
+            out.write(body.getBytes(StandardCharsets.US_ASCII));
+            out.close();
+        }
+        int status = con.getResponseCode();
+        InputStream in = (status < 400) ? con.getInputStream() : con
+                .getErrorStream();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int count;
+        while ((count = in.read(buf)) > 0) {
+            bos.write(buf, 0, count);
+        }
+        in.close();
+        response.append(new String(bos.toByteArray(),
+                StandardCharsets.UTF_8));
+        return status;
+    }
+
+    /**
+     * Blocks the single worker thread of the server until the latch is
+     * released.
+     */
+    private void blockWorker() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        server.getWorkers().execute(new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    latch.await();
+                } catch (InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        started.await();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid number of threads is rejected.
+     */
+    public void testInitInvalidThreads() {
+        new SudokuServer((short) 3, 0, 1);
+    }
+
+    @Test
+    /**
+     * Tests solving a batch of puzzles.
+     */
+    public void testSolve() throws Exception {
+        StringBuilder response = new StringBuilder();
+        assertEquals("Wrong status", 200, request("/solve",
+                TestSudokuSolver.PUZZLE + "\n" + TestSudokuSolver.HARD_PUZZLE
+                        + "\n", response));
+        Matcher m = SOLUTION.matcher(response);
+        for (String puzzle : new String[] {
+                TestSudokuSolver.PUZZLE, TestSudokuSolver.HARD_PUZZLE
+        }) {
+            assertTrue("No solution: " + response, m.find());
+            SudokuSolver solver = new SudokuSolver((short) 3);
+            TestSudokuSolver.initPuzzle(solver, m.group(1));
+            TestSudokuSolver.checkSolution(solver);
+            TestSudokuSolver.checkPresets(solver, puzzle);
+        }
+    }
+
+    @Test
+    /**
+     * Tests the results for invalid puzzles.
+     */
+    public void testSolveInvalid() throws Exception {
+        StringBuilder response = new StringBuilder();
+        assertEquals("Wrong status", 200, request("/solve", "11"
+                + TestSudokuSolver.PUZZLE.substring(2) + "\n123\n", response));
+        assertTrue("Wrong response: " + response, response.toString()
+                .startsWith("[{\"status\":\"INVALID\",\"error\":"
+                        + "\"ROW_OCCUPIED 1\"},{\"status\":\"INVALID\""));
+    }
+
+    @Test
+    /**
+     * Tests whether an invalid puzzle in a batch is reported if the cache is
+     * enabled.
+     */
+    public void testSolveInvalidWithCache() throws Exception {
+        server.setCache(new SolutionCache(10));
+        StringBuilder response = new StringBuilder();
+        String invalid = TestSudokuSolver.PUZZLE.substring(0, 2) + "a"
+                + TestSudokuSolver.PUZZLE.substring(3);
+        assertEquals("Wrong status", 200, request("/solve",
+                TestSudokuSolver.PUZZLE + "\n" + invalid + "\n"
+                        + TestSudokuSolver.HARD_PUZZLE + "\n", response));
+        String result = response.toString();
+        assertTrue("Wrong response: " + result, result.startsWith(
+                "[{\"status\":\"SOLVED\""));
+        assertTrue("Wrong response: " + result, result.contains(
+                "},{\"status\":\"INVALID\",\"error\":"));
+        Matcher m = SOLUTION.matcher(response);
+        assertTrue("No first solution: " + result, m.find());
+        assertTrue("No second solution: " + result, m.find());
+        SudokuSolver solver = new SudokuSolver((short) 3);
+        TestSudokuSolver.initPuzzle(solver, m.group(1));
+        TestSudokuSolver.checkPresets(solver, TestSudokuSolver.HARD_PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests that only POST requests are accepted for solving.
+     */
+    public void testSolveGet() throws Exception {
+        assertEquals("Wrong status", 405, request("/solve", null,
+                new StringBuilder()));
+    }
+
+    @Test
+    /**
+     * Tests whether requests are rejected if the queue is full.
+     */
+    public void testOverload() throws Exception {
+        blockWorker();
+        server.getWorkers().execute(new Runnable() {
+            public void run() {
+            }
+        });
+        StringBuilder response = new StringBuilder();
+        assertEquals("Wrong status", 503, request("/solve",
+                TestSudokuSolver.PUZZLE, response));
+        latch.countDown();
+        response.setLength(0);
+        request("/metrics", null, response);
+        assertTrue("Rejection not counted: " + response, response
+                .toString().contains("\"rejected\":1"));
+    }
+
+    @Test
+    /**
+     * Tests whether the number of HTTP threads stays bounded if many
+     * requests arrive while the queue is full.
+     */
+    public void testOverloadBoundedHttpThreads() throws Exception {
+        blockWorker();
+        server.getWorkers().execute(new Runnable() {
+            public void run() {
+            }
+        });
+        final int count = 20;
+        final int[] status = new int[count];
+        Thread[] clients = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            clients[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        status[index] = request("/solve",
+                                TestSudokuSolver.PUZZLE, new StringBuilder());
+                    } catch (IOException ioex) {
+                        status[index] = -1;
+                    }
+                }
+            };
+            clients[i].start();
+        }
+        for (Thread t : clients) {
+            t.join();
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals("Wrong status " + i, 503, status[i]);
+        }
+        assertTrue("Too many HTTP threads", server.getHttpExecutor()
+                .getLargestPoolSize() <= 4);
+        latch.countDown();
+    }
+
+    @Test
+    /**
+     * Tests whether puzzles are aborted when the time limit is exceeded.
+     */
+    public void testTimeout() throws Exception {
+        server.setTimeout(1);
+        blockWorker();
+        new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException iex) {
+                    // ignore
+                }
+                latch.countDown();
+            }
+        }.start();
+        StringBuilder response = new StringBuilder();
+        assertEquals("Wrong status", 200, request("/solve",
+                TestSudokuSolver.PUZZLE, response));
+        assertEquals("Wrong response", "[{\"status\":\"ABORTED\"}]",
+                response.toString());
+    }
+
+    /**
+     * Extracts the average latency from the metrics of the server.
+     *
+     * @return the average latency in milliseconds
+     */
+    private long averageLatency() throws IOException {
+        StringBuilder response = new StringBuilder();
+        request("/metrics", null, response);
+        Matcher m = AVERAGE_LATENCY.matcher(response);
+        assertTrue("No average latency: " + response, m.find());
+        return Long.parseLong(m.group(1));
+    }
+
+    @Test
+    /**
+     * Tests that rejected requests do not change the average latency.
+     */
+    public void testAverageLatencyIgnoresRejectedRequests() throws Exception {
+        blockWorker();
+        new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException iex) {
+                    // ignore
+                }
+                latch.countDown();
+            }
+        }.start();
+        assertEquals("Wrong status", 200, request("/solve",
+                TestSudokuSolver.PUZZLE, new StringBuilder()));
+        long average = averageLatency();
+        assertTrue("Latency too small: " + average, average >= 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Wrong status", 405, request("/solve", null,
+                    new StringBuilder()));
+        }
+        assertEquals("Average latency changed", average, averageLatency());
+    }
+
+    @Test
+    /**
+     * Tests whether the cache is used and the metrics are reported.
+     */
+    public void testCacheAndMetrics() throws Exception {
+        server.setCache(new SolutionCache(10));
+        StringBuilder response = new StringBuilder();
+        request("/solve", TestSudokuSolver.PUZZLE, response);
+        request("/solve", TestSudokuSolver.PUZZLE, response);
+        response.setLength(0);
+        assertEquals("Wrong status", 200, request("/metrics", null,
+                response));
+        String metrics = response.toString();
+        assertTrue("No requests: " + metrics,
+                metrics.contains("\"requests\":2,"));
+        assertTrue("No puzzles: " + metrics,
+                metrics.contains("\"solved\":2,"));
+        assertTrue("No hits: " + metrics,
+                metrics.contains("\"cacheHits\":1,"));
+        assertTrue("No misses: " + metrics,
+                metrics.contains("\"cacheMisses\":1}"));
+    }
+}
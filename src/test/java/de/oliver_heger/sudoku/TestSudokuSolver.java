@@ -17,14 +17,24 @@ package de.oliver_heger.sudoku;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
 /**
  * Test class for SudokuSolver.
  *
@@ -38,6 +48,14 @@ public class TestSudokuSolver {
     /** Constant for the field size. */
     private static final short FIELD_SIZE = 9;
 
+    /** Constant for a sudoku puzzle with some presets. */
+    static final String PUZZLE = "530070000600195000098000060"
+            + "800060003400803001700020006060000280000419005000080079";
+
+    /** Constant for a puzzle which is hard for a brute force search. */
+    static final String HARD_PUZZLE = "800000000003600000070090200"
+            + "050007000000045700000100030001000068008500010090000400";
+
     /** Stores the object to be tested. */
     private SudokuSolver solver;
 
@@ -92,6 +110,44 @@ public class TestSudokuSolver {
                 solver.getSquareIndex(SQUARE_SIZE, SQUARE_SIZE));
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a square size that is too big is rejected.
+     */
+    public void testInitSquareSizeTooBig() {
+        new SudokuSolver((short) (SudokuSolver.MAX_SQUARE_SIZE + 1));
+    }
+
+    @Test
+    /**
+     * Tests a solver with the maximum square size.
+     */
+    public void testInitMaxSquareSize() throws SudokuSolverException {
+        SudokuSolver bigSolver = new SudokuSolver(SudokuSolver.MAX_SQUARE_SIZE);
+        short max = bigSolver.getFieldSize();
+        bigSolver.setCell(0, 0, max);
+        assertTrue("Max number not used", bigSolver.isRowUsed(max, 0));
+        assertEquals("Wrong candidates", ~SudokuSolver.numberMask(max),
+                bigSolver.getCandidates(0, 1));
+    }
+
+    @Test
+    /**
+     * Tests querying the candidates of a cell.
+     */
+    public void testGetCandidates() throws SudokuSolverException {
+        final long all = (1L << FIELD_SIZE) - 1;
+        assertEquals("Wrong initial candidates", all,
+                solver.getCandidates(4, 4));
+        solver.setCell(4, 0, (short) 1);
+        solver.setCell(0, 4, (short) 2);
+        solver.setCell(3, 3, (short) 3);
+        solver.setCell(8, 8, (short) 4);
+        assertEquals("Wrong candidates", all & ~7L, solver.getCandidates(4, 4));
+        assertEquals("Wrong candidates of other cell", all & ~10L,
+                solver.getCandidates(8, 4));
+    }
+
     @Test(expected = ArrayIndexOutOfBoundsException.class)
     /**
      * Tests accessing a cell with an invalid index.
@@ -206,13 +262,1240 @@ public class TestSudokuSolver {
         solver.setCell(0, 0, (short) 1);
         solver.setCell(1, 1, (short) 2);
         assertTrue("Sudoku could not be solved", solver.solve());
+        checkSolution(solver);
+        assertEquals("Wrong first value", (short) 1, solver.getCell(0, 0));
+        assertEquals("Wrong second value", (short) 2, solver.getCell(1, 1));
+    }
+
+    @Test
+    /**
+     * Tests whether the default search strategy is set.
+     */
+    public void testDefaultSearchStrategy() {
+        assertEquals("Wrong strategy", SearchStrategy.NUMBER_BY_COLUMN,
+                solver.getSearchStrategy());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tries to set a null search strategy.
+     */
+    public void testSetSearchStrategyNull() {
+        solver.setSearchStrategy(null);
+    }
+
+    @Test
+    /**
+     * Tests solving a sudoku with the minimum remaining values strategy.
+     */
+    public void testSolveMinimumRemainingValues() throws SudokuSolverException {
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Sudoku could not be solved", solver.solve());
+        checkSolution(solver);
+        checkPresets(solver, HARD_PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests whether the minimum remaining values strategy needs fewer nodes
+     * than the default strategy.
+     */
+    public void testMinimumRemainingValuesNodeCount()
+            throws SudokuSolverException {
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved with default strategy", solver.solve());
+        long defaultNodes = solver.getNodeCount();
+        SudokuSolver mrvSolver = new SudokuSolver(SQUARE_SIZE);
+        mrvSolver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        initPuzzle(mrvSolver, PUZZLE);
+        assertTrue("Not solved with MRV strategy", mrvSolver.solve());
+        checkSolution(mrvSolver);
+        assertTrue("No nodes counted", mrvSolver.getNodeCount() > 0);
+        assertTrue("Too many nodes: " + mrvSolver.getNodeCount() + " >= "
+                + defaultNodes, mrvSolver.getNodeCount() < defaultNodes);
+    }
+
+    @Test
+    /**
+     * Tests whether the progress matches the node count after a search.
+     */
+    public void testProgressAfterSearch() throws SudokuSolverException {
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        assertEquals("Wrong progress", solver.getNodeCount(),
+                solver.getProgress());
+    }
+
+    @Test
+    /**
+     * Tests whether the progress can be queried while a search is running.
+     */
+    public void testProgressWhileSearching() throws Exception {
+        initUnsolvable();
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                solver.solve();
+            }
+        };
+        t.start();
+        try {
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (solver.getProgress() == 0 && System.nanoTime() < end) {
+                Thread.sleep(10);
+            }
+            assertTrue("No progress", solver.getProgress() > 0);
+        } finally {
+            t.interrupt();
+            t.join();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether an easy sudoku can be solved by propagation only.
+     */
+    public void testSolvePropagationOnly() throws SudokuSolverException {
+        assertFalse("Propagation enabled", solver.isPropagation());
+        solver.setPropagation(true);
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Sudoku could not be solved", solver.solve());
+        checkSolution(solver);
+        checkPresets(solver, PUZZLE);
+        assertEquals("Search was needed", 0, solver.getNodeCount());
+        assertEquals("Wrong number of propagated cells", 51,
+                solver.getPropagatedCount());
+    }
+
+    @Test
+    /**
+     * Tests propagation in combination with the default search strategy.
+     */
+    public void testSolvePropagationNumberByColumn()
+            throws SudokuSolverException {
+        solver.setPropagation(true);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Sudoku could not be solved", solver.solve());
+        checkSolution(solver);
+        checkPresets(solver, HARD_PUZZLE);
+        assertTrue("No search", solver.getNodeCount() > 0);
+        assertTrue("No propagation", solver.getPropagatedCount() > 0);
+    }
+
+    @Test
+    /**
+     * Tests propagation in combination with the minimum remaining values
+     * strategy.
+     */
+    public void testSolvePropagationMinimumRemainingValues()
+            throws SudokuSolverException {
+        solver.setPropagation(true);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Sudoku could not be solved", solver.solve());
+        checkSolution(solver);
+        checkPresets(solver, HARD_PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests whether an unsolvable sudoku is detected by propagation and the
+     * field is restored.
+     */
+    public void testSolvePropagationUnsolvable() throws SudokuSolverException {
+        solver.setPropagation(true);
+        for (short i = 1; i < FIELD_SIZE - 1; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, FIELD_SIZE);
+        solver.setCell(4, FIELD_SIZE - 1, FIELD_SIZE);
+        assertFalse("Solved", solver.solve());
+        for (int col = 0; col < FIELD_SIZE; col++) {
+            assertEquals("Wrong cell value", (col == 0 || col == FIELD_SIZE - 1)
+                    ? 0 : col, solver.getCell(0, col));
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a large field can be solved on a thread with a small
+     * stack. This is possible because the search is not recursive.
+     */
+    public void testSolveLargeFieldSmallStack() throws InterruptedException {
+        final SudokuSolver bigSolver = new SudokuSolver((short) 5);
+        final boolean[] result = new boolean[1];
+        Thread t = new Thread(null, new Runnable() {
+            public void run() {
+                result[0] = bigSolver.solve();
+            }
+        }, "SmallStack", 16 * 1024);
+        t.start();
+        t.join();
+        assertTrue("Not solved", result[0]);
+        checkSolution(bigSolver);
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of a well-formed sudoku.
+     */
+    public void testCountSolutionsUnique() throws SudokuSolverException {
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(true);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertEquals("Wrong number of solutions", 1,
+                solver.countSolutions(10));
+        assertTrue("Not unique", solver.hasUniqueSolution());
+        for (int i = 0; i < HARD_PUZZLE.length(); i++) {
+            assertEquals("Field changed at " + i,
+                    (short) (HARD_PUZZLE.charAt(i) - '0'),
+                    solver.getCell(i / FIELD_SIZE, i % FIELD_SIZE));
+        }
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of a sudoku with multiple solutions. All
+     * search strategies must yield the same result.
+     */
+    public void testCountSolutionsMultiple() {
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            for (int i = 0; i < 2; i++) {
+                SudokuSolver s = new SudokuSolver((short) 2);
+                s.setSearchStrategy(strategy);
+                s.setPropagation(i > 0);
+                assertEquals("Wrong number of solutions", 288,
+                        s.countSolutions(1000));
+                assertFalse("Unique", s.hasUniqueSolution());
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether the limit of the solution count is taken into account.
+     */
+    public void testCountSolutionsLimit() {
+        assertEquals("Wrong number of solutions", 5, solver.countSolutions(5));
+        assertEquals("Cell changed", (short) 0, solver.getCell(0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests countSolutions() with an invalid limit.
+     */
+    public void testCountSolutionsInvalidLimit() {
+        solver.countSolutions(0);
+    }
+
+    @Test
+    /**
+     * Tests counting the solutions of an unsolvable sudoku.
+     */
+    public void testCountSolutionsUnsolvable() throws SudokuSolverException {
+        solver.setPropagation(true);
+        for (short i = 1; i < FIELD_SIZE - 1; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, FIELD_SIZE);
+        solver.setCell(4, FIELD_SIZE - 1, FIELD_SIZE);
+        assertEquals("Wrong number of solutions", 0, solver.countSolutions(2));
+        assertFalse("Unique", solver.hasUniqueSolution());
+    }
+
+    @Test
+    /**
+     * Tests the result of a successful search with a time limit.
+     */
+    public void testSolveWithTimeoutSolved() throws SudokuSolverException {
+        initPuzzle(solver, PUZZLE);
+        assertEquals("Wrong result", SolveResult.SOLVED,
+                solver.solve(10, TimeUnit.SECONDS));
+        assertFalse("Aborted", solver.isAborted());
+        checkSolution(solver);
+    }
+
+    @Test
+    /**
+     * Tests the result of a search for an unsolvable sudoku.
+     */
+    public void testSolveWithTimeoutUnsolvable() throws SudokuSolverException {
+        initUnsolvable();
+        solver.setPropagation(true);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        assertEquals("Wrong result", SolveResult.UNSOLVABLE,
+                solver.solve(10, TimeUnit.SECONDS));
+        assertFalse("Aborted", solver.isAborted());
+    }
+
+    @Test
+    /**
+     * Tests whether a search is aborted when the time limit is exceeded. A
+     * brute force search for an unsolvable sudoku takes very long.
+     */
+    public void testSolveWithTimeoutAborted() throws SudokuSolverException {
+        initUnsolvable();
+        assertEquals("Wrong result", SolveResult.ABORTED,
+                solver.solve(100, TimeUnit.MILLISECONDS));
+        assertTrue("Not aborted", solver.isAborted());
+        assertEquals("Field not restored", 0, solver.getCell(1, 1));
+        assertEquals("Preset removed", 1, solver.getCell(0, 1));
+    }
+
+    @Test
+    /**
+     * Tests whether a search is aborted if the thread is interrupted.
+     */
+    public void testSolveInterrupted() throws SudokuSolverException {
+        initUnsolvable();
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse("Solved", solver.solve());
+            assertTrue("Not aborted", solver.isAborted());
+            assertTrue("Interrupted flag cleared", Thread.currentThread()
+                    .isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a search is aborted when the node limit is exceeded.
+     */
+    public void testSolveNodeLimit() throws SudokuSolverException {
+        final long limit = 5000;
+        initUnsolvable();
+        solver.setNodeLimit(limit);
+        assertEquals("Wrong result", SolveResult.ABORTED,
+                solver.solve(0, TimeUnit.MILLISECONDS));
+        assertTrue("Too many nodes: " + solver.getNodeCount(),
+                solver.getNodeCount() <= limit + 1);
+        solver.setNodeLimit(0);
+        solver.setPropagation(true);
+        assertEquals("Wrong result without limit", SolveResult.UNSOLVABLE,
+                solver.solve(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a negative node limit is rejected.
+     */
+    public void testSetNodeLimitNegative() {
+        solver.setNodeLimit(-1);
+    }
+
+    @Test
+    /**
+     * Tests that counting solutions can be aborted.
+     */
+    public void testCountSolutionsAborted() {
+        solver.setNodeLimit(100);
+        assertTrue("Wrong number of solutions",
+                solver.countSolutions(1000) < 1000);
+        assertTrue("Not aborted", solver.isAborted());
+    }
+
+    @Test
+    /**
+     * Tests that no statistics are collected per default.
+     */
+    public void testStatisticsDisabledByDefault() throws SudokuSolverException {
+        assertFalse("Statistics enabled", solver.isStatisticsEnabled());
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        assertNull("Got statistics", solver.getStatistics());
+    }
+
+    @Test
+    /**
+     * Tests the statistics of a search without propagation.
+     */
+    public void testStatisticsSearch() throws SudokuSolverException {
+        solver.setStatisticsEnabled(true);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        SearchStatistics stats = solver.getStatistics();
+        assertEquals("Wrong node count", solver.getNodeCount(),
+                stats.getNodeCount());
+        assertTrue("No backtracks", stats.getBacktrackCount() > 0);
+        assertTrue("Wrong backtracks",
+                stats.getBacktrackCount() < stats.getNodeCount());
+        assertTrue("Wrong depth: " + stats.getMaxDepth(),
+                stats.getMaxDepth() > 0 && stats.getMaxDepth() <= 81);
+        assertTrue("No time", stats.getTime() > 0);
+        assertEquals("Propagated cells", 0, stats.getPropagatedCount());
+    }
+
+    @Test
+    /**
+     * Tests the statistics of a sudoku which can be solved by propagation.
+     */
+    public void testStatisticsPropagation() throws SudokuSolverException {
+        solver.setStatisticsEnabled(true);
+        solver.setPropagation(true);
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        SearchStatistics stats = solver.getStatistics();
+        assertEquals("Wrong depth", 0, stats.getMaxDepth());
+        assertEquals("Wrong backtracks", 0, stats.getBacktrackCount());
+        assertEquals("Wrong propagated count", solver.getPropagatedCount(),
+                stats.getPropagatedCount());
+        assertEquals("Wrong technique counts", stats.getPropagatedCount(),
+                stats.getTechniqueCount(Technique.NAKED_SINGLE)
+                        + stats.getTechniqueCount(Technique.HIDDEN_SINGLE));
+        assertTrue("No naked singles",
+                stats.getTechniqueCount(Technique.NAKED_SINGLE) > 0);
+        String s = stats.toString();
+        assertTrue("No nodes in string: " + s, s.contains("nodes=0"));
+        assertTrue("No techniques in string: " + s,
+                s.contains("NAKED_SINGLE="));
+    }
+
+    @Test
+    /**
+     * Tests the default settings for elimination techniques.
+     */
+    public void testTechniquesDefault() {
+        assertTrue("Got techniques", solver.getTechniques().isEmpty());
+        assertEquals("Wrong budget", 0, solver.getTechniqueBudget());
+    }
+
+    @Test
+    /**
+     * Tests whether the single techniques are ignored by setTechniques().
+     */
+    public void testSetTechniquesIgnoresSingles() {
+        solver.setTechniques(EnumSet.allOf(Technique.class));
+        Set<Technique> techniques = solver.getTechniques();
+        assertEquals("Wrong number of techniques",
+                Technique.values().length - 2, techniques.size());
+        for (Technique t : techniques) {
+            assertTrue("Not an elimination technique: " + t,
+                    t.isElimination());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests setTechniques() with a null set.
+     */
+    public void testSetTechniquesNull() {
+        solver.setTechniques(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a negative technique budget is rejected.
+     */
+    public void testSetTechniqueBudgetNegative() {
+        solver.setTechniqueBudget(-1);
+    }
+
+    @Test
+    /**
+     * Tests whether pointing locked candidates are removed.
+     */
+    public void testTechniquePointing() throws SudokuSolverException {
+        short[] values = { 2, 3, 4, 5, 6, 7 };
+        for (int i = 0; i < values.length; i++) {
+            solver.setCell(1 + i / 3, i % 3, values[i]);
+        }
+        checkElimination(Technique.POINTING, 0, 3, (short) 1);
+    }
+
+    @Test
+    /**
+     * Tests whether claiming locked candidates are removed.
+     */
+    public void testTechniqueClaiming() throws SudokuSolverException {
+        for (short col = 3; col < FIELD_SIZE; col++) {
+            solver.setCell(0, col, (short) (col - 1));
+        }
+        checkElimination(Technique.CLAIMING, 1, 0, (short) 1);
+    }
+
+    @Test
+    /**
+     * Tests whether the candidates of a naked pair are removed.
+     */
+    public void testTechniqueNakedPair() throws SudokuSolverException {
+        for (short col = 2; col < FIELD_SIZE; col++) {
+            solver.setCell(0, col, (short) (col + 1));
+        }
+        checkElimination(Technique.NAKED_PAIR, 2, 2, (short) 2);
+    }
+
+    @Test
+    /**
+     * Tests solving a hard sudoku with each elimination technique. The
+     * techniques have to be applied and must not increase the number of
+     * nodes.
+     */
+    public void testSolveWithTechniques() throws SudokuSolverException {
+        solver.setPropagation(true);
+        solver.setStatisticsEnabled(true);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Not solved without techniques", solver.solve());
+        long nodes = solver.getNodeCount();
+
+        for (Technique t : Technique.values()) {
+            if (t.isElimination()) {
+                solver.setTechniques(EnumSet.of(t));
+                solver.load(toCells(HARD_PUZZLE));
+                assertTrue("Not solved with " + t, solver.solve());
+                checkSolution(solver);
+                checkPresets(solver, HARD_PUZZLE);
+            }
+        }
+
+        solver.setTechniques(EnumSet.allOf(Technique.class));
+        solver.load(toCells(HARD_PUZZLE));
+        assertTrue("Not solved with all techniques", solver.solve());
+        checkSolution(solver);
+        assertTrue("Too many nodes", solver.getNodeCount() <= nodes);
+        SearchStatistics stats = solver.getStatistics();
+        assertEquals("Wrong propagated count", solver.getPropagatedCount(),
+                stats.getPropagatedCount());
+        long hits = 0;
+        for (Technique t : Technique.values()) {
+            if (t.isElimination()) {
+                hits += stats.getTechniqueCount(t);
+            }
+        }
+        assertTrue("No eliminations", hits > 0);
+        assertEquals("Wrong difficulty", Difficulty.HARD,
+                Difficulty.of(stats));
+    }
+
+    @Test
+    /**
+     * Tests that elimination techniques do not lose any solutions. The
+     * solutions of an empty small field are counted with each technique.
+     */
+    public void testCountSolutionsWithTechniques() {
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            for (Technique t : Technique.values()) {
+                SudokuSolver s = new SudokuSolver((short) 2);
+                s.setSearchStrategy(strategy);
+                s.setPropagation(true);
+                s.setTechniques(EnumSet.of(t));
+                assertEquals("Wrong number of solutions for " + t, 288,
+                        s.countSolutions(1000));
+            }
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a hard sudoku can be solved with a small technique
+     * budget.
+     */
+    public void testSolveWithTechniqueBudget() throws SudokuSolverException {
+        solver.setPropagation(true);
+        solver.setTechniques(EnumSet.allOf(Technique.class));
+        solver.setTechniqueBudget(1);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        checkSolution(solver);
+        assertEquals("Wrong budget", 1, solver.getTechniqueBudget());
+    }
+
+    @Test
+    /**
+     * Tests whether an unsolvable sudoku is detected with elimination
+     * techniques and the field is restored.
+     */
+    public void testSolveWithTechniquesUnsolvable()
+            throws SudokuSolverException {
+        solver.setTechniques(EnumSet.allOf(Technique.class));
+        solver.setPropagation(true);
+        for (short i = 1; i < FIELD_SIZE - 1; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, FIELD_SIZE);
+        solver.setCell(4, FIELD_SIZE - 1, FIELD_SIZE);
+        assertFalse("Solved", solver.solve());
+        assertEquals("Candidates not restored",
+                SudokuSolver.numberMask((short) (FIELD_SIZE - 1)),
+                solver.getCandidates(0, 0));
+    }
+
+    @Test
+    /**
+     * Tests whether removed candidates are restored by reset().
+     */
+    public void testResetRestoresCandidates() throws SudokuSolverException {
+        for (short col = 2; col < FIELD_SIZE; col++) {
+            solver.setCell(0, col, (short) (col + 1));
+        }
+        solver.setPropagation(true);
+        solver.setTechniques(EnumSet.of(Technique.NAKED_PAIR));
+        assertTrue("Contradiction", solver.propagateField());
+        solver.reset();
+        assertEquals("Candidates not restored", 0x1FF,
+                solver.getCandidates(2, 2));
+    }
+
+    @Test
+    /**
+     * Tests that no step listener is set per default.
+     */
+    public void testStepListenerDefault() {
+        assertNull("Got a listener", solver.getStepListener());
+    }
+
+    @Test
+    /**
+     * Tests the trace of a sudoku which can be solved by propagation.
+     */
+    public void testTracePropagation() throws SudokuSolverException {
+        List<SolveStep> steps = installTrace();
+        solver.setPropagation(true);
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        assertEquals("Wrong number of steps", solver.getPropagatedCount(),
+                steps.size());
+        for (SolveStep step : steps) {
+            assertEquals("Wrong type", StepType.PLACE, step.getType());
+            assertEquals("Wrong value", solver.getCell(step.getRow(),
+                    step.getColumn()), step.getValue());
+            assertEquals("Wrong depth", 0, step.getDepth());
+            int expUnits = (step.getTechnique() == Technique.NAKED_SINGLE) ? 3
+                    : 1;
+            assertEquals("Wrong units", expUnits, step.getUnits().length);
+            assertTrue("Wrong string: " + step, step.toString().startsWith(
+                    "R" + (step.getRow() + 1) + "C" + (step.getColumn() + 1)
+                            + " = " + step.getValue() + " "
+                            + step.getTechnique().name() + " in "));
+        }
+    }
+
+    @Test
+    /**
+     * Tests the trace of a search. There must be a guess for each node and a
+     * backtrack step for each backtrack.
+     */
+    public void testTraceSearch() throws SudokuSolverException {
+        List<SolveStep> steps = installTrace();
+        solver.setPropagation(true);
+        solver.setStatisticsEnabled(true);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        int guesses = 0;
+        int backtracks = 0;
+        int depth = 0;
+        for (SolveStep step : steps) {
+            switch (step.getType()) {
+            case GUESS:
+                guesses++;
+                assertEquals("Wrong guess depth", depth + 1, step.getDepth());
+                assertNull("Got a technique", step.getTechnique());
+                assertTrue("Wrong string: " + step, step.toString()
+                        .endsWith(" guessed at depth " + step.getDepth()));
+                break;
+            case BACKTRACK:
+                backtracks++;
+                assertTrue("Wrong backtrack depth", step.getDepth() < depth);
+                assertEquals("Wrong row", -1, step.getRow());
+                break;
+            default:
+                assertEquals("Wrong propagation depth", depth,
+                        step.getDepth());
+            }
+            depth = step.getDepth();
+        }
+        assertEquals("Wrong number of guesses", solver.getNodeCount(),
+                guesses);
+        assertEquals("Wrong number of backtracks", solver.getStatistics()
+                .getBacktrackCount(), backtracks);
+    }
+
+    @Test
+    /**
+     * Tests the trace of candidates removed by an elimination technique.
+     */
+    public void testTraceElimination() throws SudokuSolverException {
+        List<SolveStep> steps = installTrace();
+        for (short col = 3; col < FIELD_SIZE; col++) {
+            solver.setCell(0, col, (short) (col - 1));
+        }
+        solver.setPropagation(true);
+        solver.setTechniques(EnumSet.of(Technique.CLAIMING));
+        assertTrue("Contradiction", solver.propagateField());
+        SolveStep step = steps.get(0);
+        assertEquals("Wrong type", StepType.ELIMINATE, step.getType());
+        assertEquals("Wrong technique", Technique.CLAIMING,
+                step.getTechnique());
+        assertEquals("Wrong step", "R2C1 <> 1,8,9 CLAIMING in row 1, square 1",
+                step.toString());
+        assertEquals("Wrong value", 0, step.getValue());
+        assertTrue("Wrong units", Arrays.equals(new int[] {
+                0, 2 * FIELD_SIZE
+        }, step.getUnits()));
+    }
+
+    @Test
+    /**
+     * Tests whether the statistics are reset by a new search.
+     */
+    public void testStatisticsReset() throws SudokuSolverException {
+        solver.setStatisticsEnabled(true);
+        initPuzzle(solver, HARD_PUZZLE);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        assertTrue("Not solved (1)", solver.solve());
+        solver.setPropagation(true);
+        solver.load(toCells(PUZZLE));
+        assertTrue("Not solved (2)", solver.solve());
+        assertEquals("Nodes not reset", 0, solver.getStatistics()
+                .getNodeCount());
+        solver.setStatisticsEnabled(false);
+        assertNull("Still got statistics", solver.getStatistics());
+    }
+
+    @Test
+    /**
+     * Tests whether a solver can be reset and reused.
+     */
+    public void testReset() throws SudokuSolverException {
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved (1)", solver.solve());
+        solver.reset();
+        for (short row = 0; row < FIELD_SIZE; row++) {
+            for (short col = 0; col < FIELD_SIZE; col++) {
+                assertEquals("Cell not cleared", (short) 0,
+                        solver.getCell(row, col));
+                assertFalse("Row used", solver.isRowUsed((short) 1, row));
+                assertFalse("Column used", solver.isColumnUsed((short) 1, col));
+                assertFalse("Square used", solver.isSquareUsed((short) 1, row));
+            }
+        }
+        initPuzzle(solver, HARD_PUZZLE);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        assertTrue("Not solved (2)", solver.solve());
+        checkSolution(solver);
+        checkPresets(solver, HARD_PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests whether a puzzle can be loaded into a used solver.
+     */
+    public void testLoad() throws SudokuSolverException {
+        initPuzzle(solver, HARD_PUZZLE);
+        assertTrue("Not solved (1)", solver.solve());
+        solver.load(toCells(PUZZLE));
+        checkPresets(solver, PUZZLE);
+        assertTrue("Not solved (2)", solver.solve());
+        checkSolution(solver);
+        checkPresets(solver, PUZZLE);
+    }
+
+    @Test
+    /**
+     * Tests whether load() checks the presets.
+     */
+    public void testLoadInvalidPreset() {
+        short[] cells = toCells(PUZZLE);
+        cells[1] = cells[0];
+        try {
+            solver.load(cells);
+            fail("Invalid preset not detected!");
+        } catch (SudokuSolverException ssex) {
+            assertEquals("Wrong state", SudokuState.ROW_OCCUPIED,
+                    ssex.getState());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests load() with an array of a wrong length.
+     */
+    public void testLoadWrongLength() throws SudokuSolverException {
+        solver.load(new short[FIELD_SIZE]);
+    }
+
+    @Test
+    /**
+     * Tests whether the cells can be copied into an array.
+     */
+    public void testGetCells() throws SudokuSolverException {
+        solver.load(toCells(PUZZLE));
+        assertTrue("Not solved", solver.solve());
+        short[] cells = new short[FIELD_SIZE * FIELD_SIZE];
+        solver.getCells(cells);
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals("Wrong cell " + i, solver.getCell(i / FIELD_SIZE, i
+                    % FIELD_SIZE), cells[i]);
+        }
+    }
+
+    @Test
+    /**
+     * Tests that loading and solving puzzles does not allocate memory once
+     * the solver has been warmed up. This test requires a JVM which supports
+     * measuring the memory allocated by a thread.
+     */
+    public void testLoadAndSolveWithoutAllocation()
+            throws SudokuSolverException {
+        ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+        short[][] puzzles = {
+                toCells(PUZZLE), toCells(HARD_PUZZLE)
+        };
+        short[] solution = new short[FIELD_SIZE * FIELD_SIZE];
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(true);
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 1000; i++) {
+            loadAndSolve(puzzles[i % puzzles.length], solution);
+        }
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++) {
+            loadAndSolve(puzzles[i % puzzles.length], solution);
+        }
+        long after = bean.getThreadAllocatedBytes(threadId);
+        assertEquals("Memory allocated", 0, after - before);
+    }
+
+    @Test
+    /**
+     * Tests the default variant of a new solver.
+     */
+    public void testVariantDefault() {
+        SudokuVariant variant = solver.getVariant();
+        assertTrue("Not classic", variant.isClassic());
+        assertEquals("Wrong square size", SQUARE_SIZE,
+                variant.getSquareSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a null variant is rejected.
+     */
+    public void testSetVariantNull() {
+        solver.setVariant(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a variant with a different square size is rejected.
+     */
+    public void testSetVariantWrongSize() {
+        solver.setVariant(new SudokuVariant((short) 2));
+    }
+
+    @Test
+    /**
+     * Tests whether setting a variant clears the field.
+     */
+    public void testSetVariantClearsField() throws SudokuSolverException {
+        initPuzzle(solver, PUZZLE);
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withDiagonals());
+        for (int row = 0; row < FIELD_SIZE; row++) {
+            for (int col = 0; col < FIELD_SIZE; col++) {
+                assertEquals("Cell not cleared", 0, solver.getCell(row, col));
+            }
+        }
+        assertEquals("Wrong candidates", (1L << FIELD_SIZE) - 1,
+                solver.getCandidates(4, 4));
+    }
+
+    @Test
+    /**
+     * Tests whether a number can be placed only once on a diagonal.
+     */
+    public void testSetCellDuplicateDiagonal() throws SudokuSolverException {
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withDiagonals());
+        solver.setCell(0, 0, (short) 1);
+        solver.setCell(0, FIELD_SIZE - 1, (short) 2);
+        assertEquals("Wrong candidates", allNumbers() & ~3L,
+                solver.getCandidates(4, 4));
+        try {
+            solver.setCell(4, 4, (short) 1);
+            fail("Could put value on same diagonal!");
+        } catch (SudokuSolverException ssex) {
+            assertEquals("Wrong exception state",
+                    SudokuState.DIAGONAL_OCCUPIED, ssex.getState());
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether a number can be placed only once in a cage.
+     */
+    public void testSetCellDuplicateCage() throws SudokuSolverException {
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withCage(15, 0,
+                FIELD_SIZE + 4, 2 * FIELD_SIZE + 7));
+        solver.setCell(0, 0, (short) 6);
+        try {
+            solver.setCell(1, 4, (short) 6);
+            fail("Could put value in same cage!");
+        } catch (SudokuSolverException ssex) {
+            assertEquals("Wrong exception state", SudokuState.CAGE_OCCUPIED,
+                    ssex.getState());
+        }
+    }
+
+    @Test
+    /**
+     * Tests whether the sum of a cage is checked.
+     */
+    public void testSetCellCageSumViolated() throws SudokuSolverException {
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withCage(4, 0, 1));
+        assertEquals("Wrong candidates", 5L, solver.getCandidates(0, 1));
+        try {
+            solver.setCell(0, 0, (short) 2);
+            fail("Could exceed sum of cage!");
+        } catch (SudokuSolverException ssex) {
+            assertEquals("Wrong exception state",
+                    SudokuState.CAGE_SUM_VIOLATED, ssex.getState());
+        }
+        solver.setCell(0, 0, (short) 3);
+        assertEquals("Wrong candidates after set", 1L,
+                solver.getCandidates(0, 1));
+        solver.clearCell(0, 0);
+        assertEquals("Wrong candidates after clear", 5L,
+                solver.getCandidates(0, 1));
+    }
+
+    @Test
+    /**
+     * Tests whether a variant with the standard squares as regions is treated
+     * as a classic sudoku and searches in the same way.
+     */
+    public void testSolveStandardRegions() throws SudokuSolverException {
+        int[] regions = new int[FIELD_SIZE * FIELD_SIZE];
+        for (int cell = 0; cell < regions.length; cell++) {
+            regions[cell] = solver.getSquareIndex(cell / FIELD_SIZE, cell
+                    % FIELD_SIZE);
+        }
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved (1)", solver.solve());
+        long nodes = solver.getNodeCount();
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withRegions(regions));
+        assertTrue("Not classic", solver.getVariant().isClassic());
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved (2)", solver.solve());
+        assertEquals("Different search", nodes, solver.getNodeCount());
+    }
+
+    @Test
+    /**
+     * Tests solving an X-sudoku.
+     */
+    public void testSolveDiagonals() {
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withDiagonals());
+        checkSolveVariant();
+        solver.reset();
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        solver.setPropagation(false);
+        assertTrue("Not solved without propagation", solver.solve());
+        checkVariantSolution();
+    }
+
+    @Test
+    /**
+     * Tests solving a sudoku with irregular regions.
+     */
+    public void testSolveIrregularRegions() {
+        String layout = "103211222000111222000011122403574855333444555"
+                + "333344455766477888666777888666677885";
+        int[] regions = new int[layout.length()];
+        for (int cell = 0; cell < regions.length; cell++) {
+            regions[cell] = layout.charAt(cell) - '0';
+        }
+        solver.setVariant(new SudokuVariant(SQUARE_SIZE).withRegions(regions));
+        assertEquals("Wrong region", 3, solver.getSquareIndex(0, 2));
+        checkSolveVariant();
+    }
+
+    @Test
+    /**
+     * Tests solving a killer sudoku. The cages combine the cells of the
+     * solution of a puzzle in each row in pairs. If the presets of the puzzle
+     * are added, the solution must be found again.
+     */
+    public void testSolveCages() throws SudokuSolverException {
+        initPuzzle(solver, PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        short[] solution = new short[FIELD_SIZE * FIELD_SIZE];
+        solver.getCells(solution);
+        SudokuVariant variant = new SudokuVariant(SQUARE_SIZE);
+        for (int cell = 0; cell < solution.length; cell += FIELD_SIZE) {
+            for (int col = 0; col < FIELD_SIZE - 1; col += 2) {
+                variant = variant.withCage(solution[cell + col]
+                        + solution[cell + col + 1], cell + col, cell + col
+                        + 1);
+            }
+            variant = variant.withCage(solution[cell + FIELD_SIZE - 1], cell
+                    + FIELD_SIZE - 1);
+        }
+        solver.setVariant(variant);
+        checkSolveVariant();
+
+        solver.load(toCells(PUZZLE));
+        SudokuSolver copy = new SudokuSolver(solver);
+        assertTrue("Copy not unique", copy.hasUniqueSolution());
+        solver.setPropagation(true);
+        assertTrue("Not solved (2)", solver.solve());
+        short[] cells = new short[solution.length];
+        solver.getCells(cells);
+        assertTrue("Wrong solution", Arrays.equals(solution, cells));
+    }
+
+    @Test
+    /**
+     * Tests solving a sudoku which combines diagonals and cages. The cages
+     * are derived from the solution of an X-sudoku, so the combination must
+     * be solvable.
+     */
+    public void testSolveDiagonalsAndCages() {
+        SudokuVariant variant = new SudokuVariant(SQUARE_SIZE)
+                .withDiagonals();
+        solver.setVariant(variant);
+        solver.setSearchStrategy(SearchStrategy.MINIMUM_REMAINING_VALUES);
+        assertTrue("Not solved", solver.solve());
+        short[] solution = new short[FIELD_SIZE * FIELD_SIZE];
+        solver.getCells(solution);
+        for (int cell = 0; cell < FIELD_SIZE * 3; cell += 3) {
+            variant = variant.withCage(solution[cell] + solution[cell + 1]
+                    + solution[cell + 2], cell, cell + 1, cell + 2);
+        }
+        solver.setVariant(variant);
+        checkSolveVariant();
+    }
+
+    @Test
+    /**
+     * Tests whether an elimination in a diagonal is reported correctly.
+     */
+    public void testSolveStepDiagonal() {
+        SolveStep step = new SolveStep(StepType.PLACE, 0, 0, (short) 1, 0,
+                Technique.HIDDEN_SINGLE, new int[] {
+                    3 * FIELD_SIZE
+                }, 0, FIELD_SIZE);
+        assertEquals("Wrong string", "R1C1 = 1 HIDDEN_SINGLE in diagonal 1",
+                step.toString());
+    }
+
+    /**
+     * Solves the empty field of the test solver with its variant using
+     * both search strategies with propagation, with and without elimination
+     * techniques, and checks the solutions. (Without propagation, a search
+     * on an empty field can take very long.)
+     */
+    private void checkSolveVariant() {
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            for (int config = 0; config < 2; config++) {
+                solver.reset();
+                solver.setSearchStrategy(strategy);
+                solver.setPropagation(true);
+                solver.setTechniques(config > 0 ? EnumSet
+                        .allOf(Technique.class) : EnumSet
+                        .noneOf(Technique.class));
+                assertTrue("Not solved: " + strategy + ", " + config,
+                        solver.solve());
+                checkVariantSolution();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the field of the test solver is a valid solution for
+     * its variant.
+     */
+    private void checkVariantSolution() {
+        SudokuVariant variant = solver.getVariant();
+        short[] cells = new short[FIELD_SIZE * FIELD_SIZE];
+        solver.getCells(cells);
+        long[] rows = new long[FIELD_SIZE];
+        long[] columns = new long[FIELD_SIZE];
+        long[] regions = new long[FIELD_SIZE];
+        long[] diagonals = new long[2];
+        for (int cell = 0; cell < cells.length; cell++) {
+            int row = cell / FIELD_SIZE;
+            int col = cell % FIELD_SIZE;
+            long mask = SudokuSolver.numberMask(cells[cell]);
+            rows[row] |= mask;
+            columns[col] |= mask;
+            regions[variant.getRegion(cell)] |= mask;
+            if (row == col) {
+                diagonals[0] |= mask;
+            }
+            if (row + col == FIELD_SIZE - 1) {
+                diagonals[1] |= mask;
+            }
+        }
+        for (int i = 0; i < FIELD_SIZE; i++) {
+            assertEquals("Wrong row " + i, allNumbers(), rows[i]);
+            assertEquals("Wrong column " + i, allNumbers(), columns[i]);
+            assertEquals("Wrong region " + i, allNumbers(), regions[i]);
+        }
+        if (variant.isDiagonals()) {
+            assertEquals("Wrong diagonal", allNumbers(), diagonals[0]);
+            assertEquals("Wrong anti diagonal", allNumbers(), diagonals[1]);
+        }
+        for (int cage = 0; cage < variant.getCageCount(); cage++) {
+            long numbers = 0;
+            int sum = 0;
+            for (int cell : variant.getCageCells(cage)) {
+                numbers |= SudokuSolver.numberMask(cells[cell]);
+                sum += cells[cell];
+            }
+            assertEquals("Duplicate in cage " + cage,
+                    variant.getCageCells(cage).length, Long.bitCount(numbers));
+            assertEquals("Wrong sum of cage " + cage,
+                    variant.getCageSum(cage), sum);
+        }
+    }
+
+    /**
+     * Returns a mask with all numbers of the test sudoku.
+     *
+     * @return the mask with all numbers
+     */
+    private static long allNumbers() {
+        return (1L << FIELD_SIZE) - 1;
+    }
+
+    /**
+     * Helper method for loading and solving a puzzle and copying the solution
+     * into an array.
+     *
+     * @param puzzle the puzzle
+     * @param solution the array for the solution
+     * @throws SudokuSolverException if the puzzle is invalid
+     */
+    private void loadAndSolve(short[] puzzle, short[] solution)
+            throws SudokuSolverException {
+        solver.load(puzzle);
+        if (!solver.solve()) {
+            fail("Not solved!");
+        }
+        solver.getCells(solution);
+    }
+
+    /**
+     * Fills in presets which make the sudoku unsolvable: The number 9 can
+     * only be placed at the beginning or at the end of the first row, but
+     * both positions are blocked.
+     *
+     * @throws SudokuSolverException if an error occurs
+     */
+    private void initUnsolvable() throws SudokuSolverException {
+        for (short i = 1; i < FIELD_SIZE - 1; i++) {
+            solver.setCell(0, i, i);
+        }
+        solver.setCell(1, 0, FIELD_SIZE);
+        solver.setCell(4, FIELD_SIZE - 1, FIELD_SIZE);
+    }
+
+    /**
+     * Installs a step listener at the test solver which stores all steps in
+     * a list.
+     *
+     * @return the list with the steps
+     */
+    private List<SolveStep> installTrace() {
+        final List<SolveStep> steps = new ArrayList<SolveStep>();
+        solver.setStepListener(new SolveStepListener() {
+            public void step(SolveStep step) {
+                steps.add(step);
+            }
+        });
+        return steps;
+    }
+
+    /**
+     * Checks whether the given elimination technique removes a candidate
+     * from a cell when the field is propagated.
+     *
+     * @param technique the technique
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     * @param number the number to be removed
+     */
+    private void checkElimination(Technique technique, int row, int col,
+            short number) {
+        solver.setPropagation(true);
+        assertTrue("Contradiction (1)", solver.propagateField());
+        long mask = SudokuSolver.numberMask(number);
+        assertTrue("Not a candidate",
+                (solver.getCandidates(row, col) & mask) != 0);
+        solver.setTechniques(EnumSet.of(technique));
+        assertTrue("Contradiction (2)", solver.propagateField());
+        assertEquals("Candidate not removed", 0,
+                solver.getCandidates(row, col) & mask);
+    }
+
+    /**
+     * Fills the presets defined by the given string into a solver. The string
+     * contains one digit per cell; 0 means an empty cell.
+     *
+     * @param s the solver
+     * @param puzzle the puzzle string
+     */
+    static void initPuzzle(SudokuEngine s, String puzzle)
+            throws SudokuSolverException {
+        for (int i = 0; i < puzzle.length(); i++) {
+            short value = (short) (puzzle.charAt(i) - '0');
+            if (value > 0) {
+                s.setCell(i / s.getFieldSize(), i % s.getFieldSize(), value);
+            }
+        }
+    }
+
+    /**
+     * Converts a puzzle string to an array with the values of all cells.
+     *
+     * @param puzzle the puzzle string
+     * @return the array with the cell values
+     */
+    static short[] toCells(String puzzle) {
+        short[] cells = new short[puzzle.length()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (short) (puzzle.charAt(i) - '0');
+        }
+        return cells;
+    }
+
+    /**
+     * Checks whether the presets of a puzzle string are contained in the
+     * solver's field.
+     *
+     * @param s the solver
+     * @param puzzle the puzzle string
+     */
+    static void checkPresets(SudokuEngine s, String puzzle) {
+        for (int i = 0; i < puzzle.length(); i++) {
+            short value = (short) (puzzle.charAt(i) - '0');
+            if (value > 0) {
+                assertEquals("Preset changed at " + i, value,
+                        s.getCell(i / s.getFieldSize(), i % s.getFieldSize()));
+            }
+        }
+    }
+
+    /**
+     * Checks whether the field of the given solver contains a valid solution.
+     *
+     * @param solver the solver
+     */
+    static void checkSolution(SudokuEngine solver) {
         boolean[] check = new boolean[solver.getFieldSize()];
         for (int row = 0; row < check.length; row++) {
             Arrays.fill(check, false);
             for (int col = 0; col < check.length; col++) {
                 int n = solver.getCell(row, col) - 1;
                 assertTrue("Wrong number in (" + row + "," + col + "): " + n,
-                        n >= 0 && n < FIELD_SIZE);
+                        n >= 0 && n < check.length);
                 assertFalse("Duplicate number in row", check[n]);
                 check[n] = true;
             }
@@ -225,11 +1508,12 @@ public class TestSudokuSolver {
                 check[n] = true;
             }
         }
-        for (int x = 0; x < FIELD_SIZE; x += SQUARE_SIZE) {
-            for (int y = 0; y < FIELD_SIZE; y += SQUARE_SIZE) {
+        int sqSize = solver.getSquareSize();
+        for (int x = 0; x < check.length; x += sqSize) {
+            for (int y = 0; y < check.length; y += sqSize) {
                 Arrays.fill(check, false);
-                for (int col = 0; col < SQUARE_SIZE; col++) {
-                    for (int row = 0; row < SQUARE_SIZE; row++) {
+                for (int col = 0; col < sqSize; col++) {
+                    for (int row = 0; row < sqSize; row++) {
                         int n = solver.getCell(y + row, x + col) - 1;
                         assertFalse("Duplicate number in row", check[n]);
                         check[n] = true;
@@ -237,7 +1521,5 @@ public class TestSudokuSolver {
                 }
             }
         }
-        assertEquals("Wrong first value", (short) 1, solver.getCell(0, 0));
-        assertEquals("Wrong second value", (short) 2, solver.getCell(1, 1));
     }
 }
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for SudokuVariant.
+ *
+ * @author Oliver Heger
+ */
+public class TestSudokuVariant {
+    /** Constant for the square size. */
+    private static final short SQUARE_SIZE = 2;
+
+    /** An irregular layout of the regions. */
+    private static final int[] REGIONS = {
+            0, 0, 1, 1, 0, 2, 1, 1, 0, 2, 3, 3, 2, 2, 3, 3
+    };
+
+    /** The variant to be tested. */
+    private SudokuVariant variant;
+
+    @Before
+    public void setUp() throws Exception {
+        variant = new SudokuVariant(SQUARE_SIZE);
+    }
+
+    @Test
+    /**
+     * Tests a newly created variant.
+     */
+    public void testInit() {
+        assertEquals("Wrong square size", SQUARE_SIZE,
+                variant.getSquareSize());
+        assertEquals("Wrong field size", 4, variant.getFieldSize());
+        assertTrue("Not classic", variant.isClassic());
+        assertFalse("Diagonals", variant.isDiagonals());
+        assertFalse("Irregular", variant.isIrregular());
+        assertEquals("Got cages", 0, variant.getCageCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a square size which is too small is rejected.
+     */
+    public void testInitSquareSizeTooSmall() {
+        new SudokuVariant((short) 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a square size which is too big is rejected.
+     */
+    public void testInitSquareSizeTooBig() {
+        new SudokuVariant((short) (SudokuSolver.MAX_SQUARE_SIZE + 1));
+    }
+
+    @Test
+    /**
+     * Tests adding the diagonals.
+     */
+    public void testWithDiagonals() {
+        SudokuVariant x = variant.withDiagonals();
+        assertTrue("No diagonals", x.isDiagonals());
+        assertFalse("Classic", x.isClassic());
+        assertFalse("Original changed", variant.isDiagonals());
+    }
+
+    @Test
+    /**
+     * Tests the regions of a variant without irregular regions.
+     */
+    public void testGetRegionStandard() {
+        assertEquals("Wrong region (1)", 0, variant.getRegion(5));
+        assertEquals("Wrong region (2)", 1, variant.getRegion(6));
+        assertEquals("Wrong region (3)", 3, variant.getRegion(15));
+    }
+
+    @Test
+    /**
+     * Tests setting irregular regions.
+     */
+    public void testWithRegions() {
+        int[] regions = REGIONS.clone();
+        SudokuVariant jigsaw = variant.withRegions(regions);
+        regions[5] = 0;
+        assertTrue("Not irregular", jigsaw.isIrregular());
+        assertFalse("Classic", jigsaw.isClassic());
+        assertEquals("Wrong region (1)", 2, jigsaw.getRegion(5));
+        assertEquals("Wrong region (2)", 0, jigsaw.getRegion(8));
+    }
+
+    @Test
+    /**
+     * Tests whether the standard squares passed as regions are detected.
+     */
+    public void testWithRegionsStandard() {
+        int[] regions = new int[16];
+        for (int cell = 0; cell < regions.length; cell++) {
+            regions[cell] = variant.getRegion(cell);
+        }
+        assertTrue("Not classic", variant.withRegions(regions).isClassic());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether regions with a wrong number of cells are rejected.
+     */
+    public void testWithRegionsWrongLength() {
+        variant.withRegions(new int[15]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid region index is rejected.
+     */
+    public void testWithRegionsInvalidIndex() {
+        int[] regions = REGIONS.clone();
+        regions[0] = 4;
+        variant.withRegions(regions);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether regions with a wrong size are rejected.
+     */
+    public void testWithRegionsWrongSize() {
+        int[] regions = REGIONS.clone();
+        regions[0] = 1;
+        variant.withRegions(regions);
+    }
+
+    @Test
+    /**
+     * Tests adding cages.
+     */
+    public void testWithCage() {
+        int[] cells = {
+                0, 1, 4
+        };
+        SudokuVariant killer = variant.withCage(6, cells).withCage(3, 15);
+        cells[0] = 2;
+        assertEquals("Wrong number of cages", 2, killer.getCageCount());
+        assertEquals("Wrong sum", 6, killer.getCageSum(0));
+        assertEquals("Wrong cell", 0, killer.getCageCells(0)[0]);
+        killer.getCageCells(0)[1] = 3;
+        assertEquals("Array not copied", 1, killer.getCageCells(0)[1]);
+        assertEquals("Wrong cells", 1, killer.getCageCells(1).length);
+        assertFalse("Classic", killer.isClassic());
+        assertEquals("Original changed", 0, variant.getCageCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a cage without cells is rejected.
+     */
+    public void testWithCageNoCells() {
+        variant.withCage(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a cage with too many cells is rejected.
+     */
+    public void testWithCageTooManyCells() {
+        variant.withCage(10, 0, 1, 2, 3, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a cage with an invalid cell is rejected.
+     */
+    public void testWithCageInvalidCell() {
+        variant.withCage(3, 0, 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether a cage containing a cell twice is rejected.
+     */
+    public void testWithCageDuplicateCell() {
+        variant.withCage(3, 1, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether overlapping cages are rejected.
+     */
+    public void testWithCageOverlapping() {
+        variant.withCage(3, 0, 1).withCage(3, 1, 2);
+    }
+
+    @Test
+    /**
+     * Tests whether sums which cannot be formed are rejected.
+     */
+    public void testWithCageInvalidSum() {
+        int[][] sums = { { 2, 0, 1 }, { 8, 0, 1 }, { 0, 0 }, { 5, 0 } };
+        for (int[] cage : sums) {
+            try {
+                variant.withCage(cage[0],
+                        Arrays.copyOfRange(cage, 1, cage.length));
+                fail("Invalid sum not detected: " + cage[0]);
+            } catch (IllegalArgumentException iex) {
+                // ok
+            }
+        }
+        assertEquals("Wrong sum", 7, variant.withCage(7, 0, 1).getCageSum(0));
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2009-2013 The JGUIraffe Team.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.oliver_heger.sudoku;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ValidationSession.
+ *
+ * @author Oliver Heger
+ */
+public class TestValidationSession {
+    /** Constant for a bit mask with all numbers of a 9x9 sudoku. */
+    private static final long ALL = 0x1FF;
+
+    /** Stores the object to be tested. */
+    private ValidationSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        session = new ValidationSession((short) 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    /**
+     * Tests whether an invalid square size is rejected.
+     */
+    public void testInitInvalidSquareSize() {
+        new ValidationSession((short) 1);
+    }
+
+    @Test
+    /**
+     * Tests a newly created instance.
+     */
+    public void testInit() {
+        assertEquals("Wrong field size", 9, session.getFieldSize());
+        assertTrue("Not valid", session.isValid());
+        assertFalse("Complete", session.isComplete());
+        assertArrayEquals("Wrong candidates", new long[] { ALL },
+                session.getCandidates(4, 4));
+    }
+
+    @Test
+    /**
+     * Tests a session for a field with more than 64 numbers.
+     */
+    public void testLargeField() {
+        ValidationSession large = new ValidationSession((short) 9);
+        assertEquals("Wrong state 1", SudokuState.OK,
+                large.setCell(0, 0, (short) 81));
+        assertEquals("Wrong state 2", SudokuState.ROW_OCCUPIED,
+                large.setCell(0, 80, (short) 81));
+        assertEquals("Wrong state 3", SudokuState.INVALID_NUMBER,
+                large.setCell(1, 1, (short) 82));
+        large.clearCell(0, 80);
+        assertTrue("Not valid", large.isValid());
+        large.clear();
+        assertEquals("Wrong filled count", 0, large.getFilledCount());
+    }
+
+    @Test
+    /**
+     * Tests the candidates of a cell in a field with more than 64 numbers.
+     */
+    public void testLargeFieldCandidates() {
+        ValidationSession large = new ValidationSession((short) 9);
+        long[] all = { -1L, (1L << 17) - 1 };
+        assertArrayEquals("Wrong initial candidates", all,
+                large.getCandidates(0, 0));
+        large.setCell(0, 5, (short) 81);
+        large.setCell(7, 0, (short) 64);
+        large.setCell(1, 1, (short) 1);
+        large.setCell(40, 40, (short) 2);
+        assertArrayEquals("Wrong candidates", new long[] {
+                all[0] & ~(1L << 63) & ~1L, all[1] & ~(1L << 16)
+        }, large.getCandidates(0, 0));
+        large.setCell(0, 0, (short) 65);
+        assertArrayEquals("Own number excluded", new long[] {
+                all[0] & ~(1L << 63) & ~1L, all[1] & ~(1L << 16)
+        }, large.getCandidates(0, 0));
+        large.setCell(2, 2, (short) 65);
+        assertArrayEquals("Conflicting number included", new long[] {
+                all[0] & ~(1L << 63) & ~1L, all[1] & ~(1L << 16) & ~1L
+        }, large.getCandidates(0, 0));
+    }
+
+    @Test
+    /**
+     * Tests whether conflicts are detected and resolved.
+     */
+    public void testConflicts() {
+        assertEquals("Wrong state 1", SudokuState.OK,
+                session.setCell(0, 0, (short) 5));
+        assertEquals("Wrong state 2", SudokuState.ROW_OCCUPIED,
+                session.setCell(0, 8, (short) 5));
+        assertEquals("Wrong state of first cell", SudokuState.ROW_OCCUPIED,
+                session.getState(0, 0));
+        assertEquals("Wrong state 3", SudokuState.COLUMN_OCCUPIED,
+                session.setCell(8, 0, (short) 5));
+        assertEquals("Wrong conflict count", 2, session.getConflictCount());
+        assertFalse("Valid", session.isValid());
+
+        session.clearCell(0, 0);
+        assertEquals("Wrong state after clear", SudokuState.OK,
+                session.getState(0, 8));
+        assertTrue("Not valid", session.isValid());
+        assertEquals("Wrong filled count", 2, session.getFilledCount());
+    }
+
+    @Test
+    /**
+     * Tests whether a conflict in a square is detected.
+     */
+    public void testSquareConflict() {
+        session.setCell(0, 0, (short) 3);
+        assertEquals("Wrong state", SudokuState.SQUARE_OCCUPIED,
+                session.setCell(2, 2, (short) 3));
+        assertEquals("Wrong state after overwrite", SudokuState.OK,
+                session.setCell(2, 2, (short) 4));
+        assertTrue("Not valid", session.isValid());
+    }
+
+    @Test
+    /**
+     * Tests that invalid numbers are rejected.
+     */
+    public void testInvalidNumber() {
+        assertEquals("Wrong state", SudokuState.INVALID_NUMBER,
+                session.setCell(1, 1, (short) 10));
+        assertEquals("Cell changed", 0, session.getCell(1, 1));
+        assertEquals("Wrong filled count", 0, session.getFilledCount());
+    }
+
+    @Test
+    /**
+     * Tests the candidates of a cell.
+     */
+    public void testCandidates() {
+        session.setCell(0, 1, (short) 1);
+        session.setCell(1, 0, (short) 2);
+        session.setCell(4, 4, (short) 3);
+        session.setCell(0, 0, (short) 4);
+        assertArrayEquals("Wrong candidates", new long[] { ALL & ~0x3L },
+                session.getCandidates(0, 0));
+        session.setCell(0, 5, (short) 4);
+        assertArrayEquals("Wrong candidates with conflict",
+                new long[] { ALL & ~0xBL }, session.getCandidates(0, 0));
+    }
+
+    @Test
+    /**
+     * Tests whether the candidates can be stored in a passed in array.
+     */
+    public void testCandidatesWithArray() {
+        session.setCell(0, 1, (short) 1);
+        long[] result = new long[1];
+        assertSame("Wrong array", result, session.getCandidates(0, 0,
+                result));
+        assertEquals("Wrong candidates", ALL & ~0x1L, result[0]);
+        session.setCell(1, 0, (short) 2);
+        session.getCandidates(0, 0, result);
+        assertEquals("Wrong updated candidates", ALL & ~0x3L, result[0]);
+    }
+
+    @Test
+    /**
+     * Tests whether a new array is created if the passed in array is too
+     * small.
+     */
+    public void testCandidatesWithArrayTooSmall() {
+        ValidationSession large = new ValidationSession((short) 9);
+        long[] result = large.getCandidates(0, 0, new long[1]);
+        assertArrayEquals("Wrong candidates", new long[] {
+                -1L, (1L << 17) - 1
+        }, result);
+    }
+
+    @Test
+    /**
+     * Tests whether a solved sudoku is detected as complete.
+     */
+    public void testComplete() throws SudokuSolverException {
+        SudokuSolver solver = new SudokuSolver((short) 3);
+        TestSudokuSolver.initPuzzle(solver, TestSudokuSolver.PUZZLE);
+        assertTrue("Not solved", solver.solve());
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                session.setCell(row, col, solver.getCell(row, col));
+            }
+        }
+        assertTrue("Not complete", session.isComplete());
+        session.clear();
+        assertEquals("Not cleared", 0, session.getFilledCount());
+        assertArrayEquals("Wrong candidates", new long[] { ALL },
+                session.getCandidates(0, 0));
+    }
+}